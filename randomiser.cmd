@@ -0,0 +1,45 @@
+@echo off
+rem Starts the Randomiser with a class data sharing (CDS) archive, creating the
+rem archive on the first run.
+rem
+rem The classpath defaults to randomiser.jar next to this script, and can be set
+rem with RANDOMISER_CLASSPATH. The archive is kept next to this script as
+rem randomiser.jsa, unless RANDOMISER_CDS_ARCHIVE names another file. Any
+rem arguments are passed on to the app.
+rem
+rem On JDK 19 and later the JVM creates the archive itself, and recreates it
+rem whenever it no longer matches the app. On JDK 17 and 18 the archive is
+rem written when the first run exits; delete it to have it made again.
+
+setlocal
+
+set "CLASSPATH=%RANDOMISER_CLASSPATH%"
+if not defined CLASSPATH set "CLASSPATH=%~dp0randomiser.jar"
+set "ARCHIVE=%RANDOMISER_CDS_ARCHIVE%"
+if not defined ARCHIVE set "ARCHIVE=%~dp0randomiser.jsa"
+set "JAVA=java"
+if defined JAVA_HOME set "JAVA=%JAVA_HOME%\bin\java"
+
+rem The JVM warns about every class it cannot archive, none of which matter here.
+set "QUIET=-Xlog:cds=off -Xlog:cds+dynamic=off"
+
+if exist "%ARCHIVE%" (
+    rem JDK 17 and 18 do not know -XX:+AutoCreateSharedArchive, so they are told to ignore it
+    rem and just use the archive.
+    "%JAVA%" %QUIET% -XX:+IgnoreUnrecognizedVMOptions -XX:SharedArchiveFile="%ARCHIVE%" -XX:+AutoCreateSharedArchive -cp "%CLASSPATH%" main.java.Launcher %*
+    goto :end
+)
+
+set VERSION=0
+for /f "tokens=3" %%v in ('"%JAVA%" -version 2^>^&1 ^| findstr /i "version"') do (
+    for /f "delims=." %%m in ("%%~v") do set VERSION=%%m
+)
+
+if %VERSION% geq 19 (
+    "%JAVA%" %QUIET% -XX:SharedArchiveFile="%ARCHIVE%" -XX:+AutoCreateSharedArchive -cp "%CLASSPATH%" main.java.Launcher %*
+) else (
+    "%JAVA%" %QUIET% -XX:ArchiveClassesAtExit="%ARCHIVE%" -cp "%CLASSPATH%" main.java.Launcher %*
+)
+
+:end
+endlocal
@@ -0,0 +1,39 @@
+#!/bin/sh
+#
+# Starts the Randomiser with a class data sharing (CDS) archive, creating the
+# archive on the first run.
+#
+# The classpath defaults to randomiser.jar next to this script, and can be set
+# with RANDOMISER_CLASSPATH. The archive is kept next to this script as
+# randomiser.jsa, unless RANDOMISER_CDS_ARCHIVE names another file. Any
+# arguments are passed on to the app.
+#
+# On JDK 19 and later the JVM creates the archive itself, and recreates it
+# whenever it no longer matches the app. On JDK 17 and 18 the archive is
+# written when the first run exits; delete it to have it made again.
+
+DIR=$(cd "$(dirname "$0")" && pwd)
+CLASSPATH=${RANDOMISER_CLASSPATH:-"$DIR/randomiser.jar"}
+ARCHIVE=${RANDOMISER_CDS_ARCHIVE:-"$DIR/randomiser.jsa"}
+JAVA=${JAVA_HOME:+"$JAVA_HOME/bin/"}java
+
+# The JVM warns about every class it cannot archive, none of which matter here.
+QUIET="-Xlog:cds=off -Xlog:cds+dynamic=off"
+
+if [ -f "$ARCHIVE" ]; then
+    # JDK 17 and 18 do not know -XX:+AutoCreateSharedArchive, so they are told to ignore it
+    # and just use the archive.
+    exec "$JAVA" $QUIET -XX:+IgnoreUnrecognizedVMOptions \
+        -XX:SharedArchiveFile="$ARCHIVE" -XX:+AutoCreateSharedArchive \
+        -cp "$CLASSPATH" main.java.Launcher "$@"
+fi
+
+VERSION=$("$JAVA" -version 2>&1 | sed -n 's/.*version "\([0-9]*\).*/\1/p' | head -n 1)
+
+if [ "${VERSION:-0}" -ge 19 ]; then
+    exec "$JAVA" $QUIET -XX:SharedArchiveFile="$ARCHIVE" -XX:+AutoCreateSharedArchive \
+        -cp "$CLASSPATH" main.java.Launcher "$@"
+else
+    exec "$JAVA" $QUIET -XX:ArchiveClassesAtExit="$ARCHIVE" \
+        -cp "$CLASSPATH" main.java.Launcher "$@"
+fi
@@ -31,14 +31,23 @@
 package main.java;
 
 import main.java.app.Randomiser;
+import main.java.util.DrawHistory;
+import main.java.util.JobRunner;
+import main.java.util.PerformanceCheck;
+import main.java.util.SamplingPlanner;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.plaf.FontUIResource;
 import java.awt.Font;
+import java.awt.Graphics;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.util.Enumeration;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Creates and launches the app.
@@ -58,9 +67,129 @@ public class Launcher {
      */
     private static final String ICON_CANNOT_BE_LOADED_ERROR = "Error: \"java/main/resources/icon.png\" could not be loaded.\n";
 
+    /**
+     * The system property that, when set to {@code true}, reports the time from process start
+     * to the first paint of the main window.
+     */
+    private static final String STARTUP_TIMING_PROPERTY = "randomiser.startupTiming";
+
+    /**
+     * The command-line argument that makes the app exit as soon as the main window has been painted.
+     *
+     * <p>This is used to record a class data sharing archive of the classes needed at startup.
+     * See the README for details.
+     */
+    private static final String EXIT_AFTER_STARTUP_ARG = "--exit-after-startup";
+
+    /**
+     * The command-line argument that runs the jobs in a job file, without opening the main window.
+     *
+     * <p>It may be followed by {@code PARALLELISM_ARG} and {@code OUTPUT_ARG}. See the README for
+     * the format of job files.
+     */
+    private static final String JOBS_ARG = "--jobs";
+
+    /**
+     * The command-line argument that sets the largest number of jobs to run at once.
+     */
+    private static final String PARALLELISM_ARG = "--parallelism";
+
+    /**
+     * The command-line argument that sets the directory job output files are written to.
+     */
+    private static final String OUTPUT_ARG = "--output";
+
+    /**
+     * Provides the usage of the job runner, for when its arguments are not valid.
+     */
+    private static final String JOBS_USAGE = "Usage: " + JOBS_ARG + " <job file> ["
+            + PARALLELISM_ARG + " <1-" + JobRunner.MAX_PARALLELISM + ">] [" + OUTPUT_ARG + " <directory>]";
+
+    /**
+     * The command-line argument that runs the allocation and timing checks, without opening the
+     * main window.
+     */
+    private static final String CHECK_PERFORMANCE_ARG = "--check-performance";
+
     public static void main(String[] args){
-        setLookAndFeel();
-        showApp();
+        if(args.length > 0 && args[0].equals(JOBS_ARG)){
+            System.exit(runJobs(args));
+        }else if(args.length > 0 && args[0].equals(CHECK_PERFORMANCE_ARG)){
+            System.exit(checkPerformance());
+        }
+
+        final boolean exitAfterStartup = args.length > 0 && args[0].equals(EXIT_AFTER_STARTUP_ARG);
+
+        SwingUtilities.invokeLater(() -> {
+            setLookAndFeel();
+            showApp(exitAfterStartup);
+        });
+    }
+
+    /**
+     * Runs the jobs in a job file, and prints a summary of each job and of the whole run.
+     *
+     * <p>Jobs run at once on as many threads as there are processors, unless another
+     * parallelism is given. Output files are written to the current directory, unless another
+     * directory is given.
+     *
+     * @param args The command-line arguments, starting with {@code JOBS_ARG}.
+     *
+     * @return The exit status: 0 if every job succeeded, 1 if any job failed, and 2 if the
+     *         arguments or job file are not valid.
+     */
+    private static int runJobs(String[] args){
+        Path jobFile = null;
+        Path outputDirectory = Path.of("");
+        int parallelism = Math.min(Runtime.getRuntime().availableProcessors(), JobRunner.MAX_PARALLELISM);
+
+        try{
+            for(int i = 0; i < args.length; i += 2){
+                if(i + 1 == args.length){
+                    throw new IllegalArgumentException(args[i] + " must be followed by a value.");
+                }
+
+                switch(args[i]){
+                    case JOBS_ARG -> jobFile = Path.of(args[i + 1]);
+                    case PARALLELISM_ARG -> parallelism = Integer.parseInt(args[i + 1]);
+                    case OUTPUT_ARG -> outputDirectory = Path.of(args[i + 1]);
+                    default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            }
+
+            final JobRunner runner = new JobRunner(outputDirectory, parallelism);
+            final List<JobRunner.Job> jobs = JobRunner.readJobs(jobFile);
+
+            final long start = System.nanoTime();
+            final List<JobRunner.Result> results = runner.run(jobs);
+            final long elapsed = System.nanoTime() - start;
+
+            System.out.print(JobRunner.summarise(results, elapsed));
+
+            return results.stream().allMatch(JobRunner.Result::isSuccessful) ? 0 : 1;
+        }catch(IllegalArgumentException e){
+            System.err.println("Error: " + e.getMessage());
+            System.err.println(JOBS_USAGE);
+        }catch(IOException e){
+            System.err.println("Error: " + e);
+        }catch(InterruptedException e){
+            System.err.println("Error: The jobs were interrupted.");
+        }
+
+        return 2;
+    }
+
+    /**
+     * Runs the allocation and timing checks, and prints the outcome of each.
+     *
+     * @return The exit status: 0 if every check passed, and 1 otherwise.
+     */
+    private static int checkPerformance(){
+        final List<PerformanceCheck.Check> checks = PerformanceCheck.run(new SplittableRandom());
+
+        System.out.print(PerformanceCheck.summarise(checks));
+
+        return checks.stream().allMatch(PerformanceCheck.Check::isPassed) ? 0 : 1;
     }
 
     /**
@@ -91,33 +220,52 @@ public class Launcher {
 
     /**
      * Sets the default font of the app to the default Windows font.
+     *
+     * <p>Font keys are recognised by name, so that the look and feel's lazily created
+     * defaults (borders, icons and so on) are not all created at startup just to
+     * check whether they are fonts.
      */
     private static void setWindowsUIFont(){
-        Enumeration keys = UIManager.getDefaults().keys();
-        while (keys.hasMoreElements()) {
-            Object key = keys.nextElement();
-            Object value = UIManager.get (key);
-            if (value instanceof javax.swing.plaf.FontUIResource)
-                UIManager.put (key,
-                        new FontUIResource("Segoe UI", Font.PLAIN,12));
+        final FontUIResource font = new FontUIResource("Segoe UI", Font.PLAIN, 12);
+
+        for(Object key : UIManager.getLookAndFeelDefaults().keySet().toArray()){
+            if(key instanceof String name
+                    && (name.endsWith(".font") || name.endsWith("Font"))){
+                UIManager.put(key, font);
+            }
         }
     }
 
     /**
      * Creates and displays the main JFrame of the app.
+     *
+     * <p>The icon is loaded in the background, so that the window can be shown without waiting for it.
+     * The sampling thresholds are also loaded, or calibrated, in the background; until then, draws
+     * are planned with the default thresholds.
+     *
+     * @param exitAfterStartup Whether the app should exit as soon as the window has been painted.
      */
-    private static void showApp(){
+    private static void showApp(boolean exitAfterStartup){
         JFrame frame = new JFrame(Randomiser.TITLE);
         frame.setContentPane(new Randomiser().getMainPanel());
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.pack();
         frame.setLocationRelativeTo(null);
-        setIcon(frame);
+
+        if(exitAfterStartup || Boolean.getBoolean(STARTUP_TIMING_PROPERTY)){
+            watchForFirstPaint(frame, exitAfterStartup);
+        }
+
         frame.setVisible(true);
+        setIcon(frame);
+
+        if(!exitAfterStartup){
+            SamplingPlanner.loadOrCalibrate(DrawHistory.getDefaultDirectory());
+        }
     }
 
     /**
-     * Sets the icon of the JFrame.
+     * Sets the icon of the JFrame, once it has been loaded in the background.
      *
      * <p>If the icon cannot be loaded for any reason, an error message is
      * displayed to the user, however this will not stop the app from running.
@@ -125,13 +273,62 @@ public class Launcher {
      * @param frame The main {@code JFrame} of the app.
      */
     private static void setIcon(JFrame frame){
-        try{
-            BufferedImage icon = ImageIO.read(ClassLoader.getSystemResource("icon.png"));
-            frame.setIconImage(icon);
-        }catch(IOException | IllegalArgumentException e){
-            JOptionPane.showMessageDialog(null,
-                    ICON_CANNOT_BE_LOADED_ERROR, Randomiser.TITLE,
-                    JOptionPane.ERROR_MESSAGE);
-        }
+        new SwingWorker<BufferedImage, Void>(){
+            @Override
+            protected BufferedImage doInBackground() throws IOException{
+                return ImageIO.read(ClassLoader.getSystemResource("icon.png"));
+            }
+
+            @Override
+            protected void done(){
+                try{
+                    frame.setIconImage(get());
+                }catch(InterruptedException | ExecutionException e){
+                    JOptionPane.showMessageDialog(null,
+                            ICON_CANNOT_BE_LOADED_ERROR, Randomiser.TITLE,
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Reports the time from process start to the first paint of the JFrame, and optionally
+     * exits the app once it has been painted.
+     *
+     * <p>A transparent glass pane is shown over the window, and removed again the first time
+     * it is painted.
+     *
+     * @param frame The main {@code JFrame} of the app.
+     * @param exitAfterStartup Whether the app should exit once the window has been painted.
+     */
+    private static void watchForFirstPaint(JFrame frame, boolean exitAfterStartup){
+        final JComponent glassPane = new JComponent(){
+            private boolean painted = false;
+
+            @Override
+            protected void paintComponent(Graphics g){
+                if(painted){
+                    return;
+                }
+
+                painted = true;
+
+                final long elapsed = System.currentTimeMillis()
+                        - ManagementFactory.getRuntimeMXBean().getStartTime();
+                System.out.println("First paint after " + elapsed + " ms.");
+
+                SwingUtilities.invokeLater(() -> {
+                    setVisible(false);
+
+                    if(exitAfterStartup){
+                        System.exit(0);
+                    }
+                });
+            }
+        };
+
+        frame.setGlassPane(glassPane);
+        glassPane.setVisible(true);
     }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.app;
+
+import main.java.util.Dice;
+
+import javax.swing.*;
+
+/**
+ * Holds the components of the dice roll tab, as laid out by its form.
+ *
+ * <p>The tab is only built the first time it is selected, and {@code Randomiser} then takes over
+ * its components.
+ */
+class DiceRollTab {
+    /**
+     * The top level {@code JPanel} of the tab.
+     */
+    JPanel root;
+
+    JSpinner diceQuantity;
+    JComboBox<Dice> diceType;
+    JCheckBox rollForPercentage;
+    JCheckBox keepPreviousRolls;
+    JCheckBox diceCountFaces;
+    JButton rollDiceButton;
+    JTextArea diceRollOutput;
+    JButton diceRollClear;
+    JButton diceRollExport;
+    JTextField diceCustomFaces;
+}
@@ -30,16 +30,47 @@
 
 package main.java.app;
 
+import main.java.util.ConstrainedShuffle;
+import main.java.util.CustomDie;
+import main.java.util.Distribution;
+import main.java.util.Distributions;
 import main.java.util.Dice;
+import main.java.util.DrawEvent;
+import main.java.util.DrawHistory;
+import main.java.util.DrawRecord;
+import main.java.util.DrawSession;
 import main.java.util.Format;
+import main.java.util.GroupSplitter;
+import main.java.util.Histogram;
+import main.java.util.ItemImporter;
+import main.java.util.LineIndex;
+import main.java.util.OutputHistory;
+import main.java.util.PackedResults;
+import main.java.util.ParallelShuffle;
 import main.java.util.Random;
+import main.java.util.ResultExporter;
+import main.java.util.TicketBatch;
+import main.java.util.TokenGenerator;
+import main.java.util.WeightedSampler;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.security.SecureRandom;
 import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
 
 /**
  * Provides handling methods for components on the main app window.
@@ -70,12 +101,22 @@ public class Randomiser {
     /**
      * The upper-bound limit on the random number generator.
      */
-    private static final int RAND_NUM_MAXIMUM = 10_000_000;
+    private static final long RAND_NUM_MAXIMUM = Long.MAX_VALUE;
 
     /**
      * The lower-bound limit on the random number generator.
      */
-    private static final int RAND_NUM_MINIMUM = -10_000_000;
+    private static final long RAND_NUM_MINIMUM = Long.MIN_VALUE;
+
+    /**
+     * Defines a default/starting value of 1 for a {@code JSpinner} holding a long.
+     */
+    private static final long DEFAULT_LONG_SPINNER_VALUE = 1L;
+
+    /**
+     * Defines that each {@code JSpinner} holding a long should increment in steps of 1.
+     */
+    private static final long DEFAULT_LONG_SPINNER_STEP = 1L;
 
     /**
      * The maximum quantity that the user can request on any tab.
@@ -85,6 +126,61 @@ public class Randomiser {
      */
     private static final int MAX_QUANTITY = 100;
 
+    /**
+     * The maximum number of tickets that the user can request on the random number generator.
+     */
+    private static final int MAX_TICKETS = 10_000_000;
+
+    /**
+     * The maximum number of dice that the user can roll at once when only counting each face.
+     */
+    private static final long MAX_COUNTED_DICE = 1_000_000_000_000L;
+
+    /**
+     * The most tickets that are displayed on the random number generator. Larger batches
+     * are exported straight to a file.
+     */
+    private static final int MAX_DISPLAYED_TICKETS = 1_000;
+
+    /**
+     * The maximum number of tokens that the user can request on the token generator.
+     */
+    private static final int MAX_TOKENS = 10_000_000;
+
+    /**
+     * The most tokens that are displayed on the token generator. Larger quantities are
+     * exported straight to a file.
+     */
+    private static final int MAX_DISPLAYED_TOKENS = 1_000;
+
+    /**
+     * The length of each token when the app starts.
+     */
+    private static final int DEFAULT_TOKEN_LENGTH = 16;
+
+    /**
+     * The maximum number of variates that the user can draw at once on the distribution tab.
+     */
+    private static final int MAX_SAMPLES = 100_000_000;
+
+    /**
+     * The number of variates drawn on the distribution tab when the app starts.
+     */
+    private static final int DEFAULT_SAMPLES = 10_000;
+
+    /**
+     * The most bins in a histogram on the distribution tab, and the width of its longest bar.
+     */
+    private static final int HISTOGRAM_BINS = 40;
+    private static final int HISTOGRAM_BAR_WIDTH = 50;
+
+    /**
+     * The limits of the parameters of a distribution. Parameters that must be positive are at
+     * least {@code MIN_POSITIVE_PARAMETER}.
+     */
+    private static final double MAX_PARAMETER = 1e15;
+    private static final double MIN_POSITIVE_PARAMETER = 1e-9;
+
     /**
      * The minimum quantity that the user can request on any tab.
      *
@@ -131,21 +227,187 @@ public class Randomiser {
                                 There are not enough items in the list.
                                 All items will be chosen.""";
 
+    /**
+     * Provides text for the tooltip of the 'Randomise' and 'Select' buttons
+     * while the input box holds more items than allowed.
+     */
+    private static final String TOO_MANY_ITEMS_TOOLTIP = "Number of items may not exceed "
+            + NUMBER_FORMAT.format(MAX_LIST_ITEMS)
+            + ".";
+
+    /**
+     * Provides text for a warning message when the user has requested more numbers
+     * than remain undrawn in the current no-repeat session.
+     */
+    private static final String RAND_NUM_SESSION_QUANTITY_TOO_HIGH_MESSAGE = """
+                                There are not enough numbers left in this range that haven't been drawn.
+                                All remaining numbers will be generated.""";
+
+    /**
+     * Provides text for an error message when the user has requested no repeats over
+     * a range that is too large to track.
+     */
+    private static final String RAND_NUM_SESSION_RANGE_TOO_LARGE_MESSAGE = "To avoid repeating previous draws, the range may contain at most "
+            + NUMBER_FORMAT.format(DrawSession.MAX_RANGE)
+            + " numbers.";
+
+    /**
+     * Provides text for a warning message when the user has requested more items
+     * than remain unselected in the current no-repeat session.
+     */
+    private static final String RAND_ITEM_SESSION_QUANTITY_TOO_HIGH_MESSAGE = """
+                                There are not enough items left in the list that haven't been chosen.
+                                All remaining items will be chosen.""";
+
+    /**
+     * Provides text for an error message when the user requests tickets from a range
+     * outside of a 32-bit integer.
+     */
+    private static final String TICKETS_RANGE_TOO_LARGE_MESSAGE = "Tickets can only be drawn from numbers between "
+            + NUMBER_FORMAT.format(Integer.MIN_VALUE) + " and "
+            + NUMBER_FORMAT.format(Integer.MAX_VALUE) + ".";
+
+    /**
+     * Provides text for a message when the user requests more tickets than can be displayed.
+     */
+    private static final String TICKETS_WILL_BE_EXPORTED_MESSAGE = "More than "
+            + NUMBER_FORMAT.format(MAX_DISPLAYED_TICKETS)
+            + " tickets can't be displayed. Choose a file to save them to.";
+
+    /**
+     * Provides text for a message when the user requests more tokens than can be displayed.
+     */
+    private static final String TOKENS_WILL_BE_EXPORTED_MESSAGE = "More than "
+            + NUMBER_FORMAT.format(MAX_DISPLAYED_TOKENS)
+            + " tokens can't be displayed. Choose a file to save them to.";
+
+    /**
+     * Provides an error message for when the characters of a token cannot be used.
+     */
+    private static final String TOKEN_CHARACTERS_INVALID_ERROR = "Error: the characters for the tokens are not valid.\n";
+
+    /**
+     * Provides an error message for when the parameters of a distribution cannot be used.
+     */
+    private static final String DISTRIBUTION_PARAMETERS_INVALID_ERROR = "Error: the parameters of the distribution are not valid.\n";
+
+    /**
+     * Provides an error message for when the draw history cannot be opened.
+     */
+    private static final String HISTORY_CANNOT_BE_OPENED_ERROR = "Error: the draw history could not be opened. Draws will not be saved.\n";
+
+    /**
+     * Provides an error message for when a draw cannot be saved to the history.
+     */
+    private static final String HISTORY_CANNOT_BE_SAVED_ERROR = "Error: the draw could not be saved to the history.\n";
+
+    /**
+     * Provides text for the dialog asking which column of a CSV or TSV file to import.
+     */
+    private static final String IMPORT_COLUMN_PROMPT = "Which column should the items be imported from?";
+
+    /**
+     * Provides an error message for when the user enters an invalid column to import.
+     */
+    private static final String IMPORT_COLUMN_INVALID_ERROR = "Error: the column must be a whole number, starting from 1.";
+
+    /**
+     * Provides an error message for when a file cannot be imported.
+     */
+    private static final String IMPORT_FAILED_ERROR = "Error: the file could not be imported.\n";
+
+    /**
+     * Provides an error message for when the custom faces of a die cannot be understood.
+     */
+    private static final String CUSTOM_FACES_INVALID_ERROR = "Error: the custom faces are not valid.\n";
+
+    /**
+     * Provides an error message for when the weight of an item cannot be understood.
+     */
+    private static final String WEIGHTS_INVALID_ERROR = "Error: the weights of the items are not valid.\n";
+
+    /**
+     * Provides an error message for when weighted items are split into groups, deranged or paired.
+     */
+    private static final String WEIGHTS_NOT_SUPPORTED_ERROR = "Error: weights cannot be used to split a list into groups, to move every item, or to pair items.";
+
+    /**
+     * Provides an error message for when weighted items are chosen in a no-repeat session.
+     */
+    private static final String WEIGHTS_NO_REPEAT_ERROR = "Error: weights cannot be used when previous items must not repeat.";
+
+    /**
+     * Provides an error message for when a list cannot be shuffled so that every item moves.
+     */
+    private static final String DERANGEMENT_IMPOSSIBLE_ERROR = "Error: a list needs at least two items for every item to move.";
+
+    /**
+     * Provides an error message for when the items of a list cannot be paired.
+     */
+    private static final String PAIRING_FAILED_ERROR = "Error: the items could not be paired.\n";
+
+    /**
+     * Provides text for a message when the user tries to export before making a draw.
+     */
+    private static final String NOTHING_TO_EXPORT_MESSAGE = "There are no results to export yet.";
+
+    /**
+     * Provides text for the dialog asking whether to replace an existing file with an export.
+     */
+    private static final String EXPORT_REPLACE_FILE_PROMPT = "This file already exists. Do you want to replace it?";
+
+    /**
+     * Provides an error message for when results cannot be exported.
+     */
+    private static final String EXPORT_FAILED_ERROR = "Error: the results could not be exported.\n";
+
+    /**
+     * Provides the text shown in an input box in place of the items imported into it.
+     * The number of items and the file name are inserted by {@code String.format}.
+     */
+    private static final String IMPORTED_ITEMS_TEXT = """
+                                Imported %s items from %s.
+                                Click 'Clear' to type a list instead.""";
+
+    /**
+     * Provides a seed for each draw.
+     *
+     * <p>Each draw is generated from its own seed, so that the seed can be stored in the
+     * draw history and the draw can be reproduced later.
+     */
+    private static final SecureRandom SEED_SOURCE = new SecureRandom();
+
     /**
      * This is the top level {@code JPanel} of the frame.
      */
     private JPanel mainPanel;
 
+    /**
+     * The tabs of the frame. Every tab but the first starts as one of the empty panels below,
+     * and is built the first time it is selected.
+     */
+    private JTabbedPane tabs;
+    private JPanel diceRollTab;
+    private JPanel listRandomiserTab;
+    private JPanel randomItemTab;
+    private JPanel tokenTab;
+    private JPanel distributionTab;
+
     /**
      * Components of the random number generator tab.
      */
     private JSpinner randNumQuantity;
+    private JSpinner randNumTickets;
     private JSpinner randNumLowerBound;
     private JSpinner randNumUpperBound;
     private JCheckBox randNumAllowDuplicates;
     private JCheckBox randNumKeepPrevious;
+    private JCheckBox randNumNoRepeat;
+    private JCheckBox randNumSorted;
     private JTextArea generatedNumsOutput;
+    private OutputHistory generatedNumsHistory;
     private JButton randNumClear;
+    private JButton randNumExport;
     private JButton randNumGenerate;
 
     /**
@@ -155,9 +417,19 @@ public class Randomiser {
     private JComboBox<Dice> diceType;
     private JCheckBox rollForPercentage;
     private JCheckBox keepPreviousRolls;
+    private JCheckBox diceCountFaces;
+    private JTextField diceCustomFaces;
+
+    /**
+     * Stores the die compiled from the custom faces most recently rolled, so that it is only
+     * compiled again when the faces change.
+     */
+    private CustomDie customDie;
     private JTextArea diceRollOutput;
+    private OutputHistory diceRollHistory;
     private JButton rollDiceButton;
     private JButton diceRollClear;
+    private JButton diceRollExport;
 
     /**
      * Components of the list randomiser tab.
@@ -166,8 +438,16 @@ public class Randomiser {
     private JTextArea randomiseListInput;
     private JTextArea randomiseListOutput;
     private JButton randListInputClear;
+    private JButton randListImport;
     private JButton randomiseListButton;
     private JButton randListOutputClear;
+    private JButton randListExport;
+    private JSpinner randListGroupCount;
+    private JCheckBox randListBalanceByTag;
+    private JCheckBox randListWeighted;
+    private JCheckBox randListDerange;
+    private JCheckBox randListPairs;
+    private LineIndex randListInputLines;
 
     /**
      * Components of the item picker tab.
@@ -175,12 +455,126 @@ public class Randomiser {
     private JSpinner randItemQuantity;
     private JCheckBox randItemAllowDuplicates;
     private JCheckBox randItemKeepPrevious;
+    private JCheckBox randItemNoRepeat;
+    private JCheckBox randItemWeighted;
     private JLabel randItemInstruction;
     private JTextArea randItemInput;
     private JButton randItemInputClear;
+    private JButton randItemImport;
     private JButton randItemSelect;
     private JTextArea randItemOutput;
+    private OutputHistory randItemHistory;
     private JButton randItemOutputClear;
+    private JButton randItemExport;
+    private LineIndex randItemInputLines;
+
+    /**
+     * Components of the token generator tab.
+     */
+    private JSpinner tokenQuantity;
+    private JSpinner tokenLength;
+    private JComboBox<TokenGenerator.Alphabet> tokenAlphabet;
+    private JTextField tokenCharacters;
+    private JCheckBox tokenSecure;
+    private JCheckBox tokenKeepPrevious;
+    private JButton generateTokensButton;
+    private JTextArea tokenOutput;
+    private OutputHistory tokenHistory;
+    private JButton tokenClear;
+    private JButton tokenExport;
+
+    /**
+     * Components of the distribution tab.
+     */
+    private JSpinner distQuantity;
+    private JComboBox<Distribution> distType;
+    private JLabel distFirstParameterLabel;
+    private JSpinner distFirstParameter;
+    private JLabel distSecondParameterLabel;
+    private JSpinner distSecondParameter;
+    private JButton distSampleButton;
+    private JTextArea distOutput;
+    private JButton distClear;
+    private JButton distExport;
+
+    /**
+     * Records the numbers drawn on the random number generator tab while
+     * {@code randNumNoRepeat} is checked.
+     *
+     * <p>This is {@code null} until the first such draw, and is discarded when the
+     * output is cleared or a different range is entered.
+     */
+    private DrawSession randNumSession;
+
+    /**
+     * Records the indices of items chosen on the item picker tab while
+     * {@code randItemNoRepeat} is checked, along with the list they were chosen from.
+     *
+     * <p>These are discarded when the output is cleared or the list changes.
+     */
+    private DrawSession randItemSession;
+    private List<String> randItemSessionList;
+
+    /**
+     * Stores the items imported from a file on the list randomiser and item picker tabs.
+     *
+     * <p>While these are set, they are used in place of the text in the input box, which
+     * is locked. They are discarded when the input is cleared.
+     */
+    private List<String> randListImportedItems;
+    private List<String> randItemImportedItems;
+
+    /**
+     * Stores the results of the most recent draw on each tab, so that they can be exported.
+     */
+    private List<Long> lastGeneratedNums = List.of();
+    private List<? extends Number> lastDiceRoll = List.of();
+    private List<String> lastCustomDiceRoll = List.of();
+    private List<String> lastRandomisedList = List.of();
+    private List<String> lastSelectedItems = List.of();
+    private List<String> lastTokens = List.of();
+
+    /**
+     * Exports the most recent batch of tickets on the random number generator tab, by drawing it
+     * again from the same seed. This is {@code null} if the most recent draw was not a batch.
+     */
+    private ResultWriter lastTickets;
+
+    /**
+     * Exports the most recent tokens that were too many to display, by generating them again from
+     * the same seed. This is {@code null} if the most recent tokens were displayed, or came from the
+     * secure generator, which cannot be replayed.
+     */
+    private ResultWriter lastTokenBatch;
+
+    /**
+     * Stores the histogram of the most recent sample on the distribution tab, so that it can be
+     * exported. This is {@code null} until a sample is drawn.
+     */
+    private Histogram lastHistogram;
+
+    /**
+     * Writes results to a file, for use by {@code exportResults}.
+     */
+    private interface ResultWriter{
+        /**
+         * Writes results to a file.
+         *
+         * @param file The {@code Path} of the file.
+         * @param format The {@code FileFormat} to write the file in.
+         *
+         * @throws IOException if the file cannot be written.
+         */
+        void write(Path file, ItemImporter.FileFormat format) throws IOException;
+    }
+
+    /**
+     * Stores every draw made on any tab.
+     *
+     * <p>The history is opened in the background, so that opening it does not delay the
+     * window being shown. It completes with {@code null} if the history could not be opened.
+     */
+    private final CompletableFuture<DrawHistory> history = CompletableFuture.supplyAsync(Randomiser::openHistory);
 
     /**
      * Returns the top level JPanel of the frame.
@@ -191,15 +585,91 @@ public class Randomiser {
         return mainPanel;
     }
 
+    /**
+     * Opens the draw history in its default directory.
+     *
+     * <p>If the history cannot be opened, an error message is displayed to the user, however this
+     * will not stop the app from running.
+     *
+     * @return The opened {@code DrawHistory}, or {@code null} if it could not be opened.
+     */
+    private static DrawHistory openHistory(){
+        try{
+            final DrawHistory history = DrawHistory.open(DrawHistory.getDefaultDirectory());
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> closeHistory(history), "close-history"));
+
+            return history;
+        }catch(IOException e){
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+                    HISTORY_CANNOT_BE_OPENED_ERROR + e.getMessage(),
+                    TITLE, JOptionPane.ERROR_MESSAGE));
+
+            return null;
+        }
+    }
+
+    /**
+     * Closes the draw history as the app exits, so that recent draws are forced to disk and its
+     * lock is released.
+     *
+     * @param history The {@code DrawHistory} to close.
+     */
+    private static void closeHistory(DrawHistory history){
+        try{
+            history.close();
+        }catch(IOException e){
+            // The app is exiting, so there is no one left to tell.
+        }
+    }
+
+    /**
+     * Stores a draw in the draw history.
+     *
+     * <p>If the draw cannot be stored, an error message is displayed to the user.
+     *
+     * @param type The kind of draw.
+     * @param seed The seed the draw was generated from.
+     * @param lowerBound The lower-bound of the range drawn from.
+     * @param upperBound The upper-bound of the range drawn from.
+     * @param flags Any of the {@code DrawRecord.FLAG_} constants, combined with bitwise or.
+     * @param numbers The numeric results of the draw.
+     * @param items The text results of the draw.
+     */
+    private void recordDraw(DrawRecord.Type type, long seed, long lowerBound, long upperBound,
+                            int flags, List<? extends Number> numbers, List<String> items){
+        final DrawHistory history = this.history.join();
+
+        if(history == null){
+            return;
+        }
+
+        final long[] numbersArray = new long[numbers.size()];
+        for(int i = 0; i < numbersArray.length; i++){
+            numbersArray[i] = numbers.get(i).longValue();
+        }
+
+        try{
+            history.append(new DrawRecord(type, System.currentTimeMillis(), seed,
+                    lowerBound, upperBound, flags, numbersArray, items));
+        }catch(IOException | IllegalArgumentException e){
+            JOptionPane.showMessageDialog(mainPanel,
+                    HISTORY_CANNOT_BE_SAVED_ERROR + e.getMessage(),
+                    TITLE, JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     /**
      * Initialises components of the UI, where initialisation code cannot be generated by the IDE.
      * <p>This method is called by the class constructor generated by the IDE.
+     *
+     * <p>Only the random number generator tab is initialised here. The other tabs are built by
+     * {@code buildSelectedTab} when they are first selected.
      */
     private void createUIComponents() {
+        tabs = new JTabbedPane();
+        tabs.addChangeListener(e -> buildSelectedTab());
+
         createRandNumComponents();
-        createDiceRollComponents();
-        createListRandomiserComponents();
-        createRandomItemComponents();
     }
 
     /**
@@ -211,129 +681,665 @@ public class Randomiser {
                         MIN_QUANTITY, MAX_QUANTITY,
                         DEFAULT_SPINNER_STEP));
 
+        randNumTickets = new JSpinner(
+                new SpinnerNumberModel(DEFAULT_SPINNER_VALUE,
+                        MIN_QUANTITY, MAX_TICKETS,
+                        DEFAULT_SPINNER_STEP));
+
         randNumLowerBound = new JSpinner(
                 new SpinnerNumberModel(
-                        DEFAULT_SPINNER_VALUE,
-                        RAND_NUM_MINIMUM,
-                        RAND_NUM_MAXIMUM,
-                        DEFAULT_SPINNER_STEP));
+                        (Long) DEFAULT_LONG_SPINNER_VALUE,
+                        (Long) RAND_NUM_MINIMUM,
+                        (Long) RAND_NUM_MAXIMUM,
+                        (Long) DEFAULT_LONG_SPINNER_STEP));
 
         randNumUpperBound = new JSpinner(
                 new SpinnerNumberModel(
-                        DEFAULT_SPINNER_VALUE,
-                        RAND_NUM_MINIMUM,
-                        RAND_NUM_MAXIMUM,
-                        DEFAULT_SPINNER_STEP));
+                        (Long) DEFAULT_LONG_SPINNER_VALUE,
+                        (Long) RAND_NUM_MINIMUM,
+                        (Long) RAND_NUM_MAXIMUM,
+                        (Long) DEFAULT_LONG_SPINNER_STEP));
+
+        generatedNumsOutput = new JTextArea();
+        generatedNumsHistory = new OutputHistory(generatedNumsOutput);
 
         randNumGenerate = new JButton();
         randNumGenerate.addActionListener(e -> generateRandomNumbers());
 
         randNumClear = new JButton();
         randNumClear.addActionListener(e -> clearGeneratedNumsOutput());
+
+        randNumExport = new JButton();
+        randNumExport.addActionListener(e -> {
+            if(lastTickets != null){
+                exportResults(false, lastTickets);
+            }else{
+                exportNumbers(lastGeneratedNums);
+            }
+        });
     }
 
     /**
-     * Initialises components of the dice roll tab.
+     * Builds the tab that has just been selected, if it has not been built yet.
+     *
+     * <p>Only the random number generator tab is built with the window, so that the window can
+     * be shown sooner. Every other tab starts as an empty panel, which is filled with the tab's
+     * components the first time it is selected.
+     */
+    private void buildSelectedTab(){
+        final Component selected = tabs.getSelectedComponent();
+
+        if(!(selected instanceof JPanel placeholder) || placeholder.getComponentCount() > 0){
+            return;
+        }
+
+        final JComponent tab;
+
+        if(placeholder == diceRollTab){
+            tab = buildDiceRollTab();
+        }else if(placeholder == listRandomiserTab){
+            tab = buildListRandomiserTab();
+        }else if(placeholder == randomItemTab){
+            tab = buildRandomItemTab();
+        }else if(placeholder == tokenTab){
+            tab = buildTokenTab();
+        }else if(placeholder == distributionTab){
+            tab = buildDistributionTab();
+        }else{
+            return;
+        }
+
+        placeholder.add(tab, BorderLayout.CENTER);
+        placeholder.revalidate();
+    }
+
+    /**
+     * Builds the dice roll tab, and initialises its components.
+     *
+     * @return The top level component of the tab.
      */
-    private void createDiceRollComponents(){
-        diceQuantity = new JSpinner(
+    private JComponent buildDiceRollTab(){
+        final DiceRollTab tab = new DiceRollTab();
+
+        diceQuantity = tab.diceQuantity;
+        diceQuantity.setModel(
                 new SpinnerNumberModel(DEFAULT_SPINNER_VALUE,
                         MIN_QUANTITY, MAX_QUANTITY,
                         DEFAULT_SPINNER_STEP));
         diceQuantity.addChangeListener(e -> toggleRollForPercentage());
 
-        diceType = new JComboBox<>(new DefaultComboBoxModel<>(Dice.values()));
+        rollForPercentage = tab.rollForPercentage;
+        keepPreviousRolls = tab.keepPreviousRolls;
+
+        diceType = tab.diceType;
+        diceType.setModel(new DefaultComboBoxModel<>(Dice.values()));
         diceType.setSelectedItem(Dice.D6);
         diceType.addActionListener(e -> toggleRollForPercentage());
 
-        rollDiceButton = new JButton();
+        diceCountFaces = tab.diceCountFaces;
+        diceCountFaces.addActionListener(e -> toggleCountFaces());
+
+        diceRollOutput = tab.diceRollOutput;
+        diceRollHistory = new OutputHistory(diceRollOutput);
+
+        rollDiceButton = tab.rollDiceButton;
         rollDiceButton.addActionListener(e -> rollDice());
 
-        diceRollClear = new JButton();
+        diceRollClear = tab.diceRollClear;
         diceRollClear.addActionListener(e -> clearDiceRollOutput());
+
+        diceRollExport = tab.diceRollExport;
+        diceRollExport.addActionListener(e -> exportDiceRoll());
+
+        diceCustomFaces = tab.diceCustomFaces;
+
+        toggleRollForPercentage();
+
+        return tab.root;
     }
 
     /**
-     * Initialises components of the list randomiser tab.
+     * Builds the list randomiser tab, and initialises its components.
+     *
+     * @return The top level component of the tab.
      */
-    private void createListRandomiserComponents(){
-        listRandomiserInstruction = new JLabel(LIST_INPUT_INSTRUCTION_TEXT);
+    private JComponent buildListRandomiserTab(){
+        final ListRandomiserTab tab = new ListRandomiserTab();
+
+        listRandomiserInstruction = tab.listRandomiserInstruction;
+        listRandomiserInstruction.setText(LIST_INPUT_INSTRUCTION_TEXT);
 
-        randListInputClear = new JButton();
+        randListInputClear = tab.randListInputClear;
         randListInputClear.addActionListener((e -> clearRandomiseListInput()));
 
-        randomiseListButton = new JButton();
+        randListImport = tab.randListImport;
+        randListImport.addActionListener(e -> importItems(randomiseListInput, items -> randListImportedItems = items));
+
+        randomiseListButton = tab.randomiseListButton;
         randomiseListButton.addActionListener(e -> randomiseList());
 
-        randListOutputClear = new JButton();
+        randomiseListInput = tab.randomiseListInput;
+        randListInputLines = new LineIndex(randomiseListInput.getDocument());
+        randListInputLines.addChangeListener(e -> checkItemCount(randListInputLines, randomiseListButton));
+
+        randomiseListOutput = tab.randomiseListOutput;
+        randListBalanceByTag = tab.randListBalanceByTag;
+        randListWeighted = tab.randListWeighted;
+
+        randListGroupCount = tab.randListGroupCount;
+        randListGroupCount.setModel(
+                new SpinnerNumberModel(DEFAULT_SPINNER_VALUE,
+                        MIN_QUANTITY, MAX_LIST_ITEMS,
+                        DEFAULT_SPINNER_STEP));
+        randListGroupCount.addChangeListener(e -> toggleListWeighted());
+
+        randListDerange = tab.randListDerange;
+        randListDerange.addActionListener(e -> toggleListWeighted());
+
+        randListPairs = tab.randListPairs;
+        randListPairs.addActionListener(e -> toggleListWeighted());
+
+        randListOutputClear = tab.randListOutputClear;
         randListOutputClear.addActionListener(e -> clearRandomiseListOutput());
+
+        randListExport = tab.randListExport;
+        randListExport.addActionListener(e -> exportItems(lastRandomisedList));
+
+        return tab.root;
     }
 
     /**
-     * Initialises components of the random item tab.
+     * Builds the item picker tab, and initialises its components.
+     *
+     * @return The top level component of the tab.
      */
-    private void createRandomItemComponents(){
-        randItemQuantity = new JSpinner(
+    private JComponent buildRandomItemTab(){
+        final RandomItemTab tab = new RandomItemTab();
+
+        randItemQuantity = tab.randItemQuantity;
+        randItemQuantity.setModel(
                 new SpinnerNumberModel(DEFAULT_SPINNER_VALUE,
                         MIN_QUANTITY, MAX_QUANTITY,
                         DEFAULT_SPINNER_STEP));
 
-        randItemInstruction = new JLabel(LIST_INPUT_INSTRUCTION_TEXT);
+        randItemAllowDuplicates = tab.randItemAllowDuplicates;
+        randItemKeepPrevious = tab.randItemKeepPrevious;
+        randItemWeighted = tab.randItemWeighted;
 
-        randItemInputClear = new JButton();
+        randItemInstruction = tab.randItemInstruction;
+        randItemInstruction.setText(LIST_INPUT_INSTRUCTION_TEXT);
+
+        randItemInputClear = tab.randItemInputClear;
         randItemInputClear.addActionListener(e -> clearRandomItemInput());
 
-        randItemSelect = new JButton();
+        randItemImport = tab.randItemImport;
+        randItemImport.addActionListener(e -> importItems(randItemInput, items -> randItemImportedItems = items));
+
+        randItemSelect = tab.randItemSelect;
         randItemSelect.addActionListener(e -> selectRandomItems());
 
-        randItemOutputClear = new JButton();
+        randItemNoRepeat = tab.randItemNoRepeat;
+        randItemNoRepeat.addActionListener(e -> toggleItemWeighted());
+
+        randItemInput = tab.randItemInput;
+        randItemInputLines = new LineIndex(randItemInput.getDocument());
+        randItemInputLines.addChangeListener(e -> checkItemCount(randItemInputLines, randItemSelect));
+
+        randItemOutput = tab.randItemOutput;
+        randItemHistory = new OutputHistory(randItemOutput);
+
+        randItemOutputClear = tab.randItemOutputClear;
         randItemOutputClear.addActionListener(e -> clearRandomItemOutput());
-    }
 
-    /**
-     * Sets the cursor to a 'wait' cursor while hovering over the main panel.
-     */
-    private void showWaitCursor(){
-        mainPanel.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-    }
+        randItemExport = tab.randItemExport;
+        randItemExport.addActionListener(e -> exportItems(lastSelectedItems));
 
-    /**
-     * Sets the cursor to the default while hovering over the main panel.
-     */
-    private void showDefaultCursor(){
-        mainPanel.setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
+        return tab.root;
     }
 
     /**
-     * Handles the 'Generate' button being clicked on the random number generator tab.
+     * Builds the token generator tab, and initialises its components.
      *
-     * <p>If the checkbox to allow duplicate numbers is checked, a list of non-unique pseudorandom
-     * numbers is generated within the range given by the user and displayed on the form.
-     *
-     * <p>If the checkbox is not checked, the method will generate a list of unique pseudorandom
-     * numbers, within the range given by the user, and display this on the form.
+     * @return The top level component of the tab.
      */
-    private void generateRandomNumbers(){
-        showWaitCursor();
+    private JComponent buildTokenTab(){
+        final TokenTab tab = new TokenTab();
 
-        final int lowerBound = getLowerBound();
-        final int upperBound = getUpperBound();
+        tokenQuantity = tab.tokenQuantity;
+        tokenQuantity.setModel(
+                new SpinnerNumberModel(DEFAULT_SPINNER_VALUE,
+                        MIN_QUANTITY, MAX_TOKENS,
+                        DEFAULT_SPINNER_STEP));
 
-        final int quantity;
-        final List<Integer> randNums;
+        tokenLength = tab.tokenLength;
+        tokenLength.setModel(
+                new SpinnerNumberModel(DEFAULT_TOKEN_LENGTH,
+                        MIN_QUANTITY, TokenGenerator.MAX_LENGTH,
+                        DEFAULT_SPINNER_STEP));
 
-        if(randNumAllowDuplicates.isSelected()){
-            quantity = (int) randNumQuantity.getValue();
-            randNums = Random.getRandomIntegerList(lowerBound, upperBound, quantity);
+        tokenSecure = tab.tokenSecure;
+        tokenKeepPrevious = tab.tokenKeepPrevious;
+
+        tokenCharacters = tab.tokenCharacters;
+        tokenCharacters.setText(TokenGenerator.Alphabet.ALPHANUMERIC.getCharacters());
+
+        tokenAlphabet = tab.tokenAlphabet;
+        tokenAlphabet.setModel(new DefaultComboBoxModel<>(TokenGenerator.Alphabet.values()));
+        tokenAlphabet.setSelectedItem(TokenGenerator.Alphabet.ALPHANUMERIC);
+        tokenAlphabet.addActionListener(e -> tokenCharacters.setText(
+                ((TokenGenerator.Alphabet) tokenAlphabet.getSelectedItem()).getCharacters()));
+
+        tokenOutput = tab.tokenOutput;
+        // Secure tokens may be passwords, so older tokens are dropped rather than written to disk.
+        tokenHistory = new OutputHistory(tokenOutput, false);
+
+        generateTokensButton = tab.generateTokensButton;
+        generateTokensButton.addActionListener(e -> generateTokens());
+
+        tokenClear = tab.tokenClear;
+        tokenClear.addActionListener(e -> clearTokenOutput());
+
+        tokenExport = tab.tokenExport;
+        tokenExport.addActionListener(e -> {
+            if(lastTokenBatch != null){
+                exportResults(false, lastTokenBatch);
+            }else{
+                exportItems(lastTokens);
+            }
+        });
+
+        return tab.root;
+    }
+
+    /**
+     * Builds the distribution tab, and initialises its components.
+     *
+     * @return The top level component of the tab.
+     */
+    private JComponent buildDistributionTab(){
+        final DistributionTab tab = new DistributionTab();
+
+        distQuantity = tab.distQuantity;
+        distQuantity.setModel(
+                new SpinnerNumberModel(DEFAULT_SAMPLES,
+                        MIN_QUANTITY, MAX_SAMPLES,
+                        DEFAULT_SPINNER_STEP));
+
+        distFirstParameterLabel = tab.distFirstParameterLabel;
+        distFirstParameter = tab.distFirstParameter;
+        distSecondParameterLabel = tab.distSecondParameterLabel;
+        distSecondParameter = tab.distSecondParameter;
+
+        distType = tab.distType;
+        distType.setModel(new DefaultComboBoxModel<>(Distribution.values()));
+        distType.setSelectedItem(Distribution.NORMAL);
+        distType.addActionListener(e -> updateDistributionParameters());
+        updateDistributionParameters();
+
+        distSampleButton = tab.distSampleButton;
+        distSampleButton.addActionListener(e -> sampleDistribution());
+
+        distOutput = tab.distOutput;
+        distOutput.setFont(new Font(Font.MONOSPACED, Font.PLAIN, distOutput.getFont().getSize()));
+
+        distClear = tab.distClear;
+        distClear.addActionListener(e -> clearDistributionOutput());
+
+        distExport = tab.distExport;
+        distExport.addActionListener(e -> {
+            final Histogram histogram = lastHistogram;
+            exportResults(histogram == null, (file, format) -> histogram.export(file, format));
+        });
+
+        return tab.root;
+    }
+
+    /**
+     * Sets the cursor to a 'wait' cursor while hovering over the main panel.
+     */
+    private void showWaitCursor(){
+        mainPanel.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+    }
+
+    /**
+     * Sets the cursor to the default while hovering over the main panel.
+     */
+    private void showDefaultCursor(){
+        mainPanel.setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
+    }
+
+    /**
+     * Exports numbers from the most recent draw on a tab, with one number on each line.
+     *
+     * <p>If the file name ends in {@code PackedResults.FILE_EXTENSION}, the numbers are written
+     * in the compact binary format instead.
+     *
+     * @param numbers The numbers to export.
+     */
+    private void exportNumbers(List<? extends Number> numbers){
+        exportResults(numbers.isEmpty(), (file, format) -> {
+            if(PackedResults.isPackedFile(file)){
+                PackedResults.write(file, numbers);
+            }else{
+                ResultExporter.exportNumbers(file, format, numbers);
+            }
+        });
+    }
+
+    /**
+     * Exports items from the most recent draw on a tab, with one item on each line.
+     *
+     * @param items The items to export.
+     */
+    private void exportItems(List<String> items){
+        exportResults(items.isEmpty(), (file, format) -> ResultExporter.exportItems(file, format, items));
+    }
+
+    /**
+     * Handles an 'Export...' button being clicked.
+     *
+     * <p>The user chooses a file to export to, and the results are written in the background. The
+     * format of the file is chosen by its extension: ".csv", ".tsv", or plain text otherwise.
+     *
+     * @param empty Whether there are no results to export.
+     * @param writer Writes the results to the chosen file.
+     */
+    private void exportResults(boolean empty, ResultWriter writer){
+        exportResults(empty, writer, () -> {});
+    }
+
+    /**
+     * Handles an 'Export...' button being clicked, and runs {@code onExported} once the results
+     * have been written. Nothing is run if the user cancels or the export fails.
+     *
+     * @param empty Whether there are no results to export.
+     * @param writer Writes the results to the chosen file.
+     * @param onExported Run on the event dispatch thread after the file has been written.
+     */
+    private void exportResults(boolean empty, ResultWriter writer, Runnable onExported){
+        if(empty){
+            JOptionPane.showMessageDialog(mainPanel, NOTHING_TO_EXPORT_MESSAGE,
+                    TITLE, JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        final JFileChooser chooser = new JFileChooser();
+
+        if(chooser.showSaveDialog(mainPanel) != JFileChooser.APPROVE_OPTION){
+            return;
+        }
+
+        final Path file = chooser.getSelectedFile().toPath();
+
+        if(chooser.getSelectedFile().exists()
+                && JOptionPane.showConfirmDialog(mainPanel, EXPORT_REPLACE_FILE_PROMPT,
+                TITLE, JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION){
+            return;
+        }
+
+        showWaitCursor();
+
+        new SwingWorker<Void, Void>(){
+            @Override
+            protected Void doInBackground() throws IOException{
+                writer.write(file, ItemImporter.FileFormat.fromFileName(file));
+                return null;
+            }
+
+            @Override
+            protected void done(){
+                showDefaultCursor();
+
+                try{
+                    get();
+                    onExported.run();
+                }catch(ExecutionException e){
+                    JOptionPane.showMessageDialog(mainPanel,
+                            EXPORT_FAILED_ERROR + e.getCause().getMessage(),
+                            TITLE, JOptionPane.ERROR_MESSAGE);
+                }catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Handles an 'Import...' button being clicked on the list randomiser or item picker tab.
+     *
+     * <p>The user chooses a file, and for CSV and TSV files the column to import. The file is
+     * then read in the background. Imported lists are not limited to {@code MAX_LIST_ITEMS}, so
+     * rather than filling the input box, the box is locked and shows a summary of the import.
+     *
+     * @param input The input box of the tab.
+     * @param setImportedItems Stores the imported items for the tab.
+     */
+    private void importItems(JTextArea input, Consumer<List<String>> setImportedItems){
+        final JFileChooser chooser = new JFileChooser();
+
+        if(chooser.showOpenDialog(mainPanel) != JFileChooser.APPROVE_OPTION){
+            return;
+        }
+
+        final Path file = chooser.getSelectedFile().toPath();
+        final ItemImporter.FileFormat format = ItemImporter.FileFormat.fromFileName(file);
+        final int column;
+
+        if(format == ItemImporter.FileFormat.TEXT){
+            column = 0;
+        }else{
+            final String answer = (String) JOptionPane.showInputDialog(mainPanel,
+                    IMPORT_COLUMN_PROMPT, TITLE, JOptionPane.QUESTION_MESSAGE,
+                    null, null, "1");
+
+            if(answer == null){
+                return;
+            }
+
+            try{
+                column = Integer.parseInt(answer.strip()) - 1;
+            }catch(NumberFormatException e){
+                JOptionPane.showMessageDialog(mainPanel, IMPORT_COLUMN_INVALID_ERROR,
+                        TITLE, JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            if(column < 0){
+                JOptionPane.showMessageDialog(mainPanel, IMPORT_COLUMN_INVALID_ERROR,
+                        TITLE, JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+        }
+
+        showWaitCursor();
+
+        new SwingWorker<List<String>, Void>(){
+            @Override
+            protected List<String> doInBackground() throws IOException{
+                return ItemImporter.importItems(file, format, column, 0);
+            }
+
+            @Override
+            protected void done(){
+                showDefaultCursor();
+
+                try{
+                    final List<String> items = get();
+
+                    setImportedItems.accept(items);
+                    input.setText(String.format(IMPORTED_ITEMS_TEXT,
+                            NUMBER_FORMAT.format(items.size()), file.getFileName()));
+                    input.setEditable(false);
+                }catch(ExecutionException e){
+                    JOptionPane.showMessageDialog(mainPanel,
+                            IMPORT_FAILED_ERROR + e.getCause().getMessage(),
+                            TITLE, JOptionPane.ERROR_MESSAGE);
+                }catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Handles the 'Generate' button being clicked on the random number generator tab.
+     *
+     * <p>If the checkbox to allow duplicate numbers is checked, a list of non-unique pseudorandom
+     * numbers is generated within the range given by the user and displayed on the form.
+     *
+     * <p>If the checkbox is not checked, the method will generate a list of unique pseudorandom
+     * numbers, within the range given by the user, and display this on the form.
+     *
+     * <p>If the checkbox to sort the numbers is checked, unique numbers are generated directly in
+     * ascending order, and other numbers are sorted after they are generated.
+     *
+     * <p>If more than one ticket is requested, a batch of tickets is drawn instead.
+     */
+    private void generateRandomNumbers(){
+        final int tickets = (int) randNumTickets.getValue();
+
+        if(tickets > 1){
+            generateTickets(tickets);
+            return;
+        }
+
+        showWaitCursor();
+
+        final DrawEvent event = DrawEvent.start("generateRandomNumbers");
+
+        final long lowerBound = getLowerBound();
+        final long upperBound = getUpperBound();
+
+        final long seed = SEED_SOURCE.nextLong();
+        final RandomGenerator rng = new SplittableRandom(seed);
+
+        final int quantity;
+        final List<Long> randNums;
+        final int flags;
+        final boolean sorted = randNumSorted.isSelected();
+        final int sortedFlag = sorted ? DrawRecord.FLAG_SORTED : 0;
+
+        if(randNumNoRepeat.isSelected()){
+            if(!DrawSession.isValidRange(lowerBound, upperBound)){
+                JOptionPane.showMessageDialog(mainPanel,
+                        RAND_NUM_SESSION_RANGE_TOO_LARGE_MESSAGE, TITLE,
+                        JOptionPane.ERROR_MESSAGE);
+                showDefaultCursor();
+                return;
+            }
+
+            if(randNumSession == null || !randNumSession.hasRange(lowerBound, upperBound)){
+                randNumSession = new DrawSession(lowerBound, upperBound);
+            }
+
+            quantity = checkSessionQuantity(randNumSession,
+                    (int) randNumQuantity.getValue(),
+                    RAND_NUM_SESSION_QUANTITY_TOO_HIGH_MESSAGE);
+            randNums = sortIf(sorted, randNumSession.draw(quantity, rng));
+            flags = DrawRecord.FLAG_NO_REPEAT | sortedFlag;
+        }else if(randNumAllowDuplicates.isSelected()){
+            quantity = (int) randNumQuantity.getValue();
+            randNums = sortIf(sorted, Random.getRandomLongList(lowerBound, upperBound, quantity, rng));
+            flags = DrawRecord.FLAG_ALLOW_DUPLICATES | sortedFlag;
+        }else if(sorted){
+            quantity = checkUniqueNumbersQuantity(lowerBound, upperBound);
+            randNums = Random.getSortedUniqueRandomLongList(lowerBound, upperBound, quantity, rng);
+            flags = sortedFlag;
         }else{
             quantity = checkUniqueNumbersQuantity(lowerBound, upperBound);
-            randNums = Random.getUniqueRandomIntegerList(lowerBound, upperBound, quantity);
+            randNums = Random.getUniqueRandomLongList(lowerBound, upperBound, quantity, rng);
+            flags = 0;
         }
 
         displayGeneratedNums(randNums);
+        lastGeneratedNums = randNums;
+        lastTickets = null;
+        recordDraw(DrawRecord.Type.NUMBERS, seed, lowerBound, upperBound, flags, randNums, List.of());
+
+        event.finish(quantity, upperBound - lowerBound + 1, describeDraw(flags), rng);
         showDefaultCursor();
     }
 
+    /**
+     * Draws a batch of tickets on the random number generator tab, each holding the requested
+     * quantity of unique numbers from the range.
+     *
+     * <p>Up to {@code MAX_DISPLAYED_TICKETS} tickets are displayed, one on each line. Larger
+     * batches are drawn in the background and exported straight to a file chosen by the user.
+     * The options to allow duplicates and to avoid repeats do not apply to tickets.
+     *
+     * @param tickets The number of tickets to draw.
+     */
+    private void generateTickets(int tickets){
+        final long lowerBound = getLowerBound();
+        final long upperBound = getUpperBound();
+
+        if(lowerBound < Integer.MIN_VALUE || upperBound > Integer.MAX_VALUE){
+            JOptionPane.showMessageDialog(mainPanel,
+                    TICKETS_RANGE_TOO_LARGE_MESSAGE, TITLE,
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        final int quantity = checkUniqueNumbersQuantity(lowerBound, upperBound);
+        final boolean sorted = randNumSorted.isSelected();
+        final long seed = SEED_SOURCE.nextLong();
+        final int flags = DrawRecord.FLAG_BATCH | (sorted ? DrawRecord.FLAG_SORTED : 0);
+
+        lastTickets = (file, format) -> TicketBatch.export(file, format, (int) lowerBound, (int) upperBound,
+                quantity, tickets, sorted, seed);
+        lastGeneratedNums = List.of();
+
+        if(tickets > MAX_DISPLAYED_TICKETS){
+            JOptionPane.showMessageDialog(mainPanel,
+                    TICKETS_WILL_BE_EXPORTED_MESSAGE, TITLE,
+                    JOptionPane.INFORMATION_MESSAGE);
+
+            // The batch is only recorded once it has been written, so a cancelled export leaves no trace.
+            exportResults(false, lastTickets,
+                    () -> recordDraw(DrawRecord.Type.NUMBERS, seed, lowerBound, upperBound, flags, List.of(), List.of()));
+            return;
+        }
+
+        final int[] results = TicketBatch.draw((int) lowerBound, (int) upperBound, quantity, tickets, sorted, seed);
+        final StringBuilder b = new StringBuilder();
+        final List<Integer> flattened = new ArrayList<>(results.length);
+
+        for(int i = 0; i < results.length; i += quantity){
+            for(int j = i; j < i + quantity; j++){
+                b.append((j == i) ? "" : ", ").append(NUMBER_FORMAT.format(results[j]));
+                flattened.add(results[j]);
+            }
+
+            b.append('\n');
+        }
+
+        if(randNumKeepPrevious.isSelected()){
+            generatedNumsHistory.append(b.toString());
+        }else{
+            generatedNumsHistory.setText(b.toString());
+        }
+
+        generatedNumsHistory.append("\n");
+        recordDraw(DrawRecord.Type.NUMBERS, seed, lowerBound, upperBound, flags, flattened, List.of());
+    }
+
+    /**
+     * Sorts a list of numbers in ascending order, if requested.
+     *
+     * @param sorted Whether to sort the list.
+     * @param nums The {@code Long} {@code List} to sort in place.
+     *
+     * @return {@code nums}.
+     */
+    private static List<Long> sortIf(boolean sorted, List<Long> nums){
+        if(sorted){
+            Collections.sort(nums);
+        }
+
+        return nums;
+    }
+
     /**
      * Returns the lower-bound value entered by the user on the random number generator tab.
      *
@@ -345,9 +1351,9 @@ public class Randomiser {
      *
      * @return The lower-bound value entered by the user on the random number generator tab.
      */
-    private int getLowerBound(){
-        return Math.min((int) randNumLowerBound.getValue(),
-                (int) randNumUpperBound.getValue());
+    private long getLowerBound(){
+        return Math.min((long) randNumLowerBound.getValue(),
+                (long) randNumUpperBound.getValue());
     }
 
     /**
@@ -361,9 +1367,9 @@ public class Randomiser {
      *
      * @return The upper-bound value entered by the user on the random number generator tab.
      */
-    private int getUpperBound(){
-        return Math.max((int) randNumLowerBound.getValue(),
-                (int) randNumUpperBound.getValue());
+    private long getUpperBound(){
+        return Math.max((long) randNumLowerBound.getValue(),
+                (long) randNumUpperBound.getValue());
     }
 
     /**
@@ -381,16 +1387,44 @@ public class Randomiser {
      *
      * @return The quantity of numbers that the user has requested, or the maximum quantity possible.
      */
-    private int checkUniqueNumbersQuantity(int lowerBound, int upperBound){
+    private int checkUniqueNumbersQuantity(long lowerBound, long upperBound){
         final int quantity = (int) randNumQuantity.getValue();
-        final int range = upperBound - lowerBound + 1;
 
-        if(quantity > range){
+        // The size of the range as an unsigned number, where 0 represents all 2^64 values.
+        final long range = upperBound - lowerBound + 1;
+
+        if(range != 0 && Long.compareUnsigned(quantity, range) > 0){
             JOptionPane.showMessageDialog(mainPanel,
                     RAND_NUM_QUANTITY_TOO_HIGH_MESSAGE, TITLE,
                     JOptionPane.WARNING_MESSAGE);
 
-            return range;
+            return (int) range;
+        }else{
+            return quantity;
+        }
+    }
+
+    /**
+     * Returns the quantity that the user has requested from a no-repeat session.
+     *
+     * <p>If the user has requested more than remain in the session, the method will display
+     * a warning to the user, then return the number remaining.
+     *
+     * @param session The {@code DrawSession} to draw from.
+     * @param quantity The quantity requested by the user.
+     * @param message The warning to display if {@code quantity} is too high.
+     *
+     * @return The quantity requested by the user, or the number remaining in the session.
+     */
+    private int checkSessionQuantity(DrawSession session, int quantity, String message){
+        final long remaining = session.getRemainingCount();
+
+        if(quantity > remaining){
+            JOptionPane.showMessageDialog(mainPanel,
+                    message, TITLE,
+                    JOptionPane.WARNING_MESSAGE);
+
+            return (int) remaining;
         }else{
             return quantity;
         }
@@ -401,23 +1435,26 @@ public class Randomiser {
      *
      * @param nums The {@code List} of integers to display.
      */
-    private void displayGeneratedNums(List<Integer> nums){
+    private void displayGeneratedNums(List<Long> nums){
         final String numsAsString = Format.integerListAsString(nums, "\n");
 
         if(randNumKeepPrevious.isSelected()){
-            generatedNumsOutput.append(numsAsString);
+            generatedNumsHistory.append(numsAsString);
         }else{
-            generatedNumsOutput.setText(numsAsString);
+            generatedNumsHistory.setText(numsAsString);
         }
 
-        generatedNumsOutput.append("\n\n");
+        generatedNumsHistory.append("\n\n");
     }
 
     /**
      * Clears the output box for generated numbers.
      */
     private void clearGeneratedNumsOutput(){
-        generatedNumsOutput.setText("");
+        generatedNumsHistory.clear();
+        lastGeneratedNums = List.of();
+        lastTickets = null;
+        randNumSession = null;
     }
 
     /**
@@ -425,10 +1462,11 @@ public class Randomiser {
      */
     private void toggleRollForPercentage(){
         final Dice type = (Dice) diceType.getSelectedItem();
-        final int quantity = (int) diceQuantity.getValue();
+        final long quantity = ((Number) diceQuantity.getValue()).longValue();
 
         if((type == Dice.D10)
-                && (quantity == 2)){
+                && (quantity == 2)
+                && !diceCountFaces.isSelected()){
             rollForPercentage.setEnabled(true);
         }else{
             rollForPercentage.setSelected(false);
@@ -436,6 +1474,32 @@ public class Randomiser {
         }
     }
 
+    /**
+     * Handles the "Count faces only" checkbox being toggled on the dice roll tab.
+     *
+     * <p>Counting faces allows far more dice to be rolled, so the quantity spinner switches
+     * between a limit of {@code MAX_QUANTITY} and {@code MAX_COUNTED_DICE}, keeping its value
+     * where possible.
+     */
+    private void toggleCountFaces(){
+        final long quantity = ((Number) diceQuantity.getValue()).longValue();
+
+        if(diceCountFaces.isSelected()){
+            diceQuantity.setModel(new SpinnerNumberModel(
+                    (Long) quantity,
+                    Long.valueOf(MIN_QUANTITY),
+                    (Long) MAX_COUNTED_DICE,
+                    (Long) DEFAULT_LONG_SPINNER_STEP));
+        }else{
+            diceQuantity.setModel(new SpinnerNumberModel(
+                    (int) Math.min(quantity, MAX_QUANTITY),
+                    MIN_QUANTITY, MAX_QUANTITY,
+                    DEFAULT_SPINNER_STEP));
+        }
+
+        toggleRollForPercentage();
+    }
+
     /**
      * Handles the 'Roll' button being clicked on the dice roll tab.
      *
@@ -443,11 +1507,31 @@ public class Randomiser {
      * where the upper-bound number is chosen by the user with {@code diceType}.
      */
     private void rollDice(){
-        if(rollForPercentage.isSelected()){
+        final DrawEvent event = DrawEvent.start("rollDice");
+        final long quantity = ((Number) diceQuantity.getValue()).longValue();
+        final int sides = ((Dice) diceType.getSelectedItem()).getSides();
+
+        if(!diceCustomFaces.getText().isBlank()){
+            final CustomDie die = getCustomDie(diceCustomFaces.getText());
+
+            if(die == null){
+                return;
+            }else if(diceCountFaces.isSelected()){
+                customCountFacesRoll(die, quantity);
+            }else{
+                customRoll(die, (int) quantity);
+            }
+
+            event.finish(quantity, die.getFaceCount(), "custom faces");
+        }else if(rollForPercentage.isSelected()){
             rollForPercentage();
+            event.finish(quantity, sides, "percentage");
+        }else if(diceCountFaces.isSelected()){
+            countFacesRoll(quantity);
+            event.finish(quantity, sides, "face counts");
         }else{
-            final int quantity = (int) diceQuantity.getValue();
-            regularRoll(quantity);
+            regularRoll((int) quantity);
+            event.finish(quantity, sides, describeDraw(DrawRecord.FLAG_ALLOW_DUPLICATES));
         }
     }
 
@@ -458,12 +1542,16 @@ public class Randomiser {
      * results concatenated into a percentage.
      */
     private void rollForPercentage(){
-        final List<Integer> results = Random.getRandomIntegerList(0, 9, 2);
+        final long seed = SEED_SOURCE.nextLong();
+        final List<Integer> results = Random.getRandomIntegerList(0, 9, 2, new SplittableRandom(seed));
         final int sum = sum(results);
 
         final String percentage = Format.integerListAsPercentage(results, true);
 
         displayDiceRoll(results, percentage, sum);
+        lastDiceRoll = results;
+        lastCustomDiceRoll = List.of();
+        recordDraw(DrawRecord.Type.DICE, seed, 0, 9, DrawRecord.FLAG_PERCENTAGE, results, List.of());
     }
 
     /**
@@ -478,11 +1566,198 @@ public class Randomiser {
         final Dice dice = (Dice) diceType.getSelectedItem();
         final int sides = dice.getSides();
 
-        final List<Integer> results = Random.getRandomIntegerList(1, sides, quantity);
+        final long seed = SEED_SOURCE.nextLong();
+        final List<Integer> results = Random.getRandomIntegerList(1, sides, quantity, new SplittableRandom(seed));
         final int sum = sum(results);
 
         displayDiceRoll(results, sum);
-        diceRollOutput.append("\n");
+        lastDiceRoll = results;
+        lastCustomDiceRoll = List.of();
+        diceRollHistory.append("\n");
+        recordDraw(DrawRecord.Type.DICE, seed, 1, sides, DrawRecord.FLAG_ALLOW_DUPLICATES, results, List.of());
+    }
+
+    /**
+     * Simulates rolling a given number of dice, with the number of sides on each dice given
+     * by {@code diceType}, and counts how many times each face came up.
+     *
+     * <p>The counts are drawn without rolling each die, so billions of dice can be rolled at
+     * once. The count of each face is displayed on the dice roll tab along with the sum of the dice.
+     *
+     * @param quantity The number of dice to roll.
+     */
+    private void countFacesRoll(long quantity){
+        final Dice dice = (Dice) diceType.getSelectedItem();
+        final int sides = dice.getSides();
+
+        final long seed = SEED_SOURCE.nextLong();
+        final long[] counts = Random.getDiceCounts(sides, quantity, new SplittableRandom(seed));
+
+        final List<String> faces = new ArrayList<>(sides);
+
+        for(int face = 1; face <= sides; face++){
+            faces.add(Integer.toString(face));
+        }
+
+        final List<Long> results = displayFaceCounts(faces, counts, BigInteger.valueOf(Random.getDiceTotal(counts)));
+
+        lastDiceRoll = results;
+        lastCustomDiceRoll = List.of();
+        recordDraw(DrawRecord.Type.DICE, seed, 1, sides,
+                DrawRecord.FLAG_ALLOW_DUPLICATES | DrawRecord.FLAG_COUNTS, results, List.of());
+    }
+
+    /**
+     * Returns the die defined by the custom faces on the dice roll tab.
+     *
+     * <p>The die is only compiled again if the faces have changed since the last roll. If they
+     * cannot be understood, an error message is displayed to the user.
+     *
+     * @param definition The custom faces entered by the user.
+     *
+     * @return The compiled {@code CustomDie}, or {@code null} if the faces are not valid.
+     */
+    private CustomDie getCustomDie(String definition){
+        if(customDie == null || !customDie.getDefinition().equals(definition)){
+            try{
+                customDie = CustomDie.parse(definition);
+            }catch(IllegalArgumentException e){
+                JOptionPane.showMessageDialog(mainPanel,
+                        CUSTOM_FACES_INVALID_ERROR + e.getMessage(),
+                        TITLE, JOptionPane.ERROR_MESSAGE);
+                return null;
+            }
+        }
+
+        return customDie;
+    }
+
+    /**
+     * Simulates rolling a given number of dice with custom faces.
+     *
+     * <p>The faces rolled are displayed on the dice roll tab, along with their sum if every
+     * face is a whole number.
+     *
+     * @param die The die to roll.
+     * @param quantity The number of dice to roll.
+     */
+    private void customRoll(CustomDie die, int quantity){
+        final long seed = SEED_SOURCE.nextLong();
+        final int[] rolls = new int[quantity];
+        final List<String> results = new ArrayList<>(quantity);
+
+        die.roll(new SplittableRandom(seed), rolls, 0, quantity);
+
+        for(int roll : rolls){
+            results.add(die.getFace(roll));
+        }
+
+        final String rollsAsString = Format.convertListToString(results, ", ");
+
+        if(keepPreviousRolls.isSelected()){
+            diceRollHistory.append(rollsAsString + "\n");
+        }else{
+            diceRollHistory.setText(rollsAsString + "\n");
+        }
+
+        final long[] faceValues = die.getFaceValues();
+
+        if(faceValues != null){
+            long sum = 0;
+
+            for(int roll : rolls){
+                sum += faceValues[roll];
+            }
+
+            diceRollHistory.append("Total: " + sum + "\n");
+        }
+
+        diceRollHistory.append("\n");
+        lastDiceRoll = List.of();
+        lastCustomDiceRoll = results;
+        recordDraw(DrawRecord.Type.DICE, seed, 0, die.getFaceCount() - 1,
+                DrawRecord.FLAG_ALLOW_DUPLICATES | DrawRecord.FLAG_CUSTOM_FACES, List.of(), results);
+    }
+
+    /**
+     * Simulates rolling a given number of dice with custom faces, and counts how many times
+     * each face came up.
+     *
+     * <p>The count of each face is displayed on the dice roll tab, along with the sum of the
+     * dice if every face is a whole number.
+     *
+     * @param die The die to roll.
+     * @param quantity The number of dice to roll.
+     */
+    private void customCountFacesRoll(CustomDie die, long quantity){
+        final long seed = SEED_SOURCE.nextLong();
+        final long[] counts = die.rollCounts(new SplittableRandom(seed), quantity);
+
+        final long[] faceValues = die.getFaceValues();
+        BigInteger sum = null;
+
+        if(faceValues != null){
+            sum = BigInteger.ZERO;
+
+            for(int i = 0; i < counts.length; i++){
+                sum = sum.add(BigInteger.valueOf(faceValues[i]).multiply(BigInteger.valueOf(counts[i])));
+            }
+        }
+
+        final List<Long> results = displayFaceCounts(die.getFaces(), counts, sum);
+
+        lastDiceRoll = results;
+        lastCustomDiceRoll = List.of();
+        recordDraw(DrawRecord.Type.DICE, seed, 0, die.getFaceCount() - 1,
+                DrawRecord.FLAG_ALLOW_DUPLICATES | DrawRecord.FLAG_COUNTS | DrawRecord.FLAG_CUSTOM_FACES,
+                results, die.getFaces());
+    }
+
+    /**
+     * Displays the number of times each face of a die came up, along with the sum of the dice
+     * if it is known.
+     *
+     * @param faces The faces of the die.
+     * @param counts The number of times each face came up.
+     * @param sum The sum of the dice, or {@code null} if the faces have no values.
+     *
+     * @return The counts, as a {@code List}.
+     */
+    private List<Long> displayFaceCounts(List<String> faces, long[] counts, BigInteger sum){
+        final List<Long> results = new ArrayList<>(counts.length);
+        final StringBuilder b = new StringBuilder();
+
+        for(int i = 0; i < counts.length; i++){
+            results.add(counts[i]);
+            b.append(faces.get(i)).append(": ").append(NUMBER_FORMAT.format(counts[i])).append('\n');
+        }
+
+        if(sum != null){
+            b.append("Total: ").append(NUMBER_FORMAT.format(sum)).append('\n');
+        }
+
+        b.append('\n');
+
+        if(keepPreviousRolls.isSelected()){
+            diceRollHistory.append(b.toString());
+        }else{
+            diceRollHistory.setText(b.toString());
+        }
+
+        return results;
+    }
+
+    /**
+     * Handles the 'Export...' button being clicked on the dice roll tab.
+     *
+     * <p>Rolls of custom faces are exported as text; all other rolls are exported as numbers.
+     */
+    private void exportDiceRoll(){
+        if(!lastCustomDiceRoll.isEmpty()){
+            exportItems(lastCustomDiceRoll);
+        }else{
+            exportNumbers(lastDiceRoll);
+        }
     }
 
     /**
@@ -512,12 +1787,12 @@ public class Randomiser {
         final String diceAsString = Format.integerListAsString(dice, ", ");
 
         if(keepPreviousRolls.isSelected()){
-            diceRollOutput.append(diceAsString + "\n");
+            diceRollHistory.append(diceAsString + "\n");
         }else{
-            diceRollOutput.setText(diceAsString + "\n");
+            diceRollHistory.setText(diceAsString + "\n");
         }
 
-        diceRollOutput.append("Total: " + sum + "\n");
+        diceRollHistory.append("Total: " + sum + "\n");
     }
 
     /**
@@ -529,46 +1804,329 @@ public class Randomiser {
      */
     private void displayDiceRoll(List<Integer> dice, String percentage, int sum){
         displayDiceRoll(dice, sum);
-        diceRollOutput.append("Percentage: " + percentage + "\n");
-        diceRollOutput.append("\n");
+        diceRollHistory.append("Percentage: " + percentage + "\n");
+        diceRollHistory.append("\n");
     }
 
     /**
      * Clears the output box for dice rolls.
      */
     private void clearDiceRollOutput(){
-        diceRollOutput.setText("");
+        diceRollHistory.clear();
+        lastDiceRoll = List.of();
+        lastCustomDiceRoll = List.of();
     }
 
     /**
      * Handles the 'Randomise' button being clicked on the list randomiser tab.
      *
-     * <p>The user's input is converted to a list and shuffled.
+     * <p>The user's input is converted to a list and shuffled. If the list is to be split into
+     * groups, or paired, that takes precedence over the other options; otherwise the shuffle can
+     * be constrained so that no item keeps its place.
      *
      * <p>The shuffled list is then converted back to a string and displayed.
      */
     private void randomiseList(){
-        final String input = randomiseListInput.getText();
-        final List<String> shuffledList = getShuffledList(input);
+        final DrawEvent event = DrawEvent.start("randomiseList");
+
+        final List<String> inputList = getInputList(randListInputLines, randListImportedItems);
+        final long seed = SEED_SOURCE.nextLong();
+        final int groups = (int) randListGroupCount.getValue();
+        double[] weights = null;
+
+        if(randListWeighted.isSelected() && !canWeightList()){
+            JOptionPane.showMessageDialog(mainPanel, WEIGHTS_NOT_SUPPORTED_ERROR, TITLE, JOptionPane.ERROR_MESSAGE);
+            return;
+        }else if(randListWeighted.isSelected()){
+            weights = extractWeights(inputList);
+
+            if(weights == null){
+                return;
+            }
+        }
+
+        if(groups > 1){
+            final int listSize = splitListIntoGroups(inputList, groups, seed);
+            event.finish(groups, listSize, "group split");
+            return;
+        }
+
+        if(randListPairs.isSelected()){
+            if(pairItems(inputList, seed)){
+                event.finish(inputList.size(), inputList.size(), "pairing");
+            }
+            return;
+        }
+
+        final boolean derange = randListDerange.isSelected();
+
+        if(derange && inputList.size() == 1){
+            JOptionPane.showMessageDialog(mainPanel, DERANGEMENT_IMPOSSIBLE_ERROR, TITLE, JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        final List<String> shuffledList = derange
+                ? getDerangedList(inputList, seed)
+                : getShuffledList(inputList, weights, seed);
+        final int flags = derange ? DrawRecord.FLAG_DERANGED : (weights != null) ? DrawRecord.FLAG_WEIGHTED : 0;
 
         displayRandomisedList(shuffledList);
+        lastRandomisedList = shuffledList;
+        recordDraw(DrawRecord.Type.LIST, seed, 0, shuffledList.size() - 1, flags, List.of(), shuffledList);
+
+        event.finish(shuffledList.size(), shuffledList.size(),
+                derange ? "derangement" : (weights != null) ? "weighted shuffle" : "shuffle");
+    }
+
+    /**
+     * Returns whether the options chosen on the list randomiser tab can use weighted items.
+     *
+     * <p>Weights only decide the order of a shuffle, so they have no meaning when the list is
+     * split into groups, paired, or shuffled so that every item moves.
+     *
+     * @return {@code true} if the list may be weighted.
+     */
+    private boolean canWeightList(){
+        return (int) randListGroupCount.getValue() <= 1
+                && !randListPairs.isSelected()
+                && !randListDerange.isSelected();
+    }
+
+    /**
+     * Enables the 'Weighted items' checkbox on the list randomiser tab only while the other
+     * options can use weights, and unchecks it otherwise.
+     */
+    private void toggleListWeighted(){
+        if(canWeightList()){
+            randListWeighted.setEnabled(true);
+        }else{
+            randListWeighted.setSelected(false);
+            randListWeighted.setEnabled(false);
+        }
+    }
+
+    /**
+     * Pairs each item of the user's list with another, for a gift exchange, and displays the pairs.
+     *
+     * <p>The text after the last tab on each line is treated as a household, and items in the same
+     * household are never paired with each other. If the items cannot be paired, an error message
+     * is displayed to the user.
+     *
+     * @param inputList The user's list.
+     * @param seed The seed to pair the items with.
+     *
+     * @return {@code true} if the items were paired, or {@code false} if they could not be.
+     */
+    private boolean pairItems(List<String> inputList, long seed){
+        final ConstrainedShuffle.Exclusions exclusions = new ConstrainedShuffle.Exclusions(inputList.size());
+        final Map<String, Integer> householdIds = new HashMap<>();
+        final int[] households = new int[inputList.size()];
+
+        for(int i = 0; i < households.length; i++){
+            final String tag = getTag(inputList.get(i));
+            households[i] = tag.isEmpty() ? -1 : householdIds.computeIfAbsent(tag, t -> householdIds.size());
+        }
+
+        if(!householdIds.isEmpty()){
+            exclusions.setGroups(households);
+        }
+
+        final int[] partners;
+
+        try{
+            partners = ConstrainedShuffle.pairing(exclusions, new SplittableRandom(seed));
+        }catch(IllegalArgumentException e){
+            JOptionPane.showMessageDialog(mainPanel,
+                    PAIRING_FAILED_ERROR + e.getMessage(),
+                    TITLE, JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
+
+        final List<String> pairs = new ArrayList<>(inputList.size());
+
+        for(int i = 0; i < partners.length; i++){
+            pairs.add(getUntagged(inputList.get(i)) + " -> " + getUntagged(inputList.get(partners[i])));
+        }
+
+        displayRandomisedList(pairs);
+        lastRandomisedList = pairs;
+        recordDraw(DrawRecord.Type.LIST, seed, 0, inputList.size() - 1, DrawRecord.FLAG_PAIRED, List.of(), pairs);
+
+        return true;
     }
 
     /**
-     * Splits a string into a list and shuffles it.
+     * Shuffles a list so that no item keeps its place.
      *
-     * @param string The {@code String} to shuffle.
+     * @param inputList The {@code List} to shuffle, which must not hold exactly one item.
+     * @param seed The seed to shuffle with.
      *
-     * @return {@code string} separated into a {@code List}.
+     * @return A new {@code List} holding the items of {@code inputList} in their new places.
      */
-    private List<String> getShuffledList(String string){
-        final List<String> inputList = Format.splitStringToList(string, MAX_LIST_ITEMS);
+    private static List<String> getDerangedList(List<String> inputList, long seed){
+        final int[] sources = ConstrainedShuffle.derangement(inputList.size(), new SplittableRandom(seed));
+        final List<String> derangedList = new ArrayList<>(sources.length);
+
+        for(int source : sources){
+            derangedList.add(inputList.get(source));
+        }
 
-        Collections.shuffle(inputList);
+        return derangedList;
+    }
+
+    /**
+     * Splits the user's list into random groups of balanced size, and displays each group.
+     *
+     * <p>If the checkbox to balance groups by tag is checked, the text after the last tab on each
+     * line is treated as a tag, and each group is given an even mix of the tags.
+     *
+     * @param inputList The user's list.
+     * @param groups The number of groups to split the list into.
+     * @param seed The seed to generate the groups from.
+     *
+     * @return The number of items in the list.
+     */
+    private int splitListIntoGroups(List<String> inputList, int groups, long seed){
+        final RandomGenerator rng = new SplittableRandom(seed);
+
+        final int[][] groupIndices;
+
+        if(randListBalanceByTag.isSelected()){
+            final Map<String, Integer> tagIds = new HashMap<>();
+            final int[] tags = new int[inputList.size()];
+
+            for(int i = 0; i < tags.length; i++){
+                tags[i] = tagIds.computeIfAbsent(getTag(inputList.get(i)), tag -> tagIds.size());
+            }
+
+            groupIndices = GroupSplitter.splitStratified(tags, tagIds.size(), groups, rng);
+        }else{
+            groupIndices = GroupSplitter.split(inputList.size(), groups, rng);
+        }
+
+        final StringBuilder b = new StringBuilder();
+        final List<String> groupedList = new ArrayList<>(inputList.size());
+
+        for(int g = 0; g < groupIndices.length; g++){
+            b.append("Group ").append(NUMBER_FORMAT.format(g + 1)).append(":\n");
+
+            for(int index : groupIndices[g]){
+                b.append(inputList.get(index)).append('\n');
+                groupedList.add(inputList.get(index));
+            }
+
+            b.append('\n');
+        }
+
+        randomiseListOutput.setText(b.toString());
+        lastRandomisedList = groupedList;
+        recordDraw(DrawRecord.Type.LIST, seed, 0, inputList.size() - 1, 0, List.of(), groupedList);
+
+        return inputList.size();
+    }
+
+    /**
+     * Returns the tag of a list item, which is the text after the last tab.
+     *
+     * @param item The list item.
+     *
+     * @return The tag of the item, or an empty {@code String} if it has none.
+     */
+    private static String getTag(String item){
+        final int tab = item.lastIndexOf('\t');
+
+        return (tab < 0) ? "" : item.substring(tab + 1).strip();
+    }
+
+    /**
+     * Returns a list item without its tag, which is the text before the last tab.
+     *
+     * @param item The list item.
+     *
+     * @return The item without its tag, or the whole item if it has none.
+     */
+    private static String getUntagged(String item){
+        final int tab = item.lastIndexOf('\t');
+
+        return (tab < 0) ? item : item.substring(0, tab).strip();
+    }
+
+    /**
+     * Returns the list in an input box, or the items imported into it.
+     *
+     * <p>The items typed into the box are taken from its line index, which only parses lines
+     * edited since the last draw. Imported items are copied, so that shuffling or selecting from
+     * the returned list does not change the order of the import.
+     *
+     * @param inputLines The {@code LineIndex} of the input box.
+     * @param importedItems The items imported into the input box, or {@code null} if there are none.
+     *
+     * @return A {@code List} of the items in the input box.
+     */
+    private List<String> getInputList(LineIndex inputLines, List<String> importedItems){
+        if(importedItems != null){
+            return new ArrayList<>(importedItems);
+        }
+
+        return inputLines.getItems(MAX_LIST_ITEMS);
+    }
+
+    /**
+     * Disables a tab's draw button while its input box holds more than {@code MAX_LIST_ITEMS}
+     * items, and explains why in the button's tooltip.
+     *
+     * @param inputLines The {@code LineIndex} of the input box.
+     * @param drawButton The button that draws from the input box.
+     */
+    private static void checkItemCount(LineIndex inputLines, JButton drawButton){
+        final boolean tooManyItems = inputLines.getLineCount() > MAX_LIST_ITEMS;
+
+        drawButton.setEnabled(!tooManyItems);
+        drawButton.setToolTipText(tooManyItems ? TOO_MANY_ITEMS_TOOLTIP : null);
+    }
+
+    /**
+     * Shuffles a list, on all cores if it is large.
+     *
+     * <p>If the items are weighted, heavier items tend to come earlier: each position is filled
+     * with probability proportional to weight from the items not yet placed.
+     *
+     * @param inputList The {@code List} to shuffle.
+     * @param weights The weight of each item, or {@code null} if the items are not weighted.
+     * @param seed The seed to shuffle with.
+     *
+     * @return The shuffled list, which is {@code inputList} itself if the items are not weighted.
+     */
+    private List<String> getShuffledList(List<String> inputList, double[] weights, long seed){
+        if(weights != null){
+            return WeightedSampler.shuffle(inputList, weights, seed);
+        }
+
+        ParallelShuffle.shuffle(inputList, seed);
 
         return inputList;
     }
 
+    /**
+     * Removes the weights from the end of the items in a list, and returns them.
+     *
+     * <p>If a weight cannot be understood, an error message is displayed to the user.
+     *
+     * @param inputList The user's list, which is changed in place.
+     *
+     * @return The weight of each item, or {@code null} if a weight is not valid.
+     */
+    private double[] extractWeights(List<String> inputList){
+        try{
+            return Format.extractWeights(inputList);
+        }catch(IllegalArgumentException e){
+            JOptionPane.showMessageDialog(mainPanel,
+                    WEIGHTS_INVALID_ERROR + e.getMessage(),
+                    TITLE, JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+    }
+
     /**
      * Formats and displays a list on the list randomiser tab.
      *
@@ -585,6 +2143,8 @@ public class Randomiser {
      */
     private void clearRandomiseListInput(){
         randomiseListInput.setText("");
+        randomiseListInput.setEditable(true);
+        randListImportedItems = null;
     }
 
     /**
@@ -592,6 +2152,7 @@ public class Randomiser {
      */
     private void clearRandomiseListOutput(){
         randomiseListOutput.setText("");
+        lastRandomisedList = List.of();
     }
 
     /**
@@ -601,21 +2162,123 @@ public class Randomiser {
      * the user is selected and displayed.
      */
     private void selectRandomItems(){
-        final String input = randItemInput.getText();
-        final List<String> inputList = Format.splitStringToList(input, MAX_LIST_ITEMS);
+        final DrawEvent event = DrawEvent.start("selectRandomItems");
+
+        final List<String> inputList = getInputList(randItemInputLines, randItemImportedItems);
+
+        final int listSize = inputList.size();
+        final long seed = SEED_SOURCE.nextLong();
+        final RandomGenerator rng = new SplittableRandom(seed);
+        double[] weights = null;
+
+        if(randItemWeighted.isSelected() && randItemNoRepeat.isSelected()){
+            JOptionPane.showMessageDialog(mainPanel, WEIGHTS_NO_REPEAT_ERROR, TITLE, JOptionPane.ERROR_MESSAGE);
+            return;
+        }else if(randItemWeighted.isSelected()){
+            weights = extractWeights(inputList);
+
+            if(weights == null){
+                return;
+            }
+        }
 
         final int quantity;
         final List<String> selectedItems;
+        final int flags;
 
-        if(randItemAllowDuplicates.isSelected()){
+        if(randItemNoRepeat.isSelected()){
+            selectedItems = selectItemsWithoutRepeats(inputList, rng);
+            flags = DrawRecord.FLAG_NO_REPEAT;
+        }else if(randItemAllowDuplicates.isSelected() && weights != null){
             quantity = (int) randItemQuantity.getValue();
-            selectedItems = Random.getRandItemsFromList(inputList, quantity);
+            selectedItems = Random.getRandItemsFromList(inputList, weights, quantity, seed);
+            flags = DrawRecord.FLAG_ALLOW_DUPLICATES | DrawRecord.FLAG_WEIGHTED;
+        }else if(randItemAllowDuplicates.isSelected()){
+            quantity = (int) randItemQuantity.getValue();
+            selectedItems = Random.getRandItemsFromList(inputList, quantity, rng);
+            flags = DrawRecord.FLAG_ALLOW_DUPLICATES;
+        }else if(weights != null){
+            quantity = checkUniqueItemsQuantity(listSize);
+            selectedItems = Random.getUniqueRandItemsFromList(inputList, weights, quantity, seed);
+            flags = DrawRecord.FLAG_WEIGHTED;
         }else{
-            quantity = checkUniqueItemsQuantity(inputList.size());
-            selectedItems = Random.getUniqueRandItemsFromList(inputList, quantity);
+            quantity = checkUniqueItemsQuantity(listSize);
+            selectedItems = Random.getUniqueRandItemsFromList(inputList, quantity, rng);
+            flags = 0;
         }
 
         displaySelectedItems(selectedItems);
+        lastSelectedItems = selectedItems;
+        recordDraw(DrawRecord.Type.ITEMS, seed, 0, listSize - 1, flags, List.of(), selectedItems);
+
+        event.finish(selectedItems.size(), listSize, describeDraw(flags), rng);
+    }
+
+    /**
+     * Describes the kind of draw made, for use in a {@code DrawEvent}.
+     *
+     * @param flags Any of the {@code DrawRecord.FLAG_} constants, combined with bitwise or.
+     *
+     * @return A short description of how the draw was made.
+     */
+    private static String describeDraw(int flags){
+        if((flags & DrawRecord.FLAG_NO_REPEAT) != 0){
+            return "no-repeat session";
+        }else if((flags & DrawRecord.FLAG_ALLOW_DUPLICATES) != 0){
+            return ((flags & DrawRecord.FLAG_WEIGHTED) != 0) ? "weighted, with replacement" : "with replacement";
+        }else if((flags & DrawRecord.FLAG_WEIGHTED) != 0){
+            return "weighted, without replacement";
+        }else{
+            return "without replacement";
+        }
+    }
+
+    /**
+     * Enables the 'Weighted items' checkbox on the random item tab only while items may repeat
+     * from previous selections, and unchecks it otherwise.
+     *
+     * <p>A no-repeat session draws evenly from the items not yet chosen, so it cannot use weights.
+     */
+    private void toggleItemWeighted(){
+        if(randItemNoRepeat.isSelected()){
+            randItemWeighted.setSelected(false);
+            randItemWeighted.setEnabled(false);
+        }else{
+            randItemWeighted.setEnabled(true);
+        }
+    }
+
+    /**
+     * Selects items that have not been chosen before in the current no-repeat session.
+     *
+     * <p>If the list differs from the one the session was started with, a new session is started.
+     *
+     * @param inputList The {@code List} to select items from.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A {@code List} containing randomly selected items not chosen in earlier selections.
+     */
+    private List<String> selectItemsWithoutRepeats(List<String> inputList, RandomGenerator rng){
+        if(inputList.isEmpty()){
+            return inputList;
+        }
+
+        if(randItemSession == null || !inputList.equals(randItemSessionList)){
+            randItemSession = new DrawSession(0, inputList.size() - 1);
+            randItemSessionList = inputList;
+        }
+
+        final int quantity = checkSessionQuantity(randItemSession,
+                (int) randItemQuantity.getValue(),
+                RAND_ITEM_SESSION_QUANTITY_TOO_HIGH_MESSAGE);
+
+        final List<String> selectedItems = new ArrayList<>(quantity);
+
+        for(long index : randItemSession.draw(quantity, rng)){
+            selectedItems.add(inputList.get((int) index));
+        }
+
+        return selectedItems;
     }
 
     /**
@@ -655,12 +2318,12 @@ public class Randomiser {
         final String itemsAsString = Format.convertListToString(items, "\n");
 
         if(randItemKeepPrevious.isSelected()){
-            randItemOutput.append(itemsAsString);
+            randItemHistory.append(itemsAsString);
         }else{
-            randItemOutput.setText(itemsAsString);
+            randItemHistory.setText(itemsAsString);
         }
 
-        randItemOutput.append("\n\n");
+        randItemHistory.append("\n\n");
     }
 
     /**
@@ -668,12 +2331,314 @@ public class Randomiser {
      */
     private void clearRandomItemInput(){
         randItemInput.setText("");
+        randItemInput.setEditable(true);
+        randItemImportedItems = null;
     }
 
     /**
      * Clears the random item picker output box.
      */
     private void clearRandomItemOutput(){
-        randItemOutput.setText("");
+        randItemHistory.clear();
+        lastSelectedItems = List.of();
+        randItemSession = null;
+        randItemSessionList = null;
+    }
+
+    /**
+     * Handles the 'Generate' button being clicked on the token generator tab.
+     *
+     * <p>Tokens of the requested length are generated from the characters entered by the user.
+     * Up to {@code MAX_DISPLAYED_TOKENS} tokens are displayed, one on each line; more are
+     * exported straight to a file chosen by the user.
+     *
+     * <p>If the checkbox to use a secure generator is checked, tokens are drawn from
+     * {@code SecureRandom}, and are not stored in the draw history. Otherwise they are drawn from a
+     * seed like every other draw, which is faster but not suitable for passwords.
+     */
+    private void generateTokens(){
+        final TokenGenerator generator;
+
+        try{
+            generator = new TokenGenerator(tokenCharacters.getText(), (int) tokenLength.getValue());
+        }catch(IllegalArgumentException e){
+            JOptionPane.showMessageDialog(mainPanel,
+                    TOKEN_CHARACTERS_INVALID_ERROR + e.getMessage(),
+                    TITLE, JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        final int quantity = (int) tokenQuantity.getValue();
+        final boolean secure = tokenSecure.isSelected();
+        final long seed = secure ? 0 : SEED_SOURCE.nextLong();
+        final int flags = secure ? DrawRecord.FLAG_SECURE : 0;
+        final int alphabetSize = generator.getAlphabet().length();
+
+        if(quantity > MAX_DISPLAYED_TOKENS){
+            final ResultWriter writer = (file, format) -> generator.export(file, format, quantity, getTokenSource(secure, seed));
+
+            lastTokens = List.of();
+            lastTokenBatch = secure ? null : writer;
+
+            JOptionPane.showMessageDialog(mainPanel,
+                    TOKENS_WILL_BE_EXPORTED_MESSAGE, TITLE,
+                    JOptionPane.INFORMATION_MESSAGE);
+
+            // The batch is only recorded once it has been written, so a cancelled export leaves no trace.
+            exportResults(false, (file, format) -> {
+                final DrawEvent event = DrawEvent.start("generateTokens");
+                final RandomGenerator rng = getTokenSource(secure, seed);
+
+                generator.export(file, format, quantity, rng);
+                event.finish(quantity, alphabetSize, secure ? "secure tokens" : "tokens", rng);
+            }, () -> recordDraw(DrawRecord.Type.TOKENS, seed, 0, alphabetSize - 1, flags | DrawRecord.FLAG_BATCH, List.of(), List.of()));
+            return;
+        }
+
+        final DrawEvent event = DrawEvent.start("generateTokens");
+        final RandomGenerator rng = getTokenSource(secure, seed);
+        final List<String> tokens = generator.next(rng, quantity);
+
+        displayTokens(tokens);
+        lastTokens = tokens;
+        lastTokenBatch = null;
+        recordDraw(DrawRecord.Type.TOKENS, seed, 0, alphabetSize - 1, flags, List.of(), secure ? List.of() : tokens);
+
+        event.finish(quantity, alphabetSize, secure ? "secure tokens" : "tokens", rng);
+    }
+
+    /**
+     * Returns the generator to draw tokens from.
+     *
+     * @param secure Whether to draw from {@code SecureRandom}.
+     * @param seed The seed to draw from, if not secure.
+     *
+     * @return A new {@code RandomGenerator}.
+     */
+    private static RandomGenerator getTokenSource(boolean secure, long seed){
+        return secure ? TokenGenerator.newSecureGenerator() : new SplittableRandom(seed);
+    }
+
+    /**
+     * Formats and displays tokens on the token generator tab.
+     *
+     * @param tokens The tokens to display.
+     */
+    private void displayTokens(List<String> tokens){
+        final String tokensAsString = Format.convertListToString(tokens, "\n");
+
+        if(tokenKeepPrevious.isSelected()){
+            tokenHistory.append(tokensAsString);
+        }else{
+            tokenHistory.setText(tokensAsString);
+        }
+
+        tokenHistory.append("\n\n");
+    }
+
+    /**
+     * Clears the token generator output box.
+     */
+    private void clearTokenOutput(){
+        tokenHistory.clear();
+        lastTokens = List.of();
+        lastTokenBatch = null;
+    }
+
+    /**
+     * Labels the parameters of the distribution chosen on the distribution tab, and resets them
+     * to typical values. The second parameter is hidden if the distribution has only one.
+     */
+    private void updateDistributionParameters(){
+        final Distribution distribution = (Distribution) distType.getSelectedItem();
+        final boolean hasSecond = distribution.hasSecondParameter();
+
+        distFirstParameterLabel.setText(distribution.getFirstParameterName() + ":");
+        distFirstParameter.setModel(createParameterModel(distribution, true));
+
+        distSecondParameterLabel.setVisible(hasSecond);
+        distSecondParameter.setVisible(hasSecond);
+
+        if(hasSecond){
+            distSecondParameterLabel.setText(distribution.getSecondParameterName() + ":");
+            distSecondParameter.setModel(createParameterModel(distribution, false));
+        }
+    }
+
+    /**
+     * Creates the model of a spinner for a parameter of a distribution, with a typical starting
+     * value and the limits of the parameter.
+     *
+     * @param distribution The distribution.
+     * @param first Whether the model is for the first parameter, rather than the second.
+     *
+     * @return A {@code SpinnerNumberModel} holding a double.
+     */
+    private static SpinnerNumberModel createParameterModel(Distribution distribution, boolean first){
+        return switch(distribution){
+            case NORMAL -> first
+                    ? new SpinnerNumberModel(0.0, -MAX_PARAMETER, MAX_PARAMETER, 1.0)
+                    : new SpinnerNumberModel(1.0, 0.0, MAX_PARAMETER, 0.1);
+            case EXPONENTIAL -> new SpinnerNumberModel(1.0, MIN_POSITIVE_PARAMETER, MAX_PARAMETER, 0.1);
+            case POISSON -> new SpinnerNumberModel(4.0, 0.0, Distributions.MAX_POISSON_MEAN, 1.0);
+            case BINOMIAL -> first
+                    ? new SpinnerNumberModel(10.0, 0.0, MAX_PARAMETER, 1.0)
+                    : new SpinnerNumberModel(0.5, 0.0, 1.0, 0.05);
+            case GEOMETRIC -> new SpinnerNumberModel(0.5, MIN_POSITIVE_PARAMETER, 1.0, 0.05);
+        };
+    }
+
+    /**
+     * Handles the 'Draw' button being clicked on the distribution tab.
+     *
+     * <p>A sample of the requested size is drawn from the chosen distribution in the background,
+     * on all cores, and shown as a histogram with the mean and standard deviation of the sample.
+     * Only the histogram is kept, so even the largest samples take little memory.
+     */
+    private void sampleDistribution(){
+        final DrawEvent event = DrawEvent.start("sampleDistribution");
+
+        final Distribution distribution = (Distribution) distType.getSelectedItem();
+        final double first = ((Number) distFirstParameter.getValue()).doubleValue();
+        final double second = distribution.hasSecondParameter()
+                ? ((Number) distSecondParameter.getValue()).doubleValue()
+                : 0;
+        final int quantity = (int) distQuantity.getValue();
+        final long seed = SEED_SOURCE.nextLong();
+
+        showWaitCursor();
+        distSampleButton.setEnabled(false);
+
+        new SwingWorker<Histogram, Void>(){
+            @Override
+            protected Histogram doInBackground(){
+                return distribution.sample(first, second, quantity, HISTOGRAM_BINS, seed);
+            }
+
+            @Override
+            protected void done(){
+                showDefaultCursor();
+                distSampleButton.setEnabled(true);
+
+                try{
+                    final Histogram histogram = get();
+                    final String description = describeDistribution(distribution, first, second);
+                    final List<Long> counts = new ArrayList<>(histogram.getBinCount());
+
+                    for(int i = 0; i < histogram.getBinCount(); i++){
+                        counts.add(histogram.getCount(i));
+                    }
+
+                    displayHistogram(description, histogram);
+                    lastHistogram = histogram;
+                    recordDraw(DrawRecord.Type.SAMPLES, seed, 0, histogram.getBinCount() - 1, 0, counts, List.of(description));
+
+                    event.finish(quantity, histogram.getBinCount(), distribution.toString());
+                }catch(ExecutionException e){
+                    JOptionPane.showMessageDialog(mainPanel,
+                            DISTRIBUTION_PARAMETERS_INVALID_ERROR + e.getCause().getMessage(),
+                            TITLE, JOptionPane.ERROR_MESSAGE);
+                }catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Describes a distribution and its parameters, e.g. "Normal distribution: mean 0, standard deviation 1".
+     *
+     * @param distribution The distribution.
+     * @param first The first parameter of the distribution.
+     * @param second The second parameter of the distribution, which is ignored if it has only one.
+     *
+     * @return A description of the distribution.
+     */
+    private static String describeDistribution(Distribution distribution, double first, double second){
+        final NumberFormat format = NumberFormat.getInstance(LOCALE);
+        format.setMaximumFractionDigits(9);
+
+        final StringBuilder b = new StringBuilder()
+                .append(distribution).append(" distribution: ")
+                .append(distribution.getFirstParameterName().toLowerCase(LOCALE)).append(' ')
+                .append(format.format(first));
+
+        if(distribution.hasSecondParameter()){
+            b.append(", ").append(distribution.getSecondParameterName().toLowerCase(LOCALE)).append(' ')
+                    .append(format.format(second));
+        }
+
+        return b.toString();
+    }
+
+    /**
+     * Displays a histogram on the distribution tab, as a bar of '#' characters for each bin.
+     *
+     * @param description A description of the distribution the sample was drawn from.
+     * @param histogram The histogram of the sample.
+     */
+    private void displayHistogram(String description, Histogram histogram){
+        // Show bounds to about three significant figures of the bin width.
+        final NumberFormat format = NumberFormat.getInstance(LOCALE);
+        format.setMaximumFractionDigits(histogram.isDiscrete() ? 0
+                : Math.max(0, Math.min(9, 2 - (int) Math.floor(Math.log10(histogram.getBinWidth())))));
+        format.setMinimumFractionDigits(format.getMaximumFractionDigits());
+
+        final List<String> labels = new ArrayList<>();
+        final List<Long> counts = new ArrayList<>();
+        final int bins = histogram.getBinCount();
+
+        if(histogram.getCountBelow() > 0){
+            labels.add("below " + format.format(histogram.getBinLowerBound(0)));
+            counts.add(histogram.getCountBelow());
+        }
+
+        for(int i = 0; i < bins; i++){
+            final double lower = histogram.getBinLowerBound(i);
+            final double upper = histogram.getBinUpperBound(i);
+
+            labels.add((histogram.isDiscrete() && lower == upper)
+                    ? format.format(lower)
+                    : format.format(lower) + " to " + format.format(upper));
+            counts.add(histogram.getCount(i));
+        }
+
+        if(histogram.getCountAbove() > 0){
+            labels.add((histogram.isDiscrete() ? "above " : "from ")
+                    + format.format(histogram.getBinUpperBound(bins - 1)));
+            counts.add(histogram.getCountAbove());
+        }
+
+        final int labelWidth = labels.stream().mapToInt(String::length).max().orElse(0);
+        final long maxCount = counts.stream().mapToLong(Long::longValue).max().orElse(0);
+        final NumberFormat statFormat = NumberFormat.getInstance(LOCALE);
+        statFormat.setMaximumFractionDigits(4);
+
+        final StringBuilder b = new StringBuilder()
+                .append(description).append('\n')
+                .append(NUMBER_FORMAT.format(histogram.getTotal())).append(" samples, with mean ")
+                .append(statFormat.format(histogram.getMean())).append(" and standard deviation ")
+                .append(statFormat.format(histogram.getStandardDeviation())).append("\n\n");
+
+        for(int i = 0; i < labels.size(); i++){
+            final long count = counts.get(i);
+            final int bar = (count == 0) ? 0
+                    : (int) Math.max(1, Math.round((double) count * HISTOGRAM_BAR_WIDTH / maxCount));
+
+            b.append(" ".repeat(labelWidth - labels.get(i).length())).append(labels.get(i))
+                    .append(" | ").append("#".repeat(bar)).append(" ".repeat(HISTOGRAM_BAR_WIDTH - bar))
+                    .append(' ').append(NUMBER_FORMAT.format(count)).append('\n');
+        }
+
+        distOutput.setText(b.toString());
+        distOutput.setCaretPosition(0);
+    }
+
+    /**
+     * Clears the distribution tab output box.
+     */
+    private void clearDistributionOutput(){
+        distOutput.setText("");
+        lastHistogram = null;
     }
 }
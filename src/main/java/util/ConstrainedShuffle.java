@@ -0,0 +1,425 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+
+/**
+ * Provides static methods for shuffles with constraints on where each item may go: derangements,
+ * in which no item keeps its place, and pairings, in which nobody is given themselves or a partner
+ * they are excluded from.
+ *
+ * <p>Like {@code GroupSplitter}, the methods work on positions rather than items. Each result is an
+ * array whose element {@code i} is the position that position {@code i} is sent to.
+ */
+public class ConstrainedShuffle {
+    /**
+     * The number of random partners tried when repairing a pairing, before every partner is tried
+     * in turn.
+     */
+    private static final int RANDOM_REPAIR_ATTEMPTS = 32;
+
+    /**
+     * Holds {@code d(u) = D(u) / u!} for small {@code u}, where {@code D(u)} is the number of
+     * derangements of {@code u} items. The series converges to {@code 1/e} within double precision
+     * well before the end of the table, so the last entry serves for every larger {@code u}.
+     */
+    private static final double[] DERANGEMENT_FRACTIONS = new double[32];
+
+    static{
+        double term = 1;
+        DERANGEMENT_FRACTIONS[0] = 1;
+
+        for(int u = 1; u < DERANGEMENT_FRACTIONS.length; u++){
+            term /= -u;
+            DERANGEMENT_FRACTIONS[u] = DERANGEMENT_FRACTIONS[u - 1] + term;
+        }
+    }
+
+    private ConstrainedShuffle(){}
+
+    /**
+     * Returns a uniformly random derangement, a permutation in which no position is sent to itself.
+     *
+     * <p>This uses the algorithm of Martinez, Panholzer and Prodinger, which walks down the
+     * positions swapping each with an earlier one, as in the Fisher-Yates shuffle. Each swap closes
+     * a cycle early with exactly the probability that makes every derangement equally likely, so
+     * no attempt is ever thrown away. The expected number of random numbers drawn is about
+     * {@code 2n}.
+     *
+     * @param size The number of positions.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return An array holding each number from {@code 0} to {@code size - 1} once, with no number
+     *         at its own index.
+     *
+     * @throws IllegalArgumentException if {@code size} is negative or 1.
+     */
+    public static int[] derangement(int size, RandomGenerator rng){
+        if(size < 0){
+            throw new IllegalArgumentException("size cannot be negative.");
+        }else if(size == 1){
+            throw new IllegalArgumentException("A single item cannot be moved from its place.");
+        }
+
+        final int[] targets = identity(size);
+        final boolean[] marked = new boolean[size];
+        int unmarked = size;
+
+        for(int i = size - 1; unmarked >= 2; i--){
+            if(marked[i]){
+                continue;
+            }
+
+            int j;
+
+            do{
+                j = rng.nextInt(i);
+            }while(marked[j]);
+
+            swap(targets, i, j);
+
+            if(rng.nextDouble() < closeCycleProbability(unmarked)){
+                marked[j] = true;
+                unmarked--;
+            }
+
+            unmarked--;
+        }
+
+        return targets;
+    }
+
+    /**
+     * Returns a random pairing, a permutation in which no position is sent to itself or to a
+     * position it is excluded from.
+     *
+     * <p>A uniform derangement is drawn first. Each position sent to an excluded partner is then
+     * repaired by swapping partners with another position, where both new partners are allowed.
+     * Finally, the pairing is mixed with random swaps that keep it valid, so that the repairs
+     * leave no visible pattern. With no exclusions the result is exactly uniform; with exclusions
+     * it is close to uniform over the valid pairings.
+     *
+     * <p>Each check of an exclusion takes constant time, so pairings of hundreds of thousands of
+     * positions take around a second.
+     *
+     * @param exclusions The pairs of positions that may not be sent to each other.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return An array holding each number from {@code 0} to {@code size - 1} once, with no number
+     *         at its own index or at the index of a position it is excluded from.
+     *
+     * @throws NullPointerException if {@code exclusions} is null.
+     * @throws IllegalArgumentException if no valid pairing could be found.
+     */
+    public static int[] pairing(Exclusions exclusions, RandomGenerator rng){
+        Objects.requireNonNull(exclusions, "exclusions cannot be null.");
+
+        final int size = exclusions.getSize();
+        final int[] targets = derangement(size, rng);
+
+        if(exclusions.isEmpty()){
+            return targets;
+        }
+
+        for(int i = 0; i < size; i++){
+            if(exclusions.isExcluded(i, targets[i]) && !repair(targets, i, exclusions, rng)){
+                throw new IllegalArgumentException("No pairing could be found that respects every exclusion.");
+            }
+        }
+
+        final long steps = (long) Math.ceil(size * (Math.log(size) / 2 + 1));
+
+        for(long step = 0; step < steps; step++){
+            final int i = rng.nextInt(size);
+            final int j = rng.nextInt(size);
+
+            if(canSwap(targets, i, j, exclusions)){
+                swap(targets, i, j);
+            }
+        }
+
+        return targets;
+    }
+
+    /**
+     * Gives a position sent to an excluded partner a new partner, by swapping partners with another
+     * position.
+     *
+     * @param targets The pairing being repaired.
+     * @param i The position to repair.
+     * @param exclusions The pairs of positions that may not be sent to each other.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return {@code true} if the position was repaired, or {@code false} if no swap would work.
+     */
+    private static boolean repair(int[] targets, int i, Exclusions exclusions, RandomGenerator rng){
+        final int size = targets.length;
+
+        for(int attempt = 0; attempt < RANDOM_REPAIR_ATTEMPTS; attempt++){
+            final int j = rng.nextInt(size);
+
+            if(canSwap(targets, i, j, exclusions)){
+                swap(targets, i, j);
+                return true;
+            }
+        }
+
+        final int offset = rng.nextInt(size);
+
+        for(int k = 0; k < size; k++){
+            final int j = (offset + k) % size;
+
+            if(canSwap(targets, i, j, exclusions)){
+                swap(targets, i, j);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns whether swapping the partners of two positions gives both an allowed partner.
+     */
+    private static boolean canSwap(int[] targets, int i, int j, Exclusions exclusions){
+        return i != j
+                && !exclusions.isExcluded(i, targets[j])
+                && !exclusions.isExcluded(j, targets[i]);
+    }
+
+    /**
+     * Returns the probability that the swap made while {@code u} positions remain unmarked closes a
+     * cycle, which is {@code (u - 1) D(u - 2) / D(u)}, or {@code d(u - 2) / (u d(u))}.
+     */
+    private static double closeCycleProbability(int u){
+        return derangementFraction(u - 2) / (u * derangementFraction(u));
+    }
+
+    /**
+     * Returns {@code D(u) / u!}, the fraction of permutations of {@code u} items that are
+     * derangements.
+     */
+    private static double derangementFraction(int u){
+        return DERANGEMENT_FRACTIONS[Math.min(u, DERANGEMENT_FRACTIONS.length - 1)];
+    }
+
+    private static int[] identity(int size){
+        final int[] positions = new int[size];
+
+        for(int i = 0; i < size; i++){
+            positions[i] = i;
+        }
+
+        return positions;
+    }
+
+    private static void swap(int[] array, int i, int j){
+        final int temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+    }
+
+    /**
+     * Holds the pairs of positions that a pairing may not send to each other.
+     *
+     * <p>Every position is excluded from itself. Pairs are stored unordered in an open-addressing
+     * hash table of packed {@code long} keys, so that even millions of pairs take little memory
+     * and each check takes constant time. Positions can also be put in groups, such as households,
+     * whose members are all excluded from each other without every pair being stored.
+     */
+    public static class Exclusions {
+        private static final long EMPTY = -1;
+
+        private final int size;
+        private long[] table = new long[16];
+        private int pairCount;
+        private int[] groups;
+
+        /**
+         * Creates an empty set of exclusions.
+         *
+         * @param size The number of positions to be paired.
+         *
+         * @throws IllegalArgumentException if {@code size} is negative.
+         */
+        public Exclusions(int size){
+            if(size < 0){
+                throw new IllegalArgumentException("size cannot be negative.");
+            }
+
+            this.size = size;
+            Arrays.fill(table, EMPTY);
+        }
+
+        /**
+         * Excludes two positions from being sent to each other, in either direction.
+         *
+         * @param a The first position.
+         * @param b The second position.
+         *
+         * @throws IndexOutOfBoundsException if either position is out of range.
+         */
+        public void exclude(int a, int b){
+            Objects.checkIndex(a, size);
+            Objects.checkIndex(b, size);
+
+            if(a == b){
+                return;
+            }
+
+            if(2 * (pairCount + 1) > table.length){
+                grow();
+            }
+
+            if(insert(table, key(a, b))){
+                pairCount++;
+            }
+        }
+
+        /**
+         * Puts each position in a group, and excludes the members of each group from each other.
+         *
+         * @param groups The group of each position. Positions with the same number are in the
+         *               same group, and a negative number puts a position in no group.
+         *
+         * @throws NullPointerException if {@code groups} is null.
+         * @throws IllegalArgumentException if {@code groups} does not have one element per position.
+         */
+        public void setGroups(int[] groups){
+            Objects.requireNonNull(groups, "groups cannot be null.");
+
+            if(groups.length != size){
+                throw new IllegalArgumentException("There must be one group per position.");
+            }
+
+            this.groups = groups.clone();
+        }
+
+        /**
+         * Returns whether two positions may not be sent to each other.
+         *
+         * @param a The first position.
+         * @param b The second position.
+         *
+         * @return {@code true} if the positions are the same, in the same group, or excluded as a pair.
+         */
+        public boolean isExcluded(int a, int b){
+            if(a == b){
+                return true;
+            }else if(groups != null && groups[a] >= 0 && groups[a] == groups[b]){
+                return true;
+            }else if(pairCount == 0){
+                return false;
+            }
+
+            final long key = key(a, b);
+            final int mask = table.length - 1;
+
+            for(int slot = hash(key) & mask; table[slot] != EMPTY; slot = (slot + 1) & mask){
+                if(table[slot] == key){
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Returns the number of positions to be paired.
+         *
+         * @return The number of positions.
+         */
+        public int getSize(){
+            return size;
+        }
+
+        /**
+         * Returns the number of pairs excluded with {@code exclude}, not counting groups.
+         *
+         * @return The number of excluded pairs.
+         */
+        public int getPairCount(){
+            return pairCount;
+        }
+
+        /**
+         * Returns whether there are no exclusions beyond each position being excluded from itself.
+         *
+         * @return {@code true} if no pairs are excluded and no groups are set.
+         */
+        public boolean isEmpty(){
+            return pairCount == 0 && groups == null;
+        }
+
+        private void grow(){
+            final long[] grown = new long[table.length * 2];
+            Arrays.fill(grown, EMPTY);
+
+            for(long key : table){
+                if(key != EMPTY){
+                    insert(grown, key);
+                }
+            }
+
+            table = grown;
+        }
+
+        private static boolean insert(long[] table, long key){
+            final int mask = table.length - 1;
+            int slot = hash(key) & mask;
+
+            while(table[slot] != EMPTY){
+                if(table[slot] == key){
+                    return false;
+                }
+
+                slot = (slot + 1) & mask;
+            }
+
+            table[slot] = key;
+            return true;
+        }
+
+        private static long key(int a, int b){
+            return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+        }
+
+        private static int hash(long key){
+            long h = key * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 32;
+
+            return (int) h;
+        }
+    }
+}
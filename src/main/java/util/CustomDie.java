@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Represents a die with faces defined by the user, such as symbols, words, repeated faces or
+ * weighted faces.
+ *
+ * <p>A die is defined by a list of faces separated by commas, such as {@code "Hit, Hit, Miss"}.
+ * A face may be given a weight by following it with {@code *} and a positive number, such as
+ * {@code "Hit*2.5, Miss"}; faces without a weight have a weight of 1. A face listed more than
+ * once has the total of its weights.
+ *
+ * <p>The definition is compiled once, when the die is created. If every weight is a whole
+ * number, the die gets a lookup table in which each face appears as many times as its weight,
+ * so each roll is a single bounded draw and an array lookup. Otherwise, the die gets an alias
+ * table, built with Vose's method, which needs one further draw per roll.
+ */
+public class CustomDie {
+    /**
+     * The largest lookup table a die may have. Dice whose weights add up to more than this
+     * use an alias table instead.
+     */
+    public static final int MAX_TABLE_SIZE = 1 << 16;
+
+    /**
+     * The largest number of dice whose tallies are counted by rolling each die. Larger
+     * quantities are tallied by a multinomial draw, in time that depends only on the number
+     * of faces.
+     */
+    private static final long MAX_ROLLED_DICE = 1 << 20;
+
+    private final String definition;
+    private final String[] faces;
+    private final double[] weights;
+
+    /**
+     * The lookup table, holding the index of each face as many times as its weight, or
+     * {@code null} if the die uses an alias table.
+     */
+    private final int[] table;
+
+    /**
+     * The alias table, where column {@code i} keeps face {@code i} with probability
+     * {@code probability[i]}, and otherwise gives face {@code alias[i]}.
+     */
+    private final double[] probability;
+    private final int[] alias;
+
+    private CustomDie(String definition, String[] faces, double[] weights){
+        this.definition = definition;
+        this.faces = faces;
+        this.weights = weights;
+
+        double total = 0;
+        boolean wholeWeights = true;
+
+        for(double weight : weights){
+            total += weight;
+            wholeWeights &= weight == Math.rint(weight);
+        }
+
+        if(wholeWeights && total <= MAX_TABLE_SIZE){
+            table = new int[(int) total];
+
+            for(int face = 0, i = 0; face < weights.length; face++){
+                for(int copy = 0; copy < weights[face]; copy++){
+                    table[i++] = face;
+                }
+            }
+
+            probability = null;
+            alias = null;
+        }else{
+            table = null;
+            probability = new double[weights.length];
+            alias = new int[weights.length];
+
+            buildAliasTable(total);
+        }
+    }
+
+    /**
+     * Compiles a die from its definition.
+     *
+     * @param definition The faces of the die, separated by commas, each optionally followed by
+     *                   {@code *} and a weight.
+     *
+     * @return The compiled {@code CustomDie}.
+     *
+     * @throws IllegalArgumentException if the definition has no faces, has an empty face, or has
+     *                                  a weight that is not a positive number.
+     */
+    public static CustomDie parse(String definition){
+        final Map<String, Double> weightsByFace = new LinkedHashMap<>();
+
+        for(String part : definition.split(",", -1)){
+            String face = part.strip();
+            double weight = 1;
+
+            final int star = face.lastIndexOf('*');
+
+            if(star >= 0){
+                final String weightText = face.substring(star + 1).strip();
+
+                try{
+                    weight = Double.parseDouble(weightText);
+                }catch(NumberFormatException e){
+                    throw new IllegalArgumentException("\"" + weightText + "\" is not a valid weight.");
+                }
+
+                face = face.substring(0, star).strip();
+            }
+
+            if(face.isEmpty()){
+                throw new IllegalArgumentException("Faces cannot be empty.");
+            }else if(!(weight > 0) || Double.isInfinite(weight)){
+                throw new IllegalArgumentException("The weight of \"" + face + "\" must be a positive number.");
+            }
+
+            weightsByFace.merge(face, weight, Double::sum);
+        }
+
+        final String[] faces = weightsByFace.keySet().toArray(new String[0]);
+        final double[] weights = new double[faces.length];
+
+        for(int i = 0; i < faces.length; i++){
+            weights[i] = weightsByFace.get(faces[i]);
+        }
+
+        return new CustomDie(definition, faces, weights);
+    }
+
+    /**
+     * Returns the definition the die was compiled from.
+     *
+     * @return The definition of the die.
+     */
+    public String getDefinition(){
+        return definition;
+    }
+
+    /**
+     * Returns the distinct faces of the die, in the order they were first defined.
+     *
+     * @return An unmodifiable {@code List} of the faces.
+     */
+    public List<String> getFaces(){
+        return Collections.unmodifiableList(Arrays.asList(faces));
+    }
+
+    /**
+     * Returns the number of distinct faces the die has.
+     *
+     * @return The number of faces.
+     */
+    public int getFaceCount(){
+        return faces.length;
+    }
+
+    /**
+     * Returns the face with the given index.
+     *
+     * @param face The index of the face, in the order the faces were first defined.
+     *
+     * @return The face.
+     */
+    public String getFace(int face){
+        return faces[face];
+    }
+
+    /**
+     * Returns the value of each face, if every face of the die is a whole number, so that
+     * rolls can be totalled.
+     *
+     * @return The value of each face, in the order of {@code getFaces}, or {@code null} if any
+     *         face is not a whole number.
+     */
+    public long[] getFaceValues(){
+        final long[] values = new long[faces.length];
+
+        for(int i = 0; i < faces.length; i++){
+            try{
+                values[i] = Long.parseLong(faces[i]);
+            }catch(NumberFormatException e){
+                return null;
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Rolls the die once.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return The index of the face rolled.
+     */
+    public int roll(RandomGenerator rng){
+        if(table != null){
+            return table[rng.nextInt(table.length)];
+        }
+
+        final int column = rng.nextInt(probability.length);
+
+        return (rng.nextDouble() < probability[column]) ? column : alias[column];
+    }
+
+    /**
+     * Rolls the die a number of times, and stores the index of each face rolled.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param results The array to store the rolls in.
+     * @param offset The position in {@code results} to store the first roll.
+     * @param length The number of times to roll the die.
+     */
+    public void roll(RandomGenerator rng, int[] results, int offset, int length){
+        for(int i = offset; i < offset + length; i++){
+            results[i] = roll(rng);
+        }
+    }
+
+    /**
+     * Rolls the die a number of times, and returns the faces rolled.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param quantity The number of times to roll the die.
+     *
+     * @return A {@code List} of the faces rolled.
+     */
+    public List<String> rollFaces(RandomGenerator rng, int quantity){
+        final DrawEvent event = DrawEvent.start("rollCustomDie");
+        final List<String> results = new ArrayList<>(quantity);
+
+        for(int i = 0; i < quantity; i++){
+            results.add(faces[roll(rng)]);
+        }
+
+        event.finish(quantity, faces.length, describeTable(), rng);
+
+        return results;
+    }
+
+    /**
+     * Rolls the die a number of times, and counts how many times each face came up.
+     *
+     * <p>Up to {@code 2^20} dice are rolled one by one and tallied. Larger quantities are drawn
+     * from the multinomial distribution, so the time taken depends only on the number of faces.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param quantity The number of times to roll the die.
+     *
+     * @return The number of times each face came up, in the order of {@code getFaces}.
+     *
+     * @throws IllegalArgumentException if {@code quantity} is negative.
+     */
+    public long[] rollCounts(RandomGenerator rng, long quantity){
+        if(quantity < 0){
+            throw new IllegalArgumentException("quantity cannot be negative.");
+        }
+
+        final DrawEvent event = DrawEvent.start("rollCustomDieCounts");
+        final long[] counts;
+
+        if(quantity <= MAX_ROLLED_DICE){
+            counts = new long[faces.length];
+
+            for(long i = 0; i < quantity; i++){
+                counts[roll(rng)]++;
+            }
+
+            event.finish(quantity, faces.length, describeTable(), rng);
+        }else{
+            counts = Distributions.nextMultinomial(rng, quantity, weights);
+
+            event.finish(quantity, faces.length, "binomial chain", rng);
+        }
+
+        return counts;
+    }
+
+    /**
+     * Describes how the die is rolled, for use in a {@code DrawEvent}.
+     */
+    private String describeTable(){
+        return (table != null) ? "lookup table" : "alias table";
+    }
+
+    /**
+     * Builds the alias table with Vose's method.
+     *
+     * <p>Each face's weight is scaled so that the average is 1. Columns are then filled by
+     * pairing a face below the average with one above it, which makes up the difference.
+     */
+    private void buildAliasTable(double total){
+        final int n = weights.length;
+        final double[] scaled = new double[n];
+        final Deque<Integer> small = new ArrayDeque<>();
+        final Deque<Integer> large = new ArrayDeque<>();
+
+        for(int i = 0; i < n; i++){
+            scaled[i] = weights[i] * n / total;
+
+            if(scaled[i] < 1){
+                small.push(i);
+            }else{
+                large.push(i);
+            }
+        }
+
+        while(!small.isEmpty() && !large.isEmpty()){
+            final int less = small.pop();
+            final int more = large.pop();
+
+            probability[less] = scaled[less];
+            alias[less] = more;
+
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+
+            if(scaled[more] < 1){
+                small.push(more);
+            }else{
+                large.push(more);
+            }
+        }
+
+        // Any columns left over are full, apart from rounding errors.
+        while(!large.isEmpty()){
+            probability[large.pop()] = 1;
+        }
+
+        while(!small.isEmpty()){
+            probability[small.pop()] = 1;
+        }
+    }
+}
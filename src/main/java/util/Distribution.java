@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+
+/**
+ * Represents a probability distribution that can be sampled on the distribution tab.
+ *
+ * <p>Each distribution takes one or two parameters, and draws its variates with the bulk methods
+ * of {@code Distributions}. Discrete variates are counted as whole numbers.
+ */
+public enum Distribution{
+    /**
+     * Represents the normal distribution, with a mean and standard deviation.
+     */
+    NORMAL("Normal", "Mean", "Standard deviation", false),
+
+    /**
+     * Represents the exponential distribution, with a mean.
+     */
+    EXPONENTIAL("Exponential", "Mean", null, false),
+
+    /**
+     * Represents the Poisson distribution, with a mean.
+     */
+    POISSON("Poisson", "Mean", null, true),
+
+    /**
+     * Represents the binomial distribution, with a number of trials and a probability of success.
+     */
+    BINOMIAL("Binomial", "Trials", "Probability", true),
+
+    /**
+     * Represents the geometric distribution of failures before the first success, with a
+     * probability of success.
+     */
+    GEOMETRIC("Geometric", "Probability", null, true);
+
+    /**
+     * The number of variates drawn in each block when sampling. Each block has its own generator,
+     * seeded from the sample seed and its position, so the result does not depend on the number
+     * of threads that take part.
+     */
+    public static final int BLOCK_SIZE = 1 << 16;
+
+    /**
+     * The number of standard deviations either side of the mean that a histogram covers.
+     */
+    private static final double HISTOGRAM_SPREAD = 4.5;
+
+    /**
+     * Holds the buffers one thread draws a block into.
+     */
+    private static final ThreadLocal<double[]> DOUBLE_SCRATCH = ThreadLocal.withInitial(() -> new double[BLOCK_SIZE]);
+    private static final ThreadLocal<long[]> LONG_SCRATCH = ThreadLocal.withInitial(() -> new long[BLOCK_SIZE]);
+
+    private final String name;
+    private final String firstParameterName;
+    private final String secondParameterName;
+    private final boolean discrete;
+
+    Distribution(String name, String firstParameterName, String secondParameterName, boolean discrete){
+        this.name = name;
+        this.firstParameterName = firstParameterName;
+        this.secondParameterName = secondParameterName;
+        this.discrete = discrete;
+    }
+
+    /**
+     * Draws variates into an array.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param first The first parameter of the distribution.
+     * @param second The second parameter of the distribution, which is ignored if it has only one.
+     * @param dest The array to fill. Discrete variates are stored as whole doubles.
+     * @param offset The position in {@code dest} of the first variate.
+     * @param length The number of variates to draw.
+     *
+     * @throws IllegalArgumentException if the parameters are not valid for the distribution.
+     * @throws IndexOutOfBoundsException if the range is outside {@code dest}.
+     */
+    public void fill(RandomGenerator rng, double first, double second, double[] dest, int offset, int length){
+        switch(this){
+            case NORMAL -> Distributions.fillNormal(rng, first, second, dest, offset, length);
+            case EXPONENTIAL -> Distributions.fillExponential(rng, first, dest, offset, length);
+            default -> {
+                final long[] whole = (length <= BLOCK_SIZE) ? LONG_SCRATCH.get() : new long[length];
+
+                fillDiscrete(rng, first, second, whole, length);
+
+                for(int i = 0; i < length; i++){
+                    dest[offset + i] = whole[i];
+                }
+            }
+        }
+    }
+
+    private void fillDiscrete(RandomGenerator rng, double first, double second, long[] dest, int length){
+        switch(this){
+            case POISSON -> Distributions.fillPoisson(rng, first, dest, 0, length);
+            case BINOMIAL -> Distributions.fillBinomial(rng, checkTrials(first), second, dest, 0, length);
+            case GEOMETRIC -> Distributions.fillGeometric(rng, first, dest, 0, length);
+            default -> throw new IllegalStateException(name + " is not discrete.");
+        }
+    }
+
+    /**
+     * Draws a sample from the distribution, and counts it in a histogram.
+     *
+     * <p>The variates are drawn in parallel blocks of {@code BLOCK_SIZE}, each counted in a
+     * histogram of its own, and the blocks are merged in order. Only one block per thread is
+     * held in memory, so any quantity can be sampled. The histogram covers the range where almost
+     * all variates fall; the rest are counted below or above it.
+     *
+     * @param first The first parameter of the distribution.
+     * @param second The second parameter of the distribution, which is ignored if it has only one.
+     * @param quantity The number of variates to draw.
+     * @param bins The most bins for the histogram.
+     * @param seed The seed to draw the sample from.
+     *
+     * @return A {@code Histogram} of the sample.
+     *
+     * @throws IllegalArgumentException if the parameters are not valid for the distribution,
+     *                                  {@code quantity} is negative, or {@code bins} is not
+     *                                  between 1 and {@code Histogram.MAX_BINS}.
+     */
+    public Histogram sample(double first, double second, long quantity, int bins, long seed){
+        if(quantity < 0){
+            throw new IllegalArgumentException("quantity cannot be negative.");
+        }
+
+        // Check the parameters before any work is split up.
+        fill(new SplittableRandom(seed), first, second, new double[0], 0, 0);
+
+        final Histogram shape = createHistogram(first, second, bins);
+        final int blocks = (int) ((quantity + BLOCK_SIZE - 1) / BLOCK_SIZE);
+
+        final Histogram[] parts = IntStream.range(0, blocks).parallel().mapToObj(b -> {
+            final SplittableRandom rng = new SplittableRandom(TicketBatch.chunkSeed(seed, b));
+            final double[] values = DOUBLE_SCRATCH.get();
+            final int length = (int) Math.min(BLOCK_SIZE, quantity - (long) b * BLOCK_SIZE);
+            final Histogram part = new Histogram(shape);
+
+            fill(rng, first, second, values, 0, length);
+            part.add(values, 0, length);
+
+            return part;
+        }).toArray(Histogram[]::new);
+
+        for(Histogram part : parts){
+            shape.merge(part);
+        }
+
+        return shape;
+    }
+
+    /**
+     * Creates an empty histogram covering the range where almost all variates fall.
+     */
+    private Histogram createHistogram(double first, double second, int bins){
+        final double mean = getMean(first, second);
+        final double spread = HISTOGRAM_SPREAD * Math.max(getStandardDeviation(first, second), 0.5);
+
+        return switch(this){
+            case NORMAL -> new Histogram(mean - spread, mean + spread, bins, false);
+            case EXPONENTIAL -> new Histogram(0, 2 * HISTOGRAM_SPREAD * first, bins, false);
+            case POISSON -> new Histogram(Math.max(0, mean - spread), mean + spread + 1, bins, true);
+            case BINOMIAL -> new Histogram(Math.max(0, mean - spread), Math.min(first, mean + spread + 1), bins, true);
+            case GEOMETRIC -> new Histogram(0, (first == 1) ? 0 : Math.ceil(Math.log(1e-4) / Math.log1p(-first)), bins, true);
+        };
+    }
+
+    /**
+     * Returns the mean of the distribution.
+     *
+     * @param first The first parameter of the distribution.
+     * @param second The second parameter of the distribution, which is ignored if it has only one.
+     *
+     * @return The mean.
+     */
+    public double getMean(double first, double second){
+        return switch(this){
+            case NORMAL, EXPONENTIAL, POISSON -> first;
+            case BINOMIAL -> Math.floor(first) * second;
+            case GEOMETRIC -> (1 - first) / first;
+        };
+    }
+
+    /**
+     * Returns the standard deviation of the distribution.
+     *
+     * @param first The first parameter of the distribution.
+     * @param second The second parameter of the distribution, which is ignored if it has only one.
+     *
+     * @return The standard deviation.
+     */
+    public double getStandardDeviation(double first, double second){
+        return switch(this){
+            case NORMAL -> second;
+            case EXPONENTIAL -> first;
+            case POISSON -> Math.sqrt(first);
+            case BINOMIAL -> Math.sqrt(Math.floor(first) * second * (1 - second));
+            case GEOMETRIC -> Math.sqrt(1 - first) / first;
+        };
+    }
+
+    /**
+     * Returns the name of the first parameter of the distribution.
+     *
+     * @return The name of the first parameter.
+     */
+    public String getFirstParameterName(){
+        return firstParameterName;
+    }
+
+    /**
+     * Returns the name of the second parameter of the distribution.
+     *
+     * @return The name of the second parameter, or {@code null} if it has only one.
+     */
+    public String getSecondParameterName(){
+        return secondParameterName;
+    }
+
+    /**
+     * Returns whether the distribution has a second parameter.
+     *
+     * @return {@code true} if the distribution takes two parameters.
+     */
+    public boolean hasSecondParameter(){
+        return secondParameterName != null;
+    }
+
+    /**
+     * Returns whether the variates of the distribution are whole numbers.
+     *
+     * @return {@code true} if the distribution is discrete.
+     */
+    public boolean isDiscrete(){
+        return discrete;
+    }
+
+    /**
+     * Returns the name of the distribution.
+     *
+     * @return The name of the distribution.
+     */
+    @Override
+    public String toString(){
+        return name;
+    }
+
+    private static long checkTrials(double trials){
+        if(!(trials >= 0 && trials <= Long.MAX_VALUE) || trials != Math.floor(trials)){
+            throw new IllegalArgumentException("The number of trials must be a whole number, at least 0.");
+        }
+
+        return (long) trials;
+    }
+}
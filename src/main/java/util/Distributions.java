@@ -0,0 +1,875 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+
+/**
+ * Provides static methods to draw from probability distributions: the normal and exponential
+ * distributions, and the discrete binomial, multinomial, Poisson and geometric distributions.
+ *
+ * <p>Each distribution can be drawn from one variate at a time, or in bulk into a primitive array
+ * supplied by the caller. The bulk methods set up their sampler once for the whole array, and
+ * allocate nothing.
+ */
+public class Distributions {
+    /**
+     * The mean below which binomial variates are drawn by inversion rather than by BTPE.
+     */
+    private static final double BTPE_MIN_MEAN = 30;
+
+    /**
+     * The mean below which Poisson variates are drawn by inversion rather than by PTRS.
+     */
+    private static final double PTRS_MIN_MEAN = 10;
+
+    /**
+     * The largest mean of a Poisson variate, chosen so that variates stay far from the limit of a {@code long}.
+     */
+    public static final double MAX_POISSON_MEAN = 0x1.0p60;
+
+    /**
+     * The number of layers in the ziggurat for the normal distribution, and the start of its tail.
+     */
+    private static final int NORMAL_LAYERS = 128;
+    private static final double NORMAL_TAIL = 3.442619855899;
+
+    /**
+     * The area of each layer of the normal ziggurat, under {@code exp(-x^2 / 2)}.
+     */
+    private static final double NORMAL_LAYER_AREA = 9.91256303526217e-3;
+
+    /**
+     * The number of layers in the ziggurat for the exponential distribution, and the start of its tail.
+     */
+    private static final int EXPONENTIAL_LAYERS = 256;
+    private static final double EXPONENTIAL_TAIL = 7.69711747013104972;
+
+    /**
+     * The area of each layer of the exponential ziggurat, under {@code exp(-x)}.
+     */
+    private static final double EXPONENTIAL_LAYER_AREA = 3.949659822581572e-3;
+
+    /**
+     * The ziggurat tables. Layer {@code i} of each ziggurat spans from 0 to {@code X[i]}, and
+     * {@code RATIO[i]} is {@code X[i + 1] / X[i]}, below which a point in the layer is under the
+     * curve whatever its height. {@code F[i]} is the height of the curve at {@code X[i]}.
+     */
+    private static final double[] NORMAL_X = new double[NORMAL_LAYERS + 1];
+    private static final double[] NORMAL_RATIO = new double[NORMAL_LAYERS];
+    private static final double[] NORMAL_F = new double[NORMAL_LAYERS + 1];
+    private static final double[] EXPONENTIAL_X = new double[EXPONENTIAL_LAYERS + 1];
+    private static final double[] EXPONENTIAL_RATIO = new double[EXPONENTIAL_LAYERS];
+    private static final double[] EXPONENTIAL_F = new double[EXPONENTIAL_LAYERS + 1];
+
+    /**
+     * Holds {@code log(k!)} for small {@code k}, for the acceptance test of PTRS.
+     */
+    private static final double[] LOG_FACTORIALS = new double[128];
+
+    /**
+     * Scales the top 53 bits of a {@code long} to a double in [0, 1).
+     */
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    static{
+        NORMAL_X[0] = NORMAL_LAYER_AREA / Math.exp(-0.5 * NORMAL_TAIL * NORMAL_TAIL);
+        NORMAL_X[1] = NORMAL_TAIL;
+
+        for(int i = 1; i < NORMAL_LAYERS - 1; i++){
+            final double x = NORMAL_X[i];
+            NORMAL_X[i + 1] = Math.sqrt(-2 * Math.log(NORMAL_LAYER_AREA / x + Math.exp(-0.5 * x * x)));
+        }
+
+        for(int i = 0; i <= NORMAL_LAYERS; i++){
+            NORMAL_F[i] = Math.exp(-0.5 * NORMAL_X[i] * NORMAL_X[i]);
+        }
+
+        for(int i = 0; i < NORMAL_LAYERS; i++){
+            NORMAL_RATIO[i] = NORMAL_X[i + 1] / NORMAL_X[i];
+        }
+
+        EXPONENTIAL_X[0] = EXPONENTIAL_LAYER_AREA / Math.exp(-EXPONENTIAL_TAIL);
+        EXPONENTIAL_X[1] = EXPONENTIAL_TAIL;
+
+        for(int i = 1; i < EXPONENTIAL_LAYERS - 1; i++){
+            final double x = EXPONENTIAL_X[i];
+            EXPONENTIAL_X[i + 1] = -Math.log(EXPONENTIAL_LAYER_AREA / x + Math.exp(-x));
+        }
+
+        for(int i = 0; i <= EXPONENTIAL_LAYERS; i++){
+            EXPONENTIAL_F[i] = Math.exp(-EXPONENTIAL_X[i]);
+        }
+
+        for(int i = 0; i < EXPONENTIAL_LAYERS; i++){
+            EXPONENTIAL_RATIO[i] = EXPONENTIAL_X[i + 1] / EXPONENTIAL_X[i];
+        }
+
+        for(int k = 2; k < LOG_FACTORIALS.length; k++){
+            LOG_FACTORIALS[k] = LOG_FACTORIALS[k - 1] + Math.log(k);
+        }
+    }
+
+    private Distributions(){}
+
+    /**
+     * Draws the number of successes in {@code n} independent trials, each with probability
+     * {@code p} of success.
+     *
+     * <p>Small means are drawn by inversion, and larger ones by the BTPE algorithm of
+     * Kachitvichyanukul and Schmeiser, whose expected running time does not depend on {@code n}.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param n The number of trials.
+     * @param p The probability of success in each trial.
+     *
+     * @return A binomial variate between 0 and {@code n} (inclusive).
+     *
+     * @throws IllegalArgumentException if {@code n} is negative, or {@code p} is not between 0 and 1.
+     */
+    public static long nextBinomial(RandomGenerator rng, long n, double p){
+        checkBinomial(n, p);
+
+        return new BinomialSampler(n, p).next(rng);
+    }
+
+    /**
+     * Draws the number of times each of several equally likely outcomes occurs in {@code n}
+     * independent trials.
+     *
+     * <p>The counts are drawn as a chain of binomial variates: the first outcome's count is
+     * drawn from all {@code n} trials, the next from the trials that remain, and so on.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param n The number of trials.
+     * @param outcomes The number of outcomes.
+     *
+     * @return The count of each outcome, which add up to {@code n}.
+     *
+     * @throws IllegalArgumentException if {@code n} is negative or {@code outcomes} is less than 1.
+     */
+    public static long[] nextMultinomial(RandomGenerator rng, long n, int outcomes){
+        if(n < 0){
+            throw new IllegalArgumentException("n cannot be negative.");
+        }else if(outcomes < 1){
+            throw new IllegalArgumentException("outcomes must be at least 1.");
+        }
+
+        final long[] counts = new long[outcomes];
+        long remaining = n;
+
+        for(int i = 0; i < outcomes - 1 && remaining > 0; i++){
+            counts[i] = nextBinomial(rng, remaining, 1.0 / (outcomes - i));
+            remaining -= counts[i];
+        }
+
+        counts[outcomes - 1] += remaining;
+
+        return counts;
+    }
+
+    /**
+     * Draws the number of times each of several outcomes occurs in {@code n} independent trials,
+     * where each outcome is chosen with probability proportional to its weight.
+     *
+     * <p>The counts are drawn as a chain of binomial variates, as in {@code nextMultinomial(rng, n, outcomes)},
+     * with each outcome's probability taken relative to the weight of the outcomes that remain.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param n The number of trials.
+     * @param weights The weight of each outcome.
+     *
+     * @return The count of each outcome, which add up to {@code n}.
+     *
+     * @throws IllegalArgumentException if {@code n} is negative, {@code weights} is empty, or any
+     *                                  weight is negative.
+     */
+    public static long[] nextMultinomial(RandomGenerator rng, long n, double[] weights){
+        if(n < 0){
+            throw new IllegalArgumentException("n cannot be negative.");
+        }else if(weights.length == 0){
+            throw new IllegalArgumentException("weights cannot be empty.");
+        }
+
+        double remainingWeight = 0;
+
+        for(double weight : weights){
+            if(!(weight >= 0)){
+                throw new IllegalArgumentException("weights cannot be negative.");
+            }
+
+            remainingWeight += weight;
+        }
+
+        final long[] counts = new long[weights.length];
+        long remaining = n;
+
+        for(int i = 0; i < weights.length - 1 && remaining > 0; i++){
+            final double p = (weights[i] < remainingWeight) ? weights[i] / remainingWeight : 1;
+
+            counts[i] = nextBinomial(rng, remaining, p);
+            remaining -= counts[i];
+            remainingWeight -= weights[i];
+        }
+
+        counts[weights.length - 1] += remaining;
+
+        return counts;
+    }
+
+    /**
+     * Draws a standard normal variate, with mean 0 and standard deviation 1.
+     *
+     * <p>This uses the ziggurat algorithm of Marsaglia and Tsang, with the improvements of Doornik:
+     * the area under the curve is covered by 128 layers of equal area, and a point drawn in a
+     * random layer is accepted straight away about 99% of the time, with a single random word and
+     * no logarithm. The layer and the position within it are taken from separate bits of the word.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A normal variate.
+     */
+    public static double nextNormal(RandomGenerator rng){
+        while(true){
+            final long word = rng.nextLong();
+            final int i = (int) word & (NORMAL_LAYERS - 1);
+            final double u = 2 * ((word >>> 11) * DOUBLE_UNIT) - 1;
+
+            if(Math.abs(u) < NORMAL_RATIO[i]){
+                return u * NORMAL_X[i];
+            }
+
+            if(i == 0){
+                return normalTail(rng, u < 0);
+            }
+
+            final double x = u * NORMAL_X[i];
+            final double f = Math.exp(-0.5 * x * x);
+
+            if(NORMAL_F[i + 1] + rng.nextDouble() * (NORMAL_F[i] - NORMAL_F[i + 1]) < f){
+                return x;
+            }
+        }
+    }
+
+    /**
+     * Draws a normal variate with a given mean and standard deviation.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param mean The mean of the distribution.
+     * @param standardDeviation The standard deviation of the distribution.
+     *
+     * @return A normal variate.
+     *
+     * @throws IllegalArgumentException if {@code standardDeviation} is negative or not finite.
+     */
+    public static double nextNormal(RandomGenerator rng, double mean, double standardDeviation){
+        checkStandardDeviation(standardDeviation);
+
+        return mean + standardDeviation * nextNormal(rng);
+    }
+
+    /**
+     * Draws a standard exponential variate, with mean 1.
+     *
+     * <p>This uses a ziggurat of 256 layers, as in {@code nextNormal}, so that a logarithm is
+     * only needed for the rare points in the tail or near the curve.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A non-negative exponential variate.
+     */
+    public static double nextExponential(RandomGenerator rng){
+        double shift = 0;
+
+        while(true){
+            final long word = rng.nextLong();
+            final int i = (int) word & (EXPONENTIAL_LAYERS - 1);
+            final double u = (word >>> 11) * DOUBLE_UNIT;
+
+            if(u < EXPONENTIAL_RATIO[i]){
+                return shift + u * EXPONENTIAL_X[i];
+            }
+
+            if(i == 0){
+                // The tail is itself exponential, so it is drawn from the ziggurat again, shifted.
+                shift += EXPONENTIAL_TAIL;
+                continue;
+            }
+
+            final double x = u * EXPONENTIAL_X[i];
+
+            if(EXPONENTIAL_F[i + 1] + rng.nextDouble() * (EXPONENTIAL_F[i] - EXPONENTIAL_F[i + 1]) < Math.exp(-x)){
+                return shift + x;
+            }
+        }
+    }
+
+    /**
+     * Draws an exponential variate with a given mean.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param mean The mean of the distribution.
+     *
+     * @return A non-negative exponential variate.
+     *
+     * @throws IllegalArgumentException if {@code mean} is not positive and finite.
+     */
+    public static double nextExponential(RandomGenerator rng, double mean){
+        checkMean(mean);
+
+        return mean * nextExponential(rng);
+    }
+
+    /**
+     * Draws the number of events in an interval, where events occur independently at a constant
+     * average rate.
+     *
+     * <p>Small means are drawn by inversion, and larger ones by the PTRS algorithm of Hormann,
+     * whose expected running time does not depend on the mean.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param mean The average number of events in the interval.
+     *
+     * @return A Poisson variate.
+     *
+     * @throws IllegalArgumentException if {@code mean} is negative, or too large for a variate
+     *                                  to fit in a {@code long}.
+     */
+    public static long nextPoisson(RandomGenerator rng, double mean){
+        checkPoissonMean(mean);
+
+        return new PoissonSampler(mean).next(rng);
+    }
+
+    /**
+     * Draws the number of failures before the first success, in independent trials each with
+     * probability {@code p} of success.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param p The probability of success in each trial.
+     *
+     * @return A geometric variate, which is 0 if the first trial succeeds.
+     *
+     * @throws IllegalArgumentException if {@code p} is not greater than 0 and at most 1.
+     */
+    public static long nextGeometric(RandomGenerator rng, double p){
+        checkGeometricProbability(p);
+
+        return (p == 1) ? 0 : geometric(rng, 1 / Math.log1p(-p));
+    }
+
+    /**
+     * Fills an array with normal variates.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param mean The mean of the distribution.
+     * @param standardDeviation The standard deviation of the distribution.
+     * @param dest The array to fill.
+     * @param offset The position in {@code dest} of the first variate.
+     * @param length The number of variates to draw.
+     *
+     * @throws IllegalArgumentException if {@code standardDeviation} is negative or not finite.
+     * @throws IndexOutOfBoundsException if the range is outside {@code dest}.
+     */
+    public static void fillNormal(RandomGenerator rng, double mean, double standardDeviation,
+                                  double[] dest, int offset, int length){
+        checkStandardDeviation(standardDeviation);
+        Objects.checkFromIndexSize(offset, length, dest.length);
+
+        for(int i = offset; i < offset + length; i++){
+            dest[i] = mean + standardDeviation * nextNormal(rng);
+        }
+    }
+
+    /**
+     * Fills an array with exponential variates.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param mean The mean of the distribution.
+     * @param dest The array to fill.
+     * @param offset The position in {@code dest} of the first variate.
+     * @param length The number of variates to draw.
+     *
+     * @throws IllegalArgumentException if {@code mean} is not positive and finite.
+     * @throws IndexOutOfBoundsException if the range is outside {@code dest}.
+     */
+    public static void fillExponential(RandomGenerator rng, double mean, double[] dest, int offset, int length){
+        checkMean(mean);
+        Objects.checkFromIndexSize(offset, length, dest.length);
+
+        for(int i = offset; i < offset + length; i++){
+            dest[i] = mean * nextExponential(rng);
+        }
+    }
+
+    /**
+     * Fills an array with Poisson variates, setting up the sampler once for the whole array.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param mean The average number of events in the interval.
+     * @param dest The array to fill.
+     * @param offset The position in {@code dest} of the first variate.
+     * @param length The number of variates to draw.
+     *
+     * @throws IllegalArgumentException if {@code mean} is negative, or too large for a variate
+     *                                  to fit in a {@code long}.
+     * @throws IndexOutOfBoundsException if the range is outside {@code dest}.
+     */
+    public static void fillPoisson(RandomGenerator rng, double mean, long[] dest, int offset, int length){
+        checkPoissonMean(mean);
+        Objects.checkFromIndexSize(offset, length, dest.length);
+
+        final PoissonSampler sampler = new PoissonSampler(mean);
+
+        for(int i = offset; i < offset + length; i++){
+            dest[i] = sampler.next(rng);
+        }
+    }
+
+    /**
+     * Fills an array with binomial variates, setting up the sampler once for the whole array.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param n The number of trials.
+     * @param p The probability of success in each trial.
+     * @param dest The array to fill.
+     * @param offset The position in {@code dest} of the first variate.
+     * @param length The number of variates to draw.
+     *
+     * @throws IllegalArgumentException if {@code n} is negative, or {@code p} is not between 0 and 1.
+     * @throws IndexOutOfBoundsException if the range is outside {@code dest}.
+     */
+    public static void fillBinomial(RandomGenerator rng, long n, double p, long[] dest, int offset, int length){
+        checkBinomial(n, p);
+        Objects.checkFromIndexSize(offset, length, dest.length);
+
+        final BinomialSampler sampler = new BinomialSampler(n, p);
+
+        for(int i = offset; i < offset + length; i++){
+            dest[i] = sampler.next(rng);
+        }
+    }
+
+    /**
+     * Fills an array with geometric variates.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param p The probability of success in each trial.
+     * @param dest The array to fill.
+     * @param offset The position in {@code dest} of the first variate.
+     * @param length The number of variates to draw.
+     *
+     * @throws IllegalArgumentException if {@code p} is not greater than 0 and at most 1.
+     * @throws IndexOutOfBoundsException if the range is outside {@code dest}.
+     */
+    public static void fillGeometric(RandomGenerator rng, double p, long[] dest, int offset, int length){
+        checkGeometricProbability(p);
+        Objects.checkFromIndexSize(offset, length, dest.length);
+
+        if(p == 1){
+            Arrays.fill(dest, offset, offset + length, 0);
+            return;
+        }
+
+        final double scale = 1 / Math.log1p(-p);
+
+        for(int i = offset; i < offset + length; i++){
+            dest[i] = geometric(rng, scale);
+        }
+    }
+
+    /**
+     * Draws a geometric variate by inversion, given {@code 1 / log(1 - p)}.
+     */
+    private static long geometric(RandomGenerator rng, double scale){
+        // Exponential variates cost no logarithm, and -E / log(1 - p) has the same distribution as log(U) / log(1 - p).
+        final double x = -nextExponential(rng) * scale;
+
+        return (x >= Long.MAX_VALUE) ? Long.MAX_VALUE : (long) x;
+    }
+
+    /**
+     * Draws from the tail of the normal distribution, beyond {@code NORMAL_TAIL}, by Marsaglia's
+     * method.
+     */
+    private static double normalTail(RandomGenerator rng, boolean negative){
+        double x;
+        double y;
+
+        do{
+            x = nextExponential(rng) / NORMAL_TAIL;
+            y = nextExponential(rng);
+        }while(2 * y < x * x);
+
+        return negative ? -(NORMAL_TAIL + x) : NORMAL_TAIL + x;
+    }
+
+    private static void checkStandardDeviation(double standardDeviation){
+        if(!(standardDeviation >= 0 && standardDeviation < Double.POSITIVE_INFINITY)){
+            throw new IllegalArgumentException("standardDeviation must be a non-negative, finite number.");
+        }
+    }
+
+    private static void checkMean(double mean){
+        if(!(mean > 0 && mean < Double.POSITIVE_INFINITY)){
+            throw new IllegalArgumentException("mean must be a positive, finite number.");
+        }
+    }
+
+    private static void checkPoissonMean(double mean){
+        if(!(mean >= 0 && mean <= MAX_POISSON_MEAN)){
+            throw new IllegalArgumentException("mean must be between 0 and " + MAX_POISSON_MEAN + ".");
+        }
+    }
+
+    private static void checkGeometricProbability(double p){
+        if(!(p > 0 && p <= 1)){
+            throw new IllegalArgumentException("p must be greater than 0 and at most 1.");
+        }
+    }
+
+    private static void checkBinomial(long n, double p){
+        if(n < 0){
+            throw new IllegalArgumentException("n cannot be negative.");
+        }else if(!(p >= 0 && p <= 1)){
+            throw new IllegalArgumentException("p must be between 0 and 1.");
+        }
+    }
+
+    /**
+     * Draws binomial variates for a fixed number of trials and probability, with the set-up of
+     * the algorithm done once.
+     *
+     * <p>Variates are drawn with the smaller of {@code p} and {@code 1 - p}, then flipped if
+     * needed. Small means are drawn by inversion, and larger ones by BTPE.
+     */
+    private static final class BinomialSampler{
+        private final long n;
+        private final boolean flip;
+        private final boolean btpe;
+        private final double p;
+        private final double q;
+
+        // Inversion
+        private final double qn;
+        private final double bound;
+
+        // BTPE
+        private final double nrq;
+        private final long m;
+        private final double p1;
+        private final double xm;
+        private final double xl;
+        private final double xr;
+        private final double c;
+        private final double lambdaL;
+        private final double lambdaR;
+        private final double p2;
+        private final double p3;
+        private final double p4;
+
+        BinomialSampler(long n, double p){
+            this.n = n;
+            this.flip = p > 0.5;
+            this.p = Math.min(p, 1 - p);
+            this.q = 1 - this.p;
+            this.btpe = n * this.p >= BTPE_MIN_MEAN;
+
+            final double np = n * this.p;
+            qn = Math.exp(n * Math.log(q));
+            bound = Math.min(n, np + 10 * Math.sqrt(np * q + 1));
+
+            nrq = np * q;
+            final double fm = np + this.p;
+            m = (long) Math.floor(fm);
+
+            p1 = Math.floor(2.195 * Math.sqrt(nrq) - 4.6 * q) + 0.5;
+            xm = m + 0.5;
+            xl = xm - p1;
+            xr = xm + p1;
+            c = 0.134 + 20.5 / (15.3 + m);
+
+            double a = (fm - xl) / (fm - xl * this.p);
+            lambdaL = a * (1 + a / 2);
+            a = (xr - fm) / (xr * q);
+            lambdaR = a * (1 + a / 2);
+
+            p2 = p1 * (1 + 2 * c);
+            p3 = p2 + c / lambdaL;
+            p4 = p3 + c / lambdaR;
+        }
+
+        long next(RandomGenerator rng){
+            if(n == 0 || p == 0){
+                return flip ? n : 0;
+            }
+
+            final long y = btpe ? nextBtpe(rng) : nextInversion(rng);
+
+            return flip ? n - y : y;
+        }
+
+        /**
+         * Draws a binomial variate by inversion, for a small mean.
+         */
+        private long nextInversion(RandomGenerator rng){
+            long x = 0;
+            double px = qn;
+            double u = rng.nextDouble();
+
+            while(u > px){
+                x++;
+
+                if(x > bound){
+                    x = 0;
+                    px = qn;
+                    u = rng.nextDouble();
+                }else{
+                    u -= px;
+                    px = ((n - x + 1) * p * px) / (x * q);
+                }
+            }
+
+            return x;
+        }
+
+        /**
+         * Draws a binomial variate with the BTPE algorithm of Kachitvichyanukul and Schmeiser,
+         * for a mean of at least {@code BTPE_MIN_MEAN}.
+         *
+         * <p>The distribution is covered by a triangle, two parallelograms and two exponential
+         * tails. A point is drawn under this hat, and accepted if it also falls under the
+         * distribution, which is tested by a squeeze where possible, or otherwise exactly.
+         */
+        private long nextBtpe(RandomGenerator rng){
+            while(true){
+                final double u = rng.nextDouble() * p4;
+                double v = rng.nextDouble();
+                final long y;
+
+                if(u <= p1){
+                    // The triangle, where every point is accepted.
+                    return (long) Math.floor(xm - p1 * v + u);
+                }else if(u <= p2){
+                    // The parallelograms.
+                    final double x = xl + (u - p1) / c;
+                    v = v * c + 1 - Math.abs(m - x + 0.5) / p1;
+
+                    if(v > 1){
+                        continue;
+                    }
+
+                    y = (long) Math.floor(x);
+                }else if(u <= p3){
+                    // The left exponential tail.
+                    y = (long) Math.floor(xl + Math.log(v) / lambdaL);
+
+                    if(y < 0){
+                        continue;
+                    }
+
+                    v = v * (u - p2) * lambdaL;
+                }else{
+                    // The right exponential tail.
+                    y = (long) Math.floor(xr - Math.log(v) / lambdaR);
+
+                    if(y > n){
+                        continue;
+                    }
+
+                    v = v * (u - p3) * lambdaR;
+                }
+
+                final long k = Math.abs(y - m);
+
+                if(k <= 20 || k >= nrq / 2 - 1){
+                    // Evaluate the ratio of the probabilities of y and m directly.
+                    final double s = p / q;
+                    final double sn = s * (n + 1);
+                    double f = 1;
+
+                    if(m < y){
+                        for(long i = m + 1; i <= y; i++){
+                            f *= sn / i - s;
+                        }
+                    }else if(m > y){
+                        for(long i = y + 1; i <= m; i++){
+                            f /= sn / i - s;
+                        }
+                    }
+
+                    if(v <= f){
+                        return y;
+                    }
+
+                    continue;
+                }
+
+                // Squeeze the log of the ratio between bounds, then test it with Stirling's formula.
+                final double rho = (k / nrq) * ((k * (k / 3.0 + 0.625) + 0.1666666666666) / nrq + 0.5);
+                final double t = -((double) k * k) / (2 * nrq);
+                final double logV = Math.log(v);
+
+                if(logV < t - rho){
+                    return y;
+                }else if(logV > t + rho){
+                    continue;
+                }
+
+                final double x1 = y + 1;
+                final double f1 = m + 1;
+                final double z = n + 1 - m;
+                final double w = n - y + 1;
+
+                final double bound = xm * Math.log(f1 / x1)
+                        + (n - m + 0.5) * Math.log(z / w)
+                        + (y - m) * Math.log(w * p / (x1 * q))
+                        + stirlingCorrection(f1) + stirlingCorrection(z)
+                        + stirlingCorrection(x1) + stirlingCorrection(w);
+
+                if(logV <= bound){
+                    return y;
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws Poisson variates for a fixed mean, with the set-up of the algorithm done once.
+     *
+     * <p>Small means are drawn by inversion. Larger ones are drawn with the PTRS algorithm of
+     * Hormann, a transformed rejection whose hat is fitted to the distribution so closely that
+     * about 9 in 10 candidates are accepted by a cheap squeeze, and its expected running time
+     * does not depend on the mean.
+     */
+    private static final class PoissonSampler{
+        private final double mean;
+        private final boolean ptrs;
+
+        // Inversion
+        private final double p0;
+
+        // PTRS
+        private final double logMean;
+        private final double a;
+        private final double b;
+        private final double logInvAlpha;
+        private final double vr;
+
+        PoissonSampler(double mean){
+            this.mean = mean;
+            this.ptrs = mean >= PTRS_MIN_MEAN;
+
+            p0 = Math.exp(-mean);
+
+            logMean = Math.log(mean);
+            b = 0.931 + 2.53 * Math.sqrt(mean);
+            a = -0.059 + 0.02483 * b;
+            logInvAlpha = Math.log(1.1239 + 1.1328 / (b - 3.4));
+            vr = 0.9277 - 3.6224 / (b - 2);
+        }
+
+        long next(RandomGenerator rng){
+            return ptrs ? nextPtrs(rng) : nextInversion(rng);
+        }
+
+        private long nextInversion(RandomGenerator rng){
+            long x = 0;
+            double px = p0;
+            double u = rng.nextDouble();
+
+            while(u > px){
+                u -= px;
+                x++;
+                px *= mean / x;
+
+                if(px == 0){
+                    // Rounding has left u above the whole distribution, so start again.
+                    x = 0;
+                    px = p0;
+                    u = rng.nextDouble();
+                }
+            }
+
+            return x;
+        }
+
+        private long nextPtrs(RandomGenerator rng){
+            while(true){
+                final double u = rng.nextDouble() - 0.5;
+                final double v = rng.nextDouble();
+                final double us = 0.5 - Math.abs(u);
+                final long k = (long) Math.floor((2 * a / us + b) * u + mean + 0.43);
+
+                if(us >= 0.07 && v <= vr){
+                    return k;
+                }
+
+                if(k < 0 || (us < 0.013 && v > us)){
+                    continue;
+                }
+
+                if(Math.log(v) + logInvAlpha - Math.log(a / (us * us) + b) <= logProbability(k)){
+                    return k;
+                }
+            }
+        }
+
+        /**
+         * Returns the log of the probability of {@code k} events, {@code -mean + k log(mean) - log(k!)}.
+         *
+         * <p>For large {@code k}, the terms of that sum are far larger than the sum itself, so it
+         * is rearranged with Stirling's formula into terms that stay small.
+         */
+        private double logProbability(long k){
+            if(k < LOG_FACTORIALS.length){
+                return -mean + k * logMean - LOG_FACTORIALS[(int) k];
+            }
+
+            final double x = k;
+
+            return x * Math.log1p((mean - x) / x) + (x - mean)
+                    - 0.5 * Math.log(2 * Math.PI * x) - stirlingCorrection(x);
+        }
+    }
+
+    /**
+     * Returns the correction term of Stirling's formula for the log factorial.
+     */
+    private static double stirlingCorrection(double x){
+        final double x2 = x * x;
+
+        return (13860 - (462 - (132 - (99 - 140 / x2) / x2) / x2) / x2) / x / 166320;
+    }
+}
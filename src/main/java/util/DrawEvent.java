@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.lang.management.ManagementFactory;
+import java.util.random.RandomGenerator;
+
+/**
+ * Provides a Java Flight Recorder event for each draw, shuffle or formatting operation.
+ *
+ * <p>Events are only filled in and committed while a recording that enables them is running,
+ * for example one started with {@code jcmd <pid> JFR.start}, so they can be left in place at
+ * little cost. Typical use is:
+ *
+ * <pre>{@code
+ * final DrawEvent event = DrawEvent.start("getRandomIntegerList");
+ * // ... perform the operation ...
+ * event.finish(quantity, range, "bounded multiply", rng);
+ * }</pre>
+ */
+@Name("randomiser.Draw")
+@Label("Draw")
+@Category("Randomiser")
+@Description("A draw, shuffle or formatting operation.")
+@StackTrace(false)
+public class DrawEvent extends Event {
+    @Label("Operation")
+    @Description("The operation performed.")
+    String operation;
+
+    @Label("Quantity")
+    @Description("The number of results requested.")
+    long quantity;
+
+    @Label("Size")
+    @Description("The size of the range or list drawn from.")
+    long size;
+
+    @Label("Algorithm")
+    @Description("The algorithm used.")
+    String algorithm;
+
+    @Label("Engine")
+    @Description("The random number generator used.")
+    String engine;
+
+    @Label("Bytes Allocated")
+    @Description("The bytes allocated by the thread during the operation.")
+    @DataAmount
+    long allocated;
+
+    /**
+     * The thread's allocation counter when the event started. This is not recorded.
+     */
+    private transient long startAllocated;
+
+    /**
+     * Starts timing an operation.
+     *
+     * @param operation The name of the operation.
+     *
+     * @return The started {@code DrawEvent}.
+     */
+    public static DrawEvent start(String operation){
+        final DrawEvent event = new DrawEvent();
+
+        if(event.isEnabled()){
+            event.operation = operation;
+            event.startAllocated = getAllocatedBytes();
+            event.begin();
+        }
+
+        return event;
+    }
+
+    /**
+     * Finishes timing an operation, and commits the event if it is being recorded.
+     *
+     * @param quantity The number of results requested.
+     * @param size The size of the range or list drawn from.
+     * @param algorithm The algorithm used.
+     * @param rng The {@code RandomGenerator} used, or {@code null} if there was none.
+     */
+    public void finish(long quantity, long size, String algorithm, RandomGenerator rng){
+        complete(quantity, size, algorithm, rng);
+    }
+
+    /**
+     * Finishes timing a draw planned by {@code SamplingPlanner}, and commits the event if it is
+     * being recorded.
+     *
+     * <p>The plan is only described once the event is known to be committed, so nothing is
+     * formatted for draws that are not being recorded.
+     *
+     * @param quantity The number of results requested.
+     * @param size The size of the range drawn from.
+     * @param plan The {@code Plan} the draw was made by.
+     * @param rng The {@code RandomGenerator} used.
+     */
+    public void finish(long quantity, long size, SamplingPlanner.Plan plan, RandomGenerator rng){
+        complete(quantity, size, plan, rng);
+    }
+
+    /**
+     * Finishes timing an operation, and commits the event if it is being recorded.
+     *
+     * @param algorithm The algorithm used, which is only converted to a string if the event is
+     *                  committed.
+     */
+    private void complete(long quantity, long size, Object algorithm, RandomGenerator rng){
+        if(!isEnabled()){
+            return;
+        }
+
+        end();
+
+        if(shouldCommit()){
+            this.quantity = quantity;
+            this.size = size;
+            this.algorithm = String.valueOf(algorithm);
+            this.engine = (rng == null) ? null : rng.getClass().getSimpleName();
+            this.allocated = getAllocatedBytes() - startAllocated;
+            commit();
+        }
+    }
+
+    /**
+     * Finishes timing an operation that uses no random number generator, and commits the event
+     * if it is being recorded.
+     *
+     * @param quantity The number of results requested.
+     * @param size The size of the input.
+     * @param algorithm The algorithm used.
+     */
+    public void finish(long quantity, long size, String algorithm){
+        finish(quantity, size, algorithm, null);
+    }
+
+    /**
+     * Returns the number of bytes the current thread has allocated.
+     *
+     * @return The number of bytes allocated, or 0 if this JVM cannot report it.
+     */
+    static long getAllocatedBytes(){
+        final com.sun.management.ThreadMXBean bean = ThreadMXBeanHolder.THREAD_MX_BEAN;
+
+        return (bean == null) ? 0 : bean.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Returns whether this JVM can report the number of bytes each thread has allocated.
+     *
+     * @return Whether {@code getAllocatedBytes} reports allocations.
+     */
+    static boolean isAllocationMeasured(){
+        return ThreadMXBeanHolder.THREAD_MX_BEAN != null;
+    }
+
+    /**
+     * Holds the per-thread allocation counter, so that it is only looked up once an event is recorded.
+     */
+    private static final class ThreadMXBeanHolder{
+        /**
+         * Provides the per-thread allocation counter, or {@code null} if this JVM does not support it.
+         */
+        static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = getThreadMXBean();
+
+        /**
+         * Returns the JVM's thread bean, if it can report per-thread allocations.
+         *
+         * @return The {@code ThreadMXBean}, or {@code null} if it is not supported.
+         */
+        private static com.sun.management.ThreadMXBean getThreadMXBean(){
+            if(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                    && bean.isThreadAllocatedMemorySupported()){
+                return bean;
+            }
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,527 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Provides an append-only, memory-mapped store of past draws.
+ *
+ * <p>The history is kept in two files in a directory. The data file holds a short header followed
+ * by each {@code DrawRecord} in a compact binary form, with numbers written as varints. The index
+ * file holds a fixed-size entry for each record, giving its timestamp and its offset in the data
+ * file, so that draws within a time range can be found with a binary search.
+ *
+ * <p>Both files are memory-mapped. Opening a history only reads the header, and records are only
+ * decoded when they are asked for, so searching or exporting a large history does not load it all
+ * into the heap.
+ */
+public class DrawHistory implements Closeable {
+    /**
+     * The name of the data file within the history directory.
+     */
+    public static final String DATA_FILE_NAME = "history.dat";
+
+    /**
+     * The name of the index file within the history directory.
+     */
+    public static final String INDEX_FILE_NAME = "history.idx";
+
+    /**
+     * Identifies a data file as a draw history ("RNDH").
+     */
+    private static final int MAGIC = 0x524E4448;
+
+    /**
+     * The version of the data file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the data file header: magic, version, record count, and end offset.
+     */
+    private static final int HEADER_SIZE = 24;
+
+    private static final int COUNT_OFFSET = 8;
+    private static final int END_OFFSET = 16;
+
+    /**
+     * The size of each index entry: timestamp and data file offset.
+     */
+    private static final int INDEX_ENTRY_SIZE = 16;
+
+    /**
+     * The size that each file is initially mapped with.
+     */
+    private static final int INITIAL_MAPPED_SIZE = 1 << 20;
+
+    private final FileChannel dataChannel;
+    private final FileChannel indexChannel;
+    private MappedByteBuffer data;
+    private MappedByteBuffer index;
+    private long count;
+    private long end;
+
+    /**
+     * Reused when encoding records, before they are copied into the data file.
+     */
+    private ByteBuffer scratch = ByteBuffer.allocate(4096);
+
+    private DrawHistory(FileChannel dataChannel, FileChannel indexChannel) throws IOException{
+        this.dataChannel = dataChannel;
+        this.indexChannel = indexChannel;
+
+        final boolean isNew = dataChannel.size() == 0;
+
+        data = map(dataChannel, Math.max(dataChannel.size(), INITIAL_MAPPED_SIZE));
+        index = map(indexChannel, Math.max(indexChannel.size(), INITIAL_MAPPED_SIZE));
+
+        if(isNew){
+            data.putInt(0, MAGIC);
+            data.putInt(4, VERSION);
+            data.putLong(COUNT_OFFSET, 0);
+            data.putLong(END_OFFSET, HEADER_SIZE);
+        }else if(data.getInt(0) != MAGIC || data.getInt(4) != VERSION){
+            throw new IOException("The draw history file is not in a recognised format.");
+        }
+
+        count = data.getLong(COUNT_OFFSET);
+        end = data.getLong(END_OFFSET);
+    }
+
+    /**
+     * Opens the draw history in a directory, creating it if it doesn't exist.
+     *
+     * <p>The history is locked while it is open, so that two copies of the app cannot append
+     * to it at once. The lock is released when the history is closed, or when the app exits.
+     *
+     * @param directory The {@code Path} of the directory holding the history.
+     *
+     * @return The opened {@code DrawHistory}.
+     *
+     * @throws IOException if the history cannot be opened or created, or is already open in
+     *                     another copy of the app.
+     */
+    public static DrawHistory open(Path directory) throws IOException{
+        Files.createDirectories(directory);
+
+        final FileChannel dataChannel = FileChannel.open(directory.resolve(DATA_FILE_NAME),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try{
+            final FileChannel indexChannel = FileChannel.open(directory.resolve(INDEX_FILE_NAME),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            try{
+                lock(indexChannel);
+
+                return new DrawHistory(dataChannel, indexChannel);
+            }catch(IOException e){
+                indexChannel.close();
+                throw e;
+            }
+        }catch(IOException e){
+            dataChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes an exclusive lock on the history's index file.
+     *
+     * <p>The lock covers a single byte far beyond the end of the file, rather than the mapped
+     * region, since on some systems a locked region cannot be mapped.
+     *
+     * @param indexChannel The {@code FileChannel} of the index file.
+     *
+     * @throws IOException if the lock is already held, by this or another process.
+     */
+    private static void lock(FileChannel indexChannel) throws IOException{
+        final FileLock lock;
+
+        try{
+            lock = indexChannel.tryLock(Long.MAX_VALUE - 1, 1, false);
+        }catch(OverlappingFileLockException e){
+            throw new IOException("The draw history is already open.", e);
+        }
+
+        if(lock == null){
+            throw new IOException("The draw history is in use by another copy of the app.");
+        }
+    }
+
+    /**
+     * Returns the directory the app stores its draw history in by default.
+     *
+     * @return The {@code Path} of the default history directory, within the user's home directory.
+     */
+    public static Path getDefaultDirectory(){
+        return Path.of(System.getProperty("user.home"), ".randomiser");
+    }
+
+    /**
+     * Appends a record to the end of the history.
+     *
+     * <p>The record is written first, then its index entry, and the header is updated last,
+     * so a record only becomes part of the history once it has been written completely.
+     *
+     * @param record The {@code DrawRecord} to append.
+     *
+     * @throws IOException if the files cannot be grown to fit the record.
+     */
+    public synchronized void append(DrawRecord record) throws IOException{
+        final ByteBuffer encoded = encode(record);
+        final int length = encoded.remaining();
+
+        data = ensureCapacity(dataChannel, data, end + length);
+        index = ensureCapacity(indexChannel, index, (count + 1) * INDEX_ENTRY_SIZE);
+
+        data.put((int) end, encoded, 0, length);
+
+        // The index must be sorted by time, so a clock that has gone backwards is ignored.
+        final long previousTimestamp = (count == 0) ? Long.MIN_VALUE : getIndexedTimestamp(count - 1);
+        final int entry = (int) (count * INDEX_ENTRY_SIZE);
+        index.putLong(entry, Math.max(previousTimestamp, record.getTimestamp()));
+        index.putLong(entry + 8, end);
+
+        end += length;
+        count++;
+
+        data.putLong(END_OFFSET, end);
+        data.putLong(COUNT_OFFSET, count);
+    }
+
+    /**
+     * Returns the number of records in the history.
+     *
+     * @return The number of records in the history.
+     */
+    public synchronized long size(){
+        return count;
+    }
+
+    /**
+     * Returns the record at a position in the history.
+     *
+     * @param position The position of the record, where 0 is the oldest.
+     *
+     * @return The {@code DrawRecord} at {@code position}.
+     *
+     * @throws IndexOutOfBoundsException if {@code position} is not within the history.
+     */
+    public synchronized DrawRecord get(long position){
+        if(position < 0 || position >= count){
+            throw new IndexOutOfBoundsException("position is not within the history.");
+        }
+
+        return decode(index.getLong((int) (position * INDEX_ENTRY_SIZE) + 8));
+    }
+
+    /**
+     * Returns the position of the first record made at or after a given time.
+     *
+     * @param timestamp The time to search from, in milliseconds since the epoch.
+     *
+     * @return The position of the first record at or after {@code timestamp}, or {@code size()} if there is none.
+     */
+    public synchronized long findFirst(long timestamp){
+        long low = 0;
+        long high = count;
+
+        while(low < high){
+            final long mid = (low + high) >>> 1;
+
+            if(getIndexedTimestamp(mid) < timestamp){
+                low = mid + 1;
+            }else{
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Passes each record made within a time range to a consumer, oldest first.
+     *
+     * <p>Records are decoded one at a time, so only the current record is held in the heap.
+     *
+     * @param from The start of the time range, in milliseconds since the epoch (inclusive).
+     * @param to The end of the time range, in milliseconds since the epoch (inclusive).
+     * @param consumer The {@code Consumer} to pass each record to.
+     */
+    public synchronized void forEach(long from, long to, Consumer<DrawRecord> consumer){
+        for(long i = findFirst(from); i < count && getIndexedTimestamp(i) <= to; i++){
+            consumer.accept(get(i));
+        }
+    }
+
+    /**
+     * Writes each record made within a time range as a line of tab-separated text, oldest first.
+     *
+     * <p>Each line holds six columns: the time, type, seed and range of a draw, then its numbers
+     * and its items. Numbers and items are each separated by ", ", and the column is empty if the
+     * draw has none. Items that hold a comma, a double quote, a tab or a line break are enclosed
+     * in double quotes, with any double quote doubled, so every line can be split back into its
+     * columns and values.
+     *
+     * @param from The start of the time range, in milliseconds since the epoch (inclusive).
+     * @param to The end of the time range, in milliseconds since the epoch (inclusive).
+     * @param out The {@code Appendable} to write to.
+     *
+     * @throws IOException if {@code out} cannot be written to.
+     */
+    public synchronized void export(long from, long to, Appendable out) throws IOException{
+        for(long i = findFirst(from); i < count && getIndexedTimestamp(i) <= to; i++){
+            final DrawRecord record = get(i);
+
+            out.append(Instant.ofEpochMilli(record.getTimestamp()).toString()).append('\t')
+                    .append(record.getType().name()).append('\t')
+                    .append(Long.toString(record.getSeed())).append('\t')
+                    .append(Long.toString(record.getLowerBound())).append("..")
+                    .append(Long.toString(record.getUpperBound())).append('\t');
+
+            final long[] numbers = record.getNumbers();
+            for(int j = 0; j < numbers.length; j++){
+                if(j > 0){
+                    out.append(", ");
+                }
+                out.append(Long.toString(numbers[j]));
+            }
+
+            out.append('\t');
+
+            final List<String> items = record.getItems();
+            for(int j = 0; j < items.size(); j++){
+                if(j > 0){
+                    out.append(", ");
+                }
+                appendItem(items.get(j), out);
+            }
+
+            out.append('\n');
+        }
+    }
+
+    /**
+     * Writes an item for {@code export}, enclosed in double quotes if it could otherwise be read
+     * as more than one item or column.
+     */
+    private static void appendItem(String item, Appendable out) throws IOException{
+        boolean quoted = false;
+
+        for(int i = 0; i < item.length() && !quoted; i++){
+            final char c = item.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\t' || c == '\n' || c == '\r';
+        }
+
+        if(quoted){
+            out.append('"').append(item.replace("\"", "\"\"")).append('"');
+        }else{
+            out.append(item);
+        }
+    }
+
+    /**
+     * Flushes the history to disk and closes its files, releasing its lock.
+     *
+     * @throws IOException if the files cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException{
+        data.force();
+        index.force();
+
+        try{
+            dataChannel.close();
+        }finally{
+            indexChannel.close();
+        }
+    }
+
+    /**
+     * Returns the timestamp held in an index entry.
+     *
+     * @param position The position of the entry.
+     *
+     * @return The indexed timestamp of the record at {@code position}.
+     */
+    private long getIndexedTimestamp(long position){
+        return index.getLong((int) (position * INDEX_ENTRY_SIZE));
+    }
+
+    /**
+     * Encodes a record into the scratch buffer.
+     *
+     * <p>The record is laid out as its total length, timestamp, type, flags and seed, followed by
+     * the range as signed varints, then the numbers and items, each preceded by a varint count.
+     *
+     * @param record The {@code DrawRecord} to encode.
+     *
+     * @return The scratch buffer, flipped and ready to be read.
+     */
+    private ByteBuffer encode(DrawRecord record){
+        final long[] numbers = record.getNumbers();
+        final List<byte[]> items = new ArrayList<>(record.getItems().size());
+
+        long size = 4 + 8 + 1 + 1 + 8
+                + VarInt.signedLength(record.getLowerBound())
+                + VarInt.signedLength(record.getUpperBound())
+                + VarInt.unsignedLength(numbers.length)
+                + VarInt.unsignedLength(record.getItems().size());
+
+        for(long n : numbers){
+            size += VarInt.signedLength(n);
+        }
+
+        for(String item : record.getItems()){
+            final byte[] bytes = item.getBytes(StandardCharsets.UTF_8);
+            items.add(bytes);
+            size += VarInt.unsignedLength(bytes.length) + bytes.length;
+        }
+
+        if(size > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("The record is too large to store.");
+        }
+
+        if(scratch.capacity() < size){
+            scratch = ByteBuffer.allocate((int) Math.max(size, scratch.capacity() * 2L));
+        }
+
+        scratch.clear();
+        scratch.putInt((int) size);
+        scratch.putLong(record.getTimestamp());
+        scratch.put((byte) record.getType().ordinal());
+        scratch.put((byte) record.getFlags());
+        scratch.putLong(record.getSeed());
+        VarInt.putSigned(scratch, record.getLowerBound());
+        VarInt.putSigned(scratch, record.getUpperBound());
+
+        VarInt.putUnsigned(scratch, numbers.length);
+        for(long n : numbers){
+            VarInt.putSigned(scratch, n);
+        }
+
+        VarInt.putUnsigned(scratch, items.size());
+        for(byte[] bytes : items){
+            VarInt.putUnsigned(scratch, bytes.length);
+            scratch.put(bytes);
+        }
+
+        return scratch.flip();
+    }
+
+    /**
+     * Decodes the record at an offset in the data file.
+     *
+     * @param offset The offset of the record.
+     *
+     * @return The decoded {@code DrawRecord}.
+     */
+    private DrawRecord decode(long offset){
+        final ByteBuffer buffer = data.duplicate().position((int) offset + 4);
+
+        final long timestamp = buffer.getLong();
+        final DrawRecord.Type type = DrawRecord.Type.values()[buffer.get()];
+        final int flags = buffer.get() & 0xFF;
+        final long seed = buffer.getLong();
+        final long lowerBound = VarInt.getSigned(buffer);
+        final long upperBound = VarInt.getSigned(buffer);
+
+        final long[] numbers = new long[(int) VarInt.getUnsigned(buffer)];
+        for(int i = 0; i < numbers.length; i++){
+            numbers[i] = VarInt.getSigned(buffer);
+        }
+
+        final int itemCount = (int) VarInt.getUnsigned(buffer);
+        final List<String> items = new ArrayList<>(itemCount);
+        for(int i = 0; i < itemCount; i++){
+            final byte[] bytes = new byte[(int) VarInt.getUnsigned(buffer)];
+            buffer.get(bytes);
+            items.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        return new DrawRecord(type, timestamp, seed, lowerBound, upperBound, flags, numbers, items);
+    }
+
+    /**
+     * Returns a mapping large enough to hold a given number of bytes, remapping the file if needed.
+     *
+     * @param channel The {@code FileChannel} of the file.
+     * @param buffer The current mapping of the file.
+     * @param required The number of bytes needed.
+     *
+     * @return {@code buffer}, or a new, larger mapping of the file.
+     *
+     * @throws IOException if the file cannot be grown, or would exceed 2GB.
+     */
+    private static MappedByteBuffer ensureCapacity(FileChannel channel, MappedByteBuffer buffer, long required) throws IOException{
+        if(required <= buffer.capacity()){
+            return buffer;
+        }
+
+        if(required > Integer.MAX_VALUE){
+            throw new IOException("The draw history is full.");
+        }
+
+        buffer.force();
+
+        return map(channel, Math.min(Integer.MAX_VALUE, Math.max(required, buffer.capacity() * 2L)));
+    }
+
+    /**
+     * Maps a file into memory for reading and writing.
+     *
+     * @param channel The {@code FileChannel} of the file.
+     * @param size The number of bytes to map. The file is grown if it is smaller.
+     *
+     * @return The {@code MappedByteBuffer}.
+     *
+     * @throws IOException if the file cannot be mapped.
+     */
+    private static MappedByteBuffer map(FileChannel channel, long size) throws IOException{
+        return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+}
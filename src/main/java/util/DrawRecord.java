@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Represents a single draw, as stored in the {@code DrawHistory}.
+ *
+ * <p>A record holds the parameters of the draw, the time it was made, the seed used to
+ * generate it, and its results. Numeric results (numbers and dice) are held in
+ * {@code numbers}, and text results (lists and items) are held in {@code items}.
+ */
+public class DrawRecord {
+    /**
+     * Represents the kind of draw that was made.
+     */
+    public enum Type{
+        /**
+         * Represents numbers generated on the random number tab.
+         */
+        NUMBERS,
+
+        /**
+         * Represents a dice roll.
+         */
+        DICE,
+
+        /**
+         * Represents a shuffled list.
+         */
+        LIST,
+
+        /**
+         * Represents items chosen from a list.
+         */
+        ITEMS,
+
+        /**
+         * Represents random strings generated on the token tab.
+         */
+        TOKENS,
+
+        /**
+         * Represents a sample from a distribution, stored as the count of each bin of its histogram.
+         */
+        SAMPLES
+    }
+
+    /**
+     * Marks a draw in which duplicates were allowed.
+     */
+    public static final int FLAG_ALLOW_DUPLICATES = 1;
+
+    /**
+     * Marks a draw in which results from earlier draws were excluded.
+     */
+    public static final int FLAG_NO_REPEAT = 1 << 1;
+
+    /**
+     * Marks a dice roll made for a percentage.
+     */
+    public static final int FLAG_PERCENTAGE = 1 << 2;
+
+    /**
+     * Marks a draw whose results were sorted in ascending order.
+     */
+    public static final int FLAG_SORTED = 1 << 3;
+
+    /**
+     * Marks a batch of tickets drawn at once, whose numbers are stored one ticket after another.
+     */
+    public static final int FLAG_BATCH = 1 << 4;
+
+    /**
+     * Marks a dice roll stored as the number of times each face came up, rather than as each die.
+     */
+    public static final int FLAG_COUNTS = 1 << 5;
+
+    /**
+     * Marks a dice roll of a die with custom faces, whose faces are stored as items.
+     */
+    public static final int FLAG_CUSTOM_FACES = 1 << 6;
+
+    /**
+     * Marks a draw in which each item was weighted.
+     */
+    public static final int FLAG_WEIGHTED = 1 << 7;
+
+    /**
+     * Marks a shuffle in which no item kept its place.
+     */
+    public static final int FLAG_DERANGED = 1 << 8;
+
+    /**
+     * Marks a shuffle that paired each item with another, whose pairs are stored as items.
+     */
+    public static final int FLAG_PAIRED = 1 << 9;
+
+    /**
+     * Marks a draw from a cryptographically secure generator. Its seed cannot reproduce it, and
+     * its results are not stored, so that secrets such as passwords are never written to disk.
+     */
+    public static final int FLAG_SECURE = 1 << 10;
+
+    private final Type type;
+    private final long timestamp;
+    private final long seed;
+    private final long lowerBound;
+    private final long upperBound;
+    private final int flags;
+    private final long[] numbers;
+    private final List<String> items;
+
+    /**
+     * Creates a record of a draw.
+     *
+     * @param type The kind of draw.
+     * @param timestamp The time of the draw, in milliseconds since the epoch.
+     * @param seed The seed used to generate the draw.
+     * @param lowerBound The lower-bound of the range drawn from, or 0 for lists.
+     * @param upperBound The upper-bound of the range drawn from, or the size of the list minus 1.
+     * @param flags Any of the {@code FLAG_} constants, combined with bitwise or.
+     * @param numbers The numeric results of the draw, or an empty array.
+     * @param items The text results of the draw, or an empty list.
+     *
+     * @throws NullPointerException if {@code type}, {@code numbers} or {@code items} is null.
+     */
+    public DrawRecord(Type type, long timestamp, long seed, long lowerBound, long upperBound,
+                      int flags, long[] numbers, List<String> items){
+        this.type = Objects.requireNonNull(type, "type cannot be null.");
+        this.timestamp = timestamp;
+        this.seed = seed;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.flags = flags;
+        this.numbers = Objects.requireNonNull(numbers, "numbers cannot be null.");
+        this.items = Collections.unmodifiableList(Objects.requireNonNull(items, "items cannot be null."));
+    }
+
+    /**
+     * Returns the kind of draw.
+     *
+     * @return The kind of draw.
+     */
+    public Type getType(){
+        return type;
+    }
+
+    /**
+     * Returns the time of the draw.
+     *
+     * @return The time of the draw, in milliseconds since the epoch.
+     */
+    public long getTimestamp(){
+        return timestamp;
+    }
+
+    /**
+     * Returns the seed used to generate the draw.
+     *
+     * @return The seed used to generate the draw.
+     */
+    public long getSeed(){
+        return seed;
+    }
+
+    /**
+     * Returns the lower-bound of the range drawn from.
+     *
+     * @return The lower-bound of the range drawn from.
+     */
+    public long getLowerBound(){
+        return lowerBound;
+    }
+
+    /**
+     * Returns the upper-bound of the range drawn from.
+     *
+     * @return The upper-bound of the range drawn from.
+     */
+    public long getUpperBound(){
+        return upperBound;
+    }
+
+    /**
+     * Returns the flags of the draw.
+     *
+     * @return Any of the {@code FLAG_} constants, combined with bitwise or.
+     */
+    public int getFlags(){
+        return flags;
+    }
+
+    /**
+     * Returns the numeric results of the draw.
+     *
+     * <p>The array is not copied, and must not be modified.
+     *
+     * @return The numeric results of the draw, or an empty array.
+     */
+    public long[] getNumbers(){
+        return numbers;
+    }
+
+    /**
+     * Returns the text results of the draw.
+     *
+     * @return An unmodifiable {@code List} of the text results of the draw.
+     */
+    public List<String> getItems(){
+        return items;
+    }
+}
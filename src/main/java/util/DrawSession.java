@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Represents a series of draws from a single range, in which no value is drawn twice,
+ * as in a lottery or raffle.
+ *
+ * <p>Every value drawn is recorded in a {@code RoaringBitmap}, and is excluded from later
+ * draws until the session is reset. The range may hold up to 2^32 values.
+ */
+public class DrawSession {
+    /**
+     * The largest number of values a session's range may hold.
+     */
+    public static final long MAX_RANGE = 1L << 32;
+
+    private final long lowerBound;
+    private final long upperBound;
+    private final long range;
+    private final RoaringBitmap drawn = new RoaringBitmap();
+
+    /**
+     * Creates a session for drawing from a range.
+     *
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive).
+     *
+     * @throws IllegalArgumentException if {@code upperBound} is less than {@code lowerBound}, or the
+     *                                  range holds more than {@code MAX_RANGE} values.
+     */
+    public DrawSession(long lowerBound, long upperBound){
+        if(upperBound < lowerBound){
+            throw new IllegalArgumentException("upperBound cannot be less than lowerBound.");
+        }
+
+        if(!isValidRange(lowerBound, upperBound)){
+            throw new IllegalArgumentException("The range cannot hold more than " + MAX_RANGE + " values.");
+        }
+
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.range = upperBound - lowerBound + 1;
+    }
+
+    /**
+     * Returns whether a session can be created for a range.
+     *
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive).
+     *
+     * @return {@code true} if the range holds no more than {@code MAX_RANGE} values.
+     */
+    public static boolean isValidRange(long lowerBound, long upperBound){
+        // The size of the range as an unsigned number, where 0 represents all 2^64 values.
+        final long range = upperBound - lowerBound + 1;
+
+        return range != 0 && Long.compareUnsigned(range, MAX_RANGE) <= 0;
+    }
+
+    /**
+     * Returns whether this session draws from the given range.
+     *
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive).
+     *
+     * @return {@code true} if the session's range is the same as the given range.
+     */
+    public boolean hasRange(long lowerBound, long upperBound){
+        return this.lowerBound == lowerBound && this.upperBound == upperBound;
+    }
+
+    /**
+     * Returns the number of values drawn so far in this session.
+     *
+     * @return The number of values drawn.
+     */
+    public long getDrawnCount(){
+        return drawn.getCardinality();
+    }
+
+    /**
+     * Returns the number of values that have not been drawn yet.
+     *
+     * @return The number of values remaining in the range.
+     */
+    public long getRemainingCount(){
+        return range - drawn.getCardinality();
+    }
+
+    /**
+     * Draws a number of values that have not been drawn before in this session.
+     *
+     * @param quantity The quantity of values to draw.
+     *
+     * @return A {@code Long} {@code List} of values, in the order they were drawn.
+     *
+     * @throws IllegalArgumentException if {@code quantity} is greater than the number of values remaining.
+     */
+    public List<Long> draw(int quantity){
+        return draw(quantity, Random.RANDOM);
+    }
+
+    /**
+     * Draws a number of values that have not been drawn before in this session, using the given generator.
+     *
+     * @param quantity The quantity of values to draw.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A {@code Long} {@code List} of values, in the order they were drawn.
+     *
+     * @throws IllegalArgumentException if {@code quantity} is greater than the number of values remaining.
+     */
+    public List<Long> draw(int quantity, RandomGenerator rng){
+        if(quantity > getRemainingCount()){
+            throw new IllegalArgumentException("quantity cannot exceed the number of values remaining.");
+        }
+
+        final List<Long> values = new ArrayList<>(quantity);
+
+        for(int i = 0; i < quantity; i++){
+            values.add(drawOne(rng));
+        }
+
+        return values;
+    }
+
+    /**
+     * Draws a single value that has not been drawn before in this session.
+     *
+     * <p>While fewer than half the values have been drawn, a value is picked from the whole range and
+     * redrawn if it was already used, which takes fewer than two attempts on average. After that, the
+     * value is picked directly from the values remaining, so draws stay fast as the range runs out.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return The value drawn.
+     *
+     * @throws IllegalStateException if every value in the range has been drawn.
+     */
+    private long drawOne(RandomGenerator rng){
+        final long remaining = getRemainingCount();
+
+        if(remaining == 0){
+            throw new IllegalStateException("Every value in the range has been drawn.");
+        }
+
+        long offset;
+
+        if(drawn.getCardinality() < range / 2){
+            do{
+                offset = Random.nextLong(rng, 0, range - 1);
+            }while(!drawn.add((int) offset));
+        }else{
+            offset = drawn.selectAbsent(Random.nextLong(rng, 0, remaining - 1));
+            drawn.add((int) offset);
+        }
+
+        return lowerBound + offset;
+    }
+
+    /**
+     * Forgets every value drawn, so that all values in the range may be drawn again.
+     */
+    public void reset(){
+        drawn.clear();
+    }
+}
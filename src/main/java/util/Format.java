@@ -53,6 +53,8 @@ public class Format {
      * @throws NullPointerException if {@code stringToSeparateBy} is null.
      */
     public static String convertListToString(List list, String stringToSeparateBy){
+        final DrawEvent event = DrawEvent.start("convertListToString");
+
         Objects.requireNonNull(list, "list cannot be null.");
         Objects.requireNonNull(stringToSeparateBy, "stringToSeparateBy cannot be null.");
 
@@ -68,6 +70,8 @@ public class Format {
             }
         }
 
+        event.finish(list.size(), b.length(), "StringBuilder");
+
         return b.toString();
     }
 
@@ -87,21 +91,69 @@ public class Format {
     public static List<String> splitStringToList(String string, int maxLength){
         Objects.requireNonNull(string, "string cannot be null.");
 
+        final DrawEvent event = DrawEvent.start("splitStringToList");
+
         long numOfLines = string.chars().filter(ch -> ch == '\n').count() + 1;
         Stream<String> st = string.lines();
 
         if(maxLength <= 0 || numOfLines <= maxLength){
-            return st.collect(Collectors.toList());
+            final List<String> list = st.collect(Collectors.toList());
+
+            event.finish(list.size(), string.length(), "String.lines");
+
+            return list;
         }else{
             throw new TooManyItemsException();
         }
     }
 
+    /**
+     * Removes the weight from the end of each item in a list, and returns the weights.
+     *
+     * <p>An item is weighted by following it with {@code *} and a number, such as
+     * {@code "Apple*2.5"}. Items without a weight, including those whose text after the last
+     * {@code *} is not a number, have a weight of 1 and are left unchanged.
+     *
+     * @param items The {@code List} of items, which is changed in place.
+     *
+     * @return The weight of each item.
+     *
+     * @throws IllegalArgumentException if a weight is not a positive, finite number.
+     */
+    public static double[] extractWeights(List<String> items){
+        final double[] weights = new double[items.size()];
+        final ListIterator<String> it = items.listIterator();
+
+        while(it.hasNext()){
+            final String item = it.next();
+            final int star = item.lastIndexOf('*');
+            double weight = 1;
+
+            if(star >= 0){
+                try{
+                    weight = Double.parseDouble(item.substring(star + 1).strip());
+                    it.set(item.substring(0, star).strip());
+                }catch(NumberFormatException e){
+                    weight = 1;
+                }
+
+                if(!(weight > 0) || Double.isInfinite(weight)){
+                    throw new IllegalArgumentException("The weight of \"" + item + "\" must be a positive number.");
+                }
+            }
+
+            weights[it.previousIndex()] = weight;
+        }
+
+        return weights;
+    }
+
     /**
      * Formats a list of integers and returns it as a string.
      *
      * <p>The integers are formatted according to locale and converted to a single string,
-     * with each integer on a new line.
+     * with each integer on a new line. Any integral type may be used, including
+     * {@code Long} and {@code BigInteger}.
      *
      * <p>More specifically, this method converts the list to a list of formatted strings,
      * then calls the method {@code convertListToString} on the converted list.
@@ -113,16 +165,22 @@ public class Format {
      *
      * @throws NullPointerException if {@code list} is null.
      */
-    public static String integerListAsString(List<Integer> list, String stringToSeparateBy){
+    public static String integerListAsString(List<? extends Number> list, String stringToSeparateBy){
         Objects.requireNonNull(list, "List cannot be null.");
 
         final List<String> formattedList = new ArrayList<>();
 
-        for(int n : list){
+        final DrawEvent event = DrawEvent.start("integerListAsString");
+
+        for(Number n : list){
             formattedList.add(Randomiser.NUMBER_FORMAT.format(n));
         }
 
-        return convertListToString(formattedList, stringToSeparateBy);
+        final String formatted = convertListToString(formattedList, stringToSeparateBy);
+
+        event.finish(list.size(), formatted.length(), "NumberFormat");
+
+        return formatted;
     }
 
     /**
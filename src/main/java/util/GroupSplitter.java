@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+
+/**
+ * Provides static methods for splitting a list into random groups of balanced size.
+ *
+ * <p>The methods work on the positions of items rather than the items themselves, so a caller can
+ * split any list without its items being copied. Each group is returned as an array of positions
+ * in the original list.
+ */
+public class GroupSplitter {
+    /**
+     * Splits a number of items into random groups whose sizes differ by at most one.
+     *
+     * @param size The number of items to split.
+     * @param groups The number of groups to split the items into.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return An array holding, for each group, the positions of the items in that group.
+     *
+     * @throws IllegalArgumentException if {@code size} is negative, or {@code groups} is less than 1.
+     */
+    public static int[][] split(int size, int groups, RandomGenerator rng){
+        if(size < 0){
+            throw new IllegalArgumentException("size cannot be negative.");
+        }
+
+        return deal(shuffledIndices(size, rng), groups, rng);
+    }
+
+    /**
+     * Splits a number of tagged items into random groups, so that each group gets an even mix of tags.
+     *
+     * <p>Within each tag, the number of items in each group differs by at most one, and the total
+     * sizes of the groups also differ by at most one.
+     *
+     * @param tags The tag of each item, as a number from 0 to {@code tagCount - 1}.
+     * @param tagCount The number of different tags.
+     * @param groups The number of groups to split the items into.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return An array holding, for each group, the positions of the items in that group.
+     *
+     * @throws NullPointerException if {@code tags} is null.
+     * @throws IllegalArgumentException if {@code groups} is less than 1, or a tag is out of range.
+     */
+    public static int[][] splitStratified(int[] tags, int tagCount, int groups, RandomGenerator rng){
+        Objects.requireNonNull(tags, "tags cannot be null.");
+
+        final int[] permutation = shuffledIndices(tags.length, rng);
+
+        // Counting sort of the shuffled positions by tag, which keeps each tag's items in random order.
+        final int[] tagStarts = new int[tagCount + 1];
+        for(int tag : tags){
+            if(tag < 0 || tag >= tagCount){
+                throw new IllegalArgumentException("Each tag must be between 0 and tagCount - 1.");
+            }
+            tagStarts[tag + 1]++;
+        }
+
+        for(int i = 0; i < tagCount; i++){
+            tagStarts[i + 1] += tagStarts[i];
+        }
+
+        final int[] sorted = new int[tags.length];
+        for(int index : permutation){
+            sorted[tagStarts[tags[index]]++] = index;
+        }
+
+        return deal(sorted, groups, rng);
+    }
+
+    /**
+     * Returns the numbers from 0 to {@code size - 1} in random order.
+     *
+     * @param size The number of positions.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A random permutation of the positions.
+     */
+    static int[] shuffledIndices(int size, RandomGenerator rng){
+        final int[] indices = new int[size];
+
+        for(int i = 0; i < size; i++){
+            final int j = rng.nextInt(i + 1);
+            indices[i] = indices[j];
+            indices[j] = i;
+        }
+
+        return indices;
+    }
+
+    /**
+     * Deals positions out to groups in turn, like cards.
+     *
+     * <p>The order of the groups is itself random, so that no group is more likely than another
+     * to receive the extra items when the positions don't divide evenly.
+     *
+     * @param order The positions, in the order they should be dealt.
+     * @param groups The number of groups.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return An array holding, for each group, the positions dealt to it.
+     */
+    private static int[][] deal(int[] order, int groups, RandomGenerator rng){
+        if(groups < 1){
+            throw new IllegalArgumentException("groups must be at least 1.");
+        }
+
+        final int[] groupOrder = shuffledIndices(groups, rng);
+        final int[][] result = new int[groups][];
+
+        for(int i = 0; i < groups; i++){
+            result[groupOrder[i]] = new int[order.length / groups + (i < order.length % groups ? 1 : 0)];
+        }
+
+        for(int i = 0; i < order.length; i++){
+            result[groupOrder[i % groups]][i / groups] = order[i];
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Counts how many values fall into each of a row of equal-width bins, and keeps the mean and
+ * standard deviation of every value added.
+ *
+ * <p>Values below the first bin or above the last are counted separately rather than dropped.
+ * Histograms with the same bins can be merged, so that values can be counted in parallel blocks
+ * and combined afterwards.
+ *
+ * <p>A discrete histogram counts whole numbers, and its bins are a whole number of values wide,
+ * so that no value is split between two bins.
+ */
+public class Histogram {
+    /**
+     * The most bins a histogram can have.
+     */
+    public static final int MAX_BINS = 1000;
+
+    private final double lowerBound;
+    private final double binWidth;
+    private final boolean discrete;
+    private final long[] counts;
+    private long below;
+    private long above;
+    private long total;
+    private double mean;
+    private double sumOfSquares;
+
+    /**
+     * Creates an empty histogram.
+     *
+     * @param lowerBound The lowest value of the first bin.
+     * @param upperBound The highest value of the last bin. For a discrete histogram, the last bin
+     *                   may extend past this so that every bin has the same width.
+     * @param bins The most bins to divide the range into. A discrete histogram has fewer if the
+     *             range holds fewer whole numbers.
+     * @param discrete Whether the histogram counts whole numbers.
+     *
+     * @throws IllegalArgumentException if the bounds are not finite, {@code upperBound} is less than
+     *                                  {@code lowerBound} (or equal, for a continuous histogram), or
+     *                                  {@code bins} is not between 1 and {@code MAX_BINS}.
+     */
+    public Histogram(double lowerBound, double upperBound, int bins, boolean discrete){
+        if(!Double.isFinite(lowerBound) || !Double.isFinite(upperBound)){
+            throw new IllegalArgumentException("The bounds must be finite.");
+        }else if(bins < 1 || bins > MAX_BINS){
+            throw new IllegalArgumentException("bins must be between 1 and " + MAX_BINS + ".");
+        }
+
+        this.discrete = discrete;
+
+        if(discrete){
+            final double lowest = Math.floor(lowerBound);
+            final double span = Math.floor(upperBound) - lowest + 1;
+
+            if(span < 1){
+                throw new IllegalArgumentException("upperBound cannot be less than lowerBound.");
+            }
+
+            this.lowerBound = lowest;
+            this.binWidth = Math.ceil(span / bins);
+            this.counts = new long[(int) Math.ceil(span / binWidth)];
+        }else{
+            if(!(upperBound > lowerBound)){
+                throw new IllegalArgumentException("upperBound must be greater than lowerBound.");
+            }
+
+            this.lowerBound = lowerBound;
+            this.binWidth = (upperBound - lowerBound) / bins;
+            this.counts = new long[bins];
+        }
+    }
+
+    /**
+     * Creates an empty histogram with the same bins as another.
+     *
+     * @param shape The histogram whose bins to copy.
+     */
+    public Histogram(Histogram shape){
+        this.lowerBound = shape.lowerBound;
+        this.binWidth = shape.binWidth;
+        this.discrete = shape.discrete;
+        this.counts = new long[shape.counts.length];
+    }
+
+    /**
+     * Counts a run of values.
+     *
+     * @param values The array holding the values.
+     * @param offset The position in {@code values} of the first value.
+     * @param length The number of values to count.
+     *
+     * @throws IndexOutOfBoundsException if the range is outside {@code values}.
+     */
+    public void add(double[] values, int offset, int length){
+        Objects.checkFromIndexSize(offset, length, values.length);
+
+        if(length == 0){
+            return;
+        }
+
+        double sum = 0;
+
+        for(int i = offset; i < offset + length; i++){
+            final double v = values[i];
+            final double position = (v - lowerBound) / binWidth;
+
+            if(position < 0){
+                below++;
+            }else if(position >= counts.length){
+                above++;
+            }else{
+                counts[(int) position]++;
+            }
+
+            sum += v;
+        }
+
+        // A second pass around the mean of the run keeps the spread accurate when it is small
+        // next to the values themselves.
+        final double runMean = sum / length;
+        double runSquares = 0;
+
+        for(int i = offset; i < offset + length; i++){
+            final double d = values[i] - runMean;
+            runSquares += d * d;
+        }
+
+        combine(length, runMean, runSquares);
+    }
+
+    /**
+     * Adds the counts of another histogram with the same bins to this one.
+     *
+     * @param other The histogram to add.
+     *
+     * @throws IllegalArgumentException if {@code other} has different bins.
+     */
+    public void merge(Histogram other){
+        if(other.lowerBound != lowerBound || other.binWidth != binWidth || other.counts.length != counts.length){
+            throw new IllegalArgumentException("Only histograms with the same bins can be merged.");
+        }
+
+        for(int i = 0; i < counts.length; i++){
+            counts[i] += other.counts[i];
+        }
+
+        below += other.below;
+        above += other.above;
+        combine(other.total, other.mean, other.sumOfSquares);
+    }
+
+    /**
+     * Combines the mean and sum of squared deviations of a group of values with those counted
+     * so far, by the method of Chan, Golub and LeVeque.
+     */
+    private void combine(long count, double groupMean, double groupSquares){
+        if(count == 0){
+            return;
+        }
+
+        final long combined = total + count;
+        final double delta = groupMean - mean;
+
+        mean += delta * count / combined;
+        sumOfSquares += groupSquares + delta * delta * ((double) total * count / combined);
+        total = combined;
+    }
+
+    /**
+     * Exports the histogram to a file, with the lower bound, upper bound and count of each bin on
+     * a line. Values below the first bin and above the last are given their own lines, with an
+     * infinite bound, if there are any.
+     *
+     * @param file The {@code Path} of the file.
+     * @param format The {@code FileFormat} to write the file in.
+     *
+     * @return The number of bytes written.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public long export(Path file, ItemImporter.FileFormat format) throws IOException{
+        try(ResultExporter exporter = ResultExporter.open(file, format)){
+            if(below > 0){
+                exportBin(exporter, Double.NEGATIVE_INFINITY, lowerBound, below);
+            }
+
+            for(int i = 0; i < counts.length; i++){
+                exportBin(exporter, getBinLowerBound(i), getBinUpperBound(i), counts[i]);
+            }
+
+            if(above > 0){
+                exportBin(exporter, getBinUpperBound(counts.length - 1), Double.POSITIVE_INFINITY, above);
+            }
+
+            exporter.flush();
+
+            return exporter.size();
+        }
+    }
+
+    private void exportBin(ResultExporter exporter, double lower, double upper, long count) throws IOException{
+        exporter.writeItem(formatBound(lower)).writeItem(formatBound(upper)).writeNumber(count).endRecord();
+    }
+
+    private String formatBound(double bound){
+        return (discrete && Double.isFinite(bound)) ? Long.toString((long) bound) : Double.toString(bound);
+    }
+
+    /**
+     * Returns the number of bins.
+     *
+     * @return The number of bins.
+     */
+    public int getBinCount(){
+        return counts.length;
+    }
+
+    /**
+     * Returns the lowest value counted in a bin.
+     *
+     * @param bin The position of the bin.
+     *
+     * @return The lower bound of the bin (inclusive).
+     */
+    public double getBinLowerBound(int bin){
+        return lowerBound + bin * binWidth;
+    }
+
+    /**
+     * Returns the upper bound of a bin. For a discrete histogram, this is the highest whole number
+     * in the bin, and is inclusive; otherwise it is exclusive.
+     *
+     * @param bin The position of the bin.
+     *
+     * @return The upper bound of the bin.
+     */
+    public double getBinUpperBound(int bin){
+        return lowerBound + (bin + 1) * binWidth - (discrete ? 1 : 0);
+    }
+
+    /**
+     * Returns the width of each bin.
+     *
+     * @return The width of each bin.
+     */
+    public double getBinWidth(){
+        return binWidth;
+    }
+
+    /**
+     * Returns the number of values counted in a bin.
+     *
+     * @param bin The position of the bin.
+     *
+     * @return The count of the bin.
+     */
+    public long getCount(int bin){
+        return counts[bin];
+    }
+
+    /**
+     * Returns the number of values below the first bin.
+     *
+     * @return The number of values below the first bin.
+     */
+    public long getCountBelow(){
+        return below;
+    }
+
+    /**
+     * Returns the number of values above the last bin.
+     *
+     * @return The number of values above the last bin.
+     */
+    public long getCountAbove(){
+        return above;
+    }
+
+    /**
+     * Returns the number of values counted, including those outside the bins.
+     *
+     * @return The total number of values.
+     */
+    public long getTotal(){
+        return total;
+    }
+
+    /**
+     * Returns the mean of every value counted.
+     *
+     * @return The mean, or {@code NaN} if no values have been counted.
+     */
+    public double getMean(){
+        return (total == 0) ? Double.NaN : mean;
+    }
+
+    /**
+     * Returns the population standard deviation of every value counted.
+     *
+     * @return The standard deviation, or {@code NaN} if no values have been counted.
+     */
+    public double getStandardDeviation(){
+        return (total == 0) ? Double.NaN : Math.sqrt(sumOfSquares / total);
+    }
+
+    /**
+     * Returns whether the histogram counts whole numbers.
+     *
+     * @return {@code true} if the histogram is discrete.
+     */
+    public boolean isDiscrete(){
+        return discrete;
+    }
+}
@@ -0,0 +1,378 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import main.java.exception.TooManyItemsException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Provides static methods to import list items from CSV, TSV and plain text files.
+ *
+ * <p>Files are read through a {@code FileChannel} into a reused buffer and decoded as UTF-8 in
+ * blocks. Only the text of the chosen column is turned into a {@code String}; other columns are
+ * skipped as they are read, so large exports can be imported without creating garbage for the
+ * columns that aren't wanted.
+ */
+public class ItemImporter {
+    /**
+     * The size of the byte and character buffers used when reading a file.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Represents the layout of an item file.
+     */
+    public enum FileFormat{
+        /**
+         * Represents comma-separated values, with optional double quotes around each field.
+         */
+        CSV(',', true),
+
+        /**
+         * Represents tab-separated values, with optional double quotes around each field, as
+         * written by spreadsheets for fields that hold a tab, a double quote or a line break.
+         */
+        TSV('\t', true),
+
+        /**
+         * Represents plain text, with one item per line.
+         */
+        TEXT('\n', false);
+
+        /**
+         * The character between fields of a record.
+         */
+        final char separator;
+
+        /**
+         * Whether fields may be enclosed in double quotes.
+         */
+        final boolean quoted;
+
+        FileFormat(char separator, boolean quoted){
+            this.separator = separator;
+            this.quoted = quoted;
+        }
+
+        /**
+         * Returns the format of a file, judging by its extension.
+         *
+         * @param file The {@code Path} of the file.
+         *
+         * @return {@code CSV} for ".csv" files, {@code TSV} for ".tsv" and ".tab" files, and {@code TEXT} otherwise.
+         */
+        public static FileFormat fromFileName(Path file){
+            final String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+
+            if(name.endsWith(".csv")){
+                return CSV;
+            }else if(name.endsWith(".tsv") || name.endsWith(".tab")){
+                return TSV;
+            }else{
+                return TEXT;
+            }
+        }
+    }
+
+    /**
+     * Imports the items from one column of a file into a list.
+     *
+     * <p>Blank items are skipped.
+     *
+     * @param file The {@code Path} of the file to import.
+     * @param format The {@code FileFormat} of the file.
+     * @param column The column to import, where 0 is the first. This is ignored for {@code TEXT} files.
+     * @param maxLength The maximum number of items. Set this to 0 to remove the limit.
+     *
+     * @return A {@code List} of the items in the column.
+     *
+     * @throws IOException if the file cannot be read.
+     * @throws TooManyItemsException if the file contains more than {@code maxLength} items.
+     */
+    public static List<String> importItems(Path file, FileFormat format, int column, int maxLength) throws IOException{
+        final List<String> items = new ArrayList<>();
+
+        importItems(file, format, column, item -> {
+            if(maxLength > 0 && items.size() == maxLength){
+                throw new TooManyItemsException();
+            }
+
+            items.add(item);
+        });
+
+        return items;
+    }
+
+    /**
+     * Imports the items from one column of a file, passing each to a consumer as it is read.
+     *
+     * <p>Blank items are skipped.
+     *
+     * @param file The {@code Path} of the file to import.
+     * @param format The {@code FileFormat} of the file.
+     * @param column The column to import, where 0 is the first. This is ignored for {@code TEXT} files.
+     * @param consumer The {@code Consumer} to pass each item to.
+     *
+     * @return The number of items imported.
+     *
+     * @throws IOException if the file cannot be read.
+     * @throws NullPointerException if {@code file}, {@code format} or {@code consumer} is null.
+     */
+    public static long importItems(Path file, FileFormat format, int column, Consumer<String> consumer) throws IOException{
+        Objects.requireNonNull(file, "file cannot be null.");
+        Objects.requireNonNull(format, "format cannot be null.");
+        Objects.requireNonNull(consumer, "consumer cannot be null.");
+
+        final DrawEvent event = DrawEvent.start("importItems");
+
+        final Parser parser = new Parser(format, (format == FileFormat.TEXT) ? 0 : column, consumer);
+        final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        long size = 0;
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            boolean endOfFile = false;
+
+            while(!endOfFile){
+                final int read = channel.read(bytes);
+                endOfFile = read < 0;
+                size += Math.max(read, 0);
+                bytes.flip();
+
+                CoderResult result;
+                do{
+                    result = decoder.decode(bytes, chars, endOfFile);
+                    parser.feed(chars.flip());
+                    chars.clear();
+                }while(result.isOverflow());
+
+                bytes.compact();
+            }
+
+            decoder.flush(chars);
+            parser.feed(chars.flip());
+            parser.finish();
+        }
+
+        event.finish(parser.count, size, format.name());
+
+        return parser.count;
+    }
+
+    /**
+     * Splits decoded text into records and fields, keeping only the chosen column.
+     */
+    private static final class Parser{
+        private final FileFormat format;
+        private final int column;
+        private final Consumer<String> consumer;
+
+        /**
+         * Holds the text of the chosen field, and is reused for every record.
+         */
+        private final StringBuilder field = new StringBuilder();
+
+        private int fieldIndex = 0;
+
+        /**
+         * Whether anything has been read for the current field, whichever column it is in.
+         */
+        private boolean fieldStarted = false;
+        private boolean inQuotes = false;
+        private boolean quoteSeen = false;
+        private boolean atStartOfFile = true;
+        private long count = 0;
+
+        Parser(FileFormat format, int column, Consumer<String> consumer){
+            this.format = format;
+            this.column = column;
+            this.consumer = consumer;
+        }
+
+        /**
+         * Parses a block of text. A record or field may continue into the next block.
+         *
+         * @param chars The {@code CharBuffer} of text to parse.
+         */
+        void feed(CharBuffer chars){
+            final char[] text = chars.array();
+            final int end = chars.arrayOffset() + chars.limit();
+            int i = chars.arrayOffset() + chars.position();
+
+            // Skip a byte order mark.
+            if(atStartOfFile && i < end){
+                atStartOfFile = false;
+
+                if(text[i] == '\uFEFF'){
+                    i++;
+                }
+            }
+
+            while(i < end){
+                final char ch = text[i];
+
+                if(format.quoted && (inQuotes || quoteSeen || ch == '"') && handleQuote(ch)){
+                    i++;
+                }else if(ch == '\n'){
+                    endRecord();
+                    i++;
+                }else if(ch == format.separator){
+                    fieldIndex++;
+                    fieldStarted = false;
+                    i++;
+                }else{
+                    // Consume the rest of the field in one step, copying it only if it is the chosen column.
+                    int runEnd = i + 1;
+                    while(runEnd < end && text[runEnd] != '\n' && text[runEnd] != format.separator
+                            && !(format.quoted && text[runEnd] == '"')){
+                        runEnd++;
+                    }
+
+                    if(fieldIndex == column){
+                        field.append(text, i, runEnd - i);
+                    }
+
+                    fieldStarted = true;
+                    i = runEnd;
+                }
+            }
+
+            chars.position(chars.limit());
+        }
+
+        /**
+         * Handles double quotes in CSV and TSV files.
+         *
+         * <p>A quote at the start of a field begins a quoted field, in which separators and line
+         * breaks are part of the text, and two quotes in a row stand for one quote.
+         *
+         * @param ch The character being parsed.
+         *
+         * @return {@code true} if the character has been dealt with.
+         */
+        private boolean handleQuote(char ch){
+            if(quoteSeen){
+                quoteSeen = false;
+
+                if(ch == '"'){
+                    append(ch);
+                    return true;
+                }
+
+                inQuotes = false;
+                return false;
+            }
+
+            if(inQuotes){
+                if(ch == '"'){
+                    quoteSeen = true;
+                }else{
+                    append(ch);
+                }
+
+                return true;
+            }
+
+            if(ch == '"' && !fieldStarted){
+                inQuotes = true;
+                fieldStarted = true;
+                return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * Adds a character to the chosen field, if the current field is the chosen one.
+         *
+         * @param ch The character to add.
+         */
+        private void append(char ch){
+            if(fieldIndex == column){
+                field.append(ch);
+            }
+        }
+
+        /**
+         * Ends the current record, passing on its chosen field if it isn't blank.
+         */
+        private void endRecord(){
+            int length = field.length();
+
+            if(length > 0 && field.charAt(length - 1) == '\r'){
+                length--;
+            }
+
+            for(int i = 0; i < length; i++){
+                if(!Character.isWhitespace(field.charAt(i))){
+                    consumer.accept(field.substring(0, length));
+                    count++;
+                    break;
+                }
+            }
+
+            field.setLength(0);
+            fieldIndex = 0;
+            fieldStarted = false;
+        }
+
+        /**
+         * Ends the last record, if the file doesn't end with a line break.
+         */
+        void finish(){
+            if(quoteSeen){
+                quoteSeen = false;
+                inQuotes = false;
+            }
+
+            endRecord();
+        }
+    }
+}
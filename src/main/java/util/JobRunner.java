@@ -0,0 +1,1060 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs a file of jobs, such as draws of numbers, dice rolls, shuffles and picks, several at a
+ * time, and writes the results of each job to its own file.
+ *
+ * <p>A job file holds one job on each line, as a flat JSON object of strings, numbers and
+ * booleans. Blank lines and lines starting with {@code #} are skipped. For example:
+ *
+ * <pre>{@code
+ * {"name": "raffle", "type": "numbers", "lower": 1, "upper": 500, "quantity": 20, "sorted": true}
+ * {"name": "damage", "type": "dice", "dice": "3d6+2", "quantity": 1000, "output": "damage.csv"}
+ * {"name": "fate", "type": "dice", "faces": "+, +, -, -, blank, blank", "quantity": 4}
+ * {"name": "order", "type": "shuffle", "file": "entrants.txt"}
+ * {"name": "winners", "type": "pick", "file": "entrants.csv", "column": 1, "quantity": 3}
+ * }</pre>
+ *
+ * <p>Every job has a {@code type}, and may have a {@code name}, an {@code output} file and a
+ * {@code seed}. Output files are written to the output directory, in the format given by their
+ * extension, and default to the name of the job followed by ".txt". Names and output files must
+ * be plain file names, not paths. Input files are found relative to the job file. Jobs without
+ * a seed are given one, which is reported in the summary so that the job can be repeated.
+ *
+ * <p>Jobs run on a fixed pool of threads, so no more than the given number of jobs run at once.
+ * A job that fails does not stop the others; its error is reported in its {@code Result}.
+ */
+public class JobRunner {
+    /**
+     * The largest number of jobs that may run at once.
+     */
+    public static final int MAX_PARALLELISM = 256;
+
+    /**
+     * Matches a dice expression such as {@code "d20"}, {@code "3d6"} or {@code "2d8-1"}.
+     */
+    private static final Pattern DICE_EXPRESSION = Pattern.compile("(\\d*)d(\\d+)(?:([+-])(\\d+))?");
+
+    /**
+     * The largest number of dice in an expression that are rolled one at a time. Expressions with
+     * more dice are totalled from the count of each face.
+     */
+    private static final int MAX_ROLLED_DICE = 64;
+
+    /**
+     * Provides a seed for each job that does not have one.
+     */
+    private static final SecureRandom SEED_SOURCE = new SecureRandom();
+
+    private final Path outputDirectory;
+    private final int parallelism;
+
+    /**
+     * Represents the kind of work a job does, and the fields it may have.
+     */
+    public enum JobType{
+        /**
+         * Represents a draw of numbers from a range, which are unique unless {@code unique} is
+         * {@code false}.
+         */
+        NUMBERS("lower", "upper", "quantity", "unique", "sorted"),
+
+        /**
+         * Represents rolls of a dice expression, with the total of each roll written on its own
+         * line, or rolls of a custom die, with the face rolled written on each line.
+         */
+        DICE("dice", "faces", "quantity"),
+
+        /**
+         * Represents a shuffle of the items in a file.
+         */
+        SHUFFLE("file", "column"),
+
+        /**
+         * Represents a pick of items from a file, which are unique unless {@code unique} is
+         * {@code false}.
+         */
+        PICK("file", "column", "quantity", "unique");
+
+        private final Set<String> fields;
+
+        JobType(String... fields){
+            this.fields = Set.of(fields);
+        }
+
+        /**
+         * Returns whether a job of this type may have a field.
+         *
+         * @param field The name of the field.
+         *
+         * @return Whether the field is allowed.
+         */
+        boolean hasField(String field){
+            return fields.contains(field) || field.equals("name") || field.equals("type")
+                    || field.equals("output") || field.equals("seed");
+        }
+
+        /**
+         * Returns the name of the type, as written in a job file.
+         *
+         * @return The name of the type.
+         */
+        @Override
+        public String toString(){
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Represents one job read from a job file.
+     */
+    public static class Job{
+        private final String name;
+        private final JobType type;
+        private final Map<String, String> fields;
+        private final Path directory;
+        private final long seed;
+
+        private Job(String name, JobType type, Map<String, String> fields, Path directory, long seed){
+            this.name = name;
+            this.type = type;
+            this.fields = fields;
+            this.directory = directory;
+            this.seed = seed;
+        }
+
+        /**
+         * Returns the name of the job.
+         *
+         * @return The name of the job.
+         */
+        public String getName(){
+            return name;
+        }
+
+        /**
+         * Returns the type of the job.
+         *
+         * @return The {@code JobType} of the job.
+         */
+        public JobType getType(){
+            return type;
+        }
+
+        /**
+         * Returns the seed the job draws from.
+         *
+         * @return The seed of the job.
+         */
+        public long getSeed(){
+            return seed;
+        }
+
+        /**
+         * Returns the name of the file the job writes its results to.
+         *
+         * @return The name of the output file, relative to the output directory.
+         */
+        public String getOutput(){
+            return fields.getOrDefault("output", name + ".txt");
+        }
+
+        private String getString(String field){
+            final String value = fields.get(field);
+
+            if(value == null){
+                throw new IllegalArgumentException("\"" + field + "\" is required.");
+            }
+
+            return value;
+        }
+
+        private long getLong(String field){
+            try{
+                return Long.parseLong(getString(field));
+            }catch(NumberFormatException e){
+                throw new IllegalArgumentException("\"" + field + "\" must be a whole number.");
+            }
+        }
+
+        private long getLong(String field, long defaultValue){
+            return fields.containsKey(field) ? getLong(field) : defaultValue;
+        }
+
+        private int getInt(String field, int defaultValue){
+            final long value = getLong(field, defaultValue);
+
+            if(value < 0 || value > Integer.MAX_VALUE){
+                throw new IllegalArgumentException("\"" + field + "\" must be between 0 and " + Integer.MAX_VALUE + ".");
+            }
+
+            return (int) value;
+        }
+
+        private boolean getBoolean(String field, boolean defaultValue){
+            final String value = fields.get(field);
+
+            if(value == null){
+                return defaultValue;
+            }else if(value.equals("true") || value.equals("false")){
+                return value.equals("true");
+            }else{
+                throw new IllegalArgumentException("\"" + field + "\" must be true or false.");
+            }
+        }
+    }
+
+    /**
+     * Represents a dice expression such as {@code "d20"}, {@code "3d6"} or {@code "2d8-1"}: a
+     * number of dice with the same number of sides, and a modifier added to their total.
+     */
+    private static final class DiceExpression{
+        private final long dice;
+        private final int sides;
+        private final long modifier;
+
+        private DiceExpression(long dice, int sides, long modifier){
+            this.dice = dice;
+            this.sides = sides;
+            this.modifier = modifier;
+        }
+
+        /**
+         * Parses a dice expression.
+         *
+         * @param expression The expression, such as {@code "3d6+2"}.
+         *
+         * @return The parsed {@code DiceExpression}.
+         *
+         * @throws IllegalArgumentException if the expression is not valid, or its total could
+         *                                  overflow a long.
+         */
+        static DiceExpression parse(String expression){
+            final Matcher matcher = DICE_EXPRESSION.matcher(expression.strip().toLowerCase(Locale.ROOT));
+
+            if(!matcher.matches()){
+                throw new IllegalArgumentException("\"dice\" must be an expression such as \"d20\", \"3d6\" or \"2d8+1\".");
+            }
+
+            final long dice;
+            final int sides;
+            final long modifier;
+
+            try{
+                dice = matcher.group(1).isEmpty() ? 1 : Long.parseLong(matcher.group(1));
+                sides = Integer.parseInt(matcher.group(2));
+                modifier = matcher.group(4) == null ? 0
+                        : Long.parseLong(matcher.group(3) + matcher.group(4));
+            }catch(NumberFormatException e){
+                throw new IllegalArgumentException("\"dice\" has a number that is too large.");
+            }
+
+            if(dice < 1 || sides < 1){
+                throw new IllegalArgumentException("\"dice\" must have at least one die of at least one side.");
+            }else if(dice > (Long.MAX_VALUE - Math.abs(modifier)) / sides){
+                throw new IllegalArgumentException("\"dice\" could total more than a long can hold.");
+            }
+
+            return new DiceExpression(dice, sides, modifier);
+        }
+
+        /**
+         * Rolls the dice, and returns their total plus the modifier.
+         *
+         * @param rng The {@code RandomGenerator} to draw from.
+         *
+         * @return The total of the roll.
+         */
+        long roll(RandomGenerator rng){
+            if(dice > MAX_ROLLED_DICE){
+                return Random.getDiceTotal(sides, dice, rng) + modifier;
+            }
+
+            long total = modifier;
+
+            for(int i = 0; i < dice; i++){
+                total += Random.nextLong(rng, 1, sides);
+            }
+
+            return total;
+        }
+    }
+
+    /**
+     * Represents the outcome of one job.
+     */
+    public static class Result{
+        private final Job job;
+        private final long results;
+        private final long bytes;
+        private final long nanos;
+        private final String error;
+
+        private Result(Job job, long results, long bytes, long nanos, String error){
+            this.job = job;
+            this.results = results;
+            this.bytes = bytes;
+            this.nanos = nanos;
+            this.error = error;
+        }
+
+        /**
+         * Returns the job this is the outcome of.
+         *
+         * @return The {@code Job}.
+         */
+        public Job getJob(){
+            return job;
+        }
+
+        /**
+         * Returns the number of results the job wrote.
+         *
+         * @return The number of results, or 0 if the job failed.
+         */
+        public long getResults(){
+            return results;
+        }
+
+        /**
+         * Returns the size of the job's output file.
+         *
+         * @return The number of bytes written, or 0 if the job failed.
+         */
+        public long getBytes(){
+            return bytes;
+        }
+
+        /**
+         * Returns how long the job took to run.
+         *
+         * @return The time taken, in nanoseconds.
+         */
+        public long getNanos(){
+            return nanos;
+        }
+
+        /**
+         * Returns why the job failed.
+         *
+         * @return The error message, or {@code null} if the job succeeded.
+         */
+        public String getError(){
+            return error;
+        }
+
+        /**
+         * Returns whether the job succeeded.
+         *
+         * @return Whether the job wrote all its results.
+         */
+        public boolean isSuccessful(){
+            return error == null;
+        }
+    }
+
+    /**
+     * Creates a runner that writes output files to a directory.
+     *
+     * @param outputDirectory The directory to write output files to. It is created if it does not exist.
+     * @param parallelism The largest number of jobs to run at once.
+     *
+     * @throws IllegalArgumentException if {@code parallelism} is not between 1 and {@code MAX_PARALLELISM}.
+     * @throws NullPointerException if {@code outputDirectory} is null.
+     */
+    public JobRunner(Path outputDirectory, int parallelism){
+        Objects.requireNonNull(outputDirectory, "outputDirectory cannot be null.");
+
+        if(parallelism < 1 || parallelism > MAX_PARALLELISM){
+            throw new IllegalArgumentException("parallelism must be between 1 and " + MAX_PARALLELISM + ".");
+        }
+
+        this.outputDirectory = outputDirectory;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Reads the jobs from a job file.
+     *
+     * <p>Every job is checked as far as it can be without reading its input file, before any
+     * job is run, so a mistake on the last line is found without waiting for the jobs above it.
+     * The fields each type needs must be present and valid, ranges and dice must be well formed,
+     * and input files must exist. Whether an input file holds enough items to pick from is only
+     * known once it is read, when its job runs.
+     *
+     * @param file The {@code Path} of the job file.
+     *
+     * @return A {@code List} of the jobs, in the order they appear in the file.
+     *
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if a line is not a valid job, an input file does not
+     *                                  exist, or two jobs have the same name or output file.
+     *                                  The message gives the line number.
+     */
+    public static List<Job> readJobs(Path file) throws IOException{
+        final Path directory = file.toAbsolutePath().getParent();
+        final List<String> lines = Files.readAllLines(file);
+        final List<Job> jobs = new ArrayList<>();
+        final Map<String, Integer> lineByName = new HashMap<>();
+        final Map<String, Integer> lineByOutput = new HashMap<>();
+
+        for(int i = 0; i < lines.size(); i++){
+            final String line = lines.get(i).strip();
+            final int lineNumber = i + 1;
+
+            if(line.isEmpty() || line.startsWith("#")){
+                continue;
+            }
+
+            try{
+                final Job job = parseJob(line, jobs.size() + 1, directory);
+                checkUnique(lineByName, job.getName(), lineNumber, "name");
+                checkUnique(lineByOutput, job.getOutput(), lineNumber, "output file");
+                jobs.add(job);
+            }catch(IllegalArgumentException e){
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+
+        return jobs;
+    }
+
+    /**
+     * Runs jobs, with no more than the runner's parallelism running at once, and waits for them
+     * all to finish.
+     *
+     * @param jobs The jobs to run.
+     *
+     * @return A {@code List} of the outcome of each job, in the same order as {@code jobs}.
+     *
+     * @throws IOException if the output directory cannot be created.
+     * @throws InterruptedException if the thread is interrupted while waiting for the jobs.
+     */
+    public List<Result> run(List<Job> jobs) throws IOException, InterruptedException{
+        Files.createDirectories(outputDirectory);
+
+        final AtomicInteger threads = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(jobs.size(), 1)), task -> {
+            final Thread thread = new Thread(task, "job-runner-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try{
+            final List<Callable<Result>> tasks = new ArrayList<>();
+
+            for(Job job : jobs){
+                tasks.add(() -> runJob(job));
+            }
+
+            final List<Result> results = new ArrayList<>();
+
+            for(Future<Result> future : executor.invokeAll(tasks)){
+                try{
+                    results.add(future.get());
+                }catch(ExecutionException e){
+                    // runJob catches everything a job may throw, so this is not expected.
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+
+            return results;
+        }finally{
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Describes the outcome of a run as a table, with a line for each job, followed by the total
+     * time and throughput.
+     *
+     * @param results The outcome of each job.
+     * @param elapsedNanos The time taken by the whole run, in nanoseconds.
+     *
+     * @return The summary, ending with a line feed.
+     */
+    public static String summarise(List<Result> results, long elapsedNanos){
+        final StringBuilder summary = new StringBuilder();
+        int nameWidth = 4;
+        long totalResults = 0;
+        long totalBytes = 0;
+        int failed = 0;
+
+        for(Result result : results){
+            nameWidth = Math.max(nameWidth, result.getJob().getName().length());
+        }
+
+        final String row = "%-" + nameWidth + "s  %-7s  %14s  %14s  %10s  %s%n";
+        summary.append(String.format(Locale.ROOT, row, "Job", "Type", "Results", "Bytes", "Time (ms)", "Seed"));
+
+        for(Result result : results){
+            final Job job = result.getJob();
+            final String millis = String.format(Locale.ROOT, "%.1f", result.getNanos() / 1e6);
+
+            if(result.isSuccessful()){
+                summary.append(String.format(Locale.ROOT, row, job.getName(), job.getType(),
+                        result.getResults(), result.getBytes(), millis, job.getSeed()));
+            }else{
+                summary.append(String.format(Locale.ROOT, row, job.getName(), job.getType(),
+                        "-", "-", millis, job.getSeed() + "  FAILED: " + result.getError()));
+                failed++;
+            }
+
+            totalResults += result.getResults();
+            totalBytes += result.getBytes();
+        }
+
+        final double seconds = Math.max(elapsedNanos, 1) / 1e9;
+
+        summary.append(String.format(Locale.ROOT,
+                "%n%d jobs (%d failed) in %.1f ms: %d results, %.0f results/s, %.1f MB/s.%n",
+                results.size(), failed, elapsedNanos / 1e6, totalResults,
+                totalResults / seconds, totalBytes / seconds / 1e6));
+
+        return summary.toString();
+    }
+
+    /**
+     * Runs a job, and times it.
+     *
+     * @param job The job to run.
+     *
+     * @return The outcome of the job.
+     */
+    private Result runJob(Job job){
+        final Path output = outputDirectory.resolve(job.getOutput());
+        final ItemImporter.FileFormat format = ItemImporter.FileFormat.fromFileName(output);
+        final RandomGenerator rng = new SplittableRandom(job.getSeed());
+        final long start = System.nanoTime();
+
+        try{
+            final long results = switch(job.getType()){
+                case NUMBERS -> drawNumbers(job, output, format, rng);
+                case DICE -> rollDice(job, output, format, rng);
+                case SHUFFLE -> shuffleItems(job, output, format);
+                case PICK -> pickItems(job, output, format, rng);
+            };
+
+            return new Result(job, results, Files.size(output), System.nanoTime() - start, null);
+        }catch(IOException | RuntimeException e){
+            final String message = e.getMessage() == null || e instanceof IOException
+                    ? e.toString()
+                    : e.getMessage();
+
+            return new Result(job, 0, 0, System.nanoTime() - start, message);
+        }
+    }
+
+    /**
+     * Draws numbers from a range, and writes one on each line of the output file.
+     *
+     * <p>Numbers that may repeat are streamed to the file as they are drawn, unless they are to
+     * be sorted, so any quantity can be drawn.
+     *
+     * @return The quantity of numbers drawn.
+     */
+    private static long drawNumbers(Job job, Path output, ItemImporter.FileFormat format, RandomGenerator rng) throws IOException{
+        final long lowerBound = job.getLong("lower");
+        final long upperBound = job.getLong("upper");
+        final boolean unique = job.getBoolean("unique", true);
+        final boolean sorted = job.getBoolean("sorted", false);
+
+        if(!unique && !sorted){
+            final long quantity = getQuantity(job, false);
+
+            ResultExporter.exportNumbers(output, format, () -> Random.nextLong(rng, lowerBound, upperBound), quantity);
+
+            return quantity;
+        }
+
+        final int quantity = (int) getQuantity(job, true);
+        final List<Long> numbers;
+
+        if(!unique){
+            numbers = Random.getRandomLongList(lowerBound, upperBound, quantity, rng);
+            Collections.sort(numbers);
+        }else if(sorted){
+            numbers = Random.getSortedUniqueRandomLongList(lowerBound, upperBound, quantity, rng);
+        }else{
+            numbers = Random.getUniqueRandomLongList(lowerBound, upperBound, quantity, rng);
+        }
+
+        ResultExporter.exportNumbers(output, format, numbers);
+
+        return quantity;
+    }
+
+    /**
+     * Rolls a dice expression or a custom die, and writes each roll on its own line of the
+     * output file.
+     *
+     * @return The number of rolls.
+     */
+    private static long rollDice(Job job, Path output, ItemImporter.FileFormat format, RandomGenerator rng) throws IOException{
+        final long quantity = getQuantity(job, false);
+
+        if(job.fields.containsKey("faces")){
+            final CustomDie die = CustomDie.parse(job.getString("faces"));
+
+            try(ResultExporter exporter = ResultExporter.open(output, format)){
+                for(long i = 0; i < quantity; i++){
+                    exporter.writeItem(die.getFace(die.roll(rng))).endRecord();
+                }
+            }
+
+            return quantity;
+        }
+
+        final DiceExpression expression = DiceExpression.parse(job.getString("dice"));
+
+        ResultExporter.exportNumbers(output, format, () -> expression.roll(rng), quantity);
+
+        return quantity;
+    }
+
+    /**
+     * Shuffles the items in a file, and writes them in their new order to the output file.
+     *
+     * @return The number of items shuffled.
+     */
+    private static long shuffleItems(Job job, Path output, ItemImporter.FileFormat format) throws IOException{
+        final List<String> items = importItems(job);
+
+        ParallelShuffle.shuffle(items, job.getSeed());
+        ResultExporter.exportItems(output, format, items);
+
+        return items.size();
+    }
+
+    /**
+     * Picks items from a file, and writes one on each line of the output file.
+     *
+     * @return The number of items picked.
+     */
+    private static long pickItems(Job job, Path output, ItemImporter.FileFormat format, RandomGenerator rng) throws IOException{
+        final List<String> items = importItems(job);
+        final int quantity = (int) getQuantity(job, true);
+        final List<String> picked;
+
+        if(job.getBoolean("unique", true)){
+            if(quantity > items.size()){
+                throw new IllegalArgumentException("\"quantity\" is greater than the number of items (" + items.size() + ").");
+            }
+
+            picked = Random.getUniqueRandItemsFromList(items, quantity, rng);
+        }else if(items.isEmpty() && quantity > 0){
+            throw new IllegalArgumentException("There are no items to pick from.");
+        }else{
+            picked = Random.getRandItemsFromList(items, quantity, rng);
+        }
+
+        ResultExporter.exportItems(output, format, picked);
+
+        return quantity;
+    }
+
+    /**
+     * Imports the items a job is given, from the column of the file named by its {@code file}
+     * field.
+     */
+    private static List<String> importItems(Job job) throws IOException{
+        final Path file = getInputFile(job);
+
+        return ItemImporter.importItems(file, ItemImporter.FileFormat.fromFileName(file), job.getInt("column", 0), 0);
+    }
+
+    /**
+     * Parses one line of a job file into a job.
+     *
+     * @param line The line, which must hold a flat JSON object.
+     * @param index The position of the job in the file, starting at 1, which names jobs without a name.
+     * @param directory The directory of the job file, which input files are found relative to.
+     *
+     * @return The {@code Job}.
+     *
+     * @throws IllegalArgumentException if the line is not a valid job.
+     */
+    private static Job parseJob(String line, int index, Path directory){
+        final Map<String, String> fields = parseObject(line);
+        final String typeName = fields.get("type");
+
+        if(typeName == null){
+            throw new IllegalArgumentException("\"type\" is required.");
+        }
+
+        final JobType type;
+
+        try{
+            type = JobType.valueOf(typeName.toUpperCase(Locale.ROOT));
+        }catch(IllegalArgumentException e){
+            throw new IllegalArgumentException("\"" + typeName + "\" is not a job type. Use numbers, dice, shuffle or pick.");
+        }
+
+        for(String field : fields.keySet()){
+            if(!type.hasField(field)){
+                throw new IllegalArgumentException("\"" + field + "\" is not a field of " + type + " jobs.");
+            }
+        }
+
+        final String name = fields.getOrDefault("name", "job-" + index);
+        checkFileName("name", name);
+
+        if(fields.containsKey("output")){
+            checkFileName("output", fields.get("output"));
+        }
+
+        final long seed;
+
+        try{
+            seed = fields.containsKey("seed") ? Long.parseLong(fields.get("seed")) : SEED_SOURCE.nextLong();
+        }catch(NumberFormatException e){
+            throw new IllegalArgumentException("\"seed\" must be a whole number.");
+        }
+
+        final Job job = new Job(name, type, fields, directory, seed);
+        checkValues(job);
+
+        return job;
+    }
+
+    /**
+     * Throws an exception if a field is not a plain file name, so that it names a file within
+     * its directory and no other.
+     */
+    private static void checkFileName(String field, String value){
+        final Path path;
+
+        try{
+            path = Path.of(value);
+        }catch(InvalidPathException e){
+            throw new IllegalArgumentException("\"" + field + "\" must be a file name.");
+        }
+
+        if(value.isBlank() || value.equals(".") || value.equals("..")
+                || path.getFileName() == null || !value.equals(path.getFileName().toString())){
+            throw new IllegalArgumentException("\"" + field + "\" must be a file name, not a path.");
+        }
+    }
+
+    /**
+     * Checks the values of a job's fields, as far as they can be checked without reading its
+     * input file.
+     *
+     * @param job The job to check.
+     *
+     * @throws IllegalArgumentException if a value is missing or not valid, or the input file does
+     *                                  not exist.
+     */
+    private static void checkValues(Job job){
+        switch(job.getType()){
+            case NUMBERS -> {
+                final long lowerBound = job.getLong("lower");
+                final long upperBound = job.getLong("upper");
+                final boolean unique = job.getBoolean("unique", true);
+
+                if(lowerBound > upperBound){
+                    throw new IllegalArgumentException("\"lower\" cannot be greater than \"upper\".");
+                }
+
+                final long quantity = getQuantity(job, unique || job.getBoolean("sorted", false));
+
+                // The size of the range as an unsigned number, where 0 represents all 2^64 values.
+                final long range = upperBound - lowerBound + 1;
+
+                if(unique && range != 0 && Long.compareUnsigned(quantity, range) > 0){
+                    throw new IllegalArgumentException("\"quantity\" cannot be greater than the size of the range.");
+                }
+            }
+            case DICE -> {
+                getQuantity(job, false);
+
+                if(job.fields.containsKey("faces")){
+                    CustomDie.parse(job.getString("faces"));
+                }else{
+                    DiceExpression.parse(job.getString("dice"));
+                }
+            }
+            case SHUFFLE -> getInputFile(job);
+            case PICK -> {
+                getInputFile(job);
+                getQuantity(job, true);
+                job.getBoolean("unique", true);
+            }
+        }
+    }
+
+    /**
+     * Returns the quantity a job asks for, which is 1 if it is not given.
+     *
+     * @param job The job.
+     * @param listed Whether the results are held in a list, so the quantity must fit in an int.
+     *
+     * @return The quantity.
+     *
+     * @throws IllegalArgumentException if the quantity is negative or too large.
+     */
+    private static long getQuantity(Job job, boolean listed){
+        if(listed){
+            return job.getInt("quantity", 1);
+        }
+
+        final long quantity = job.getLong("quantity", 1);
+
+        if(quantity < 0){
+            throw new IllegalArgumentException("\"quantity\" cannot be negative.");
+        }
+
+        return quantity;
+    }
+
+    /**
+     * Returns the input file of a job, from its {@code file} field.
+     *
+     * @param job The job.
+     *
+     * @return The {@code Path} of the input file, relative to the job file.
+     *
+     * @throws IllegalArgumentException if the file is not given or does not exist.
+     */
+    private static Path getInputFile(Job job){
+        final Path file;
+
+        try{
+            file = job.directory.resolve(job.getString("file"));
+        }catch(InvalidPathException e){
+            throw new IllegalArgumentException("\"file\" is not a valid path.");
+        }
+
+        if(!Files.isRegularFile(file)){
+            throw new IllegalArgumentException("The input file " + file + " does not exist.");
+        }
+
+        job.getInt("column", 0);
+
+        return file;
+    }
+
+    /**
+     * Throws an exception if a value has already been used by an earlier job, and otherwise
+     * records the line it is used on.
+     *
+     * <p>Values are compared ignoring case, because names and output files become file names, and
+     * "Out.csv" and "out.csv" are the same file on Windows and macOS.
+     */
+    private static void checkUnique(Map<String, Integer> lineByValue, String value, int lineNumber, String description){
+        final Integer previous = lineByValue.putIfAbsent(value.toLowerCase(Locale.ROOT), lineNumber);
+
+        if(previous != null){
+            throw new IllegalArgumentException("The " + description + " \"" + value
+                    + "\" is already used on line " + previous + ".");
+        }
+    }
+
+    /**
+     * Parses a flat JSON object, whose values are strings, numbers, booleans or {@code null}.
+     *
+     * <p>Every value is kept as text: strings are unescaped, and numbers and booleans are kept as
+     * written. Fields set to {@code null} are left out.
+     *
+     * @param text The JSON object.
+     *
+     * @return A {@code Map} from each field name to its value, in the order they appear.
+     *
+     * @throws IllegalArgumentException if the text is not a flat JSON object, or has a field
+     *                                  more than once.
+     */
+    static Map<String, String> parseObject(String text){
+        final Map<String, String> fields = new LinkedHashMap<>();
+        final Set<String> names = new HashSet<>();
+        final int[] position = {skipWhitespace(text, 0)};
+
+        expect(text, position, '{');
+
+        if(peek(text, position) == '}'){
+            position[0]++;
+        }else{
+            while(true){
+                final String field = parseString(text, position);
+                expect(text, position, ':');
+
+                final String value = peek(text, position) == '"'
+                        ? parseString(text, position)
+                        : parseLiteral(text, position);
+
+                if(!names.add(field)){
+                    throw new IllegalArgumentException("\"" + field + "\" is given more than once.");
+                }else if(value != null){
+                    fields.put(field, value);
+                }
+
+                if(peek(text, position) == ','){
+                    position[0]++;
+                }else{
+                    expect(text, position, '}');
+                    break;
+                }
+            }
+        }
+
+        if(skipWhitespace(text, position[0]) != text.length()){
+            throw new IllegalArgumentException("Unexpected text after the closing brace.");
+        }
+
+        return fields;
+    }
+
+    private static String parseString(String text, int[] position){
+        expect(text, position, '"');
+
+        final StringBuilder value = new StringBuilder();
+        int i = position[0];
+
+        while(true){
+            if(i >= text.length()){
+                throw new IllegalArgumentException("A string is not closed.");
+            }
+
+            final char c = text.charAt(i++);
+
+            if(c == '"'){
+                break;
+            }else if(c != '\\'){
+                value.append(c);
+                continue;
+            }else if(i >= text.length()){
+                throw new IllegalArgumentException("A string is not closed.");
+            }
+
+            final char escape = text.charAt(i++);
+
+            switch(escape){
+                case '"', '\\', '/' -> value.append(escape);
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'u' -> {
+                    if(i + 4 > text.length()){
+                        throw new IllegalArgumentException("A \\u escape must have four hex digits.");
+                    }
+
+                    try{
+                        value.append((char) Integer.parseInt(text.substring(i, i + 4), 16));
+                    }catch(NumberFormatException e){
+                        throw new IllegalArgumentException("A \\u escape must have four hex digits.");
+                    }
+
+                    i += 4;
+                }
+                default -> throw new IllegalArgumentException("\"\\" + escape + "\" is not a valid escape.");
+            }
+        }
+
+        position[0] = i;
+
+        return value.toString();
+    }
+
+    /**
+     * Parses a number, boolean or {@code null}, returning {@code null} for {@code null}.
+     */
+    private static String parseLiteral(String text, int[] position){
+        final int start = skipWhitespace(text, position[0]);
+        int end = start;
+
+        while(end < text.length() && ",} \t".indexOf(text.charAt(end)) < 0){
+            end++;
+        }
+
+        final String literal = text.substring(start, end);
+        position[0] = end;
+
+        if(literal.equals("null")){
+            return null;
+        }else if(literal.equals("true") || literal.equals("false")
+                || literal.matches("-?(0|[1-9]\\d*)(\\.\\d+)?([eE][+-]?\\d+)?")){
+            return literal;
+        }else{
+            throw new IllegalArgumentException("\"" + literal + "\" is not a valid value.");
+        }
+    }
+
+    private static char peek(String text, int[] position){
+        position[0] = skipWhitespace(text, position[0]);
+
+        return position[0] < text.length() ? text.charAt(position[0]) : '\0';
+    }
+
+    private static void expect(String text, int[] position, char c){
+        if(peek(text, position) != c){
+            throw new IllegalArgumentException("Expected '" + c + "' at position " + (position[0] + 1) + ".");
+        }
+
+        position[0]++;
+    }
+
+    private static int skipWhitespace(String text, int i){
+        while(i < text.length() && Character.isWhitespace(text.charAt(i))){
+            i++;
+        }
+
+        return i;
+    }
+}
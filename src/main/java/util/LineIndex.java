@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import main.java.exception.TooManyItemsException;
+
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.EventListenerList;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps the lines of a text document parsed into a list of items, as the document is edited.
+ *
+ * <p>The document already keeps an element for each of its lines, so the number of lines is
+ * always known without scanning the text. Each edit reports which line elements it replaced, and
+ * only the items for those lines are parsed again, the next time the items are needed. Drawing
+ * repeatedly from a large list therefore does not parse it again each time.
+ *
+ * <p>The items are the same as those returned by {@code Format.splitStringToList} for the text
+ * of the document. Like any Swing component, an index must only be used on the event dispatch
+ * thread.
+ */
+public class LineIndex implements DocumentListener {
+    private final Document document;
+    private final Element root;
+    private final EventListenerList listeners = new EventListenerList();
+
+    /**
+     * The text of each line, without its line terminator, or {@code null} for lines changed
+     * since they were last parsed. This is itself {@code null} until the items are first needed.
+     */
+    private List<String> lines;
+
+    /**
+     * Whether any line has been changed since the lines were last parsed.
+     */
+    private boolean changed;
+
+    /**
+     * Creates an index of the lines of a document, and starts listening to the document for edits.
+     *
+     * @param document The {@code Document} to index.
+     */
+    public LineIndex(Document document){
+        this.document = document;
+        this.root = document.getDefaultRootElement();
+
+        document.addDocumentListener(this);
+    }
+
+    /**
+     * Returns the number of lines in the document, which is one more than the number of newlines.
+     *
+     * @return The number of lines.
+     */
+    public int getLineCount(){
+        return root.getElementCount();
+    }
+
+    /**
+     * Returns the items in the document, with each line being an item. A newline at the end of
+     * the document does not start another item.
+     *
+     * <p>Only lines edited since this was last called are parsed.
+     *
+     * @param maxLength The maximum number of items. Set this to 0 to remove the limit.
+     *
+     * @return A new {@code List} of the items in the document.
+     *
+     * @throws TooManyItemsException if the document has more lines than {@code maxLength}.
+     */
+    public List<String> getItems(int maxLength){
+        if(maxLength > 0 && getLineCount() > maxLength){
+            throw new TooManyItemsException();
+        }
+
+        final DrawEvent event = DrawEvent.start("lineIndexItems");
+        final boolean parseAll = lines == null;
+
+        if(parseAll){
+            lines = new ArrayList<>(Collections.nCopies(getLineCount(), null));
+            changed = true;
+        }
+
+        if(changed){
+            for(int i = 0; i < lines.size(); i++){
+                if(lines.get(i) == null){
+                    lines.set(i, getLine(i));
+                }
+            }
+
+            changed = false;
+        }
+
+        final List<String> items = new ArrayList<>(lines.size());
+
+        for(String line : lines){
+            if(line.indexOf('\r') >= 0){
+                line.lines().forEach(items::add);
+            }else{
+                items.add(line);
+            }
+        }
+
+        // The document always has a line after its last newline, which is empty if the text ends with one.
+        if(lines.get(lines.size() - 1).isEmpty()){
+            items.remove(items.size() - 1);
+        }
+
+        event.finish(items.size(), document.getLength(), parseAll ? "full parse" : "line index");
+
+        return items;
+    }
+
+    /**
+     * Registers a listener to be told whenever the document is edited, after the line count
+     * has been updated.
+     *
+     * @param listener The {@code ChangeListener} to register.
+     */
+    public void addChangeListener(ChangeListener listener){
+        listeners.add(ChangeListener.class, listener);
+    }
+
+    /**
+     * Unregisters a listener registered with {@code addChangeListener}.
+     *
+     * @param listener The {@code ChangeListener} to unregister.
+     */
+    public void removeChangeListener(ChangeListener listener){
+        listeners.remove(ChangeListener.class, listener);
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent e){
+        update(e);
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e){
+        update(e);
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e){
+        // Attribute changes do not change the text.
+    }
+
+    /**
+     * Marks the lines touched by an edit as changed, and tells the listeners.
+     *
+     * <p>If the edit added or removed lines, the document reports which line elements were
+     * replaced, and the same lines are replaced in the index. Otherwise, the edit was within
+     * a single line.
+     */
+    private void update(DocumentEvent e){
+        if(lines != null){
+            final DocumentEvent.ElementChange change = e.getChange(root);
+
+            if(change != null){
+                final int index = change.getIndex();
+
+                lines.subList(index, index + change.getChildrenRemoved().length).clear();
+                lines.addAll(index, Collections.nCopies(change.getChildrenAdded().length, null));
+            }else{
+                lines.set(root.getElementIndex(e.getOffset()), null);
+            }
+
+            changed = true;
+        }
+
+        final ChangeEvent event = new ChangeEvent(this);
+
+        for(ChangeListener listener : listeners.getListeners(ChangeListener.class)){
+            listener.stateChanged(event);
+        }
+    }
+
+    /**
+     * Returns the text of a line, without its line terminator.
+     */
+    private String getLine(int index){
+        final Element line = root.getElement(index);
+        final int start = line.getStartOffset();
+        final int end = Math.min(line.getEndOffset(), document.getLength());
+
+        try{
+            final String text = document.getText(start, end - start);
+
+            return text.endsWith("\n") ? text.substring(0, text.length() - 1) : text;
+        }catch(BadLocationException e){
+            throw new IllegalStateException(e);
+        }
+    }
+}
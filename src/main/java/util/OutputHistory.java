@@ -0,0 +1,549 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import javax.swing.BoundedRangeModel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultCaret;
+import java.awt.Point;
+import java.awt.event.HierarchyEvent;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Keeps the results displayed in an output box, holding only the most recent in memory and
+ * spilling older results to a temporary file.
+ *
+ * <p>Text is added to the history a piece at a time, as it would be appended to the box. The
+ * most recent pieces, up to {@code MAX_RECENT_LENGTH} characters, are kept in memory and shown in
+ * the box. Once there are more, the oldest pieces are written to the end of a temporary file,
+ * which is split into pages of about {@code PAGE_LENGTH} characters. Only the offset of each
+ * page is kept in memory, so memory use does not grow however long the app is used.
+ *
+ * <p>When the user scrolls to the top of the box, the page before the first one shown is read
+ * back from the file and added above it; scrolling back to the bottom reads the pages after it
+ * again, and then the recent text. No more than {@code MAX_SHOWN_PAGES} pages are shown at once,
+ * counting the recent text as a page, so pages at the other end are dropped from the box as new
+ * ones are shown. Adding text always returns the box to the recent text.
+ *
+ * <p>A history created without spilling, such as one showing secrets that must never be written
+ * to disk, drops older results instead of spilling them, and so has no pages to read back. If the
+ * temporary file cannot be written, older results are also dropped. Like any Swing
+ * component, a history must only be used on the event dispatch thread.
+ */
+public class OutputHistory {
+    /**
+     * The most characters of recent text kept in memory before the oldest pieces are spilled.
+     */
+    public static final int MAX_RECENT_LENGTH = 1 << 18;
+
+    /**
+     * The fewest characters of recent text left in memory after spilling, so that the box can
+     * usually still be scrolled to reach the spilled pages.
+     */
+    private static final int MIN_RECENT_LENGTH = MAX_RECENT_LENGTH / 2;
+
+    /**
+     * The number of characters after which the next spilled piece starts a new page.
+     */
+    public static final int PAGE_LENGTH = 1 << 16;
+
+    /**
+     * The most pages shown in the box at once, counting the recent text as a page.
+     */
+    private static final int MAX_SHOWN_PAGES = 4;
+
+    private final JTextArea area;
+    private JScrollPane scrollPane;
+
+    /**
+     * The pieces of recent text, oldest first, and their total length.
+     */
+    private final Deque<String> recent = new ArrayDeque<>();
+    private long recentLength;
+
+    /**
+     * The temporary file spilled text is written to, or {@code null} until text is first spilled.
+     */
+    private FileChannel spill;
+    private final boolean spillEnabled;
+    private boolean spillFailed;
+    private long spillSize;
+
+    /**
+     * The offset in the spill file at which each page starts, and the number of characters
+     * spilled to the last page.
+     */
+    private long[] pageOffsets = new long[16];
+    private int pageCount;
+    private long lastPageLength;
+
+    /**
+     * The spilled pages shown in the box are those from {@code firstShownPage} up to, but not
+     * including, {@code endShownPage}, and are followed by the recent text if
+     * {@code recentShown} is set. {@code shownPageLengths} holds the length of each of the pages
+     * shown, in order.
+     */
+    private int firstShownPage;
+    private int endShownPage;
+    private boolean recentShown = true;
+    private final Deque<Integer> shownPageLengths = new ArrayDeque<>();
+
+    /**
+     * Whether the box is being changed by this history, so that scrolling is not acted on.
+     */
+    private boolean updating;
+    private int lastScrollValue;
+
+    /**
+     * Creates an empty history for an output box, which spills older results to a temporary
+     * file, and clears the box.
+     *
+     * <p>The box starts reading pages back in once it has been added to a {@code JScrollPane}.
+     *
+     * @param area The {@code JTextArea} to show the history in.
+     */
+    public OutputHistory(JTextArea area){
+        this(area, true);
+    }
+
+    /**
+     * Creates an empty history for an output box, and clears the box.
+     *
+     * @param area The {@code JTextArea} to show the history in.
+     * @param spillEnabled Whether older results are spilled to a temporary file. If not, they
+     *                     are dropped, and nothing shown in the box is ever written to disk.
+     */
+    public OutputHistory(JTextArea area, boolean spillEnabled){
+        this.area = area;
+        this.spillEnabled = spillEnabled;
+
+        // The box is scrolled explicitly, so that adding pages above the text does not move it.
+        if(area.getCaret() instanceof DefaultCaret caret){
+            caret.setUpdatePolicy(DefaultCaret.NEVER_UPDATE);
+        }
+
+        area.setText("");
+        area.addHierarchyListener(e -> {
+            if((e.getChangeFlags() & HierarchyEvent.PARENT_CHANGED) != 0){
+                attach();
+            }
+        });
+        attach();
+    }
+
+    /**
+     * Adds text to the end of the history, and scrolls the box to show it.
+     *
+     * <p>If the recent text is too long, its oldest pieces are spilled to the temporary file.
+     *
+     * @param text The text to add.
+     */
+    public void append(String text){
+        if(text.isEmpty()){
+            return;
+        }
+
+        updating = true;
+
+        try{
+            if(!recentShown || !shownPageLengths.isEmpty()){
+                showRecentOnly();
+            }
+
+            recent.addLast(text);
+            recentLength += text.length();
+            area.append(text);
+
+            final int spilled = spillOldest();
+
+            if(spilled > 0){
+                area.replaceRange(null, 0, spilled);
+            }
+
+            firstShownPage = pageCount;
+            endShownPage = pageCount;
+            area.setCaretPosition(area.getDocument().getLength());
+        }finally{
+            updating = false;
+        }
+    }
+
+    /**
+     * Replaces the whole history with some text.
+     *
+     * @param text The text to replace the history with.
+     */
+    public void setText(String text){
+        clear();
+        append(text);
+    }
+
+    /**
+     * Removes everything from the history, including the text spilled to the temporary file,
+     * and clears the box.
+     */
+    public void clear(){
+        recent.clear();
+        recentLength = 0;
+        pageCount = 0;
+        lastPageLength = 0;
+        spillSize = 0;
+
+        if(spill != null && !spillFailed){
+            try{
+                spill.truncate(0);
+            }catch(IOException e){
+                spillFailed = true;
+            }
+        }
+
+        firstShownPage = 0;
+        endShownPage = 0;
+        recentShown = true;
+        shownPageLengths.clear();
+
+        updating = true;
+        area.setText("");
+        updating = false;
+    }
+
+    /**
+     * Returns the number of pages spilled to the temporary file.
+     *
+     * @return The number of spilled pages.
+     */
+    public int getPageCount(){
+        return pageCount;
+    }
+
+    /**
+     * Shows the page before the first one shown, above it, without moving the text in view.
+     *
+     * <p>If this shows too many pages, the last one shown is dropped.
+     */
+    private void showOlder(){
+        if(firstShownPage == 0){
+            return;
+        }
+
+        final String page = readPage(firstShownPage - 1);
+
+        if(page == null){
+            return;
+        }
+
+        updating = true;
+
+        try{
+            final int anchor = getFirstVisibleOffset();
+
+            area.insert(page, 0);
+            firstShownPage--;
+            shownPageLengths.addFirst(page.length());
+
+            if(getShownPageCount() > MAX_SHOWN_PAGES){
+                final int length = area.getDocument().getLength();
+
+                if(recentShown){
+                    area.replaceRange(null, length - (int) recentLength, length);
+                    recentShown = false;
+                }else{
+                    final int last = shownPageLengths.removeLast();
+                    area.replaceRange(null, length - last, length);
+                    endShownPage--;
+                }
+            }
+
+            scrollToOffset(anchor + page.length());
+        }finally{
+            updating = false;
+        }
+    }
+
+    /**
+     * Shows the page after the last one shown, or the recent text, below it, without moving
+     * the text in view.
+     *
+     * <p>If this shows too many pages, the first one shown is dropped.
+     */
+    private void showNewer(){
+        if(recentShown){
+            return;
+        }
+
+        final boolean showRecent = endShownPage == pageCount;
+        final String page = showRecent ? getRecentText() : readPage(endShownPage);
+
+        if(page == null){
+            return;
+        }
+
+        updating = true;
+
+        try{
+            final int anchor = getFirstVisibleOffset();
+
+            area.append(page);
+
+            if(showRecent){
+                recentShown = true;
+            }else{
+                endShownPage++;
+                shownPageLengths.addLast(page.length());
+            }
+
+            int removed = 0;
+
+            if(getShownPageCount() > MAX_SHOWN_PAGES){
+                removed = shownPageLengths.removeFirst();
+                area.replaceRange(null, 0, removed);
+                firstShownPage++;
+            }
+
+            scrollToOffset(Math.max(anchor - removed, 0));
+        }finally{
+            updating = false;
+        }
+    }
+
+    /**
+     * Replaces the text in the box with the recent text.
+     */
+    private void showRecentOnly(){
+        shownPageLengths.clear();
+        firstShownPage = pageCount;
+        endShownPage = pageCount;
+        recentShown = true;
+        area.setText(getRecentText());
+    }
+
+    private String getRecentText(){
+        final StringBuilder text = new StringBuilder((int) Math.min(recentLength, Integer.MAX_VALUE - 8));
+
+        for(String piece : recent){
+            text.append(piece);
+        }
+
+        return text.toString();
+    }
+
+    private int getShownPageCount(){
+        return shownPageLengths.size() + (recentShown ? 1 : 0);
+    }
+
+    /**
+     * Spills the oldest pieces of recent text to the temporary file, if the recent text is too
+     * long, leaving at least {@code MIN_RECENT_LENGTH} characters.
+     *
+     * <p>Spilling down to half the limit means text is only removed from the start of the box
+     * once for every {@code MAX_RECENT_LENGTH - MIN_RECENT_LENGTH} characters or so added, rather
+     * than each time text is added, which would move the whole document each time.
+     *
+     * @return The number of characters spilled.
+     */
+    private int spillOldest(){
+        if(recentLength <= MAX_RECENT_LENGTH){
+            return 0;
+        }
+
+        int spilled = 0;
+
+        while(recentLength - recent.getFirst().length() >= MIN_RECENT_LENGTH){
+            final String piece = recent.removeFirst();
+
+            recentLength -= piece.length();
+            spilled += piece.length();
+            write(piece);
+        }
+
+        return spilled;
+    }
+
+    /**
+     * Writes a piece of text to the end of the temporary file, starting a new page if the last
+     * one is full. If spilling is disabled or the file cannot be written, the text is dropped.
+     *
+     * @param text The text to write.
+     */
+    private void write(String text){
+        if(!spillEnabled || spillFailed){
+            return;
+        }
+
+        try{
+            if(spill == null){
+                final Path file = Files.createTempFile("randomiser-history-", ".txt");
+                file.toFile().deleteOnExit();
+                spill = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            }
+
+            if(pageCount == 0 || lastPageLength >= PAGE_LENGTH){
+                if(pageCount == pageOffsets.length){
+                    pageOffsets = Arrays.copyOf(pageOffsets, pageCount * 2);
+                }
+
+                pageOffsets[pageCount++] = spillSize;
+                lastPageLength = 0;
+            }
+
+            final ByteBuffer bytes = StandardCharsets.UTF_8.encode(text);
+
+            while(bytes.hasRemaining()){
+                spillSize += spill.write(bytes, spillSize);
+            }
+
+            lastPageLength += text.length();
+        }catch(IOException e){
+            spillFailed = true;
+        }
+    }
+
+    /**
+     * Reads a page back from the temporary file.
+     *
+     * @param page The index of the page, where 0 is the oldest.
+     *
+     * @return The text of the page, or {@code null} if it cannot be read.
+     */
+    private String readPage(int page){
+        final long start = pageOffsets[page];
+        final long end = page + 1 < pageCount ? pageOffsets[page + 1] : spillSize;
+        final ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+
+        try{
+            while(bytes.hasRemaining()){
+                if(spill.read(bytes, start + bytes.position()) < 0){
+                    return null;
+                }
+            }
+        }catch(IOException e){
+            return null;
+        }
+
+        return StandardCharsets.UTF_8.decode(bytes.flip()).toString();
+    }
+
+    /**
+     * Starts listening for the box being scrolled, once it is in a scroll pane.
+     */
+    private void attach(){
+        final JScrollPane parent = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, area);
+
+        if(parent == null || parent == scrollPane){
+            return;
+        }
+
+        scrollPane = parent;
+        scrollPane.getVerticalScrollBar().getModel().addChangeListener(
+                e -> onScroll((BoundedRangeModel) e.getSource()));
+
+        // The box cannot be scrolled while its text fits, so the mouse wheel pages instead.
+        scrollPane.addMouseWheelListener(e -> {
+            final BoundedRangeModel model = scrollPane.getVerticalScrollBar().getModel();
+
+            if(model.getMaximum() - model.getExtent() > model.getMinimum()){
+                return;
+            }
+
+            if(e.getWheelRotation() < 0){
+                showOlder();
+            }else if(e.getWheelRotation() > 0){
+                showNewer();
+            }
+        });
+    }
+
+    /**
+     * Shows older or newer pages when the user scrolls to the top or bottom of the box.
+     */
+    private void onScroll(BoundedRangeModel model){
+        final int value = model.getValue();
+        final boolean moved = value != lastScrollValue;
+        lastScrollValue = value;
+
+        if(updating || !moved || model.getValueIsAdjusting()){
+            return;
+        }
+
+        if(value == model.getMinimum()){
+            showOlder();
+        }else if(value + model.getExtent() >= model.getMaximum()){
+            showNewer();
+        }
+    }
+
+    private int getFirstVisibleOffset(){
+        if(scrollPane == null){
+            return 0;
+        }
+
+        return Math.max(area.viewToModel2D(scrollPane.getViewport().getViewPosition()), 0);
+    }
+
+    /**
+     * Scrolls the box so that the line holding an offset is at the top.
+     */
+    private void scrollToOffset(int offset){
+        if(scrollPane == null){
+            return;
+        }
+
+        final JViewport viewport = scrollPane.getViewport();
+        scrollPane.validate();
+
+        try{
+            final Rectangle2D bounds = area.modelToView2D(Math.min(offset, area.getDocument().getLength()));
+
+            if(bounds != null){
+                final int bottom = Math.max(area.getHeight() - viewport.getExtentSize().height, 0);
+                viewport.setViewPosition(new Point(viewport.getViewPosition().x,
+                        Math.min((int) bounds.getY(), bottom)));
+            }
+        }catch(BadLocationException e){
+            // The offset is always within the text, so this is not expected.
+        }
+    }
+}
@@ -0,0 +1,669 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Provides a compact binary format for numeric results, along with a streaming writer and reader.
+ *
+ * <p>Each value is stored as its offset from the lower-bound of the range it was drawn from. In
+ * the {@code DELTA} encoding, which is for sorted unique samples, each offset is stored as the
+ * gap from the one before it, as a varint. In the {@code BIT_PACKED} encoding, which suits any
+ * draw, each offset takes up only as many bits as the range needs: a d6 takes 3 bits per roll.
+ *
+ * <p>A file starts with a header of the magic number, the version, the encoding, and the
+ * range. The values follow in blocks of up to {@code BLOCK_SIZE}, each made of the number of
+ * values, the length of the block in bytes, then the encoded values. An empty block marks the
+ * end of the file.
+ */
+public class PackedResults {
+    /**
+     * The extension of files written in this format.
+     */
+    public static final String FILE_EXTENSION = ".rnd";
+
+    /**
+     * The most values stored in each block.
+     */
+    public static final int BLOCK_SIZE = 4096;
+
+    private static final int MAGIC = 0x524E4450;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 22;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_BLOCK_BYTES = BLOCK_SIZE * VarInt.MAX_LONG_BYTES;
+
+    private PackedResults(){}
+
+    /**
+     * Represents the way values are encoded in a file.
+     */
+    public enum Encoding{
+        /**
+         * Stores the gap between each value and the one before as a varint. The values must be
+         * unique and in ascending order.
+         */
+        DELTA,
+
+        /**
+         * Stores each value in the fewest bits that can hold any value in the range.
+         */
+        BIT_PACKED
+    }
+
+    /**
+     * Returns whether a file is named as a packed results file.
+     *
+     * @param file The {@code Path} of the file.
+     *
+     * @return {@code true} if the file name ends in {@code FILE_EXTENSION}.
+     */
+    public static boolean isPackedFile(Path file){
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(FILE_EXTENSION);
+    }
+
+    /**
+     * Writes a list of numbers to a file.
+     *
+     * <p>The range stored is the smallest that holds every number. If the numbers are unique and
+     * in ascending order, they are delta encoded, otherwise they are bit-packed.
+     *
+     * @param file The {@code Path} of the file.
+     * @param numbers The numbers to write.
+     *
+     * @return The number of bytes written.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public static long write(Path file, List<? extends Number> numbers) throws IOException{
+        final DrawEvent event = DrawEvent.start("writePackedResults");
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        boolean ascending = true;
+
+        for(int i = 0; i < numbers.size(); i++){
+            final long n = numbers.get(i).longValue();
+
+            ascending &= (i == 0) || n > max;
+            min = Math.min(min, n);
+            max = Math.max(max, n);
+        }
+
+        if(numbers.isEmpty()){
+            min = max = 0;
+        }
+
+        final Encoding encoding = ascending ? Encoding.DELTA : Encoding.BIT_PACKED;
+
+        try(Writer writer = Writer.open(file, encoding, min, max)){
+            for(Number n : numbers){
+                writer.write(n.longValue());
+            }
+
+            writer.finish();
+            event.finish(numbers.size(), writer.size(), encoding.name());
+
+            return writer.size();
+        }
+    }
+
+    /**
+     * Reads every value from a file.
+     *
+     * @param file The {@code Path} of the file.
+     *
+     * @return The values in the file.
+     *
+     * @throws IOException if the file cannot be read or is not in this format.
+     */
+    public static long[] readAll(Path file) throws IOException{
+        try(Reader reader = Reader.open(file)){
+            long[] values = new long[BLOCK_SIZE];
+            int size = 0;
+
+            while(true){
+                if(size == values.length){
+                    values = Arrays.copyOf(values, size * 2);
+                }
+
+                final int read = reader.read(values, size, values.length - size);
+
+                if(read < 0){
+                    return Arrays.copyOf(values, size);
+                }
+
+                size += read;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bits needed to store any offset in a range.
+     */
+    private static int bitWidth(long lowerBound, long upperBound){
+        return 64 - Long.numberOfLeadingZeros(upperBound - lowerBound);
+    }
+
+    /**
+     * Writes values to a channel in the packed results format.
+     *
+     * <p>Values are collected into blocks, which are written as the buffer fills. The file is only
+     * complete once {@code finish} or {@code close} has been called.
+     */
+    public static final class Writer implements Closeable{
+        private final WritableByteChannel channel;
+        private final Encoding encoding;
+        private final long lowerBound;
+        private final long range;
+        private final int width;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final ByteBuffer block = ByteBuffer.allocate(MAX_BLOCK_BYTES);
+        private int blockCount;
+        private long previous;
+        private boolean first = true;
+        private boolean finished;
+        private long bits;
+        private int bitCount;
+        private long size;
+
+        private Writer(WritableByteChannel channel, Encoding encoding, long lowerBound, long upperBound){
+            this.channel = channel;
+            this.encoding = encoding;
+            this.lowerBound = lowerBound;
+            this.range = upperBound - lowerBound;
+            this.width = bitWidth(lowerBound, upperBound);
+
+            buffer.putInt(MAGIC).put(VERSION).put((byte) encoding.ordinal())
+                    .putLong(lowerBound).putLong(upperBound);
+        }
+
+        /**
+         * Creates or replaces a file, and opens it to write values to.
+         *
+         * @param file The {@code Path} of the file.
+         * @param encoding The {@code Encoding} to write the values in.
+         * @param lowerBound The lowest value that can be written.
+         * @param upperBound The highest value that can be written.
+         *
+         * @return A {@code Writer} writing to the file.
+         *
+         * @throws IOException if the file cannot be opened.
+         * @throws IllegalArgumentException if {@code lowerBound} is greater than {@code upperBound}.
+         */
+        public static Writer open(Path file, Encoding encoding, long lowerBound, long upperBound) throws IOException{
+            Objects.requireNonNull(file, "file cannot be null.");
+
+            return open(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING), encoding, lowerBound, upperBound);
+        }
+
+        /**
+         * Opens a channel to write values to.
+         *
+         * @param channel The {@code WritableByteChannel} to write to. It is closed when the
+         *                {@code Writer} is closed.
+         * @param encoding The {@code Encoding} to write the values in.
+         * @param lowerBound The lowest value that can be written.
+         * @param upperBound The highest value that can be written.
+         *
+         * @return A {@code Writer} writing to the channel.
+         *
+         * @throws IllegalArgumentException if {@code lowerBound} is greater than {@code upperBound}.
+         * @throws NullPointerException if {@code channel} or {@code encoding} is null.
+         */
+        public static Writer open(WritableByteChannel channel, Encoding encoding, long lowerBound, long upperBound){
+            Objects.requireNonNull(channel, "channel cannot be null.");
+            Objects.requireNonNull(encoding, "encoding cannot be null.");
+
+            if(lowerBound > upperBound){
+                throw new IllegalArgumentException("lowerBound cannot be greater than upperBound.");
+            }
+
+            return new Writer(channel, encoding, lowerBound, upperBound);
+        }
+
+        /**
+         * Writes a value.
+         *
+         * @param value The value to write.
+         *
+         * @throws IOException if the channel cannot be written to.
+         * @throws IllegalArgumentException if {@code value} is outside the range, or for the
+         *                                  {@code DELTA} encoding, is not greater than the
+         *                                  previous value.
+         * @throws IllegalStateException if {@code finish} has been called.
+         */
+        public void write(long value) throws IOException{
+            if(finished){
+                throw new IllegalStateException("The writer has been finished.");
+            }
+
+            final long offset = value - lowerBound;
+
+            if(Long.compareUnsigned(offset, range) > 0){
+                throw new IllegalArgumentException("value is outside the range.");
+            }
+
+            if(encoding == Encoding.DELTA){
+                if(first){
+                    VarInt.putUnsigned(block, offset);
+                }else if(Long.compareUnsigned(offset, previous) > 0){
+                    VarInt.putUnsigned(block, offset - previous - 1);
+                }else{
+                    throw new IllegalArgumentException("values must be unique and in ascending order.");
+                }
+
+                previous = offset;
+                first = false;
+            }else{
+                putBits(offset);
+            }
+
+            if(++blockCount == BLOCK_SIZE){
+                endBlock();
+            }
+        }
+
+        /**
+         * Writes any values not yet written and marks the end of the values, without closing
+         * the channel.
+         *
+         * @throws IOException if the channel cannot be written to.
+         */
+        public void finish() throws IOException{
+            if(finished){
+                return;
+            }
+
+            if(blockCount > 0){
+                endBlock();
+            }
+
+            VarInt.putUnsigned(buffer, 0);
+            flush();
+            finished = true;
+        }
+
+        /**
+         * Returns the number of bytes written to the channel so far.
+         *
+         * @return The number of bytes written.
+         */
+        public long size(){
+            return size;
+        }
+
+        /**
+         * Finishes the values, and closes the channel.
+         *
+         * @throws IOException if the channel cannot be written to.
+         */
+        @Override
+        public void close() throws IOException{
+            try(channel){
+                finish();
+            }
+        }
+
+        /**
+         * Adds an offset to the block in {@code width} bits, least significant bit first.
+         */
+        private void putBits(long offset){
+            final long spill = (bitCount == 0) ? 0 : offset >>> (64 - bitCount);
+            int total = bitCount + width;
+
+            bits |= offset << bitCount;
+
+            if(total >= 64){
+                block.putLong(Long.reverseBytes(bits));
+                bits = spill;
+                total -= 64;
+            }
+
+            while(total >= 8){
+                block.put((byte) bits);
+                bits >>>= 8;
+                total -= 8;
+            }
+
+            bitCount = total;
+        }
+
+        /**
+         * Adds the current block to the buffer, writing the buffer to the channel if it is full.
+         */
+        private void endBlock() throws IOException{
+            if(bitCount > 0){
+                block.put((byte) bits);
+                bits = 0;
+                bitCount = 0;
+            }
+
+            block.flip();
+
+            if(buffer.remaining() < block.remaining() + 2 * VarInt.MAX_LONG_BYTES + 1){
+                flush();
+            }
+
+            VarInt.putUnsigned(buffer, blockCount);
+            VarInt.putUnsigned(buffer, block.remaining());
+            buffer.put(block);
+
+            block.clear();
+            blockCount = 0;
+        }
+
+        /**
+         * Writes the buffer to the channel.
+         */
+        private void flush() throws IOException{
+            buffer.flip();
+            size += buffer.remaining();
+
+            while(buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Reads values from a channel in the packed results format.
+     */
+    public static final class Reader implements Closeable{
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer;
+        private final Encoding encoding;
+        private final long lowerBound;
+        private final long upperBound;
+        private final int width;
+
+        private int blockRemaining;
+        private long previous;
+        private boolean first = true;
+        private boolean finished;
+        private long bits;
+        private int bitCount;
+
+        private Reader(ReadableByteChannel channel, ByteBuffer buffer) throws IOException{
+            this.channel = channel;
+            this.buffer = buffer;
+
+            if(buffer.getInt() != MAGIC || buffer.get() != VERSION){
+                throw new IOException("The file is not in the packed results format.");
+            }
+
+            final int encoding = buffer.get();
+
+            if(encoding < 0 || encoding >= Encoding.values().length){
+                throw new IOException("The file uses an unknown encoding.");
+            }
+
+            this.encoding = Encoding.values()[encoding];
+            this.lowerBound = buffer.getLong();
+            this.upperBound = buffer.getLong();
+            this.width = bitWidth(lowerBound, upperBound);
+        }
+
+        /**
+         * Opens a file to read values from.
+         *
+         * @param file The {@code Path} of the file.
+         *
+         * @return A {@code Reader} reading from the file.
+         *
+         * @throws IOException if the file cannot be read or is not in this format.
+         */
+        public static Reader open(Path file) throws IOException{
+            Objects.requireNonNull(file, "file cannot be null.");
+
+            return open(FileChannel.open(file, StandardOpenOption.READ));
+        }
+
+        /**
+         * Opens a channel to read values from.
+         *
+         * @param channel The {@code ReadableByteChannel} to read from. It is closed when the
+         *                {@code Reader} is closed.
+         *
+         * @return A {@code Reader} reading from the channel.
+         *
+         * @throws IOException if the channel cannot be read or is not in this format.
+         */
+        public static Reader open(ReadableByteChannel channel) throws IOException{
+            Objects.requireNonNull(channel, "channel cannot be null.");
+
+            final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+
+            try{
+                if(!fill(channel, buffer, HEADER_SIZE)){
+                    throw new IOException("The file is not in the packed results format.");
+                }
+
+                return new Reader(channel, buffer);
+            }catch(IOException e){
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Returns the encoding of the values.
+         *
+         * @return The {@code Encoding} of the values.
+         */
+        public Encoding getEncoding(){
+            return encoding;
+        }
+
+        /**
+         * Returns the lowest value that the file can contain.
+         *
+         * @return The lower-bound of the range.
+         */
+        public long getLowerBound(){
+            return lowerBound;
+        }
+
+        /**
+         * Returns the highest value that the file can contain.
+         *
+         * @return The upper-bound of the range.
+         */
+        public long getUpperBound(){
+            return upperBound;
+        }
+
+        /**
+         * Reads values into an array.
+         *
+         * @param values The array to read into.
+         * @param offset The index in {@code values} to store the first value at.
+         * @param length The most values to read.
+         *
+         * @return The number of values read, or -1 if there are no more values.
+         *
+         * @throws IOException if the channel cannot be read or the file is not in this format.
+         * @throws IndexOutOfBoundsException if {@code offset} and {@code length} are outside {@code values}.
+         */
+        public int read(long[] values, int offset, int length) throws IOException{
+            Objects.checkFromIndexSize(offset, length, values.length);
+
+            if(blockRemaining == 0 && !startBlock()){
+                return -1;
+            }
+
+            final int count = Math.min(length, blockRemaining);
+
+            for(int i = offset; i < offset + count; i++){
+                values[i] = lowerBound + ((encoding == Encoding.DELTA) ? getDelta() : getBits());
+            }
+
+            blockRemaining -= count;
+
+            return count;
+        }
+
+        /**
+         * Closes the channel.
+         *
+         * @throws IOException if the channel cannot be closed.
+         */
+        @Override
+        public void close() throws IOException{
+            channel.close();
+        }
+
+        /**
+         * Reads the header of the next block, and makes sure the whole block is in the buffer.
+         *
+         * @return {@code false} if there are no more blocks.
+         */
+        private boolean startBlock() throws IOException{
+            if(finished){
+                return false;
+            }
+
+            fill(channel, buffer, 2 * VarInt.MAX_LONG_BYTES);
+
+            final long count;
+            final long length;
+
+            try{
+                count = VarInt.getUnsigned(buffer);
+
+                if(count == 0){
+                    finished = true;
+                    return false;
+                }
+
+                length = VarInt.getUnsigned(buffer);
+            }catch(BufferUnderflowException e){
+                throw new EOFException("The file ended unexpectedly.");
+            }
+
+            if(count > BLOCK_SIZE || length > MAX_BLOCK_BYTES){
+                throw new IOException("The file contains an invalid block.");
+            }
+
+            if(!fill(channel, buffer, (int) length)){
+                throw new EOFException("The file ended unexpectedly.");
+            }
+            blockRemaining = (int) count;
+            bits = 0;
+            bitCount = 0;
+
+            return true;
+        }
+
+        /**
+         * Reads the next delta encoded offset.
+         */
+        private long getDelta(){
+            previous = first ? VarInt.getUnsigned(buffer) : previous + VarInt.getUnsigned(buffer) + 1;
+            first = false;
+
+            return previous;
+        }
+
+        /**
+         * Reads the next bit-packed offset, least significant bit first.
+         */
+        private long getBits(){
+            while(bitCount < width && bitCount <= 56){
+                bits |= (buffer.get() & 0xFFL) << bitCount;
+                bitCount += 8;
+            }
+
+            if(bitCount >= width){
+                final long offset = (width == 64) ? bits : bits & ((1L << width) - 1);
+
+                bits = (width == 64) ? 0 : bits >>> width;
+                bitCount -= width;
+
+                return offset;
+            }
+
+            // Offsets wider than 56 bits may need part of one more byte.
+            final long next = buffer.get() & 0xFFL;
+            final int needed = width - bitCount;
+            final long offset = bits | (next & ((1L << needed) - 1)) << bitCount;
+
+            bits = next >>> needed;
+            bitCount = 8 - needed;
+
+            return offset;
+        }
+
+        /**
+         * Reads from a channel until a buffer holds at least a number of bytes, or the end of
+         * the channel is reached.
+         *
+         * @return {@code false} if the end of the channel was reached first.
+         */
+        private static boolean fill(ReadableByteChannel channel, ByteBuffer buffer, int length) throws IOException{
+            if(buffer.remaining() >= length){
+                return true;
+            }
+
+            buffer.compact();
+
+            try{
+                while(buffer.position() < length){
+                    if(channel.read(buffer) < 0){
+                        return false;
+                    }
+                }
+
+                return true;
+            }finally{
+                buffer.flip();
+            }
+        }
+    }
+}
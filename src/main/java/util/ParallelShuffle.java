@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.util.List;
+import java.util.ListIterator;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Provides static methods to shuffle very large lists on all cores, with a parallel bucket-scatter
+ * shuffle.
+ *
+ * <p>The positions of the list are split into {@code BLOCKS} contiguous blocks. Each block sends
+ * each of its positions to one of {@code BLOCKS} buckets, chosen uniformly at random. The
+ * positions are then scattered into their buckets, in block order, and each bucket is shuffled
+ * with the Fisher-Yates algorithm. Since every position picks its bucket independently, and
+ * every bucket is shuffled uniformly, the whole permutation is uniform.
+ *
+ * <p>Each block and each bucket has its own generator, seeded from the shuffle seed and its
+ * position, and the number of blocks does not depend on the number of cores. The result is
+ * therefore the same for a given seed however many threads take part.
+ */
+public class ParallelShuffle {
+    /**
+     * The number of blocks, and of buckets, that a shuffle is split into.
+     */
+    public static final int BLOCKS = 256;
+
+    /**
+     * The smallest list shuffled in parallel. Smaller lists are shuffled on the calling thread,
+     * where splitting them would cost more than it saves.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private ParallelShuffle(){}
+
+    /**
+     * Returns a random permutation of the positions of a list.
+     *
+     * @param size The number of positions.
+     * @param seed The seed to shuffle with.
+     *
+     * @return An array holding each number from {@code 0} to {@code size - 1} once, in random order.
+     *
+     * @throws IllegalArgumentException if {@code size} is negative.
+     */
+    public static int[] permutation(int size, long seed){
+        if(size < 0){
+            throw new IllegalArgumentException("size cannot be negative.");
+        }
+
+        final int[] indices = new int[size];
+
+        if(size < PARALLEL_THRESHOLD){
+            for(int i = 0; i < size; i++){
+                indices[i] = i;
+            }
+
+            shuffle(indices, 0, size, new SplittableRandom(seed));
+
+            return indices;
+        }
+
+        final byte[] buckets = new byte[size];
+        final int[][] counts = new int[BLOCKS][BLOCKS];
+
+        // Send each position to a random bucket, and count how many each block sends to each bucket.
+        IntStream.range(0, BLOCKS).parallel().forEach(block -> {
+            final SplittableRandom rng = new SplittableRandom(TicketBatch.chunkSeed(seed, block));
+            final int[] blockCounts = counts[block];
+
+            for(int i = blockStart(size, block), end = blockStart(size, block + 1); i < end; i++){
+                final int bucket = rng.nextInt(BLOCKS);
+
+                buckets[i] = (byte) bucket;
+                blockCounts[bucket]++;
+            }
+        });
+
+        // Lay out the buckets in order, and each block's share of a bucket in block order.
+        final int[] bucketStarts = new int[BLOCKS + 1];
+        int position = 0;
+
+        for(int bucket = 0; bucket < BLOCKS; bucket++){
+            bucketStarts[bucket] = position;
+
+            for(int block = 0; block < BLOCKS; block++){
+                final int count = counts[block][bucket];
+
+                counts[block][bucket] = position;
+                position += count;
+            }
+        }
+
+        bucketStarts[BLOCKS] = size;
+
+        IntStream.range(0, BLOCKS).parallel().forEach(block -> {
+            final int[] next = counts[block];
+
+            for(int i = blockStart(size, block), end = blockStart(size, block + 1); i < end; i++){
+                indices[next[buckets[i] & 0xFF]++] = i;
+            }
+        });
+
+        IntStream.range(0, BLOCKS).parallel().forEach(bucket -> shuffle(indices,
+                bucketStarts[bucket], bucketStarts[bucket + 1],
+                new SplittableRandom(TicketBatch.chunkSeed(seed, BLOCKS + bucket))));
+
+        return indices;
+    }
+
+    /**
+     * Shuffles a list in place.
+     *
+     * <p>The list is the same after shuffling for a given seed and size, however many threads
+     * take part.
+     *
+     * @param list The {@code List} to shuffle.
+     * @param seed The seed to shuffle with.
+     */
+    public static void shuffle(List<?> list, long seed){
+        final DrawEvent event = DrawEvent.start("parallelShuffle");
+
+        final int size = list.size();
+        final int[] indices = permutation(size, seed);
+        final Object[] items = list.toArray();
+        final Object[] shuffled = new Object[size];
+
+        IntStream.range(0, size).parallel().forEach(i -> shuffled[i] = items[indices[i]]);
+        setAll(list, shuffled);
+
+        event.finish(size, size, (size < PARALLEL_THRESHOLD) ? "Fisher-Yates" : "bucket scatter");
+    }
+
+    /**
+     * Replaces every item of a list, in order.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void setAll(List<T> list, Object[] items){
+        final ListIterator<T> it = list.listIterator();
+
+        for(Object item : items){
+            it.next();
+            it.set((T) item);
+        }
+    }
+
+    /**
+     * Returns the first position of a block.
+     */
+    private static int blockStart(int size, int block){
+        return (int) ((long) size * block / BLOCKS);
+    }
+
+    /**
+     * Shuffles part of an array with the Fisher-Yates algorithm.
+     */
+    private static void shuffle(int[] values, int from, int to, SplittableRandom rng){
+        for(int i = to - 1; i > from; i--){
+            final int r = from + rng.nextInt(i - from + 1);
+            final int t = values[r];
+
+            values[r] = values[i];
+            values[i] = t;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+/**
+ * Checks the allocation and timing of the hot paths in {@code Random} and {@code Format} against
+ * fixed budgets, so that a change which makes them allocate or slow down is caught before it ships.
+ *
+ * <p>Allocation is counted with the per-thread counter of the JVM's {@code ThreadMXBean}, after
+ * each operation has been warmed up so that it is measured once compiled. Rolling dice into a
+ * buffer must allocate nothing, and drawing or formatting {@code QUANTITY} results must allocate a
+ * bounded number of bytes for each result, whatever the size of the range.
+ *
+ * <p>Times vary too much between computers to be checked against fixed limits. Instead, the
+ * median time to draw {@code QUANTITY} unique numbers is measured over a matrix of range sizes,
+ * from a few thousand values up to 2^62, and the slowest must be within {@code MAX_TIME_RATIO}
+ * times the fastest. A draw that builds the whole range, or anything else that scales with it,
+ * fails this by several orders of magnitude.
+ */
+public class PerformanceCheck {
+    /**
+     * The sizes of the ranges unique numbers are drawn from.
+     */
+    private static final long[] RANGE_SIZES = {1L << 11, 10_000, 1_000_000, 1L << 30, 1L << 40, 1L << 62};
+
+    /**
+     * The number of results drawn or formatted by each run.
+     */
+    public static final int QUANTITY = 1000;
+
+    /**
+     * The number of dice rolled into the buffer by each run.
+     */
+    private static final int DICE = 100;
+
+    /**
+     * The number of runs of each operation before it is measured, and while it is measured.
+     */
+    private static final int WARMUP_RUNS = 500;
+    private static final int MEASURED_RUNS = 25;
+
+    /**
+     * The most bytes that drawing each unique number may allocate, including its {@code Long}
+     * and its share of the list and of any hash table used to reject duplicates.
+     */
+    public static final int MAX_BYTES_PER_SAMPLE = 128;
+
+    /**
+     * The most bytes that formatting each number may allocate, including its formatted
+     * {@code String} and the working of {@code NumberFormat}.
+     */
+    public static final int MAX_BYTES_PER_FORMATTED_NUMBER = 512;
+
+    /**
+     * The most times slower that drawing from the slowest range may be than from the fastest.
+     */
+    public static final double MAX_TIME_RATIO = 20;
+
+    private PerformanceCheck(){}
+
+    /**
+     * Represents the outcome of one check.
+     */
+    public static class Check{
+        private final String name;
+        private final String measured;
+        private final String budget;
+        private final boolean passed;
+
+        private Check(String name, String measured, String budget, boolean passed){
+            this.name = name;
+            this.measured = measured;
+            this.budget = budget;
+            this.passed = passed;
+        }
+
+        /**
+         * Returns what was checked.
+         *
+         * @return The name of the check.
+         */
+        public String getName(){
+            return name;
+        }
+
+        /**
+         * Returns what was measured, with its unit.
+         *
+         * @return The measurement.
+         */
+        public String getMeasured(){
+            return measured;
+        }
+
+        /**
+         * Returns the most that may be measured for the check to pass, with its unit.
+         *
+         * @return The budget.
+         */
+        public String getBudget(){
+            return budget;
+        }
+
+        /**
+         * Returns whether the measurement was within its budget.
+         *
+         * @return Whether the check passed.
+         */
+        public boolean isPassed(){
+            return passed;
+        }
+    }
+
+    /**
+     * Runs every check on the current thread.
+     *
+     * <p>This takes a few seconds, most of which is spent warming up each operation.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A {@code List} of the outcome of each check.
+     */
+    public static List<Check> run(RandomGenerator rng){
+        final List<Check> checks = new ArrayList<>();
+
+        if(!DrawEvent.isAllocationMeasured()){
+            checks.add(new Check("Per-thread allocation counter", "unsupported", "supported", false));
+        }else{
+            checkRollDice(checks, rng);
+            checkUniqueAllocation(checks, false, rng);
+            checkUniqueAllocation(checks, true, rng);
+            checkFormatAllocation(checks, rng);
+        }
+
+        checkUniqueTiming(checks, false, rng);
+        checkUniqueTiming(checks, true, rng);
+
+        return checks;
+    }
+
+    /**
+     * Describes the outcome of the checks as a table, with a line for each check, followed by
+     * the number that failed.
+     *
+     * @param checks The outcome of each check.
+     *
+     * @return The summary, ending with a line feed.
+     */
+    public static String summarise(List<Check> checks){
+        final StringBuilder summary = new StringBuilder();
+        int nameWidth = 5;
+        int failed = 0;
+
+        for(Check check : checks){
+            nameWidth = Math.max(nameWidth, check.getName().length());
+        }
+
+        final String row = "%-" + nameWidth + "s  %22s  %22s  %s%n";
+        summary.append(String.format(Locale.ROOT, row, "Check", "Measured", "Budget", "Result"));
+
+        for(Check check : checks){
+            summary.append(String.format(Locale.ROOT, row, check.getName(), check.getMeasured(),
+                    check.getBudget(), check.isPassed() ? "pass" : "FAIL"));
+
+            if(!check.isPassed()){
+                failed++;
+            }
+        }
+
+        summary.append(String.format(Locale.ROOT, "%n%d checks, %d failed.%n", checks.size(), failed));
+
+        return summary.toString();
+    }
+
+    private static void checkRollDice(List<Check> checks, RandomGenerator rng){
+        final int[] results = new int[DICE];
+        final long bytes = measureAllocation(() -> Random.rollDice(6, results, 0, DICE, rng));
+
+        checks.add(new Check("Random.rollDice, " + DICE + " dice into a buffer",
+                bytes + " bytes", "0 bytes", bytes == 0));
+    }
+
+    private static void checkUniqueAllocation(List<Check> checks, boolean sorted, RandomGenerator rng){
+        for(long size : RANGE_SIZES){
+            final long bytes = measureAllocation(() -> drawUnique(size, sorted, rng));
+            final double bytesPerSample = (double) bytes / MEASURED_RUNS / QUANTITY;
+
+            checks.add(new Check(describeDraw(sorted) + ", range " + describeSize(size),
+                    String.format(Locale.ROOT, "%.1f bytes/result", bytesPerSample),
+                    MAX_BYTES_PER_SAMPLE + " bytes/result", bytesPerSample <= MAX_BYTES_PER_SAMPLE));
+        }
+    }
+
+    private static void checkFormatAllocation(List<Check> checks, RandomGenerator rng){
+        final List<Long> numbers = Random.getRandomLongList(Long.MIN_VALUE, Long.MAX_VALUE, QUANTITY, rng);
+        final long bytes = measureAllocation(() -> Format.integerListAsString(numbers, "\n"));
+        final double bytesPerNumber = (double) bytes / MEASURED_RUNS / QUANTITY;
+
+        checks.add(new Check("Format.integerListAsString",
+                String.format(Locale.ROOT, "%.1f bytes/number", bytesPerNumber),
+                MAX_BYTES_PER_FORMATTED_NUMBER + " bytes/number", bytesPerNumber <= MAX_BYTES_PER_FORMATTED_NUMBER));
+    }
+
+    private static void checkUniqueTiming(List<Check> checks, boolean sorted, RandomGenerator rng){
+        long fastest = Long.MAX_VALUE;
+        long slowest = 0;
+        long slowestSize = 0;
+
+        for(long size : RANGE_SIZES){
+            final long nanos = measureMedianNanos(() -> drawUnique(size, sorted, rng));
+
+            fastest = Math.min(fastest, nanos);
+
+            if(nanos > slowest){
+                slowest = nanos;
+                slowestSize = size;
+            }
+        }
+
+        final double ratio = (double) slowest / Math.max(fastest, 1);
+
+        checks.add(new Check(describeDraw(sorted) + ", time across ranges",
+                String.format(Locale.ROOT, "%.1fx (slowest %s)", ratio, describeSize(slowestSize)),
+                String.format(Locale.ROOT, "%.0fx", MAX_TIME_RATIO), ratio <= MAX_TIME_RATIO));
+    }
+
+    private static void drawUnique(long size, boolean sorted, RandomGenerator rng){
+        if(sorted){
+            Random.getSortedUniqueRandomLongList(1, size, QUANTITY, rng);
+        }else{
+            Random.getUniqueRandomLongList(1, size, QUANTITY, rng);
+        }
+    }
+
+    private static String describeDraw(boolean sorted){
+        return sorted ? "Random.getSortedUniqueRandomLongList" : "Random.getUniqueRandomLongList";
+    }
+
+    private static String describeSize(long size){
+        return Long.bitCount(size) == 1 ? "2^" + Long.numberOfTrailingZeros(size) : String.valueOf(size);
+    }
+
+    /**
+     * Warms up an operation, then returns the number of bytes allocated by {@code MEASURED_RUNS}
+     * runs of it.
+     */
+    private static long measureAllocation(Runnable operation){
+        for(int i = 0; i < WARMUP_RUNS; i++){
+            operation.run();
+        }
+
+        final long start = DrawEvent.getAllocatedBytes();
+
+        for(int i = 0; i < MEASURED_RUNS; i++){
+            operation.run();
+        }
+
+        return DrawEvent.getAllocatedBytes() - start;
+    }
+
+    /**
+     * Warms up an operation, then returns the median time taken by {@code MEASURED_RUNS} runs of it.
+     */
+    private static long measureMedianNanos(Runnable operation){
+        for(int i = 0; i < WARMUP_RUNS; i++){
+            operation.run();
+        }
+
+        final long[] nanos = new long[MEASURED_RUNS];
+
+        for(int i = 0; i < MEASURED_RUNS; i++){
+            final long start = System.nanoTime();
+            operation.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(nanos);
+
+        return nanos[MEASURED_RUNS / 2];
+    }
+}
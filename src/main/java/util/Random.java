@@ -30,16 +30,26 @@
 
 package main.java.util;
 
+import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.random.RandomGenerator;
 
 /**
  * Provides static methods for generating lists of pseudorandom integers,
  * and selecting random items from a list.
  */
 public class Random {
+    /**
+     * Provides a shared source of randomness for methods that are not given a generator.
+     */
+    static final SecureRandom RANDOM = new SecureRandom();
+
     /**
      * Generates a list of non-unique, pseudorandom integers within a given range.
      *
@@ -52,17 +62,132 @@ public class Random {
      * @return An {@code Integer} {@code List} of non-unique pseudorandom numbers within the given range.
      */
     public static List<Integer> getRandomIntegerList(int lowerBound, int upperBound, int quantity){
-        final List<Integer> randNums = new ArrayList<>();
+        return getRandomIntegerList(lowerBound, upperBound, quantity, RANDOM);
+    }
+
+    /**
+     * Generates a list of non-unique, pseudorandom integers within a given range, using the given generator.
+     *
+     * <p>This method may return duplicate numbers.
+     *
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive).
+     * @param quantity The quantity of integers to generate.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return An {@code Integer} {@code List} of non-unique pseudorandom numbers within the given range.
+     */
+    public static List<Integer> getRandomIntegerList(int lowerBound, int upperBound, int quantity, RandomGenerator rng){
+        final DrawEvent event = DrawEvent.start("getRandomIntegerList");
+
+        final List<Integer> randNums = new ArrayList<>(quantity);
 
         for(int i = 0; i < quantity; i++){
-            SecureRandom rand = new SecureRandom();
-            int num = rand.nextInt(upperBound - lowerBound + 1) + lowerBound;
+            int num = (int) nextLong(rng, lowerBound, upperBound);
             randNums.add(num);
         }
 
+        event.finish(quantity, (long) upperBound - lowerBound + 1, "bounded multiply", rng);
+
         return randNums;
     }
 
+    /**
+     * Rolls a number of dice, and counts how many times each face came up.
+     *
+     * <p>The counts are drawn directly from the multinomial distribution, rather than by rolling
+     * each die, so the time taken depends only on the number of sides.
+     *
+     * @param sides The number of sides on each die.
+     * @param quantity The number of dice to roll.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return The number of times each face came up, where element {@code i} is the count of
+     *         face {@code i + 1}.
+     *
+     * @throws IllegalArgumentException if {@code sides} is less than 1, {@code quantity} is
+     *                                  negative, or the total of the dice could overflow a long.
+     */
+    public static long[] getDiceCounts(int sides, long quantity, RandomGenerator rng){
+        if(sides < 1){
+            throw new IllegalArgumentException("sides must be at least 1.");
+        }else if(quantity < 0 || quantity > Long.MAX_VALUE / sides){
+            throw new IllegalArgumentException("quantity must be between 0 and Long.MAX_VALUE / sides.");
+        }
+
+        final DrawEvent event = DrawEvent.start("getDiceCounts");
+
+        final long[] counts = Distributions.nextMultinomial(rng, quantity, sides);
+
+        event.finish(quantity, sides, "binomial chain", rng);
+
+        return counts;
+    }
+
+    /**
+     * Rolls a number of dice, and returns their total.
+     *
+     * <p>The total is exact: it is found from the count of each face, drawn by
+     * {@code getDiceCounts}, so no approximation is needed to roll billions of dice.
+     *
+     * @param sides The number of sides on each die.
+     * @param quantity The number of dice to roll.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return The total of the dice.
+     *
+     * @throws IllegalArgumentException if {@code sides} is less than 1, {@code quantity} is
+     *                                  negative, or the total of the dice could overflow a long.
+     */
+    public static long getDiceTotal(int sides, long quantity, RandomGenerator rng){
+        return getDiceTotal(getDiceCounts(sides, quantity, rng));
+    }
+
+    /**
+     * Returns the total of a number of dice, from the number of times each face came up.
+     *
+     * @param counts The number of times each face came up, as returned by {@code getDiceCounts},
+     *               where element {@code i} is the count of face {@code i + 1}.
+     *
+     * @return The total of the dice.
+     */
+    public static long getDiceTotal(long[] counts){
+        long total = 0;
+
+        for(int face = 1; face <= counts.length; face++){
+            total += face * counts[face - 1];
+        }
+
+        return total;
+    }
+
+    /**
+     * Rolls a number of dice into an array supplied by the caller.
+     *
+     * <p>Nothing is allocated, so this suits rolling many small batches of dice, such as in a
+     * simulation. For the same reason, no {@code DrawEvent} is recorded.
+     *
+     * @param sides The number of sides on each die.
+     * @param results The array to write the result of each die to, from 1 to {@code sides}.
+     * @param offset The position in {@code results} of the first die.
+     * @param length The number of dice to roll.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @throws IllegalArgumentException if {@code sides} is less than 1.
+     * @throws IndexOutOfBoundsException if {@code offset} and {@code length} do not fit in {@code results}.
+     */
+    public static void rollDice(int sides, int[] results, int offset, int length, RandomGenerator rng){
+        if(sides < 1){
+            throw new IllegalArgumentException("sides must be at least 1.");
+        }
+
+        Objects.checkFromIndexSize(offset, length, results.length);
+
+        for(int i = offset; i < offset + length; i++){
+            results[i] = (int) nextLong(rng, 1, sides);
+        }
+    }
+
     /**
      * Generates a list of unique, pseudorandom integers within a given range.
      *
@@ -75,34 +200,70 @@ public class Random {
      * @return An {@code Integer} {@code List} of unique pseudorandom numbers within the given range.
      */
     public static List<Integer> getUniqueRandomIntegerList(int lowerBound, int upperBound, int quantity){
-        final List<Integer> possibleNums = getAllIntegersInRange(lowerBound, upperBound);
-        Collections.shuffle(possibleNums);
+        return getUniqueRandomIntegerList(lowerBound, upperBound, quantity, RANDOM);
+    }
 
-        final List<Integer> randNums = new ArrayList<>();
+    /**
+     * Generates a list of unique, pseudorandom integers within a given range, using the given generator.
+     *
+     * <p>This method will not return duplicate numbers.
+     *
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive).
+     * @param quantity The quantity of integers to generate.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return An {@code Integer} {@code List} of unique pseudorandom numbers within the given range.
+     *
+     * @throws IllegalArgumentException if {@code quantity} is greater than the number of values in the range.
+     */
+    public static List<Integer> getUniqueRandomIntegerList(int lowerBound, int upperBound, int quantity, RandomGenerator rng){
+        final DrawEvent event = DrawEvent.start("getUniqueRandomIntegerList");
 
-        for(int i = 0; i < quantity; i++){
-            randNums.add(possibleNums.get(i));
+        final long range = (long) upperBound - lowerBound + 1;
+        final SamplingPlanner.Plan plan = SamplingPlanner.plan(range, quantity, false);
+        final long[] values = SamplingPlanner.execute(plan, lowerBound, upperBound, quantity, false, rng);
+
+        final List<Integer> randNums = new ArrayList<>(quantity);
+
+        for(long value : values){
+            randNums.add((int) value);
         }
 
+        event.finish(quantity, range, plan, rng);
+
         return randNums;
     }
 
     /**
-     * Builds a list of all integers between (and including) two numbers.
+     * Generates a list of unique, pseudorandom integers within a given range, in ascending order.
      *
      * @param lowerBound The lower-bound number of the range (inclusive).
      * @param upperBound The upper-bound number of the range (inclusive).
+     * @param quantity The quantity of integers to generate.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return An {@code Integer} {@code List} of unique pseudorandom numbers within the given range, sorted
+     *         in ascending order.
      *
-     * @return An {@code Integer} {@code List} containing all numbers in the range.
+     * @throws IllegalArgumentException if {@code quantity} is greater than the number of values in the range.
      */
-    private static List<Integer> getAllIntegersInRange(int lowerBound, int upperBound){
-        List<Integer> nums = new ArrayList<>();
+    public static List<Integer> getSortedUniqueRandomIntegerList(int lowerBound, int upperBound, int quantity, RandomGenerator rng){
+        final DrawEvent event = DrawEvent.start("getSortedUniqueRandomIntegerList");
 
-        for(int i = lowerBound; i <= upperBound; i++){
-            nums.add(i);
+        final long range = (long) upperBound - lowerBound + 1;
+        final SamplingPlanner.Plan plan = SamplingPlanner.plan(range, quantity, true);
+        final long[] values = SamplingPlanner.execute(plan, lowerBound, upperBound, quantity, true, rng);
+
+        final List<Integer> randNums = new ArrayList<>(quantity);
+
+        for(long value : values){
+            randNums.add((int) value);
         }
 
-        return nums;
+        event.finish(quantity, range, plan, rng);
+
+        return randNums;
     }
 
     /**
@@ -116,18 +277,61 @@ public class Random {
      * @return A {@code List} containing randomly selected, non-unique items from {@code list}.
      */
     public static List<String> getRandItemsFromList(List<String> list, int quantity){
-        final List<String> selectedItems = new ArrayList<>();
+        return getRandItemsFromList(list, quantity, RANDOM);
+    }
 
-        for(int i = 0; i < quantity; i++){
-            Collections.shuffle(list);
+    /**
+     * Selects a number of non-unique, random items from a given list, using the given generator.
+     *
+     * <p>This method may return duplicate items.
+     *
+     * @param list The {@code List} to select items from.
+     * @param quantity The number of items to select.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A {@code List} containing randomly selected, non-unique items from {@code list}.
+     */
+    public static List<String> getRandItemsFromList(List<String> list, int quantity, RandomGenerator rng){
+        final DrawEvent event = DrawEvent.start("getRandItemsFromList");
 
-            String item = list.get(0);
+        final List<String> selectedItems = new ArrayList<>(quantity);
+
+        if(list.isEmpty()){
+            return selectedItems;
+        }
+
+        for(int i = 0; i < quantity; i++){
+            String item = list.get(rng.nextInt(list.size()));
             selectedItems.add(item);
         }
 
+        event.finish(quantity, list.size(), "bounded index", rng);
+
         return selectedItems;
     }
 
+    /**
+     * Selects a number of non-unique, random items from a given list, with each item weighted.
+     *
+     * <p>The chance of each item being selected is proportional to its weight, every time.
+     * Items are selected by a {@code WeightedSampler}.
+     *
+     * @param list The {@code List} to select items from.
+     * @param weights The weight of each item in {@code list}.
+     * @param quantity The number of items to select.
+     * @param seed The seed to select items with.
+     *
+     * @return A {@code List} containing randomly selected, non-unique items from {@code list}, in
+     *         the order they were selected.
+     *
+     * @throws IllegalArgumentException if {@code weights} is not the same length as {@code list},
+     *                                  any weight is not a positive, finite number, or
+     *                                  {@code quantity} is negative.
+     */
+    public static List<String> getRandItemsFromList(List<String> list, double[] weights, int quantity, long seed){
+        return WeightedSampler.sample(list, weights, quantity, seed);
+    }
+
     /**
      * Selects a number of unique, random items from a given list.
      *
@@ -139,7 +343,24 @@ public class Random {
      * @return A {@code List} containing randomly selected, unique items from {@code list}.
      */
     public static List<String> getUniqueRandItemsFromList(List<String> list, int quantity){
-        Collections.shuffle(list);
+        return getUniqueRandItemsFromList(list, quantity, RANDOM);
+    }
+
+    /**
+     * Selects a number of unique, random items from a given list, using the given generator.
+     *
+     * <p>This method will not return duplicate items.
+     *
+     * @param list The {@code List} to select items from.
+     * @param quantity The number of items to select.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A {@code List} containing randomly selected, unique items from {@code list}.
+     */
+    public static List<String> getUniqueRandItemsFromList(List<String> list, int quantity, RandomGenerator rng){
+        final DrawEvent event = DrawEvent.start("getUniqueRandItemsFromList");
+
+        Collections.shuffle(list, asJavaRandom(rng));
 
         final List<String> selectedItems = new ArrayList<>();
 
@@ -148,6 +369,457 @@ public class Random {
             selectedItems.add(item);
         }
 
+        event.finish(quantity, list.size(), "full shuffle", rng);
+
         return selectedItems;
     }
+
+    /**
+     * Selects a number of unique, random items from a given list, with each item weighted.
+     *
+     * <p>The chance of each item being selected next is proportional to its weight, among the
+     * items not yet selected. Items are selected by a {@code WeightedSampler}.
+     *
+     * @param list The {@code List} to select items from.
+     * @param weights The weight of each item in {@code list}.
+     * @param quantity The number of items to select.
+     * @param seed The seed to select items with.
+     *
+     * @return A {@code List} containing randomly selected, unique items from {@code list}, in
+     *         the order they were selected.
+     *
+     * @throws IllegalArgumentException if {@code weights} is not the same length as {@code list},
+     *                                  any weight is not a positive, finite number, or
+     *                                  {@code quantity} is greater than the size of {@code list}.
+     */
+    public static List<String> getUniqueRandItemsFromList(List<String> list, double[] weights, int quantity, long seed){
+        return WeightedSampler.select(list, weights, quantity, seed);
+    }
+
+    /**
+     * Generates a random string of characters from an alphabet, using a cryptographically secure
+     * generator.
+     *
+     * @param alphabet The characters to choose from, each of which is equally likely.
+     * @param length The number of characters in the string.
+     *
+     * @return A random {@code String} of the given length.
+     *
+     * @throws IllegalArgumentException if the alphabet or length is not valid for a {@code TokenGenerator}.
+     */
+    public static String getRandomString(String alphabet, int length){
+        return getRandomString(alphabet, length, RANDOM);
+    }
+
+    /**
+     * Generates a random string of characters from an alphabet, using the given generator.
+     *
+     * @param alphabet The characters to choose from, each of which is equally likely.
+     * @param length The number of characters in the string.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A random {@code String} of the given length.
+     *
+     * @throws IllegalArgumentException if the alphabet or length is not valid for a {@code TokenGenerator}.
+     */
+    public static String getRandomString(String alphabet, int length, RandomGenerator rng){
+        return new TokenGenerator(alphabet, length).next(rng);
+    }
+
+    /**
+     * Generates a list of random strings of characters from an alphabet, using the given generator.
+     *
+     * <p>This method may return duplicate strings.
+     *
+     * @param alphabet The characters to choose from, each of which is equally likely.
+     * @param length The number of characters in each string.
+     * @param quantity The quantity of strings to generate.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A {@code String} {@code List} of random strings of the given length.
+     *
+     * @throws IllegalArgumentException if the alphabet or length is not valid for a {@code TokenGenerator},
+     *                                  or {@code quantity} is negative.
+     */
+    public static List<String> getRandomStringList(String alphabet, int length, int quantity, RandomGenerator rng){
+        final DrawEvent event = DrawEvent.start("getRandomStringList");
+        final List<String> strings = new TokenGenerator(alphabet, length).next(rng, quantity);
+
+        event.finish(quantity, alphabet.length(), "tokens of " + length, rng);
+
+        return strings;
+    }
+
+    /**
+     * Generates a list of non-unique, pseudorandom longs within a given range.
+     *
+     * <p>This method may return duplicate numbers.
+     *
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive).
+     * @param quantity The quantity of numbers to generate.
+     *
+     * @return A {@code Long} {@code List} of non-unique pseudorandom numbers within the given range.
+     */
+    public static List<Long> getRandomLongList(long lowerBound, long upperBound, int quantity){
+        return getRandomLongList(lowerBound, upperBound, quantity, RANDOM);
+    }
+
+    /**
+     * Generates a list of non-unique, pseudorandom longs within a given range, using the given generator.
+     *
+     * <p>This method may return duplicate numbers.
+     *
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive).
+     * @param quantity The quantity of numbers to generate.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A {@code Long} {@code List} of non-unique pseudorandom numbers within the given range.
+     */
+    public static List<Long> getRandomLongList(long lowerBound, long upperBound, int quantity, RandomGenerator rng){
+        final DrawEvent event = DrawEvent.start("getRandomLongList");
+
+        final List<Long> randNums = new ArrayList<>(quantity);
+
+        for(int i = 0; i < quantity; i++){
+            randNums.add(nextLong(rng, lowerBound, upperBound));
+        }
+
+        event.finish(quantity, upperBound - lowerBound + 1, "bounded multiply", rng);
+
+        return randNums;
+    }
+
+    /**
+     * Generates a list of unique, pseudorandom longs within a given range.
+     *
+     * <p>This method will not return duplicate numbers. Memory use is proportional to
+     * {@code quantity}, not to the size of the range.
+     *
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive).
+     * @param quantity The quantity of numbers to generate.
+     *
+     * @return A {@code Long} {@code List} of unique pseudorandom numbers within the given range.
+     */
+    public static List<Long> getUniqueRandomLongList(long lowerBound, long upperBound, int quantity){
+        return getUniqueRandomLongList(lowerBound, upperBound, quantity, RANDOM);
+    }
+
+    /**
+     * Generates a list of unique, pseudorandom longs within a given range, using the given generator.
+     *
+     * <p>The algorithm is chosen by {@code SamplingPlanner}, from the size of the range and the
+     * quantity drawn. The result is always in random order.
+     *
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive).
+     * @param quantity The quantity of numbers to generate.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A {@code Long} {@code List} of unique pseudorandom numbers within the given range.
+     *
+     * @throws IllegalArgumentException if {@code quantity} is greater than the number of values in the range.
+     */
+    public static List<Long> getUniqueRandomLongList(long lowerBound, long upperBound, int quantity, RandomGenerator rng){
+        final DrawEvent event = DrawEvent.start("getUniqueRandomLongList");
+
+        // The size of the range as an unsigned number, where 0 represents all 2^64 values.
+        final long range = upperBound - lowerBound + 1;
+
+        if(range != 0 && Long.compareUnsigned(quantity, range) > 0){
+            throw new IllegalArgumentException("quantity cannot exceed the size of the range.");
+        }
+
+        final SamplingPlanner.Plan plan = SamplingPlanner.plan(range, quantity, false);
+        final long[] values = SamplingPlanner.execute(plan, lowerBound, upperBound, quantity, false, rng);
+
+        final List<Long> randNums = new ArrayList<>(quantity);
+
+        for(long value : values){
+            randNums.add(value);
+        }
+
+        event.finish(quantity, range, plan, rng);
+
+        return randNums;
+    }
+
+    /**
+     * Generates a list of unique, pseudorandom longs within a given range, in ascending order.
+     *
+     * <p>Numbers are chosen in order by a {@code SortedSampler}, so no sort is needed.
+     *
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive).
+     * @param quantity The quantity of numbers to generate.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A {@code Long} {@code List} of unique pseudorandom numbers within the given range, sorted
+     *         in ascending order.
+     *
+     * @throws IllegalArgumentException if {@code quantity} is greater than the number of values in the range.
+     */
+    public static List<Long> getSortedUniqueRandomLongList(long lowerBound, long upperBound, int quantity, RandomGenerator rng){
+        final DrawEvent event = DrawEvent.start("getSortedUniqueRandomLongList");
+
+        final long range = upperBound - lowerBound + 1;
+        final SamplingPlanner.Plan plan = SamplingPlanner.plan(range, quantity, true);
+        final long[] values = SamplingPlanner.execute(plan, lowerBound, upperBound, quantity, true, rng);
+
+        final List<Long> randNums = new ArrayList<>(quantity);
+
+        for(long value : values){
+            randNums.add(value);
+        }
+
+        event.finish(quantity, range, plan, rng);
+
+        return randNums;
+    }
+
+    /**
+     * Generates a list of non-unique, pseudorandom {@code BigInteger}s within a given range.
+     *
+     * <p>This method may return duplicate numbers.
+     *
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive).
+     * @param quantity The quantity of numbers to generate.
+     *
+     * @return A {@code BigInteger} {@code List} of non-unique pseudorandom numbers within the given range.
+     *
+     * @throws NullPointerException if {@code lowerBound} or {@code upperBound} is null.
+     */
+    public static List<BigInteger> getRandomBigIntegerList(BigInteger lowerBound, BigInteger upperBound, int quantity){
+        final DrawEvent event = DrawEvent.start("getRandomBigIntegerList");
+
+        final BigInteger range = getBigIntegerRange(lowerBound, upperBound);
+        final byte[] buffer = new byte[getByteLength(range)];
+        final List<BigInteger> randNums = new ArrayList<>(quantity);
+
+        for(int i = 0; i < quantity; i++){
+            randNums.add(lowerBound.add(nextBigInteger(RANDOM, range, buffer)));
+        }
+
+        event.finish(quantity, saturatedLong(range), "byte-block rejection", RANDOM);
+
+        return randNums;
+    }
+
+    /**
+     * Generates a list of unique, pseudorandom {@code BigInteger}s within a given range.
+     *
+     * <p>This method will not return duplicate numbers. Memory use is proportional to
+     * {@code quantity}, not to the size of the range.
+     *
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive).
+     * @param quantity The quantity of numbers to generate.
+     *
+     * @return A {@code BigInteger} {@code List} of unique pseudorandom numbers within the given range.
+     *
+     * @throws NullPointerException if {@code lowerBound} or {@code upperBound} is null.
+     * @throws IllegalArgumentException if {@code quantity} is greater than the number of values in the range.
+     */
+    public static List<BigInteger> getUniqueRandomBigIntegerList(BigInteger lowerBound, BigInteger upperBound, int quantity){
+        final DrawEvent event = DrawEvent.start("getUniqueRandomBigIntegerList");
+
+        final BigInteger range = getBigIntegerRange(lowerBound, upperBound);
+
+        if(range.compareTo(BigInteger.valueOf(quantity)) < 0){
+            throw new IllegalArgumentException("quantity cannot exceed the size of the range.");
+        }
+
+        final byte[] buffer = new byte[getByteLength(range)];
+        final Set<BigInteger> chosen = new HashSet<>(Math.max(16, quantity * 2));
+        final List<BigInteger> randNums = new ArrayList<>(quantity);
+
+        BigInteger j = range.subtract(BigInteger.valueOf(quantity));
+
+        for(int i = 0; i < quantity; i++){
+            BigInteger offset = nextBigInteger(RANDOM, j.add(BigInteger.ONE), buffer);
+
+            if(!chosen.add(offset)){
+                offset = j;
+                chosen.add(offset);
+            }
+
+            randNums.add(lowerBound.add(offset));
+            j = j.add(BigInteger.ONE);
+        }
+
+        Collections.shuffle(randNums, RANDOM);
+
+        event.finish(quantity, saturatedLong(range), "Floyd", RANDOM);
+
+        return randNums;
+    }
+
+    /**
+     * Returns a uniformly distributed long between two numbers (inclusive).
+     *
+     * <p>This uses Lemire's multiply-and-shift method: a random 64-bit value is multiplied
+     * by the size of the range, and the high 64 bits of the 128-bit product are the result.
+     * The rare products that would introduce bias are rejected, so the result is unbiased,
+     * and no division is needed in the common case.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive). This must not be less than {@code lowerBound}.
+     *
+     * @return A random long within the range.
+     */
+    public static long nextLong(RandomGenerator rng, long lowerBound, long upperBound){
+        // The size of the range as an unsigned number, where 0 represents all 2^64 values.
+        final long range = upperBound - lowerBound + 1;
+
+        if(range == 0){
+            return rng.nextLong();
+        }
+
+        long x = rng.nextLong();
+        long low = x * range;
+
+        if(Long.compareUnsigned(low, range) < 0){
+            final long threshold = Long.remainderUnsigned(-range, range);
+
+            while(Long.compareUnsigned(low, threshold) < 0){
+                x = rng.nextLong();
+                low = x * range;
+            }
+        }
+
+        return lowerBound + unsignedMultiplyHigh(x, range);
+    }
+
+    /**
+     * Returns the high 64 bits of the unsigned 128-bit product of two longs.
+     *
+     * @param a The first factor, treated as unsigned.
+     * @param b The second factor, treated as unsigned.
+     *
+     * @return The high 64 bits of {@code a * b}.
+     */
+    private static long unsignedMultiplyHigh(long a, long b){
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+
+    /**
+     * Returns a uniformly distributed {@code BigInteger} in {@code [0, range)}.
+     *
+     * <p>Random bytes are drawn into {@code buffer}, the surplus high bits are masked off, and
+     * values outside the range are rejected. As the mask is as tight as possible, fewer than
+     * two attempts are needed on average.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param range The number of possible values. This must be positive.
+     * @param buffer A scratch buffer of at least {@code getByteLength(range)} bytes.
+     *
+     * @return A random {@code BigInteger} in {@code [0, range)}.
+     */
+    private static BigInteger nextBigInteger(RandomGenerator rng, BigInteger range, byte[] buffer){
+        final int bits = range.subtract(BigInteger.ONE).bitLength();
+        final int bytes = (bits + 7) / 8;
+        final int mask = 0xFF >>> (bytes * 8 - bits);
+
+        if(bits == 0){
+            return BigInteger.ZERO;
+        }
+
+        final byte[] block = (buffer.length == bytes) ? buffer : new byte[bytes];
+
+        BigInteger value;
+        do{
+            rng.nextBytes(block);
+            block[0] &= (byte) mask;
+            value = new BigInteger(1, block);
+        }while(value.compareTo(range) >= 0);
+
+        return value;
+    }
+
+    /**
+     * Returns the number of values between two {@code BigInteger}s (inclusive).
+     *
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive).
+     *
+     * @return The size of the range.
+     *
+     * @throws IllegalArgumentException if {@code upperBound} is less than {@code lowerBound}.
+     */
+    private static BigInteger getBigIntegerRange(BigInteger lowerBound, BigInteger upperBound){
+        Objects.requireNonNull(lowerBound, "lowerBound cannot be null.");
+        Objects.requireNonNull(upperBound, "upperBound cannot be null.");
+
+        if(upperBound.compareTo(lowerBound) < 0){
+            throw new IllegalArgumentException("upperBound cannot be less than lowerBound.");
+        }
+
+        return upperBound.subtract(lowerBound).add(BigInteger.ONE);
+    }
+
+    /**
+     * Converts a {@code BigInteger} to a long, clamping it to the range of a long.
+     *
+     * @param value The value to convert.
+     *
+     * @return {@code value}, or the nearest long to it.
+     */
+    private static long saturatedLong(BigInteger value){
+        return (value.bitLength() < Long.SIZE) ? value.longValue()
+                : (value.signum() > 0) ? Long.MAX_VALUE : Long.MIN_VALUE;
+    }
+
+    /**
+     * Returns the number of bytes needed to hold any value in {@code [0, range)}.
+     *
+     * @param range The number of possible values.
+     *
+     * @return The number of bytes needed.
+     */
+    private static int getByteLength(BigInteger range){
+        return (range.subtract(BigInteger.ONE).bitLength() + 7) / 8;
+    }
+
+    /**
+     * Shuffles a list into a random order, using the given generator.
+     *
+     * @param list The {@code List} to shuffle.
+     * @param rng The {@code RandomGenerator} to draw from.
+     */
+    public static void shuffle(List<?> list, RandomGenerator rng){
+        final DrawEvent event = DrawEvent.start("shuffle");
+
+        Collections.shuffle(list, asJavaRandom(rng));
+
+        event.finish(list.size(), list.size(), "Fisher-Yates", rng);
+    }
+
+    /**
+     * Adapts a {@code RandomGenerator} for use with APIs that require a {@code java.util.Random}.
+     *
+     * @param rng The {@code RandomGenerator} to adapt.
+     *
+     * @return {@code rng} itself if it is already a {@code java.util.Random}, otherwise a wrapper.
+     */
+    static java.util.Random asJavaRandom(RandomGenerator rng){
+        if(rng instanceof java.util.Random r){
+            return r;
+        }
+
+        return new java.util.Random(){
+            @Override
+            protected int next(int bits){
+                return rng.nextInt() >>> (32 - bits);
+            }
+
+            @Override
+            public long nextLong(){
+                return rng.nextLong();
+            }
+        };
+    }
 }
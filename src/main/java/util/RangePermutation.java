@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.RandomAccess;
+import java.util.random.RandomGenerator;
+
+/**
+ * Represents a random shuffle of every number in a range, without storing it.
+ *
+ * <p>The shuffle is a keyed Feistel network over the smallest even number of bits that can hold
+ * every offset in the range. Offsets outside the range are sent through the network again until
+ * they land inside it, which is known as cycle-walking, and takes fewer than 4 trips on
+ * average. The result is a bijection, so any position of the shuffle, or the position of any
+ * number, can be found in constant expected time, and the whole range can be iterated from any
+ * position in constant memory.
+ *
+ * <p>The permutations produced are not uniformly distributed over every possible ordering, as a
+ * true shuffle is, but no pattern between positions can be seen without knowing the keys.
+ */
+public class RangePermutation {
+    /**
+     * The number of rounds of the Feistel network.
+     */
+    private static final int ROUNDS = 6;
+
+    private final long lowerBound;
+    private final long upperBound;
+    private final long size;
+    private final int halfBits;
+    private final long halfMask;
+    private final long[] keys = new long[ROUNDS];
+
+    /**
+     * Creates a random permutation of a range.
+     *
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive).
+     * @param rng The {@code RandomGenerator} to draw the keys from.
+     *
+     * @throws IllegalArgumentException if {@code upperBound} is less than {@code lowerBound}.
+     */
+    public RangePermutation(long lowerBound, long upperBound, RandomGenerator rng){
+        if(upperBound < lowerBound){
+            throw new IllegalArgumentException("upperBound cannot be less than lowerBound.");
+        }
+
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.size = upperBound - lowerBound + 1;
+
+        final int bits = (size == 0) ? 64 : 64 - Long.numberOfLeadingZeros(size - 1);
+        this.halfBits = Math.max(1, (bits + 1) / 2);
+        this.halfMask = (halfBits == 32) ? 0xFFFFFFFFL : (1L << halfBits) - 1;
+
+        for(int i = 0; i < ROUNDS; i++){
+            keys[i] = rng.nextLong();
+        }
+    }
+
+    /**
+     * Returns the lower-bound of the range.
+     *
+     * @return The lower-bound number of the range (inclusive).
+     */
+    public long getLowerBound(){
+        return lowerBound;
+    }
+
+    /**
+     * Returns the upper-bound of the range.
+     *
+     * @return The upper-bound number of the range (inclusive).
+     */
+    public long getUpperBound(){
+        return upperBound;
+    }
+
+    /**
+     * Returns the number of values in the range.
+     *
+     * @return The size of the range as an unsigned number, where 0 represents all 2^64 values.
+     */
+    public long getSize(){
+        return size;
+    }
+
+    /**
+     * Returns the number at a position of the shuffled range.
+     *
+     * @param index The position, from 0, treated as unsigned.
+     *
+     * @return The number at {@code index}.
+     *
+     * @throws IndexOutOfBoundsException if {@code index} is not less than the size of the range.
+     */
+    public long get(long index){
+        checkIndex(index);
+
+        long offset = encrypt(index);
+
+        while(!inRange(offset)){
+            offset = encrypt(offset);
+        }
+
+        return lowerBound + offset;
+    }
+
+    /**
+     * Returns the position of a number in the shuffled range.
+     *
+     * @param value A number in the range.
+     *
+     * @return The position of {@code value}, from 0, as an unsigned number.
+     *
+     * @throws IllegalArgumentException if {@code value} is outside the range.
+     */
+    public long indexOf(long value){
+        if(value < lowerBound || value > upperBound){
+            throw new IllegalArgumentException("value is outside the range.");
+        }
+
+        long index = decrypt(value - lowerBound);
+
+        while(!inRange(index)){
+            index = decrypt(index);
+        }
+
+        return index;
+    }
+
+    /**
+     * Returns an iterator over the shuffled range, starting from a position.
+     *
+     * @param fromIndex The position to start from, treated as unsigned.
+     *
+     * @return A {@code PrimitiveIterator.OfLong} over the numbers from {@code fromIndex} to the end
+     *         of the shuffled range.
+     *
+     * @throws IndexOutOfBoundsException if {@code fromIndex} is greater than the size of the range.
+     */
+    public PrimitiveIterator.OfLong iterator(long fromIndex){
+        if(size != 0 && Long.compareUnsigned(fromIndex, size) > 0){
+            throw new IndexOutOfBoundsException("fromIndex is outside the range.");
+        }
+
+        return new PrimitiveIterator.OfLong(){
+            private long index = fromIndex;
+            private boolean finished = (size != 0 && index == size);
+
+            @Override
+            public boolean hasNext(){
+                return !finished;
+            }
+
+            @Override
+            public long nextLong(){
+                if(finished){
+                    throw new NoSuchElementException();
+                }
+
+                final long value = get(index++);
+                finished = (index == size);
+
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Returns a shuffled view of a list, which is not copied.
+     *
+     * <p>Changes to {@code list} are seen through the view, however its size must not change.
+     *
+     * @param list The {@code List} to shuffle.
+     * @param rng The {@code RandomGenerator} to draw the keys from.
+     * @param <T> The type of the list's elements.
+     *
+     * @return An unmodifiable {@code List} of the elements of {@code list} in shuffled order.
+     *
+     * @throws NullPointerException if {@code list} is null.
+     */
+    public static <T> List<T> shuffledView(List<T> list, RandomGenerator rng){
+        Objects.requireNonNull(list, "list cannot be null.");
+
+        if(list.isEmpty()){
+            return List.of();
+        }
+
+        final RangePermutation permutation = new RangePermutation(0, list.size() - 1, rng);
+
+        return new ShuffledList<>(list, permutation);
+    }
+
+    /**
+     * Returns whether an offset from the lower-bound is inside the range.
+     */
+    private boolean inRange(long offset){
+        return size == 0 || Long.compareUnsigned(offset, size) < 0;
+    }
+
+    /**
+     * Throws an {@code IndexOutOfBoundsException} if a position is outside the range.
+     */
+    private void checkIndex(long index){
+        if(!inRange(index)){
+            throw new IndexOutOfBoundsException("Index " + Long.toUnsignedString(index)
+                    + " is outside the range of " + Long.toUnsignedString(size) + " values.");
+        }
+    }
+
+    /**
+     * Sends an offset forwards through the Feistel network.
+     */
+    private long encrypt(long offset){
+        long left = offset >>> halfBits;
+        long right = offset & halfMask;
+
+        for(int i = 0; i < ROUNDS; i++){
+            final long next = left ^ round(right, keys[i]);
+            left = right;
+            right = next;
+        }
+
+        return (left << halfBits) | right;
+    }
+
+    /**
+     * Sends an offset backwards through the Feistel network, undoing {@code encrypt}.
+     */
+    private long decrypt(long offset){
+        long left = offset >>> halfBits;
+        long right = offset & halfMask;
+
+        for(int i = ROUNDS - 1; i >= 0; i--){
+            final long previous = right ^ round(left, keys[i]);
+            right = left;
+            left = previous;
+        }
+
+        return (left << halfBits) | right;
+    }
+
+    /**
+     * Mixes half of an offset with a round key, using the finaliser of MurmurHash3.
+     */
+    private long round(long half, long key){
+        long x = half ^ key;
+
+        x ^= x >>> 33;
+        x *= 0xFF51AFD7ED558CCDL;
+        x ^= x >>> 33;
+        x *= 0xC4CEB9FE1A85EC53L;
+        x ^= x >>> 33;
+
+        return x & halfMask;
+    }
+
+    /**
+     * Represents a list viewed through a permutation of its positions.
+     */
+    private static final class ShuffledList<T> extends AbstractList<T> implements RandomAccess{
+        private final List<T> list;
+        private final RangePermutation permutation;
+
+        ShuffledList(List<T> list, RangePermutation permutation){
+            this.list = list;
+            this.permutation = permutation;
+        }
+
+        @Override
+        public T get(int index){
+            return list.get((int) permutation.get(index));
+        }
+
+        @Override
+        public int size(){
+            return list.size();
+        }
+    }
+}
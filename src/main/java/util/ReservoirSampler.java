@@ -0,0 +1,517 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.ToDoubleFunction;
+import java.util.random.RandomGenerator;
+
+/**
+ * Provides static methods for selecting random items from a stream of unknown length.
+ *
+ * <p>Items are read in a single pass, and only the items currently selected are held in memory,
+ * so a handful of items can be picked from a file of hundreds of millions of lines.
+ *
+ * <p>Unweighted selection uses Li's Algorithm L, which works out how many items to skip before the
+ * next replacement, so the random number generator is only used O(k log(n/k)) times. Weighted
+ * selection uses Efraimidis and Spirakis' A-ExpJ, which skips ahead in the same way.
+ */
+public class ReservoirSampler {
+    /**
+     * The size of the buffer used to read lines from a stream.
+     */
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Selects a number of unique, random items from an iterator.
+     *
+     * <p>Every item is equally likely to be selected.
+     *
+     * @param items The {@code Iterator} to select items from.
+     * @param quantity The number of items to select.
+     *
+     * @return A {@code List} containing randomly selected items, in random order. If there are
+     *         fewer than {@code quantity} items, all of them are returned.
+     */
+    public static <T> List<T> sample(Iterator<? extends T> items, int quantity){
+        return sample(items, quantity, Random.RANDOM);
+    }
+
+    /**
+     * Selects a number of unique, random items from an iterator, using the given generator.
+     *
+     * <p>Every item is equally likely to be selected.
+     *
+     * @param items The {@code Iterator} to select items from.
+     * @param quantity The number of items to select.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A {@code List} containing randomly selected items, in random order. If there are
+     *         fewer than {@code quantity} items, all of them are returned.
+     *
+     * @throws NullPointerException if {@code items} is null.
+     */
+    public static <T> List<T> sample(Iterator<? extends T> items, int quantity, RandomGenerator rng){
+        Objects.requireNonNull(items, "items cannot be null.");
+
+        return sample(new Source<T>(){
+            @Override
+            public boolean skip(long n){
+                for(long i = 0; i < n; i++){
+                    if(!items.hasNext()){
+                        return false;
+                    }
+                    items.next();
+                }
+
+                return items.hasNext();
+            }
+
+            @Override
+            public boolean hasNext(){
+                return items.hasNext();
+            }
+
+            @Override
+            public T next(){
+                return items.next();
+            }
+        }, quantity, rng);
+    }
+
+    /**
+     * Selects a number of unique, random lines from a file.
+     *
+     * <p>The file is read as UTF-8. Lines that are skipped are only scanned for their line
+     * ending, and never decoded.
+     *
+     * @param file The {@code Path} of the file to read.
+     * @param quantity The number of lines to select.
+     *
+     * @return A {@code List} containing randomly selected lines, in random order.
+     *
+     * @throws IOException if the file cannot be read.
+     */
+    public static List<String> sampleLines(Path file, int quantity) throws IOException{
+        try(InputStream in = Files.newInputStream(file)){
+            return sampleLines(in, quantity, Random.RANDOM);
+        }
+    }
+
+    /**
+     * Selects a number of unique, random lines from a stream, such as {@code System.in}, using
+     * the given generator.
+     *
+     * <p>The stream is read as UTF-8, and is not closed. Lines that are skipped are only scanned
+     * for their line ending, and never decoded.
+     *
+     * @param in The {@code InputStream} to read.
+     * @param quantity The number of lines to select.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A {@code List} containing randomly selected lines, in random order.
+     *
+     * @throws IOException if the stream cannot be read.
+     */
+    public static List<String> sampleLines(InputStream in, int quantity, RandomGenerator rng) throws IOException{
+        final LineReader reader = new LineReader(in);
+
+        try{
+            return sample(new Source<String>(){
+                @Override
+                public boolean skip(long n){
+                    return reader.skipLines(n);
+                }
+
+                @Override
+                public boolean hasNext(){
+                    return reader.hasNextLine();
+                }
+
+                @Override
+                public String next(){
+                    return reader.readLine();
+                }
+            }, quantity, rng);
+        }catch(UncheckedIOException e){
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Selects a number of unique, random items from an iterator, with each item weighted.
+     *
+     * <p>The chance of an item being selected is proportional to its weight. Items with a weight
+     * of zero or less are never selected.
+     *
+     * @param items The {@code Iterator} to select items from.
+     * @param weight A function returning the weight of an item.
+     * @param quantity The number of items to select.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A {@code List} containing randomly selected items, in descending order of their keys,
+     *         which is itself a weighted random order.
+     *
+     * @throws NullPointerException if {@code items} or {@code weight} is null.
+     */
+    public static <T> List<T> sampleWeighted(Iterator<? extends T> items, ToDoubleFunction<? super T> weight,
+                                             int quantity, RandomGenerator rng){
+        Objects.requireNonNull(items, "items cannot be null.");
+        Objects.requireNonNull(weight, "weight cannot be null.");
+
+        if(quantity <= 0){
+            return new ArrayList<>();
+        }
+
+        // A min-heap of the log of each selected item's key, log(u) / w.
+        final double[] keys = new double[quantity];
+        final Object[] selected = new Object[quantity];
+        int size = 0;
+
+        // The remaining weight to skip before the next replacement.
+        double skip = 0;
+
+        while(items.hasNext()){
+            final T item = items.next();
+            final double w = weight.applyAsDouble(item);
+
+            if(!(w > 0)){
+                continue;
+            }
+
+            if(size < quantity){
+                siftUp(keys, selected, size++, Math.log(nextOpenDouble(rng)) / w, item);
+
+                if(size == quantity){
+                    skip = Math.log(nextOpenDouble(rng)) / keys[0];
+                }
+
+                continue;
+            }
+
+            skip -= w;
+
+            if(skip <= 0){
+                // The new key must beat the smallest key, so it is drawn from (threshold^w, 1).
+                final double threshold = Math.exp(keys[0] * w);
+                final double u = threshold + (1 - threshold) * nextOpenDouble(rng);
+
+                keys[0] = Math.log(u) / w;
+                selected[0] = item;
+                siftDown(keys, selected, size);
+
+                skip = Math.log(nextOpenDouble(rng)) / keys[0];
+            }
+        }
+
+        return drainHeap(keys, selected, size);
+    }
+
+    /**
+     * Runs Algorithm L over a source of items.
+     *
+     * @param source The {@code Source} of items.
+     * @param quantity The number of items to select.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A {@code List} containing randomly selected items, in random order.
+     */
+    private static <T> List<T> sample(Source<T> source, int quantity, RandomGenerator rng){
+        final List<T> reservoir = new ArrayList<>(Math.max(0, quantity));
+
+        if(quantity <= 0){
+            return reservoir;
+        }
+
+        while(reservoir.size() < quantity && source.hasNext()){
+            reservoir.add(source.next());
+        }
+
+        if(reservoir.size() == quantity){
+            double w = Math.exp(Math.log(nextOpenDouble(rng)) / quantity);
+
+            while(true){
+                final long skip = (long) Math.floor(Math.log(nextOpenDouble(rng)) / Math.log1p(-w));
+
+                if(!source.skip(skip)){
+                    break;
+                }
+
+                reservoir.set(rng.nextInt(quantity), source.next());
+                w *= Math.exp(Math.log(nextOpenDouble(rng)) / quantity);
+            }
+        }
+
+        Random.shuffle(reservoir, rng);
+
+        return reservoir;
+    }
+
+    /**
+     * Returns a uniformly distributed double in the open interval (0, 1).
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A random double greater than 0 and less than 1.
+     */
+    static double nextOpenDouble(RandomGenerator rng){
+        double u;
+        do{
+            u = rng.nextDouble();
+        }while(u == 0);
+
+        return u;
+    }
+
+    /**
+     * Adds an entry to a min-heap held in two parallel arrays.
+     */
+    private static void siftUp(double[] keys, Object[] values, int index, double key, Object value){
+        while(index > 0){
+            final int parent = (index - 1) >>> 1;
+
+            if(keys[parent] <= key){
+                break;
+            }
+
+            keys[index] = keys[parent];
+            values[index] = values[parent];
+            index = parent;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+    }
+
+    /**
+     * Restores the heap order after the root of a min-heap has been replaced.
+     */
+    private static void siftDown(double[] keys, Object[] values, int size){
+        final double key = keys[0];
+        final Object value = values[0];
+        int index = 0;
+
+        while(true){
+            int child = 2 * index + 1;
+
+            if(child >= size){
+                break;
+            }
+
+            if(child + 1 < size && keys[child + 1] < keys[child]){
+                child++;
+            }
+
+            if(key <= keys[child]){
+                break;
+            }
+
+            keys[index] = keys[child];
+            values[index] = values[child];
+            index = child;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+    }
+
+    /**
+     * Empties a min-heap into a list, largest key first.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> drainHeap(double[] keys, Object[] values, int size){
+        final Object[] ordered = new Object[size];
+
+        for(int i = size - 1; i >= 0; i--){
+            ordered[i] = values[0];
+            keys[0] = keys[i];
+            values[0] = values[i];
+            siftDown(keys, values, i);
+        }
+
+        return new ArrayList<>((List<T>) Arrays.asList(ordered));
+    }
+
+    /**
+     * Represents a stream of items that can be skipped over cheaply. Items may be {@code null},
+     * so the end of the stream is found with {@link #hasNext()} rather than a {@code null} item.
+     */
+    private interface Source<T>{
+        /**
+         * Skips over a number of items.
+         *
+         * @param n The number of items to skip.
+         *
+         * @return {@code true} if there are items left after skipping.
+         */
+        boolean skip(long n);
+
+        /**
+         * Returns whether there are items left.
+         *
+         * @return {@code true} if {@link #next()} will return an item.
+         */
+        boolean hasNext();
+
+        /**
+         * Returns the next item. Only called when there are items left.
+         *
+         * @return The next item, which may be {@code null}.
+         */
+        T next();
+    }
+
+    /**
+     * Reads lines from a stream of UTF-8 bytes, without decoding lines that are skipped.
+     */
+    private static final class LineReader{
+        private final InputStream in;
+        private final byte[] buffer = new byte[READ_BUFFER_SIZE];
+        private int position = 0;
+        private int limit = 0;
+        private byte[] line = new byte[256];
+
+        LineReader(InputStream in){
+            this.in = in;
+        }
+
+        /**
+         * Skips over a number of lines.
+         *
+         * @param n The number of lines to skip.
+         *
+         * @return {@code true} if there is data left after skipping.
+         */
+        boolean skipLines(long n){
+            while(n > 0){
+                if(!fill()){
+                    return false;
+                }
+
+                for(int i = position; i < limit; i++){
+                    if(buffer[i] == '\n' && --n == 0){
+                        position = i + 1;
+                        return fill();
+                    }
+                }
+
+                position = limit;
+            }
+
+            return fill();
+        }
+
+        /**
+         * Reads the next line, without its line ending.
+         *
+         * @return The next line, or {@code null} if there are none left.
+         */
+        String readLine(){
+            if(!fill()){
+                return null;
+            }
+
+            int length = 0;
+
+            while(fill()){
+                int i = position;
+                while(i < limit && buffer[i] != '\n'){
+                    i++;
+                }
+
+                final int chunk = i - position;
+                if(length + chunk > line.length){
+                    line = Arrays.copyOf(line, Math.max(line.length * 2, length + chunk));
+                }
+
+                System.arraycopy(buffer, position, line, length, chunk);
+                length += chunk;
+
+                if(i < limit){
+                    position = i + 1;
+                    break;
+                }
+
+                position = limit;
+            }
+
+            if(length > 0 && line[length - 1] == '\r'){
+                length--;
+            }
+
+            return new String(line, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Returns whether there are lines left to read.
+         *
+         * @return {@code true} if there is unread data.
+         */
+        boolean hasNextLine(){
+            return fill();
+        }
+
+        /**
+         * Makes sure there is unread data in the buffer, reading more from the stream if needed.
+         *
+         * @return {@code true} if there is unread data.
+         */
+        private boolean fill(){
+            if(position < limit){
+                return true;
+            }
+
+            try{
+                int read;
+                do{
+                    read = in.read(buffer);
+                }while(read == 0);
+
+                position = 0;
+                limit = Math.max(read, 0);
+
+                return read > 0;
+            }catch(IOException e){
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,424 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Writes results to CSV, TSV and plain text files.
+ *
+ * <p>Output is collected in a large direct {@code ByteBuffer} and written to a {@code FileChannel}
+ * whenever it fills. Numbers are encoded as ASCII digits, two at a time, into a reused array, and
+ * text is encoded as UTF-8 one character at a time, so nothing is allocated for each value written.
+ *
+ * <p>Each call to {@code writeNumber} or {@code writeItem} writes one field. Fields on the same
+ * record are separated by the separator of the {@code FileFormat}, and {@code endRecord}
+ * finishes the record with a line feed. In {@code TEXT} files, fields are separated by a comma
+ * and a space, as they are displayed in the app.
+ */
+public class ResultExporter implements Closeable {
+    /**
+     * The size of the buffer output is collected in before it is written to the file.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * The most bytes a single {@code long} can take up, including its sign.
+     */
+    private static final int MAX_LONG_LENGTH = 20;
+
+    /**
+     * The ASCII digits of every number from 00 to 99, so that digits can be encoded two at a time.
+     */
+    private static final byte[] DIGIT_PAIRS = new byte[200];
+
+    static{
+        for(int i = 0; i < 100; i++){
+            DIGIT_PAIRS[2 * i] = (byte) ('0' + i / 10);
+            DIGIT_PAIRS[2 * i + 1] = (byte) ('0' + i % 10);
+        }
+    }
+
+    private final FileChannel channel;
+    private final ItemImporter.FileFormat format;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] digits = new byte[MAX_LONG_LENGTH];
+    private boolean startOfRecord = true;
+    private long size;
+
+    private ResultExporter(FileChannel channel, ItemImporter.FileFormat format){
+        this.channel = channel;
+        this.format = format;
+    }
+
+    /**
+     * Creates or replaces a file, and opens it to export results to.
+     *
+     * @param file The {@code Path} of the file.
+     * @param format The {@code FileFormat} to write the file in.
+     *
+     * @return A {@code ResultExporter} writing to the file.
+     *
+     * @throws IOException if the file cannot be opened.
+     * @throws NullPointerException if {@code file} or {@code format} is null.
+     */
+    public static ResultExporter open(Path file, ItemImporter.FileFormat format) throws IOException{
+        Objects.requireNonNull(file, "file cannot be null.");
+        Objects.requireNonNull(format, "format cannot be null.");
+
+        return new ResultExporter(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), format);
+    }
+
+    /**
+     * Exports a list of numbers to a file, with one number on each line.
+     *
+     * @param file The {@code Path} of the file.
+     * @param format The {@code FileFormat} to write the file in.
+     * @param numbers The numbers to export.
+     *
+     * @return The number of bytes written.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public static long exportNumbers(Path file, ItemImporter.FileFormat format, List<? extends Number> numbers) throws IOException{
+        final DrawEvent event = DrawEvent.start("exportNumbers");
+
+        try(ResultExporter exporter = open(file, format)){
+            for(Number n : numbers){
+                exporter.writeNumber(n.longValue()).endRecord();
+            }
+
+            exporter.flush();
+            event.finish(numbers.size(), exporter.size, format.name());
+
+            return exporter.size;
+        }
+    }
+
+    /**
+     * Exports numbers to a file as they are generated, with one number on each line.
+     *
+     * <p>The numbers are never held in memory, so any quantity can be exported.
+     *
+     * @param file The {@code Path} of the file.
+     * @param format The {@code FileFormat} to write the file in.
+     * @param source Generates each number to export.
+     * @param quantity The quantity of numbers to export.
+     *
+     * @return The number of bytes written.
+     *
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if {@code quantity} is negative.
+     */
+    public static long exportNumbers(Path file, ItemImporter.FileFormat format, LongSupplier source, long quantity) throws IOException{
+        if(quantity < 0){
+            throw new IllegalArgumentException("quantity cannot be negative.");
+        }
+
+        final DrawEvent event = DrawEvent.start("exportNumbers");
+
+        try(ResultExporter exporter = open(file, format)){
+            for(long i = 0; i < quantity; i++){
+                exporter.writeNumber(source.getAsLong()).endRecord();
+            }
+
+            exporter.flush();
+            event.finish(quantity, exporter.size, format.name());
+
+            return exporter.size;
+        }
+    }
+
+    /**
+     * Exports a list of items to a file, with one item on each line.
+     *
+     * @param file The {@code Path} of the file.
+     * @param format The {@code FileFormat} to write the file in.
+     * @param items The items to export.
+     *
+     * @return The number of bytes written.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public static long exportItems(Path file, ItemImporter.FileFormat format, List<? extends CharSequence> items) throws IOException{
+        final DrawEvent event = DrawEvent.start("exportItems");
+
+        try(ResultExporter exporter = open(file, format)){
+            for(CharSequence item : items){
+                exporter.writeItem(item).endRecord();
+            }
+
+            exporter.flush();
+            event.finish(items.size(), exporter.size, format.name());
+
+            return exporter.size;
+        }
+    }
+
+    /**
+     * Writes a number as a field of the current record.
+     *
+     * @param n The number to write.
+     *
+     * @return This {@code ResultExporter}.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public ResultExporter writeNumber(long n) throws IOException{
+        startField(MAX_LONG_LENGTH);
+
+        // Negative values are used for the digits, as Long.MIN_VALUE has no positive equivalent.
+        long negative = (n < 0) ? n : -n;
+        int pos = MAX_LONG_LENGTH;
+
+        while(negative < Integer.MIN_VALUE){
+            final int pair = (int) (100 * (negative / 100) - negative);
+            negative /= 100;
+            digits[--pos] = DIGIT_PAIRS[2 * pair + 1];
+            digits[--pos] = DIGIT_PAIRS[2 * pair];
+        }
+
+        int i = (int) negative;
+
+        while(i <= -100){
+            final int pair = 100 * (i / 100) - i;
+            i /= 100;
+            digits[--pos] = DIGIT_PAIRS[2 * pair + 1];
+            digits[--pos] = DIGIT_PAIRS[2 * pair];
+        }
+
+        if(i <= -10){
+            digits[--pos] = DIGIT_PAIRS[-2 * i + 1];
+            digits[--pos] = DIGIT_PAIRS[-2 * i];
+        }else{
+            digits[--pos] = (byte) ('0' - i);
+        }
+
+        if(n < 0){
+            digits[--pos] = '-';
+        }
+
+        buffer.put(digits, pos, MAX_LONG_LENGTH - pos);
+
+        return this;
+    }
+
+    /**
+     * Writes a piece of text as a field of the current record.
+     *
+     * <p>In {@code CSV} and {@code TSV} files, the text is enclosed in double quotes if it contains
+     * the separator, a double quote or a line break, so that it reads back as one field.
+     *
+     * @param item The text to write.
+     *
+     * @return This {@code ResultExporter}.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public ResultExporter writeItem(CharSequence item) throws IOException{
+        final int length = item.length();
+        final boolean quoted = format.quoted && needsQuotes(item, format.separator);
+
+        startField(0);
+
+        if(quoted){
+            putByte('"');
+        }
+
+        for(int i = 0; i < length; i++){
+            final char c = item.charAt(i);
+
+            if(c < 0x80){
+                if(c == '"' && quoted){
+                    putByte('"');
+                }
+
+                putByte(c);
+            }else{
+                i = putNonAscii(item, i);
+            }
+        }
+
+        if(quoted){
+            putByte('"');
+        }
+
+        return this;
+    }
+
+    /**
+     * Ends the current record.
+     *
+     * @return This {@code ResultExporter}.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public ResultExporter endRecord() throws IOException{
+        putByte('\n');
+        startOfRecord = true;
+
+        return this;
+    }
+
+    /**
+     * Writes everything exported so far to the file.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public void flush() throws IOException{
+        buffer.flip();
+        size += buffer.remaining();
+
+        while(buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * Returns the number of bytes written to the file so far.
+     *
+     * @return The number of bytes written.
+     */
+    public long size(){
+        return size + buffer.position();
+    }
+
+    /**
+     * Writes everything exported to the file, and closes it.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    @Override
+    public void close() throws IOException{
+        try(channel){
+            flush();
+        }
+    }
+
+    /**
+     * Writes the separator before a field if it is not the first in its record, and makes
+     * sure there is room in the buffer for the field.
+     *
+     * @param length The number of bytes needed for the field, not including the separator.
+     */
+    private void startField(int length) throws IOException{
+        if(buffer.remaining() < length + 2){
+            flush();
+        }
+
+        if(!startOfRecord){
+            if(format == ItemImporter.FileFormat.TEXT){
+                buffer.put((byte) ',').put((byte) ' ');
+            }else{
+                buffer.put((byte) format.separator);
+            }
+        }
+
+        startOfRecord = false;
+    }
+
+    /**
+     * Writes one ASCII character, writing the buffer to the file first if it is full.
+     */
+    private void putByte(int c) throws IOException{
+        if(!buffer.hasRemaining()){
+            flush();
+        }
+
+        buffer.put((byte) c);
+    }
+
+    /**
+     * Writes a character outside of the ASCII range as UTF-8.
+     *
+     * <p>A surrogate pair is written as a single code point. An unpaired surrogate is written
+     * as a question mark.
+     *
+     * @param item The text being written.
+     * @param i The index of the character in {@code item}.
+     *
+     * @return The index of the last character written, which is {@code i + 1} for a surrogate pair.
+     */
+    private int putNonAscii(CharSequence item, int i) throws IOException{
+        if(buffer.remaining() < 4){
+            flush();
+        }
+
+        final char c = item.charAt(i);
+
+        if(c < 0x800){
+            buffer.put((byte) (0xC0 | c >> 6));
+            buffer.put((byte) (0x80 | c & 0x3F));
+        }else if(!Character.isSurrogate(c)){
+            buffer.put((byte) (0xE0 | c >> 12));
+            buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+            buffer.put((byte) (0x80 | c & 0x3F));
+        }else if(Character.isHighSurrogate(c) && i + 1 < item.length()
+                && Character.isLowSurrogate(item.charAt(i + 1))){
+            final int codePoint = Character.toCodePoint(c, item.charAt(++i));
+
+            buffer.put((byte) (0xF0 | codePoint >> 18));
+            buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+            buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+            buffer.put((byte) (0x80 | codePoint & 0x3F));
+        }else{
+            buffer.put((byte) '?');
+        }
+
+        return i;
+    }
+
+    /**
+     * Returns whether a field must be enclosed in double quotes in a CSV or TSV file.
+     */
+    private static boolean needsQuotes(CharSequence item, char separator){
+        for(int i = 0; i < item.length(); i++){
+            final char c = item.charAt(i);
+
+            if(c == separator || c == '"' || c == '\n' || c == '\r'){
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.util.Arrays;
+
+/**
+ * Provides a compressed set of unsigned 32-bit integers, following the layout of a Roaring bitmap.
+ *
+ * <p>Each value is split into a 16-bit high part, which selects a container, and a 16-bit low
+ * part, which is stored in that container. Sparse containers hold a sorted array of low parts,
+ * and dense containers hold an 8KB bitmap, so millions of values from the full 2^32 space take
+ * only a few megabytes.
+ *
+ * <p>Values are treated as unsigned, so {@code -1} represents 2^32 - 1.
+ */
+public class RoaringBitmap {
+    /**
+     * The number of values covered by each container.
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    /**
+     * The maximum number of values an array container may hold before it is converted to a bitmap.
+     *
+     * <p>At this size, both kinds of container use 8KB.
+     */
+    private static final int ARRAY_CONTAINER_MAX = 4096;
+
+    /**
+     * The initial capacity of the key and container arrays.
+     */
+    private static final int INITIAL_CAPACITY = 4;
+
+    private char[] keys = new char[INITIAL_CAPACITY];
+    private Container[] containers = new Container[INITIAL_CAPACITY];
+    private int size = 0;
+    private long cardinality = 0;
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value The value to add, treated as unsigned.
+     *
+     * @return {@code true} if the value was not already in the set.
+     */
+    public boolean add(int value){
+        final char key = (char) (value >>> 16);
+        final char low = (char) value;
+
+        int i = findKey(key);
+
+        if(i < 0){
+            i = -i - 1;
+            insertContainer(i, key, new ArrayContainer());
+        }
+
+        final Container container = containers[i];
+        final int before = container.getCardinality();
+
+        containers[i] = container.add(low);
+
+        if(containers[i].getCardinality() != before){
+            cardinality++;
+            return true;
+        }else{
+            return false;
+        }
+    }
+
+    /**
+     * Returns whether the set contains a value.
+     *
+     * @param value The value to look for, treated as unsigned.
+     *
+     * @return {@code true} if the value is in the set.
+     */
+    public boolean contains(int value){
+        final int i = findKey((char) (value >>> 16));
+
+        return i >= 0 && containers[i].contains((char) value);
+    }
+
+    /**
+     * Returns the number of values in the set.
+     *
+     * @return The number of values in the set.
+     */
+    public long getCardinality(){
+        return cardinality;
+    }
+
+    /**
+     * Returns the {@code n}th smallest unsigned 32-bit value that is NOT in the set, counting from 0.
+     *
+     * <p>This lets a caller choose uniformly among the values that have not been added yet, without
+     * listing them. The cost is proportional to the number of containers, not the number of values.
+     *
+     * @param n The index of the absent value to return.
+     *
+     * @return The {@code n}th absent value, as a non-negative long.
+     *
+     * @throws IllegalArgumentException if {@code n} is negative, or there are not enough absent values.
+     */
+    public long selectAbsent(long n){
+        if(n < 0 || n >= (1L << 32) - cardinality){
+            throw new IllegalArgumentException("n is out of range.");
+        }
+
+        long nextChunk = 0;
+
+        for(int i = 0; i < size; i++){
+            final long key = keys[i];
+            final long skipped = (key - nextChunk) * CHUNK_SIZE;
+
+            if(n < skipped){
+                return nextChunk * CHUNK_SIZE + n;
+            }
+
+            n -= skipped;
+
+            final int absent = CHUNK_SIZE - containers[i].getCardinality();
+
+            if(n < absent){
+                return key * CHUNK_SIZE + containers[i].selectAbsent((int) n);
+            }
+
+            n -= absent;
+            nextChunk = key + 1;
+        }
+
+        return nextChunk * CHUNK_SIZE + n;
+    }
+
+    /**
+     * Removes all values from the set.
+     */
+    public void clear(){
+        keys = new char[INITIAL_CAPACITY];
+        containers = new Container[INITIAL_CAPACITY];
+        size = 0;
+        cardinality = 0;
+    }
+
+    /**
+     * Finds the index of the container for a key.
+     *
+     * @param key The high 16 bits of a value.
+     *
+     * @return The index of the container, or {@code -(insertionPoint + 1)} if there is none.
+     */
+    private int findKey(char key){
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    /**
+     * Inserts a container at a given index, keeping the keys in order.
+     *
+     * @param index The index to insert at.
+     * @param key The key of the container.
+     * @param container The {@code Container} to insert.
+     */
+    private void insertContainer(int index, char key, Container container){
+        if(size == keys.length){
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    /**
+     * Represents the low 16 bits of all values in the set that share the same high 16 bits.
+     */
+    private abstract static class Container{
+        /**
+         * Adds a value to the container.
+         *
+         * @param low The low 16 bits of the value.
+         *
+         * @return The container holding the result, which may be a new container of a different kind.
+         */
+        abstract Container add(char low);
+
+        /**
+         * Returns whether the container holds a value.
+         *
+         * @param low The low 16 bits of the value.
+         *
+         * @return {@code true} if the value is in the container.
+         */
+        abstract boolean contains(char low);
+
+        /**
+         * Returns the number of values in the container.
+         *
+         * @return The number of values in the container.
+         */
+        abstract int getCardinality();
+
+        /**
+         * Returns the {@code n}th smallest low value that is not in the container.
+         *
+         * @param n The index of the absent value to return.
+         *
+         * @return The {@code n}th absent low value.
+         */
+        abstract int selectAbsent(int n);
+    }
+
+    /**
+     * Provides a container for sparse chunks, holding the low values in a sorted array.
+     */
+    private static final class ArrayContainer extends Container{
+        private char[] values = new char[INITIAL_CAPACITY];
+        private int size = 0;
+
+        @Override
+        Container add(char low){
+            int i = Arrays.binarySearch(values, 0, size, low);
+
+            if(i >= 0){
+                return this;
+            }
+
+            if(size == ARRAY_CONTAINER_MAX){
+                return toBitmap().add(low);
+            }
+
+            i = -i - 1;
+
+            if(size == values.length){
+                values = Arrays.copyOf(values, Math.min(size * 2, ARRAY_CONTAINER_MAX));
+            }
+
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = low;
+            size++;
+
+            return this;
+        }
+
+        @Override
+        boolean contains(char low){
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        @Override
+        int getCardinality(){
+            return size;
+        }
+
+        @Override
+        int selectAbsent(int n){
+            int next = 0;
+
+            for(int i = 0; i < size; i++){
+                final int gap = values[i] - next;
+
+                if(n < gap){
+                    return next + n;
+                }
+
+                n -= gap;
+                next = values[i] + 1;
+            }
+
+            return next + n;
+        }
+
+        /**
+         * Converts this container to a bitmap container holding the same values.
+         *
+         * @return A new {@code BitmapContainer}.
+         */
+        private BitmapContainer toBitmap(){
+            final BitmapContainer bitmap = new BitmapContainer();
+
+            for(int i = 0; i < size; i++){
+                bitmap.add(values[i]);
+            }
+
+            return bitmap;
+        }
+    }
+
+    /**
+     * Provides a container for dense chunks, holding one bit for each of the 2^16 low values.
+     */
+    private static final class BitmapContainer extends Container{
+        private final long[] words = new long[CHUNK_SIZE / Long.SIZE];
+        private int cardinality = 0;
+
+        @Override
+        Container add(char low){
+            final long mask = 1L << low;
+            final int i = low >>> 6;
+
+            if((words[i] & mask) == 0){
+                words[i] |= mask;
+                cardinality++;
+            }
+
+            return this;
+        }
+
+        @Override
+        boolean contains(char low){
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        int getCardinality(){
+            return cardinality;
+        }
+
+        @Override
+        int selectAbsent(int n){
+            for(int i = 0; i < words.length; i++){
+                long free = ~words[i];
+                final int count = Long.bitCount(free);
+
+                if(n < count){
+                    for(int j = 0; j < n; j++){
+                        free &= free - 1;
+                    }
+
+                    return i * Long.SIZE + Long.numberOfTrailingZeros(free);
+                }
+
+                n -= count;
+            }
+
+            throw new IllegalArgumentException("n is out of range.");
+        }
+    }
+}
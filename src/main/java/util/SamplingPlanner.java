@@ -0,0 +1,612 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.random.RandomGenerator;
+
+/**
+ * Chooses how to draw unique numbers from a range, by the size of the range and the quantity drawn.
+ *
+ * <p>No single algorithm suits every draw. Shuffling a pool of every value is fastest when much
+ * of a small range is drawn, and Floyd's algorithm is fastest otherwise, but its hash set needs
+ * far more memory per value than a bitmap once millions of values are drawn. The planner picks
+ * between them using a set of {@code Thresholds}, which can be measured on the running machine
+ * by {@code calibrate}, and saved to and loaded from a properties file.
+ *
+ * <p>Every plan says which strategy was chosen and why, and the reason is recorded as the
+ * algorithm of the draw's {@code DrawEvent}.
+ */
+public class SamplingPlanner {
+    /**
+     * The name of the file the thresholds are saved in, within the app's directory.
+     */
+    public static final String CONFIG_FILE_NAME = "sampling.properties";
+
+    /**
+     * The largest range that a bitmap can track.
+     */
+    private static final long BITMAP_MAX_RANGE = 1L << 32;
+
+    /**
+     * The thresholds used to plan draws. These are replaced once calibration or loading completes.
+     */
+    private static volatile Thresholds thresholds = Thresholds.DEFAULT;
+
+    private SamplingPlanner(){}
+
+    /**
+     * Represents an algorithm for drawing unique numbers from a range.
+     */
+    public enum Strategy{
+        /**
+         * Shuffles a pool of every value in the range. Used when every value is drawn.
+         */
+        DENSE_SHUFFLE("dense Fisher-Yates"),
+
+        /**
+         * Shuffles only the first {@code quantity} positions of a pool of every value in the range.
+         */
+        PARTIAL_SHUFFLE("partial Fisher-Yates"),
+
+        /**
+         * Draws exactly {@code quantity} values with Floyd's algorithm and a hash set, then shuffles them.
+         */
+        FLOYD("Floyd"),
+
+        /**
+         * Draws values at random and rejects repeats, which are tracked in a {@code RoaringBitmap}.
+         * This is slower than Floyd's algorithm, but needs far less memory for large quantities.
+         */
+        BITMAP_REJECTION("bitmap rejection"),
+
+        /**
+         * Draws values in ascending order with a {@code SortedSampler}.
+         */
+        METHOD_D("Vitter D"),
+
+        /**
+         * Takes the first {@code quantity} positions of a {@code RangePermutation}, which needs no
+         * memory apart from the results. Its order is pseudorandom, rather than uniformly random.
+         */
+        PERMUTATION("Feistel permutation");
+
+        private final String description;
+
+        Strategy(String description){
+            this.description = description;
+        }
+
+        @Override
+        public String toString(){
+            return description;
+        }
+    }
+
+    /**
+     * Represents the strategy chosen for a draw, and the reason it was chosen.
+     */
+    public static final class Plan{
+        private final Strategy strategy;
+        private final String reason;
+
+        /**
+         * The quantity drawn as a share of the range, or {@code NaN} if the reason does not
+         * depend on it.
+         */
+        private final double density;
+
+        private Plan(Strategy strategy, String reason){
+            this(strategy, reason, Double.NaN);
+        }
+
+        private Plan(Strategy strategy, String reason, double density){
+            this.strategy = strategy;
+            this.reason = reason;
+            this.density = density;
+        }
+
+        /**
+         * Returns the strategy chosen.
+         *
+         * @return The {@code Strategy} of the plan.
+         */
+        public Strategy getStrategy(){
+            return strategy;
+        }
+
+        /**
+         * Returns the quantity drawn as a share of the range, if the strategy was chosen by it.
+         *
+         * @return The density of the draw, or {@code NaN} if the reason does not depend on it.
+         */
+        public double getDensity(){
+            return density;
+        }
+
+        /**
+         * Returns why the strategy was chosen.
+         *
+         * <p>The description is built each time this is called, so that planning a draw
+         * formats nothing.
+         *
+         * @return A short description of the reason.
+         */
+        public String getReason(){
+            return Double.isNaN(density) ? reason : "density " + formatDensity(density) + " " + reason;
+        }
+
+        @Override
+        public String toString(){
+            return strategy + " (" + getReason() + ")";
+        }
+    }
+
+    /**
+     * Holds the limits the planner chooses strategies by.
+     */
+    public static final class Thresholds{
+        /**
+         * The thresholds used before any are calibrated or loaded, measured on a typical desktop.
+         */
+        public static final Thresholds DEFAULT = new Thresholds(1.0 / 16, 1 << 22, 1 << 24);
+
+        private static final String PARTIAL_SHUFFLE_MIN_DENSITY = "partialShuffle.minDensity";
+        private static final String PARTIAL_SHUFFLE_MAX_RANGE = "partialShuffle.maxRange";
+        private static final String FLOYD_MAX_QUANTITY = "floyd.maxQuantity";
+
+        private final double partialShuffleMinDensity;
+        private final int partialShuffleMaxRange;
+        private final int floydMaxQuantity;
+
+        /**
+         * Creates a set of thresholds.
+         *
+         * @param partialShuffleMinDensity The smallest share of the range drawn with a partial shuffle.
+         * @param partialShuffleMaxRange The largest range drawn with a partial shuffle, which needs
+         *                               a pool of this many values.
+         * @param floydMaxQuantity The largest quantity drawn with Floyd's algorithm. Larger quantities
+         *                         are drawn with bitmap rejection, or from ranges too large for a
+         *                         bitmap, with a permutation.
+         *
+         * @throws IllegalArgumentException if any threshold is negative.
+         */
+        public Thresholds(double partialShuffleMinDensity, int partialShuffleMaxRange, int floydMaxQuantity){
+            if(!(partialShuffleMinDensity >= 0) || partialShuffleMaxRange < 0 || floydMaxQuantity < 0){
+                throw new IllegalArgumentException("Thresholds cannot be negative.");
+            }
+
+            this.partialShuffleMinDensity = partialShuffleMinDensity;
+            this.partialShuffleMaxRange = partialShuffleMaxRange;
+            this.floydMaxQuantity = floydMaxQuantity;
+        }
+
+        /**
+         * Loads thresholds from a properties file. Any threshold missing from the file keeps its
+         * default value.
+         *
+         * @param file The {@code Path} of the file.
+         *
+         * @return The {@code Thresholds} in the file.
+         *
+         * @throws IOException if the file cannot be read.
+         * @throws IllegalArgumentException if a threshold in the file is not a valid number.
+         */
+        public static Thresholds load(Path file) throws IOException{
+            final Properties properties = new Properties();
+
+            try(Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)){
+                properties.load(reader);
+            }
+
+            return new Thresholds(
+                    Double.parseDouble(properties.getProperty(PARTIAL_SHUFFLE_MIN_DENSITY,
+                            Double.toString(DEFAULT.partialShuffleMinDensity))),
+                    Integer.parseInt(properties.getProperty(PARTIAL_SHUFFLE_MAX_RANGE,
+                            Integer.toString(DEFAULT.partialShuffleMaxRange))),
+                    Integer.parseInt(properties.getProperty(FLOYD_MAX_QUANTITY,
+                            Integer.toString(DEFAULT.floydMaxQuantity))));
+        }
+
+        /**
+         * Saves the thresholds to a properties file.
+         *
+         * @param file The {@code Path} of the file.
+         *
+         * @throws IOException if the file cannot be written.
+         */
+        public void save(Path file) throws IOException{
+            final Properties properties = new Properties();
+
+            properties.setProperty(PARTIAL_SHUFFLE_MIN_DENSITY, Double.toString(partialShuffleMinDensity));
+            properties.setProperty(PARTIAL_SHUFFLE_MAX_RANGE, Integer.toString(partialShuffleMaxRange));
+            properties.setProperty(FLOYD_MAX_QUANTITY, Integer.toString(floydMaxQuantity));
+
+            Files.createDirectories(file.toAbsolutePath().getParent());
+
+            try(Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)){
+                properties.store(writer, "Sampling thresholds, measured by SamplingPlanner.calibrate");
+            }
+        }
+
+        public double getPartialShuffleMinDensity(){
+            return partialShuffleMinDensity;
+        }
+
+        public int getPartialShuffleMaxRange(){
+            return partialShuffleMaxRange;
+        }
+
+        public int getFloydMaxQuantity(){
+            return floydMaxQuantity;
+        }
+
+        @Override
+        public String toString(){
+            return "partial shuffle from density " + partialShuffleMinDensity
+                    + " up to range " + partialShuffleMaxRange
+                    + ", Floyd up to quantity " + floydMaxQuantity;
+        }
+    }
+
+    /**
+     * Returns the thresholds currently used to plan draws.
+     *
+     * @return The current {@code Thresholds}.
+     */
+    public static Thresholds getThresholds(){
+        return thresholds;
+    }
+
+    /**
+     * Replaces the thresholds used to plan draws.
+     *
+     * @param thresholds The new {@code Thresholds}.
+     */
+    public static void setThresholds(Thresholds thresholds){
+        SamplingPlanner.thresholds = thresholds;
+    }
+
+    /**
+     * Loads the thresholds from a directory in the background, or if they have not been saved
+     * there, calibrates them and saves them for next time.
+     *
+     * <p>Until this completes, draws are planned with the default thresholds.
+     *
+     * @param directory The directory the thresholds are saved in.
+     *
+     * @return A {@code CompletableFuture} that completes with the thresholds in use, or
+     *         completes exceptionally if they could not be loaded or saved.
+     */
+    public static CompletableFuture<Thresholds> loadOrCalibrate(Path directory){
+        final Path file = directory.resolve(CONFIG_FILE_NAME);
+
+        return CompletableFuture.supplyAsync(() -> {
+            try{
+                final Thresholds loaded;
+
+                if(Files.exists(file)){
+                    loaded = Thresholds.load(file);
+                }else{
+                    loaded = calibrate(new SplittableRandom());
+                    loaded.save(file);
+                }
+
+                setThresholds(loaded);
+
+                return loaded;
+            }catch(IOException e){
+                throw new java.io.UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Chooses a strategy to draw unique numbers with.
+     *
+     * @param range The size of the range as an unsigned number, where 0 represents all 2^64 values.
+     * @param quantity The quantity of numbers to draw.
+     * @param sorted Whether the numbers must be in ascending order.
+     *
+     * @return The {@code Plan} for the draw.
+     */
+    public static Plan plan(long range, long quantity, boolean sorted){
+        final Thresholds t = thresholds;
+        final double density = quantity / ((range == 0) ? 0x1p64 : unsignedToDouble(range));
+
+        if(sorted){
+            return new Plan(Strategy.METHOD_D, "sorted results are drawn in order");
+        }else if(range == quantity && range > 0 && range <= Integer.MAX_VALUE){
+            return new Plan(Strategy.DENSE_SHUFFLE, "every value in the range is drawn");
+        }else if(range > 0 && range <= t.partialShuffleMaxRange && density >= t.partialShuffleMinDensity){
+            return new Plan(Strategy.PARTIAL_SHUFFLE, "of a range that fits in a pool", density);
+        }else if(quantity <= t.floydMaxQuantity){
+            return new Plan(Strategy.FLOYD, "is sparse", density);
+        }else if(range > 0 && range <= BITMAP_MAX_RANGE){
+            return new Plan(Strategy.BITMAP_REJECTION, "quantity too large for a hash set");
+        }else{
+            return new Plan(Strategy.PERMUTATION, "quantity too large for a hash set or a bitmap");
+        }
+    }
+
+    /**
+     * Draws unique numbers from a range using a plan.
+     *
+     * @param plan The {@code Plan} to draw with.
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive).
+     * @param quantity The quantity of numbers to draw.
+     * @param sorted Whether the numbers must be in ascending order.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return The numbers drawn, in ascending order if {@code sorted} is true, or random order otherwise.
+     *
+     * @throws IllegalArgumentException if {@code upperBound} is less than {@code lowerBound}, or
+     *                                  {@code quantity} is negative or greater than the number of
+     *                                  values in the range.
+     */
+    public static long[] execute(Plan plan, long lowerBound, long upperBound, int quantity, boolean sorted, RandomGenerator rng){
+        if(upperBound < lowerBound){
+            throw new IllegalArgumentException("upperBound cannot be less than lowerBound.");
+        }
+
+        // The size of the range as an unsigned number, where 0 represents all 2^64 values.
+        final long range = upperBound - lowerBound + 1;
+
+        if(quantity < 0 || (range != 0 && Long.compareUnsigned(quantity, range) > 0)){
+            throw new IllegalArgumentException("quantity cannot be negative or exceed the size of the range.");
+        }
+
+        final long[] values = switch(plan.getStrategy()){
+            case DENSE_SHUFFLE -> shufflePool(lowerBound, (int) range, (int) range, rng);
+            case PARTIAL_SHUFFLE -> shufflePool(lowerBound, (int) range, quantity, rng);
+            case FLOYD -> floyd(lowerBound, range, quantity, rng);
+            case BITMAP_REJECTION -> bitmapRejection(lowerBound, range, quantity, rng);
+            case METHOD_D -> methodD(lowerBound, upperBound, quantity, rng);
+            case PERMUTATION -> permutation(lowerBound, upperBound, quantity, rng);
+        };
+
+        final long[] result = (values.length == quantity) ? values : Arrays.copyOf(values, quantity);
+
+        if(sorted && plan.getStrategy() != Strategy.METHOD_D){
+            Arrays.sort(result);
+        }else if(!sorted && plan.getStrategy() == Strategy.METHOD_D){
+            shuffle(result, rng);
+        }
+
+        return result;
+    }
+
+    /**
+     * Measures how quickly a partial shuffle and Floyd's algorithm run on this machine, and
+     * returns the thresholds with the density at which the shuffle becomes faster.
+     *
+     * <p>This takes around a second.
+     *
+     * @param rng The {@code RandomGenerator} to draw test samples from.
+     *
+     * @return The measured {@code Thresholds}.
+     */
+    public static Thresholds calibrate(RandomGenerator rng){
+        final Plan shuffle = new Plan(Strategy.PARTIAL_SHUFFLE, "calibration");
+        final Plan floyd = new Plan(Strategy.FLOYD, "calibration");
+        final int range = 1 << 20;
+
+        // Compile both strategies before timing either of them.
+        for(int i = 0; i < 200; i++){
+            execute(shuffle, 0, (1 << 14) - 1, 1 << 10, false, rng);
+            execute(floyd, 0, (1 << 14) - 1, 1 << 10, false, rng);
+        }
+
+        double partialShuffleMinDensity = 1;
+
+        for(double density = 1.0 / 1024; density < 1; density *= 2){
+            final int quantity = (int) (range * density);
+
+            if(time(shuffle, range, quantity, rng) < time(floyd, range, quantity, rng)){
+                partialShuffleMinDensity = density;
+                break;
+            }
+        }
+
+        return new Thresholds(partialShuffleMinDensity, Thresholds.DEFAULT.partialShuffleMaxRange,
+                Thresholds.DEFAULT.floydMaxQuantity);
+    }
+
+    /**
+     * Returns the fastest of several timed runs of a plan, after warming it up.
+     */
+    private static long time(Plan plan, int range, int quantity, RandomGenerator rng){
+        long best = Long.MAX_VALUE;
+
+        for(int i = 0; i < 3; i++){
+            final long start = System.nanoTime();
+            execute(plan, 0, range - 1, quantity, false, rng);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        return best;
+    }
+
+    /**
+     * Draws values by shuffling the first positions of a pool holding every offset in the range.
+     */
+    private static long[] shufflePool(long lowerBound, int range, int quantity, RandomGenerator rng){
+        final int[] pool = new int[range];
+        for(int i = 0; i < range; i++){
+            pool[i] = i;
+        }
+
+        final long[] values = new long[quantity];
+
+        for(int j = 0; j < quantity; j++){
+            final int r = j + rng.nextInt(range - j);
+            final int chosen = pool[r];
+
+            pool[r] = pool[j];
+            pool[j] = chosen;
+            values[j] = lowerBound + chosen;
+        }
+
+        return values;
+    }
+
+    /**
+     * Draws values with Floyd's algorithm, using an open-addressed hash set of offsets, then
+     * shuffles them.
+     */
+    private static long[] floyd(long lowerBound, long range, int quantity, RandomGenerator rng){
+        final int capacity = Integer.highestOneBit(Math.max(8, 2 * quantity - 1)) << 1;
+        final long[] keys = new long[capacity];
+        final boolean[] used = new boolean[capacity];
+        final long[] values = new long[quantity];
+        int i = 0;
+
+        for(long j = range - quantity; j != range; j++){
+            long offset = Random.nextLong(rng, 0, j);
+
+            if(!addToSet(keys, used, offset)){
+                offset = j;
+                addToSet(keys, used, offset);
+            }
+
+            values[i++] = lowerBound + offset;
+        }
+
+        shuffle(values, rng);
+
+        return values;
+    }
+
+    /**
+     * Adds an offset to an open-addressed hash set.
+     *
+     * @return {@code false} if the offset was already in the set.
+     */
+    private static boolean addToSet(long[] keys, boolean[] used, long offset){
+        final int mask = keys.length - 1;
+        // The table is a power of two in size, so its top hash bits pick a slot across all of it.
+        int slot = (int) ((offset * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(keys.length)));
+
+        while(used[slot]){
+            if(keys[slot] == offset){
+                return false;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        used[slot] = true;
+        keys[slot] = offset;
+
+        return true;
+    }
+
+    /**
+     * Draws values at random, rejecting any already drawn.
+     */
+    private static long[] bitmapRejection(long lowerBound, long range, int quantity, RandomGenerator rng){
+        final RoaringBitmap drawn = new RoaringBitmap();
+        final long[] values = new long[quantity];
+
+        for(int i = 0; i < quantity; i++){
+            long offset;
+            do{
+                offset = Random.nextLong(rng, 0, range - 1);
+            }while(!drawn.add((int) offset));
+
+            values[i] = lowerBound + offset;
+        }
+
+        return values;
+    }
+
+    /**
+     * Draws values in ascending order with a {@code SortedSampler}.
+     */
+    private static long[] methodD(long lowerBound, long upperBound, int quantity, RandomGenerator rng){
+        final long[] values = new long[quantity];
+
+        new SortedSampler(lowerBound, upperBound, quantity, rng).next(values, 0, quantity);
+
+        return values;
+    }
+
+    /**
+     * Draws values from the first positions of a {@code RangePermutation}.
+     */
+    private static long[] permutation(long lowerBound, long upperBound, int quantity, RandomGenerator rng){
+        final RangePermutation permutation = new RangePermutation(lowerBound, upperBound, rng);
+        final long[] values = new long[quantity];
+
+        for(int i = 0; i < quantity; i++){
+            values[i] = permutation.get(i);
+        }
+
+        return values;
+    }
+
+    /**
+     * Shuffles an array with the Fisher-Yates algorithm.
+     */
+    private static void shuffle(long[] values, RandomGenerator rng){
+        for(int i = values.length - 1; i > 0; i--){
+            final int r = rng.nextInt(i + 1);
+            final long t = values[r];
+
+            values[r] = values[i];
+            values[i] = t;
+        }
+    }
+
+    /**
+     * Converts an unsigned long to a double.
+     */
+    private static double unsignedToDouble(long value){
+        return (value >= 0) ? value : (value >>> 1) * 2.0;
+    }
+
+    /**
+     * Formats a density for a plan's reason, as a fraction of the range.
+     */
+    private static String formatDensity(double density){
+        return (density >= 0.01) ? String.format("%.2f", density) : String.format("%.2e", density);
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generates unique random numbers from a range in ascending order, one at a time.
+ *
+ * <p>Numbers are chosen with Vitter's Method D, which works out how many numbers of the range to
+ * skip before the next one chosen. Each number takes a constant expected time, and nothing is
+ * stored apart from the sampler's position, so any quantity can be streamed without being
+ * sorted or held in memory. When the quantity left is more than a thirteenth of the numbers left,
+ * the sampler switches to Vitter's simpler Method A, which is faster for dense samples.
+ *
+ * <p>Method D counts the range in doubles, which can only count every number up to 2^53. For
+ * larger ranges, the numbers are instead chosen with Floyd's algorithm and sorted up front.
+ */
+public class SortedSampler implements PrimitiveIterator.OfLong {
+    /**
+     * The largest range that Method D can sample from.
+     */
+    public static final long MAX_STREAMING_RANGE = 1L << 53;
+
+    /**
+     * Method D is used while the numbers left are more than this many times the quantity left.
+     */
+    private static final int METHOD_D_RATIO = 13;
+
+    private final RandomGenerator rng;
+    private final long lowerBound;
+
+    /**
+     * The offset from {@code lowerBound} of the last number chosen.
+     */
+    private long position = -1;
+
+    /**
+     * The number of numbers of the range after {@code position}.
+     */
+    private long remaining;
+
+    /**
+     * The quantity of numbers left to choose.
+     */
+    private long quantity;
+
+    /**
+     * Carries a uniform variate raised to the power of 1 / {@code quantity} between steps of Method D.
+     */
+    private double vPrime;
+
+    /**
+     * Whether the sampler has switched to Method A, which it uses for the rest of the sample.
+     */
+    private boolean methodA;
+
+    /**
+     * Holds the sample for ranges too large to stream, or {@code null} for other ranges.
+     */
+    private long[] sorted;
+    private int sortedIndex;
+
+    /**
+     * Creates a sampler for unique random numbers in ascending order.
+     *
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive).
+     * @param quantity The quantity of numbers to generate.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @throws IllegalArgumentException if {@code upperBound} is less than {@code lowerBound},
+     *                                  {@code quantity} is negative or greater than the number
+     *                                  of values in the range, or the range holds more than
+     *                                  {@code MAX_STREAMING_RANGE} values and {@code quantity}
+     *                                  is too large to hold in an array.
+     */
+    public SortedSampler(long lowerBound, long upperBound, long quantity, RandomGenerator rng){
+        if(upperBound < lowerBound){
+            throw new IllegalArgumentException("upperBound cannot be less than lowerBound.");
+        }
+
+        if(quantity < 0){
+            throw new IllegalArgumentException("quantity cannot be negative.");
+        }
+
+        // The size of the range as an unsigned number, where 0 represents all 2^64 values.
+        final long range = upperBound - lowerBound + 1;
+
+        if(range != 0 && Long.compareUnsigned(quantity, range) > 0){
+            throw new IllegalArgumentException("quantity cannot exceed the size of the range.");
+        }
+
+        this.rng = rng;
+        this.lowerBound = lowerBound;
+        this.quantity = quantity;
+
+        if(range == 0 || Long.compareUnsigned(range, MAX_STREAMING_RANGE) > 0){
+            if(quantity > Integer.MAX_VALUE - 8){
+                throw new IllegalArgumentException("quantity is too large to sample from this range.");
+            }
+
+            final List<Long> sample = Random.getUniqueRandomLongList(lowerBound, upperBound, (int) quantity, rng);
+            sorted = sample.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+        }else{
+            remaining = range;
+            vPrime = Math.exp(Math.log(ReservoirSampler.nextOpenDouble(rng)) / quantity);
+        }
+    }
+
+    /**
+     * Returns whether there are numbers left to generate.
+     *
+     * @return {@code true} if fewer than {@code quantity} numbers have been generated.
+     */
+    @Override
+    public boolean hasNext(){
+        return quantity > 0;
+    }
+
+    /**
+     * Returns the next number of the sample, which is greater than every number before it.
+     *
+     * @return The next number.
+     *
+     * @throws NoSuchElementException if every number has been generated.
+     */
+    @Override
+    public long nextLong(){
+        if(quantity == 0){
+            throw new NoSuchElementException();
+        }
+
+        if(sorted != null){
+            quantity--;
+            return sorted[sortedIndex++];
+        }
+
+        final long skip;
+
+        if(quantity == 1){
+            skip = rng.nextLong(remaining);
+        }else if(!methodA && remaining / METHOD_D_RATIO > quantity){
+            skip = skipMethodD();
+        }else{
+            methodA = true;
+            skip = skipMethodA();
+        }
+
+        position += skip + 1;
+        remaining -= skip + 1;
+        quantity--;
+
+        return lowerBound + position;
+    }
+
+    /**
+     * Fills an array with the next numbers of the sample.
+     *
+     * @param values The array to fill.
+     * @param offset The index in {@code values} to store the first number at.
+     * @param length The most numbers to generate.
+     *
+     * @return The quantity of numbers generated, which is less than {@code length} only once the
+     *         sample runs out.
+     */
+    public int next(long[] values, int offset, int length){
+        final int count = (int) Math.min(length, quantity);
+
+        for(int i = offset; i < offset + count; i++){
+            values[i] = nextLong();
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the number of numbers to skip before the next chosen, using Method A.
+     *
+     * <p>Each number is skipped with the probability that none of the quantity left is chosen
+     * from it, found by walking through the numbers one at a time.
+     */
+    private long skipMethodA(){
+        final double v = ReservoirSampler.nextOpenDouble(rng);
+        double top = remaining - quantity;
+        double left = remaining;
+        double quotient = top / left;
+        long skip = 0;
+
+        while(quotient > v){
+            skip++;
+            top--;
+            left--;
+            quotient *= top / left;
+        }
+
+        return skip;
+    }
+
+    /**
+     * Returns the number of numbers to skip before the next chosen, using Method D.
+     *
+     * <p>A skip is proposed from a continuous approximation to its distribution, and accepted by
+     * rejection. Most proposals are accepted by a cheap squeeze test, and the exact test, which
+     * takes time proportional to the skip, is only needed rarely.
+     */
+    private long skipMethodD(){
+        final double n = quantity;
+        final double bigN = remaining;
+        final double nInverse = 1 / n;
+        final double nMinus1Inverse = 1 / (n - 1);
+        final long qu1 = remaining - quantity + 1;
+        final double qu1Real = bigN - n + 1;
+
+        while(true){
+            double x;
+            long skip;
+
+            do{
+                x = bigN * (1 - vPrime);
+                skip = (long) x;
+
+                if(skip >= qu1){
+                    vPrime = Math.exp(Math.log(ReservoirSampler.nextOpenDouble(rng)) * nInverse);
+                }
+            }while(skip >= qu1);
+
+            final double u = ReservoirSampler.nextOpenDouble(rng);
+            final double y1 = Math.exp(Math.log(u * bigN / qu1Real) * nMinus1Inverse);
+
+            vPrime = y1 * (1 - x / bigN) * (qu1Real / (qu1Real - skip));
+
+            if(vPrime <= 1){
+                // The squeeze test passed, and vPrime can be used for the next step.
+                return skip;
+            }
+
+            double y2 = 1;
+            double top = bigN - 1;
+            double bottom;
+            final long limit;
+
+            if(quantity - 1 > skip){
+                bottom = bigN - n;
+                limit = remaining - skip;
+            }else{
+                bottom = bigN - skip - 1;
+                limit = qu1;
+            }
+
+            for(long t = remaining - 1; t >= limit; t--){
+                y2 = (y2 * top) / bottom;
+                top--;
+                bottom--;
+            }
+
+            if(bigN / (bigN - x) >= y1 * Math.exp(Math.log(y2) * nMinus1Inverse)){
+                vPrime = Math.exp(Math.log(ReservoirSampler.nextOpenDouble(rng)) * nMinus1Inverse);
+                return skip;
+            }
+
+            vPrime = Math.exp(Math.log(ReservoirSampler.nextOpenDouble(rng)) * nInverse);
+        }
+    }
+}
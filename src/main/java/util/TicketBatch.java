@@ -0,0 +1,349 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Provides static methods to draw many independent tickets at once, where each ticket is a set
+ * of unique numbers from the same range, as in a lottery.
+ *
+ * <p>Tickets are drawn in chunks of {@code CHUNK_SIZE}, in parallel. Each chunk has its own
+ * generator, seeded from the batch seed and the chunk's position, so a batch is the same for a
+ * given seed however many threads draw it. Each thread keeps its scratch buffers between tickets
+ * and between batches, so nothing is allocated per ticket.
+ *
+ * <p>For ranges of up to {@code POOL_SIZE} numbers, each ticket is drawn by a partial
+ * Fisher-Yates shuffle of a pool holding every offset in the range, which is undone afterwards so
+ * the pool can be reused. Larger ranges use Floyd's algorithm, with a hash table that is emptied
+ * by changing a stamp rather than by clearing it.
+ */
+public class TicketBatch {
+    /**
+     * The number of tickets drawn from each generator.
+     */
+    public static final int CHUNK_SIZE = 4096;
+
+    /**
+     * The largest range drawn from with a shuffled pool of offsets.
+     */
+    private static final int POOL_SIZE = 1 << 18;
+
+    /**
+     * Holds the scratch buffers of each thread.
+     */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private TicketBatch(){}
+
+    /**
+     * Draws a batch of tickets into a flat array.
+     *
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive).
+     * @param quantity The quantity of unique numbers on each ticket.
+     * @param tickets The number of tickets to draw.
+     * @param sorted Whether to sort the numbers on each ticket in ascending order.
+     * @param seed The seed to draw the batch from.
+     *
+     * @return An array of {@code tickets * quantity} numbers, in which ticket {@code t} takes up
+     *         positions {@code t * quantity} to {@code (t + 1) * quantity - 1}.
+     *
+     * @throws IllegalArgumentException if {@code quantity} is greater than the number of values in
+     *                                  the range, or the batch is too large to fit in an array.
+     */
+    public static int[] draw(int lowerBound, int upperBound, int quantity, int tickets, boolean sorted, long seed){
+        checkArguments(lowerBound, upperBound, quantity, tickets);
+
+        if((long) tickets * quantity > Integer.MAX_VALUE - 8){
+            throw new IllegalArgumentException("The batch is too large to fit in an array.");
+        }
+
+        final DrawEvent event = DrawEvent.start("drawTickets");
+
+        final int[] results = new int[tickets * quantity];
+        drawChunks(results, lowerBound, upperBound, quantity, 0, tickets, sorted, seed);
+
+        event.finish(tickets, (long) upperBound - lowerBound + 1, sorted ? "batch, sorted" : "batch");
+
+        return results;
+    }
+
+    /**
+     * Draws a batch of tickets and exports them to a file, with one ticket on each line.
+     *
+     * <p>Tickets are drawn in parallel a window at a time, and each window is written in order
+     * before the next is drawn, so only one window is held in memory. The file holds the same
+     * tickets that {@code draw} returns for the same seed.
+     *
+     * @param file The {@code Path} of the file.
+     * @param format The {@code FileFormat} to write the file in.
+     * @param lowerBound The lower-bound number of the range (inclusive).
+     * @param upperBound The upper-bound number of the range (inclusive).
+     * @param quantity The quantity of unique numbers on each ticket.
+     * @param tickets The number of tickets to draw.
+     * @param sorted Whether to sort the numbers on each ticket in ascending order.
+     * @param seed The seed to draw the batch from.
+     *
+     * @return The number of bytes written.
+     *
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if {@code quantity} is greater than the number of values in
+     *                                  the range.
+     */
+    public static long export(Path file, ItemImporter.FileFormat format, int lowerBound, int upperBound,
+                              int quantity, long tickets, boolean sorted, long seed) throws IOException{
+        checkArguments(lowerBound, upperBound, quantity, tickets);
+
+        final DrawEvent event = DrawEvent.start("exportTickets");
+
+        final int windowChunks = 4 * Runtime.getRuntime().availableProcessors();
+        final int windowTickets = (int) Math.min(tickets, (long) windowChunks * CHUNK_SIZE);
+        final int[] window = new int[windowTickets * quantity];
+
+        try(ResultExporter exporter = ResultExporter.open(file, format)){
+            for(long first = 0; first < tickets; first += windowTickets){
+                final int count = (int) Math.min(windowTickets, tickets - first);
+
+                drawChunks(window, lowerBound, upperBound, quantity, first, count, sorted, seed);
+
+                for(int i = 0; i < count * quantity; i += quantity){
+                    for(int j = i; j < i + quantity; j++){
+                        exporter.writeNumber(window[j]);
+                    }
+
+                    exporter.endRecord();
+                }
+            }
+
+            exporter.flush();
+            event.finish(tickets, exporter.size(), sorted ? "batch, sorted" : "batch");
+
+            return exporter.size();
+        }
+    }
+
+    /**
+     * Throws an {@code IllegalArgumentException} if the arguments of a batch are invalid.
+     */
+    private static void checkArguments(int lowerBound, int upperBound, int quantity, long tickets){
+        if(upperBound < lowerBound){
+            throw new IllegalArgumentException("upperBound cannot be less than lowerBound.");
+        }
+
+        if(quantity < 0 || tickets < 0){
+            throw new IllegalArgumentException("quantity and tickets cannot be negative.");
+        }
+
+        if(quantity > (long) upperBound - lowerBound + 1){
+            throw new IllegalArgumentException("quantity cannot exceed the size of the range.");
+        }
+    }
+
+    /**
+     * Draws a run of tickets into an array, in parallel.
+     *
+     * @param results The array to store the tickets in, starting from position 0.
+     * @param firstTicket The position of the first ticket in the batch, which must be a multiple
+     *                    of {@code CHUNK_SIZE}.
+     * @param count The number of tickets to draw.
+     */
+    private static void drawChunks(int[] results, int lowerBound, int upperBound, int quantity,
+                                   long firstTicket, int count, boolean sorted, long seed){
+        final int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        final long firstChunk = firstTicket / CHUNK_SIZE;
+        final long range = (long) upperBound - lowerBound + 1;
+
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            final SplittableRandom rng = new SplittableRandom(chunkSeed(seed, firstChunk + c));
+            final Scratch scratch = SCRATCH.get();
+            final int end = Math.min(count, (c + 1) * CHUNK_SIZE) * quantity;
+
+            scratch.ensureCapacity(range, quantity);
+
+            for(int offset = c * CHUNK_SIZE * quantity; offset < end; offset += quantity){
+                if(range <= POOL_SIZE){
+                    scratch.drawFromPool(rng, lowerBound, (int) range, results, offset, quantity);
+                }else{
+                    scratch.drawFloyd(rng, lowerBound, range, results, offset, quantity);
+                }
+
+                if(sorted){
+                    Arrays.sort(results, offset, offset + quantity);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the seed of a chunk, by mixing the batch seed with the chunk's position.
+     *
+     * <p>This is also used by {@code ParallelShuffle}, to seed each of its blocks.
+     */
+    static long chunkSeed(long seed, long chunk){
+        long z = seed + (chunk + 1) * 0x9E3779B97F4A7C15L;
+
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Holds the buffers one thread draws tickets with.
+     */
+    private static final class Scratch{
+        /**
+         * Holds every offset from 0 to its length - 1, in order, between tickets.
+         */
+        private int[] pool = new int[0];
+
+        /**
+         * Records the swaps made in {@code pool}, so they can be undone.
+         */
+        private int[] swaps = new int[0];
+
+        /**
+         * An open-addressed hash set of offsets. Slots whose stamp is not the current stamp are empty.
+         */
+        private long[] keys = new long[0];
+        private int[] stamps = new int[0];
+        private int stamp;
+
+        /**
+         * Grows the buffers needed to draw tickets from a range.
+         */
+        void ensureCapacity(long range, int quantity){
+            if(range <= POOL_SIZE){
+                if(pool.length < range){
+                    final int oldLength = pool.length;
+
+                    pool = Arrays.copyOf(pool, (int) range);
+                    for(int i = oldLength; i < pool.length; i++){
+                        pool[i] = i;
+                    }
+                }
+
+                if(swaps.length < quantity){
+                    swaps = new int[quantity];
+                }
+            }else if(keys.length < 2 * quantity){
+                final int capacity = Integer.highestOneBit(Math.max(16, 2 * quantity - 1)) << 1;
+
+                keys = new long[capacity];
+                stamps = new int[capacity];
+                stamp = 0;
+            }
+        }
+
+        /**
+         * Draws a ticket with a partial Fisher-Yates shuffle of the pool, then undoes the shuffle.
+         */
+        void drawFromPool(SplittableRandom rng, int lowerBound, int range, int[] results, int offset, int quantity){
+            for(int j = 0; j < quantity; j++){
+                final int r = j + rng.nextInt(range - j);
+                final int chosen = pool[r];
+
+                pool[r] = pool[j];
+                pool[j] = chosen;
+                swaps[j] = r;
+                results[offset + j] = lowerBound + chosen;
+            }
+
+            for(int j = quantity - 1; j >= 0; j--){
+                final int r = swaps[j];
+                final int t = pool[r];
+
+                pool[r] = pool[j];
+                pool[j] = t;
+            }
+        }
+
+        /**
+         * Draws a ticket with Floyd's algorithm, then shuffles it so that its order is random.
+         */
+        void drawFloyd(SplittableRandom rng, int lowerBound, long range, int[] results, int offset, int quantity){
+            if(++stamp == 0){
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+
+            int j = offset;
+
+            for(long n = range - quantity; n < range; n++){
+                long t = rng.nextLong(n + 1);
+
+                if(!add(t)){
+                    t = n;
+                    add(t);
+                }
+
+                results[j++] = (int) (lowerBound + t);
+            }
+
+            for(int i = quantity - 1; i > 0; i--){
+                final int r = offset + rng.nextInt(i + 1);
+                final int t = results[r];
+
+                results[r] = results[offset + i];
+                results[offset + i] = t;
+            }
+        }
+
+        /**
+         * Adds an offset to the hash set.
+         *
+         * @return {@code false} if the offset was already in the set.
+         */
+        private boolean add(long t){
+            final int mask = keys.length - 1;
+            // Take as many of the top hash bits as the table has slots for, so large tables fill evenly.
+            int slot = (int) ((t * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(keys.length)));
+
+            while(stamps[slot] == stamp){
+                if(keys[slot] == t){
+                    return false;
+                }
+
+                slot = (slot + 1) & mask;
+            }
+
+            stamps[slot] = stamp;
+            keys[slot] = t;
+
+            return true;
+        }
+    }
+}
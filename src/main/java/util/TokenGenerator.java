@@ -0,0 +1,457 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generates random strings, such as passwords and identifiers, of a fixed length from an alphabet
+ * of characters.
+ *
+ * <p>Rather than drawing a random number for every character, each 64-bit word from the generator
+ * is cut into as many fields as it holds, each just wide enough to index the alphabet. A field
+ * that is past the end of the alphabet is skipped, which keeps every character equally likely. An
+ * alphabet of 62 letters and digits takes 6 bits per character, so each word gives up to 10
+ * characters and fewer than 4% of fields are skipped.
+ *
+ * <p>Tokens are written into arrays supplied by the caller, so that generating many tokens need
+ * not allocate anything per token. A {@code TokenGenerator} holds no state besides its alphabet
+ * and length, so one instance can be shared between threads that each use their own generator.
+ */
+public class TokenGenerator {
+    /**
+     * The longest token that can be generated.
+     */
+    public static final int MAX_LENGTH = 4096;
+
+    /**
+     * The number of tokens generated at a time when generating lists or exporting.
+     */
+    private static final int BATCH_SIZE = 1024;
+
+    /**
+     * Represents a commonly used alphabet.
+     */
+    public enum Alphabet{
+        /**
+         * Represents upper- and lowercase letters and digits.
+         */
+        ALPHANUMERIC("Letters and digits", "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz"),
+
+        /**
+         * Represents lowercase letters and digits.
+         */
+        LOWERCASE_ALPHANUMERIC("Lowercase letters and digits", "0123456789abcdefghijklmnopqrstuvwxyz"),
+
+        /**
+         * Represents digits only.
+         */
+        DIGITS("Digits", "0123456789"),
+
+        /**
+         * Represents hexadecimal digits, in lowercase.
+         */
+        HEX("Hexadecimal", "0123456789abcdef"),
+
+        /**
+         * Represents the 64 characters of URL-safe Base64.
+         */
+        URL_SAFE("URL-safe", "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"),
+
+        /**
+         * Represents every printable ASCII character except the space.
+         */
+        PRINTABLE("All printable characters", printableAscii());
+
+        private final String name;
+        private final String characters;
+
+        Alphabet(String name, String characters){
+            this.name = name;
+            this.characters = characters;
+        }
+
+        /**
+         * Returns the characters of the alphabet.
+         *
+         * @return The characters of the alphabet.
+         */
+        public String getCharacters(){
+            return characters;
+        }
+
+        /**
+         * Returns the name of the alphabet.
+         *
+         * @return The name of the alphabet.
+         */
+        @Override
+        public String toString(){
+            return name;
+        }
+
+        private static String printableAscii(){
+            final StringBuilder b = new StringBuilder();
+
+            for(char c = '!'; c <= '~'; c++){
+                b.append(c);
+            }
+
+            return b.toString();
+        }
+    }
+
+    private final String alphabetString;
+    private final char[] alphabet;
+    private final byte[] asciiAlphabet;
+    private final int length;
+    private final int bits;
+    private final int mask;
+    private final int fieldsPerWord;
+
+    /**
+     * Creates a generator of tokens of a given length.
+     *
+     * @param alphabet The characters to make tokens from, each of which is equally likely.
+     * @param length The number of characters in each token.
+     *
+     * @throws NullPointerException if {@code alphabet} is null.
+     * @throws IllegalArgumentException if {@code alphabet} has fewer than 2 characters, repeats a
+     *                                  character, or contains half of a surrogate pair, or if
+     *                                  {@code length} is not between 1 and {@code MAX_LENGTH}.
+     */
+    public TokenGenerator(String alphabet, int length){
+        Objects.requireNonNull(alphabet, "alphabet cannot be null.");
+
+        if(length < 1 || length > MAX_LENGTH){
+            throw new IllegalArgumentException("length must be between 1 and " + MAX_LENGTH + ".");
+        }
+
+        if(alphabet.length() < 2){
+            throw new IllegalArgumentException("The alphabet must have at least 2 characters.");
+        }
+
+        boolean ascii = true;
+
+        for(int i = 0; i < alphabet.length(); i++){
+            final char c = alphabet.charAt(i);
+
+            if(Character.isSurrogate(c)){
+                throw new IllegalArgumentException("The alphabet cannot contain characters outside the Basic Multilingual Plane.");
+            }
+
+            if(alphabet.indexOf(c) != i){
+                throw new IllegalArgumentException("The alphabet cannot repeat the character '" + c + "'.");
+            }
+
+            ascii &= c < 0x80;
+        }
+
+        this.alphabetString = alphabet;
+        this.alphabet = alphabet.toCharArray();
+        this.asciiAlphabet = ascii ? alphabet.getBytes(StandardCharsets.US_ASCII) : null;
+        this.length = length;
+        this.bits = 32 - Integer.numberOfLeadingZeros(alphabet.length() - 1);
+        this.mask = (1 << bits) - 1;
+        this.fieldsPerWord = 64 / bits;
+    }
+
+    /**
+     * Generates a token into an array.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param dest The array to write the token to.
+     * @param offset The position in {@code dest} of the first character.
+     *
+     * @throws IndexOutOfBoundsException if the token does not fit in {@code dest}.
+     */
+    public void next(RandomGenerator rng, char[] dest, int offset){
+        fill(rng, dest, offset, 1);
+    }
+
+    /**
+     * Generates a token.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return A new token.
+     */
+    public String next(RandomGenerator rng){
+        final char[] token = new char[length];
+        fill(rng, token, 0, 1);
+
+        return new String(token);
+    }
+
+    /**
+     * Generates a list of tokens.
+     *
+     * <p>Tokens may repeat, although with a long enough token this is very unlikely.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param quantity The quantity of tokens to generate.
+     *
+     * @return A {@code List} of new tokens.
+     *
+     * @throws IllegalArgumentException if {@code quantity} is negative.
+     */
+    public List<String> next(RandomGenerator rng, int quantity){
+        if(quantity < 0){
+            throw new IllegalArgumentException("quantity cannot be negative.");
+        }
+
+        final List<String> tokens = new ArrayList<>(quantity);
+        final char[] buffer = new char[Math.min(quantity, BATCH_SIZE) * length];
+
+        for(int done = 0; done < quantity; ){
+            final int count = Math.min(BATCH_SIZE, quantity - done);
+
+            fill(rng, buffer, 0, count);
+
+            for(int i = 0; i < count; i++){
+                tokens.add(new String(buffer, i * length, length));
+            }
+
+            done += count;
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Generates tokens back to back into an array.
+     *
+     * <p>Random bits left over from one token are used for the next, so short tokens, such as
+     * PINs, are generated faster in bulk than one at a time.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param dest The array to write the tokens to.
+     * @param offset The position in {@code dest} of the first character of the first token.
+     * @param count The number of tokens to generate.
+     *
+     * @throws IndexOutOfBoundsException if the tokens do not fit in {@code dest}.
+     */
+    public void fill(RandomGenerator rng, char[] dest, int offset, int count){
+        final int end = offset + checkRange(dest.length, offset, count);
+        final int size = alphabet.length;
+        int i = offset;
+
+        while(i < end){
+            long word = rng.nextLong();
+
+            for(int f = fieldsPerWord; f > 0 && i < end; f--){
+                final int index = (int) word & mask;
+                word >>>= bits;
+
+                if(index < size){
+                    dest[i++] = alphabet[index];
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates tokens back to back into an array of ASCII bytes.
+     *
+     * @param rng The {@code RandomGenerator} to draw from.
+     * @param dest The array to write the tokens to.
+     * @param offset The position in {@code dest} of the first character of the first token.
+     * @param count The number of tokens to generate.
+     *
+     * @throws IllegalStateException if the alphabet is not entirely ASCII.
+     * @throws IndexOutOfBoundsException if the tokens do not fit in {@code dest}.
+     */
+    public void fill(RandomGenerator rng, byte[] dest, int offset, int count){
+        if(asciiAlphabet == null){
+            throw new IllegalStateException("Only tokens of ASCII characters can be written as bytes.");
+        }
+
+        final int end = offset + checkRange(dest.length, offset, count);
+        final int size = asciiAlphabet.length;
+        int i = offset;
+
+        while(i < end){
+            long word = rng.nextLong();
+
+            for(int f = fieldsPerWord; f > 0 && i < end; f--){
+                final int index = (int) word & mask;
+                word >>>= bits;
+
+                if(index < size){
+                    dest[i++] = asciiAlphabet[index];
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates tokens and exports them to a file, with one token on each line.
+     *
+     * <p>Tokens are generated a batch at a time into a single reused buffer, so any quantity can
+     * be exported without the tokens being held in memory.
+     *
+     * @param file The {@code Path} of the file.
+     * @param format The {@code FileFormat} to write the file in.
+     * @param quantity The quantity of tokens to export.
+     * @param rng The {@code RandomGenerator} to draw from.
+     *
+     * @return The number of bytes written.
+     *
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if {@code quantity} is negative.
+     */
+    public long export(Path file, ItemImporter.FileFormat format, long quantity, RandomGenerator rng) throws IOException{
+        if(quantity < 0){
+            throw new IllegalArgumentException("quantity cannot be negative.");
+        }
+
+        final DrawEvent event = DrawEvent.start("exportTokens");
+
+        final int batch = (int) Math.min(quantity, BATCH_SIZE);
+        final char[] buffer = new char[batch * length];
+        final CharBuffer[] tokens = new CharBuffer[batch];
+
+        for(int i = 0; i < batch; i++){
+            tokens[i] = CharBuffer.wrap(buffer, i * length, length).slice();
+        }
+
+        try(ResultExporter exporter = ResultExporter.open(file, format)){
+            for(long done = 0; done < quantity; ){
+                final int count = (int) Math.min(batch, quantity - done);
+
+                fill(rng, buffer, 0, count);
+
+                for(int i = 0; i < count; i++){
+                    exporter.writeItem(tokens[i]).endRecord();
+                }
+
+                done += count;
+            }
+
+            exporter.flush();
+            event.finish(quantity, exporter.size(), "tokens of " + length);
+
+            return exporter.size();
+        }
+    }
+
+    /**
+     * Returns the number of bits of entropy in each token, which is how many bits a guesser who
+     * knows the alphabet and length would have to guess.
+     *
+     * @return {@code length * log2(alphabet size)}.
+     */
+    public double getEntropyBits(){
+        return length * Math.log(alphabet.length) / Math.log(2);
+    }
+
+    /**
+     * Returns the characters that tokens are made from.
+     *
+     * @return The alphabet.
+     */
+    public String getAlphabet(){
+        return alphabetString;
+    }
+
+    /**
+     * Returns the number of characters in each token.
+     *
+     * @return The length of each token.
+     */
+    public int getLength(){
+        return length;
+    }
+
+    /**
+     * Creates a cryptographically secure generator suited to generating many tokens.
+     *
+     * <p>Every call to {@code SecureRandom.nextLong} goes through a synchronized call into the
+     * underlying source. The returned generator instead fetches secure random bytes a block at a
+     * time, and hands them out as words. It must not be shared between threads.
+     *
+     * @return A new {@code RandomGenerator} backed by {@code SecureRandom}.
+     */
+    public static RandomGenerator newSecureGenerator(){
+        return new BufferedSecureRandom(new SecureRandom());
+    }
+
+    /**
+     * Checks that {@code count} tokens fit into an array from {@code offset}.
+     *
+     * @return The number of characters in the tokens.
+     */
+    private int checkRange(int arrayLength, int offset, int count){
+        if(count < 0){
+            throw new IllegalArgumentException("count cannot be negative.");
+        }
+
+        final long chars = (long) count * length;
+        Objects.checkFromIndexSize(offset, chars, arrayLength);
+
+        return (int) chars;
+    }
+
+    /**
+     * Hands out words from blocks of bytes fetched from a {@code SecureRandom}.
+     */
+    private static class BufferedSecureRandom implements RandomGenerator {
+        private static final int BLOCK_SIZE = 4096;
+
+        private final SecureRandom source;
+        private final byte[] block = new byte[BLOCK_SIZE];
+        private final ByteBuffer words = ByteBuffer.wrap(block);
+
+        BufferedSecureRandom(SecureRandom source){
+            this.source = source;
+            words.position(BLOCK_SIZE);
+        }
+
+        @Override
+        public long nextLong(){
+            if(!words.hasRemaining()){
+                source.nextBytes(block);
+                words.clear();
+            }
+
+            return words.getLong();
+        }
+    }
+}
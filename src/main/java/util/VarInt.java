@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Provides static methods to read and write variable-length integers.
+ *
+ * <p>Each byte holds 7 bits of the value, least significant first, with the high bit set on every
+ * byte except the last. Signed values are zigzag encoded first, so that numbers close to zero
+ * take a single byte whatever their sign.
+ */
+final class VarInt {
+    /**
+     * The largest number of bytes a varint-encoded long can take.
+     */
+    static final int MAX_LONG_BYTES = 10;
+
+    private VarInt(){}
+
+    /**
+     * Writes an unsigned varint.
+     *
+     * @param buffer The {@code ByteBuffer} to write to.
+     * @param value The value to write, treated as unsigned.
+     */
+    static void putUnsigned(ByteBuffer buffer, long value){
+        while((value & ~0x7FL) != 0){
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes a signed, zigzag-encoded varint.
+     *
+     * @param buffer The {@code ByteBuffer} to write to.
+     * @param value The value to write.
+     */
+    static void putSigned(ByteBuffer buffer, long value){
+        putUnsigned(buffer, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Reads an unsigned varint.
+     *
+     * @param buffer The {@code ByteBuffer} to read from.
+     *
+     * @return The value read.
+     */
+    static long getUnsigned(ByteBuffer buffer){
+        long value = 0;
+        int shift = 0;
+        byte b;
+
+        do{
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        }while(b < 0);
+
+        return value;
+    }
+
+    /**
+     * Reads a signed, zigzag-encoded varint.
+     *
+     * @param buffer The {@code ByteBuffer} to read from.
+     *
+     * @return The value read.
+     */
+    static long getSigned(ByteBuffer buffer){
+        final long value = getUnsigned(buffer);
+
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Returns the number of bytes needed to write a value as an unsigned varint.
+     *
+     * @param value The value, treated as unsigned.
+     *
+     * @return The number of bytes needed.
+     */
+    static int unsignedLength(long value){
+        return Math.max(1, (Long.SIZE - Long.numberOfLeadingZeros(value) + 6) / 7);
+    }
+
+    /**
+     * Returns the number of bytes needed to write a value as a signed varint.
+     *
+     * @param value The value.
+     *
+     * @return The number of bytes needed.
+     */
+    static int signedLength(long value){
+        return unsignedLength((value << 1) ^ (value >> 63));
+    }
+}
@@ -0,0 +1,524 @@
+/*
+ * Copyright (c) 2021. Calum Pairman.
+ *
+ * Randomiser (the "Software") is free for use in any environment, including
+ * but not necessarily limited to: personal, academic, commercial, government,
+ * business, non-profit, and for-profit. "Free" in the preceding sentence means
+ * that there is no cost or charge associated with the installation and use of
+ * the Software.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of the Software, to use the Software without restriction, including the
+ * rights to use, copy, publish, and distribute the Software, and to permit
+ * persons to whom the Software is furnished to do so.
+ *
+ * You may not modify, adapt, rent, lease, loan, sell, or create derivative
+ * works based upon the Software or any part thereof.
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ *
+ */
+
+package main.java.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+/**
+ * Provides static methods to put weighted items in a random order, or to select unique items
+ * with weights, using the exponential keys of Efraimidis and Spirakis.
+ *
+ * <p>Each item is given the key {@code E / w}, where {@code E} is an exponential variate and
+ * {@code w} is the item's weight. Sorting the items by key gives a weighted random order, in
+ * which each position is filled with probability proportional to weight from the items not yet
+ * placed, and the {@code k} smallest keys are a weighted selection of {@code k} unique items.
+ *
+ * <p>Keys are drawn in blocks of {@code BLOCK_SIZE} items, in parallel. Each block has its own
+ * generator, seeded from the draw seed and the block's position, so every item's key depends
+ * only on the seed. A selection is therefore the same however many threads draw it, and is the
+ * start of the order drawn with the same seed.
+ *
+ * <p>Items selected with replacement need no keys: each is found by a binary search of the
+ * running totals of the weights.
+ */
+public class WeightedSampler {
+    /**
+     * The number of items whose keys are drawn from each generator.
+     */
+    public static final int BLOCK_SIZE = 1 << 14;
+
+    /**
+     * The largest run of items sorted by a single thread.
+     */
+    private static final int SEQUENTIAL_SORT_SIZE = 1 << 13;
+
+    /**
+     * The largest run of items sorted by insertion.
+     */
+    private static final int INSERTION_SORT_SIZE = 32;
+
+    private WeightedSampler(){}
+
+    /**
+     * Puts the positions of weighted items in a weighted random order.
+     *
+     * <p>All keys are drawn, then sorted with a parallel merge sort, in {@code O(n log n)} time.
+     *
+     * @param weights The weight of each item.
+     * @param seed The seed to draw the keys from.
+     *
+     * @return The position of each item, in weighted random order.
+     *
+     * @throws IllegalArgumentException if any weight is not a positive, finite number.
+     */
+    public static int[] order(double[] weights, long seed){
+        checkWeights(weights);
+
+        final int n = weights.length;
+        final double[] keys = new double[n];
+        final int[] indices = new int[n];
+
+        IntStream.range(0, blockCount(n)).parallel().forEach(block -> {
+            final SplittableRandom rng = new SplittableRandom(TicketBatch.chunkSeed(seed, block));
+
+            for(int i = block * BLOCK_SIZE, end = Math.min(n, i + BLOCK_SIZE); i < end; i++){
+                keys[i] = nextKey(rng, weights[i]);
+                indices[i] = i;
+            }
+        });
+
+        ForkJoinPool.commonPool().invoke(new KeySort(keys, indices, new double[n], new int[n], 0, n));
+
+        return indices;
+    }
+
+    /**
+     * Selects the positions of unique, weighted items.
+     *
+     * <p>Each block keeps the {@code quantity} smallest of its keys in a bounded heap, and the
+     * blocks' heaps are then merged, in {@code O(n log k)} time. If most of the items are
+     * selected, all of them are ordered instead.
+     *
+     * @param weights The weight of each item.
+     * @param quantity The number of items to select.
+     * @param seed The seed to draw the keys from.
+     *
+     * @return The positions of the selected items, in weighted random order.
+     *
+     * @throws IllegalArgumentException if any weight is not a positive, finite number, or
+     *                                  {@code quantity} is negative or greater than the number of items.
+     */
+    public static int[] select(double[] weights, int quantity, long seed){
+        checkWeights(weights);
+
+        final int n = weights.length;
+
+        if(quantity < 0 || quantity > n){
+            throw new IllegalArgumentException("quantity must be between 0 and the number of items.");
+        }else if(quantity >= n / 2){
+            return Arrays.copyOf(order(weights, seed), quantity);
+        }
+
+        final KeyHeap[] heaps = new KeyHeap[blockCount(n)];
+
+        IntStream.range(0, heaps.length).parallel().forEach(block -> {
+            final SplittableRandom rng = new SplittableRandom(TicketBatch.chunkSeed(seed, block));
+            final KeyHeap heap = new KeyHeap(quantity);
+
+            for(int i = block * BLOCK_SIZE, end = Math.min(n, i + BLOCK_SIZE); i < end; i++){
+                heap.offer(nextKey(rng, weights[i]), i);
+            }
+
+            heaps[block] = heap;
+        });
+
+        final KeyHeap merged = new KeyHeap(quantity);
+
+        for(KeyHeap heap : heaps){
+            for(int i = 0; i < heap.size; i++){
+                merged.offer(heap.keys[i], heap.indices[i]);
+            }
+        }
+
+        return merged.drain();
+    }
+
+    /**
+     * Selects the positions of weighted items with replacement, so that an item may be selected
+     * more than once.
+     *
+     * <p>Each selection is made with probability proportional to weight from every item. The
+     * weights are totalled once, and each selection is a binary search of the running totals, in
+     * {@code O(n + k log n)} time.
+     *
+     * @param weights The weight of each item.
+     * @param quantity The number of items to select.
+     * @param seed The seed to select items with.
+     *
+     * @return The positions of the selected items, in the order they were selected.
+     *
+     * @throws IllegalArgumentException if any weight is not a positive, finite number, or
+     *                                  {@code quantity} is negative, or positive when there are
+     *                                  no items.
+     */
+    public static int[] sample(double[] weights, int quantity, long seed){
+        checkWeights(weights);
+
+        final int n = weights.length;
+
+        if(quantity < 0 || (quantity > 0 && n == 0)){
+            throw new IllegalArgumentException("quantity must be at least 0, and there must be items to select from.");
+        }
+
+        final double[] totals = new double[n];
+        double total = 0;
+
+        for(int i = 0; i < n; i++){
+            total += weights[i];
+            totals[i] = total;
+        }
+
+        final SplittableRandom rng = new SplittableRandom(seed);
+        final int[] indices = new int[quantity];
+
+        for(int j = 0; j < quantity; j++){
+            final double target = rng.nextDouble() * total;
+            int low = 0;
+            int high = n - 1;
+
+            // Find the first item whose running total is above the target.
+            while(low < high){
+                final int mid = (low + high) >>> 1;
+
+                if(totals[mid] > target){
+                    high = mid;
+                }else{
+                    low = mid + 1;
+                }
+            }
+
+            indices[j] = low;
+        }
+
+        return indices;
+    }
+
+    /**
+     * Puts weighted items in a weighted random order.
+     *
+     * @param items The {@code List} of items.
+     * @param weights The weight of each item.
+     * @param seed The seed to draw the keys from.
+     *
+     * @return A new {@code List} of the items, in weighted random order.
+     *
+     * @throws IllegalArgumentException if {@code weights} is not the same length as {@code items},
+     *                                  or any weight is not a positive, finite number.
+     */
+    public static <T> List<T> shuffle(List<T> items, double[] weights, long seed){
+        final DrawEvent event = DrawEvent.start("weightedShuffle");
+
+        checkLength(items, weights);
+        final List<T> shuffled = pick(items, order(weights, seed));
+
+        event.finish(shuffled.size(), items.size(), "exponential keys, merge sort");
+
+        return shuffled;
+    }
+
+    /**
+     * Selects unique, weighted items.
+     *
+     * @param items The {@code List} of items.
+     * @param weights The weight of each item.
+     * @param quantity The number of items to select.
+     * @param seed The seed to draw the keys from.
+     *
+     * @return A new {@code List} of the selected items, in weighted random order.
+     *
+     * @throws IllegalArgumentException if {@code weights} is not the same length as {@code items},
+     *                                  any weight is not a positive, finite number, or
+     *                                  {@code quantity} is negative or greater than the number of items.
+     */
+    public static <T> List<T> select(List<T> items, double[] weights, int quantity, long seed){
+        final DrawEvent event = DrawEvent.start("weightedSelect");
+
+        checkLength(items, weights);
+        final List<T> selected = pick(items, select(weights, quantity, seed));
+
+        event.finish(selected.size(), items.size(), "exponential keys, bounded heap");
+
+        return selected;
+    }
+
+    /**
+     * Selects weighted items with replacement, so that an item may be selected more than once.
+     *
+     * @param items The {@code List} of items.
+     * @param weights The weight of each item.
+     * @param quantity The number of items to select.
+     * @param seed The seed to select items with.
+     *
+     * @return A new {@code List} of the selected items, in the order they were selected.
+     *
+     * @throws IllegalArgumentException if {@code weights} is not the same length as {@code items},
+     *                                  any weight is not a positive, finite number, or
+     *                                  {@code quantity} is negative.
+     */
+    public static <T> List<T> sample(List<T> items, double[] weights, int quantity, long seed){
+        final DrawEvent event = DrawEvent.start("weightedSample");
+
+        checkLength(items, weights);
+        final List<T> selected = items.isEmpty() ? new ArrayList<>() : pick(items, sample(weights, quantity, seed));
+
+        event.finish(selected.size(), items.size(), "running totals, binary search");
+
+        return selected;
+    }
+
+    /**
+     * Returns the items at the given positions of a list.
+     */
+    private static <T> List<T> pick(List<T> items, int[] indices){
+        final List<T> picked = new ArrayList<>(indices.length);
+
+        for(int index : indices){
+            picked.add(items.get(index));
+        }
+
+        return picked;
+    }
+
+    /**
+     * Returns the key of an item with the given weight.
+     */
+    private static double nextKey(SplittableRandom rng, double weight){
+        return -Math.log(ReservoirSampler.nextOpenDouble(rng)) / weight;
+    }
+
+    /**
+     * Returns the number of blocks that a number of items is split into.
+     */
+    private static int blockCount(int n){
+        return (n + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    /**
+     * Checks that every weight is a positive, finite number.
+     */
+    private static void checkWeights(double[] weights){
+        for(double weight : weights){
+            if(!(weight > 0) || Double.isInfinite(weight)){
+                throw new IllegalArgumentException("Weights must be positive, finite numbers.");
+            }
+        }
+    }
+
+    /**
+     * Checks that there is a weight for each item.
+     */
+    private static void checkLength(List<?> items, double[] weights){
+        if(items.size() != weights.length){
+            throw new IllegalArgumentException("There must be one weight for each item.");
+        }
+    }
+
+    /**
+     * Keeps the smallest keys offered to it, and the positions they belong to, in a max-heap
+     * held in two parallel arrays.
+     */
+    private static final class KeyHeap{
+        private final double[] keys;
+        private final int[] indices;
+        private int size;
+
+        private KeyHeap(int capacity){
+            keys = new double[capacity];
+            indices = new int[capacity];
+        }
+
+        /**
+         * Adds a key if the heap is not full, or if it is smaller than the largest key,
+         * which it then replaces.
+         */
+        private void offer(double key, int index){
+            if(size < keys.length){
+                int child = size++;
+
+                while(child > 0){
+                    final int parent = (child - 1) >>> 1;
+
+                    if(keys[parent] >= key){
+                        break;
+                    }
+
+                    keys[child] = keys[parent];
+                    indices[child] = indices[parent];
+                    child = parent;
+                }
+
+                keys[child] = key;
+                indices[child] = index;
+            }else if(size > 0 && key < keys[0]){
+                siftDown(key, index, size);
+            }
+        }
+
+        /**
+         * Places a key at the root, and moves it down until the heap is in order.
+         */
+        private void siftDown(double key, int index, int heapSize){
+            int parent = 0;
+
+            while(true){
+                int child = 2 * parent + 1;
+
+                if(child >= heapSize){
+                    break;
+                }else if(child + 1 < heapSize && keys[child + 1] > keys[child]){
+                    child++;
+                }
+
+                if(keys[child] <= key){
+                    break;
+                }
+
+                keys[parent] = keys[child];
+                indices[parent] = indices[child];
+                parent = child;
+            }
+
+            keys[parent] = key;
+            indices[parent] = index;
+        }
+
+        /**
+         * Empties the heap, returning the positions of its keys from smallest to largest.
+         */
+        private int[] drain(){
+            final int[] sorted = new int[size];
+
+            for(int last = size - 1; last >= 0; last--){
+                sorted[last] = indices[0];
+                siftDown(keys[last], indices[last], last);
+            }
+
+            size = 0;
+
+            return sorted;
+        }
+    }
+
+    /**
+     * Sorts keys into ascending order with a merge sort, moving the position of each key with it.
+     * Halves larger than {@code SEQUENTIAL_SORT_SIZE} are sorted in parallel.
+     */
+    private static final class KeySort extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+
+        private final double[] keys;
+        private final int[] indices;
+        private final double[] keyBuffer;
+        private final int[] indexBuffer;
+        private final int from;
+        private final int to;
+
+        private KeySort(double[] keys, int[] indices, double[] keyBuffer, int[] indexBuffer, int from, int to){
+            this.keys = keys;
+            this.indices = indices;
+            this.keyBuffer = keyBuffer;
+            this.indexBuffer = indexBuffer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute(){
+            if(to - from <= SEQUENTIAL_SORT_SIZE){
+                sort(from, to);
+                return;
+            }
+
+            final int mid = (from + to) >>> 1;
+
+            invokeAll(new KeySort(keys, indices, keyBuffer, indexBuffer, from, mid),
+                    new KeySort(keys, indices, keyBuffer, indexBuffer, mid, to));
+            merge(from, mid, to);
+        }
+
+        /**
+         * Sorts a run on the current thread.
+         */
+        private void sort(int from, int to){
+            if(to - from <= INSERTION_SORT_SIZE){
+                for(int i = from + 1; i < to; i++){
+                    final double key = keys[i];
+                    final int index = indices[i];
+                    int j = i - 1;
+
+                    while(j >= from && keys[j] > key){
+                        keys[j + 1] = keys[j];
+                        indices[j + 1] = indices[j];
+                        j--;
+                    }
+
+                    keys[j + 1] = key;
+                    indices[j + 1] = index;
+                }
+
+                return;
+            }
+
+            final int mid = (from + to) >>> 1;
+
+            sort(from, mid);
+            sort(mid, to);
+            merge(from, mid, to);
+        }
+
+        /**
+         * Merges two adjacent sorted runs, keeping equal keys in their original order.
+         */
+        private void merge(int from, int mid, int to){
+            if(keys[mid - 1] <= keys[mid]){
+                return;
+            }
+
+            System.arraycopy(keys, from, keyBuffer, from, mid - from);
+            System.arraycopy(indices, from, indexBuffer, from, mid - from);
+
+            int left = from;
+            int right = mid;
+            int out = from;
+
+            while(left < mid && right < to){
+                if(keys[right] < keyBuffer[left]){
+                    keys[out] = keys[right];
+                    indices[out++] = indices[right++];
+                }else{
+                    keys[out] = keyBuffer[left];
+                    indices[out++] = indexBuffer[left++];
+                }
+            }
+
+            while(left < mid){
+                keys[out] = keyBuffer[left];
+                indices[out++] = indexBuffer[left++];
+            }
+        }
+    }
+}